@@ -29,8 +29,6 @@
 
 -dontwarn com.caverock.androidsvg.**
 
--dontwarn com.opencsv.**
-
 -keep class io.codetail.animation.arcanimator.** { *; }
 
 # If your project uses WebView with JS, uncomment the following
@@ -0,0 +1,113 @@
+package com.aricneto.twistytimer.database;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import com.aricneto.twistytimer.items.Solve;
+import com.aricneto.twistytimer.utils.PuzzleUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures insert latency, stats query latency and import throughput of the times database
+ * under every {@link StorageProfile}. Runs on the device's own SQLite with a fixed seed, so
+ * results are comparable between runs on the same device:
+ *
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.aricneto.twistytimer.database.StorageBenchmark
+ *
+ * Results are logged under the "StorageBenchmark" tag.
+ */
+public class StorageBenchmark extends AndroidTestCase {
+
+    private static final String TAG = "StorageBenchmark";
+
+    private static final long SEED          = 42L;
+    private static final int  INSERTS       = 2000;
+    private static final int  IMPORTS       = 5000;
+    private static final int  STATS_REPEATS = 20;
+
+    private static final String PUZZLE  = PuzzleUtils.TYPE_333;
+    private static final String SUBTYPE = "Normal";
+
+    public void testAllProfiles() {
+        for (StorageProfile profile : StorageProfile.ALL) {
+            benchmark(profile);
+        }
+    }
+
+    private void benchmark(StorageProfile profile) {
+        Context context = getContext();
+        String databaseName = "storage_benchmark_" + profile.getName();
+        context.deleteDatabase(databaseName);
+
+        DatabaseHandler handler = new DatabaseHandler(context, databaseName, profile);
+        Random random = new Random(SEED);
+
+        try {
+            // Single inserts, one transaction each, like the timer does after every solve
+            long[] insertNanos = new long[INSERTS];
+            for (int i = 0; i < INSERTS; i++) {
+                Solve solve = randomSolve(random, i, false);
+                long start = System.nanoTime();
+                handler.addSolve(solve);
+                insertNanos[i] = System.nanoTime() - start;
+            }
+
+            // The queries the timer and the stats tab run after every solve
+            long statsStart = System.nanoTime();
+            for (int i = 0; i < STATS_REPEATS; i++) {
+                handler.getTruncatedAverageOf(5, PUZZLE, SUBTYPE, true);
+                handler.getTruncatedAverageOf(12, PUZZLE, SUBTYPE, true);
+                handler.getTruncatedAverageOf(100, PUZZLE, SUBTYPE, false);
+                handler.getBestAverageOf(12, PUZZLE, SUBTYPE, true);
+                handler.getMean(true, PUZZLE, SUBTYPE);
+                handler.getBestOrWorstTime(true, false, PUZZLE, SUBTYPE);
+                handler.getSolveCount(PUZZLE, SUBTYPE, true);
+            }
+            long statsNanos = (System.nanoTime() - statsStart) / STATS_REPEATS;
+
+            // The import path: an insert that skips duplicates, for every row in the file
+            long importStart = System.nanoTime();
+            for (int i = 0; i < IMPORTS; i++) {
+                handler.importSolve(randomSolve(random, INSERTS + i, true));
+            }
+            long importNanos = System.nanoTime() - importStart;
+
+            assertEquals(INSERTS + IMPORTS, handler.getSolveCount(PUZZLE, SUBTYPE, false));
+
+            // Importing the same rows again must not add anything
+            Random replay = new Random(SEED);
+            for (int i = 0; i < INSERTS; i++) {
+                assertFalse(handler.importSolve(randomSolve(replay, i, false)));
+            }
+            assertEquals(INSERTS + IMPORTS, handler.getSolveCount(PUZZLE, SUBTYPE, false));
+
+            Arrays.sort(insertNanos);
+            Log.i(TAG, profile.toString());
+            Log.i(TAG, String.format("  insert:  p50 %.3f ms, p95 %.3f ms",
+                insertNanos[INSERTS / 2] / 1e6, insertNanos[INSERTS * 95 / 100] / 1e6));
+            Log.i(TAG, String.format("  stats:   %.3f ms per refresh", statsNanos / 1e6));
+            Log.i(TAG, String.format("  import:  %.0f solves/s", IMPORTS / (importNanos / 1e9)));
+        } finally {
+            handler.close();
+            context.deleteDatabase(databaseName);
+        }
+    }
+
+    private static Solve randomSolve(Random random, int index, boolean history) {
+        int penalty;
+        int roll = random.nextInt(100);
+        if (roll < 3)
+            penalty = PuzzleUtils.PENALTY_DNF;
+        else if (roll < 8)
+            penalty = PuzzleUtils.PENALTY_PLUSTWO;
+        else
+            penalty = PuzzleUtils.NO_PENALTY;
+
+        return new Solve(8000 + random.nextInt(12000), PUZZLE, SUBTYPE,
+            1451606400000L + index * 60000L, "R U R' U' R' F R2 U' R' U' R U R' F'",
+            penalty, "", history);
+    }
+}
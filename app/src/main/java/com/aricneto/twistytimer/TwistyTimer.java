@@ -3,16 +3,73 @@ package com.aricneto.twistytimer;/**
  */
 
 import android.app.Application;
+import android.util.Log;
+
+import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.diagnostics.Latency;
+import com.aricneto.twistytimer.solver.SolverTables;
+import com.aricneto.twistytimer.solver.TipCache;
 
 import net.danlew.android.joda.JodaTimeAndroid;
 
+import java.io.File;
+
 public class TwistyTimer extends Application {
-    
+
+    /**
+     * The single database handler shared by the whole process. Activities, fragments, dialogs and
+     * loaders must use this instance instead of creating their own, and must never close it: the
+     * connection lives for as long as the application does.
+     */
+    private static DatabaseHandler sDBHandler;
+
+    /**
+     * The tips already computed, shared by the timer and the solve details.
+     */
+    private static TipCache sTipCache;
+
     @Override
     public void onCreate() {
         super.onCreate();
         JodaTimeAndroid.init(this);
+        Latency.init(this);
+        sDBHandler = new DatabaseHandler(this);
+        sTipCache = new TipCache(new File(getCacheDir(), "tips"));
+        SolverTables.setDirectory(new File(getCacheDir(), "tables"));
         //LeakCanary.install(this);
     }
 
+    /**
+     * Drops the solver tables when memory runs low while the app is in use (RUNNING_LOW and
+     * RUNNING_CRITICAL) or once the app is in the background (BACKGROUND and up). They take a few
+     * MB, and the next tip builds them again. UI_HIDDEN alone keeps them, so switching away from
+     * the app for a moment doesn't cost a rebuild.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_RUNNING_CRITICAL
+                || level >= TRIM_MEMORY_BACKGROUND) {
+            long released = SolverTables.release();
+            if (released > 0)
+                Log.d("SolverTables", "Released " + released / 1024 + " KB");
+        }
+    }
+
+    /**
+     * Gets the application-wide database handler.
+     *
+     * @return The shared {@link DatabaseHandler}.
+     */
+    public static DatabaseHandler getDBHandler() {
+        return sDBHandler;
+    }
+
+    /**
+     * Gets the application-wide tip cache.
+     */
+    public static TipCache getTipCache() {
+        return sTipCache;
+    }
+
 }
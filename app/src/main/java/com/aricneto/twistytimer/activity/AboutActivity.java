@@ -111,5 +111,14 @@ public class AboutActivity extends AppCompatActivity {
         sourceButton.setOnClickListener(clickListener);
         translatorsButton.setOnClickListener(clickListener);
 
+        // Hidden entry to the diagnostics screen
+        appVersion.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View view) {
+                startActivity(new Intent(activity, DiagnosticsActivity.class));
+                return true;
+            }
+        });
+
     }
 }
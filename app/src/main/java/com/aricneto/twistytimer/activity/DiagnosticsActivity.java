@@ -0,0 +1,128 @@
+package com.aricneto.twistytimer.activity;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.os.Environment;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.SwitchCompat;
+import android.support.v7.widget.Toolbar;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.CompoundButton;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.diagnostics.Latency;
+import com.aricneto.twistytimer.diagnostics.LatencyHistogram;
+
+import org.joda.time.DateTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import butterknife.Bind;
+import butterknife.ButterKnife;
+
+/**
+ * Hidden screen showing the latencies recorded by {@link Latency}. Opened by long-pressing the
+ * version number in the about screen.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    @Bind(R.id.actionbar)          Toolbar      mToolbar;
+    @Bind(R.id.diagnosticsEnabled) SwitchCompat enabledSwitch;
+    @Bind(R.id.diagnosticsRefresh) Button       refreshButton;
+    @Bind(R.id.diagnosticsReset)   Button       resetButton;
+    @Bind(R.id.diagnosticsDump)    Button       dumpButton;
+    @Bind(R.id.diagnosticsTable)   TextView     tableText;
+
+    View.OnClickListener clickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View view) {
+            switch (view.getId()) {
+                case R.id.diagnosticsRefresh:
+                    showTable();
+                    break;
+                case R.id.diagnosticsReset:
+                    Latency.reset();
+                    showTable();
+                    break;
+                case R.id.diagnosticsDump:
+                    dump();
+                    break;
+            }
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+        ButterKnife.bind(this);
+        setSupportActionBar(mToolbar);
+        mToolbar.setTitle(R.string.title_activity_diagnostics);
+        mToolbar.setTitleTextColor(Color.WHITE);
+        mToolbar.setNavigationIcon(R.drawable.ic_action_arrow_back_white_24);
+        mToolbar.setNavigationOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                onBackPressed();
+            }
+        });
+
+        enabledSwitch.setChecked(Latency.isEnabled());
+        enabledSwitch.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                Latency.setEnabled(DiagnosticsActivity.this, isChecked);
+            }
+        });
+
+        refreshButton.setOnClickListener(clickListener);
+        resetButton.setOnClickListener(clickListener);
+        dumpButton.setOnClickListener(clickListener);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showTable();
+    }
+
+    private void showTable() {
+        List<LatencyHistogram.Snapshot> snapshots = Latency.snapshots();
+        if (snapshots.isEmpty()) {
+            tableText.setText(R.string.diagnostics_empty);
+            return;
+        }
+
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, "%-28s %7s %9s %9s %9s %9s%n",
+            "operation", "count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (LatencyHistogram.Snapshot snapshot : snapshots) {
+            table.append(String.format(Locale.US, "%-28s %7d %9.3f %9.3f %9.3f %9.3f%n",
+                snapshot.name, snapshot.count,
+                snapshot.p50 / 1e6, snapshot.p95 / 1e6, snapshot.p99 / 1e6, snapshot.max / 1e6));
+        }
+        tableText.setText(table.toString());
+    }
+
+    // Same folder as the exports, so the file is easy to find and share
+    private void dump() {
+        File fileDir = new File(Environment.getExternalStorageDirectory() + "/TwistyTimer/Diagnostics");
+        fileDir.mkdirs();
+        File file = new File(fileDir, "Latency_" + DateTime.now().toString("dd-MMM-y'_'kk-mm") + ".json");
+
+        try {
+            Latency.dump(file);
+            Toast.makeText(this, getString(R.string.diagnostics_dumped, file.getAbsolutePath()), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.d("ERROR", "IOException: " + e.getMessage());
+            Toast.makeText(this, R.string.diagnostics_dump_error, Toast.LENGTH_LONG).show();
+        }
+    }
+}
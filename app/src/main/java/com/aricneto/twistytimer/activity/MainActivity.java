@@ -7,7 +7,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Environment;
@@ -34,14 +33,17 @@ import com.anjlab.android.iab.v3.BillingProcessor;
 import com.anjlab.android.iab.v3.TransactionDetails;
 import com.aricneto.twistify.R;
 import com.aricneto.twistytimer.AppRater;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.database.SolveImporter;
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.fragment.AlgListFragment;
 import com.aricneto.twistytimer.fragment.TimerFragmentMain;
 import com.aricneto.twistytimer.fragment.dialog.ExportImportDialog;
 import com.aricneto.twistytimer.fragment.dialog.ExportImportSelectionDialog;
 import com.aricneto.twistytimer.fragment.dialog.SchemeSelectDialogMain;
 import com.aricneto.twistytimer.fragment.dialog.ThemeSelectDialog;
-import com.aricneto.twistytimer.items.Solve;
+import com.aricneto.twistytimer.items.SolveColumns;
 import com.aricneto.twistytimer.listener.ExportImportDialogInterface;
 import com.aricneto.twistytimer.utils.Broadcaster;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
@@ -55,7 +57,6 @@ import com.mikepenz.materialdrawer.model.PrimaryDrawerItem;
 import com.mikepenz.materialdrawer.model.SecondaryDrawerItem;
 import com.mikepenz.materialdrawer.model.SectionDrawerItem;
 import com.mikepenz.materialdrawer.model.interfaces.IDrawerItem;
-import com.opencsv.CSVReader;
 
 import org.joda.time.DateTime;
 
@@ -65,8 +66,6 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import butterknife.ButterKnife;
 
@@ -140,7 +139,7 @@ public class MainActivity extends AppCompatActivity implements BillingProcessor.
 
         AppRater.app_launched(this);
 
-        handler = new DatabaseHandler(this);
+        handler = TwistyTimer.getDBHandler();
 
         bp = new BillingProcessor(this, null, this);
 
@@ -462,7 +461,6 @@ public class MainActivity extends AppCompatActivity implements BillingProcessor.
         if (bp != null)
             bp.release();
         LocalBroadcastManager.getInstance(this).unregisterReceiver(mReceiver);
-        handler.closeDB();
         super.onDestroy();
     }
 
@@ -585,6 +583,15 @@ public class MainActivity extends AppCompatActivity implements BillingProcessor.
 
         @Override
         protected Boolean doInBackground(Void... voids) {
+            long latencyStart = Latency.start();
+            try {
+                return exportSolves();
+            } finally {
+                Latency.stop(isBackup ? "export.backup" : "export.external", latencyStart);
+            }
+        }
+
+        private Boolean exportSolves() {
             Boolean returnCode = false;
             int exports = 0;
             String csvHeader = "Puzzle,Category,Time(millis),Date(millis),Scramble,Penalty,Comment\n";
@@ -596,39 +603,34 @@ public class MainActivity extends AppCompatActivity implements BillingProcessor.
                 BufferedWriter out = new BufferedWriter(fileWriter);
 
                 if (isBackup) {
-                    Cursor cursor = handler.getAllSolves();
-                    publishProgress(0, cursor.getCount());
-                    if (cursor != null) {
-                        out.write(csvHeader);
-                        while (cursor.moveToNext()) {
-                            csvValues = "\"" + cursor.getString(1) + "\";";
-                            csvValues += "\"" + cursor.getString(2) + "\";";
-                            csvValues += "\"" + cursor.getInt(3) + "\";";
-                            csvValues += "\"" + cursor.getLong(4) + "\";";
-                            csvValues += "\"" + cursor.getString(5) + "\";";
-                            csvValues += "\"" + cursor.getInt(6) + "\";";
-                            csvValues += "\"" + cursor.getString(7) + "\"\n";
-                            out.write(csvValues);
-                            exports++;
-                            publishProgress(exports);
-                        }
-                        cursor.close();
+                    SolveColumns solves = handler.getAllSolveColumns(true);
+                    publishProgress(0, solves.size());
+                    out.write(csvHeader);
+                    for (int i = 0; i < solves.size(); i++) {
+                        csvValues = "\"" + solves.getPuzzle(i) + "\";";
+                        csvValues += "\"" + solves.getSubtype(i) + "\";";
+                        csvValues += "\"" + solves.getTime(i) + "\";";
+                        csvValues += "\"" + solves.getDate(i) + "\";";
+                        csvValues += "\"" + solves.getScramble(i) + "\";";
+                        csvValues += "\"" + solves.getPenalty(i) + "\";";
+                        csvValues += "\"" + solves.getComment(i) + "\"\n";
+                        out.write(csvValues);
+                        exports++;
+                        publishProgress(exports);
                     }
                     out.close();
                     returnCode = true;
                 } else {
-                    Cursor cursor = handler.getAllSolvesFrom(exportImportPuzzle, exportImportCategory);
-                    publishProgress(0, cursor.getCount());
-                    if (cursor != null) {
-                        while (cursor.moveToNext()) {
-                            csvValues = "\"" + PuzzleUtils.convertTimeToString(cursor.getInt(3)) + "\";";
-                            csvValues += "\"" + cursor.getString(5) + "\";";
-                            csvValues += "\"" + new DateTime(cursor.getLong(4)).toString() + "\"\n";
-                            out.write(csvValues);
-                            exports++;
-                            publishProgress(exports);
-                        }
-                        cursor.close();
+                    SolveColumns solves = handler.getSolveColumns(exportImportPuzzle, exportImportCategory, true);
+                    publishProgress(0, solves.size());
+                    // Oldest first
+                    for (int i = solves.size() - 1; i >= 0; i--) {
+                        csvValues = "\"" + PuzzleUtils.convertTimeToString(solves.getTime(i)) + "\";";
+                        csvValues += "\"" + solves.getScramble(i) + "\";";
+                        csvValues += "\"" + new DateTime(solves.getDate(i)).toString() + "\"\n";
+                        out.write(csvValues);
+                        exports++;
+                        publishProgress(exports);
                     }
                     out.close();
                     returnCode = true;
@@ -696,81 +698,43 @@ public class MainActivity extends AppCompatActivity implements BillingProcessor.
 
         @Override
         protected Void doInBackground(Void... voids) {
-            List<Solve> solveList = new ArrayList<>();
-            int imports = 0;
-
+            long latencyStart = Latency.start();
             try {
+                importSolves();
+            } finally {
+                Latency.stop(tag.equals("import_backup") ? "import.backup" : "import.external", latencyStart);
+            }
+            return null;
+        }
 
-                BufferedReader br = new BufferedReader(new FileReader(file));
-                CSVReader csvReader = new CSVReader(br, ';');
-                String[] line;
-
-                if (tag.equals("import_backup")) {
-                    // throw away the header
-                    csvReader.readNext();
-
-                    while ((line = csvReader.readNext()) != null) {
-                        try {
-                            solveList.add(new Solve(
-                                Integer.parseInt(line[2]), line[0], line[1], Long.parseLong(line[3]),
-                                line[4], Integer.parseInt(line[5]), line[6], true));
-                        } catch (Exception e) {
-                            parseErrors++;
-                        }
-                    }
-
-                }
-
-                if (tag.equals("import_external")) {
-
-                    while ((line = csvReader.readNext()) != null) {
-                        if (line.length <= 3) {
-                            try {
-                                Log.d("IMPORTING EXTERNAL", "time: " + line[0]);
-
-                                int time = PuzzleUtils.parseTime(line[0]);
-                                String scramble = "";
-                                long date = DateTime.now().getMillis();
-                                ;
-                                if (line.length >= 2) {
-                                    scramble = line[1];
-                                }
-                                if (line.length == 3) {
-                                    try {
-                                        date = DateTime.parse(line[2]).getMillis();
-                                    } catch (Exception e) {
-                                        e.printStackTrace();
-                                    }
-                                }
-
-                                solveList.add(new Solve(time, exportImportPuzzle, exportImportCategory, date, scramble, PuzzleUtils.NO_PENALTY, "", true));
-                            } catch (Exception e) {
-                                parseErrors++;
-                            }
-                        } else {
-                            parseErrors++;
-                        }
-                    }
-
+        private void importSolves() {
+            SolveImporter importer = new SolveImporter(handler);
+            SolveImporter.ProgressListener progressListener = new SolveImporter.ProgressListener() {
+                @Override
+                public void onProgress(int percent) {
+                    publishProgress(percent);
                 }
+            };
+            publishProgress(0, 100);
 
-                publishProgress(imports, solveList.size());
-
-                for (Solve solve : solveList) {
-                    if (! handler.solveExists(solve)) {
-                        handler.addSolve(solve);
-                        successes++;
-                    } else
-                        duplicates++;
-                    imports++;
-                    publishProgress(imports);
+            try {
+                BufferedReader br = new BufferedReader(new FileReader(file));
+                try {
+                    if (tag.equals("import_backup"))
+                        importer.importBackup(br, file.length(), progressListener);
+
+                    if (tag.equals("import_external"))
+                        importer.importExternal(br, file.length(), exportImportPuzzle, exportImportCategory, progressListener);
+                } finally {
+                    br.close();
                 }
-
             } catch (Exception e) {
                 e.printStackTrace();
             }
 
-            return null;
+            parseErrors = importer.getParseErrors();
+            successes = importer.getSuccesses();
+            duplicates = importer.getDuplicates();
         }
 
         @Override
@@ -18,8 +18,11 @@ import android.widget.Toast;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.database.StorageProfile;
 import com.jenzz.materialpreference.Preference;
 
+import java.util.Arrays;
+
 import butterknife.Bind;
 import butterknife.ButterKnife;
 
@@ -76,6 +79,9 @@ public class SettingsActivity extends AppCompatActivity {
                         Intent appearanceIntent = new Intent(getActivity(), TimerAppearanceSettingsActivity.class);
                         startActivity(appearanceIntent);
                         break;
+                    case "storageProfile":
+                        createStorageProfileDialog();
+                        break;
                 }
                 return false;
             }
@@ -93,11 +99,36 @@ public class SettingsActivity extends AppCompatActivity {
             final Preference inspectionTime = (Preference) getPreferenceScreen().findPreference("inspectionTime");
             final Preference timerAppearance = (Preference) getPreferenceScreen().findPreference("timerAppearance");
             final Preference showHintsXCross = (Preference) getPreferenceScreen().findPreference("showHintsXCross");
+            final Preference storageProfile = (Preference) getPreferenceScreen().findPreference(StorageProfile.PREF_STORAGE_PROFILE);
 
             timerAppearance.setOnPreferenceClickListener(clickListener);
             inspectionTime.setOnPreferenceClickListener(clickListener);
             showHintsXCross.setOnPreferenceClickListener(clickListener);
+            storageProfile.setOnPreferenceClickListener(clickListener);
+
+        }
 
+        /**
+         * Lets the user pick a storage profile. The database is only opened once per process, so
+         * the new profile is used from the next start.
+         */
+        private void createStorageProfileDialog() {
+            StorageProfile current = StorageProfile.fromPreferences(getActivity());
+            int selected = Arrays.asList(StorageProfile.SELECTABLE).indexOf(current);
+            new MaterialDialog.Builder(getActivity())
+                    .title(R.string.storageProfileTitle)
+                    .content(R.string.storageProfileSummary)
+                    .items(R.array.storage_profiles)
+                    .itemsCallbackSingleChoice(selected, new MaterialDialog.ListCallbackSingleChoice() {
+                        @Override
+                        public boolean onSelection(MaterialDialog dialog, View itemView, int which, CharSequence text) {
+                            editor.putString(StorageProfile.PREF_STORAGE_PROFILE, StorageProfile.SELECTABLE[which].getName());
+                            editor.apply();
+                            return true;
+                        }
+                    })
+                    .negativeText(R.string.action_cancel)
+                    .show();
         }
 
         private void createNumberDialog(@StringRes int title, final String key) {
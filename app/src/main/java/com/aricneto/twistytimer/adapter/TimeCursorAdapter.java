@@ -3,6 +3,7 @@ package com.aricneto.twistytimer.adapter;
 import android.content.Context;
 import android.content.Intent;
 import android.database.Cursor;
+import android.os.AsyncTask;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.content.LocalBroadcastManager;
@@ -16,18 +17,16 @@ import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.database.TimeListCursor;
 import com.aricneto.twistytimer.fragment.dialog.TimeDialog;
 import com.aricneto.twistytimer.fragment.TimerListFragment;
 import com.aricneto.twistytimer.listener.DialogListener;
+import com.aricneto.twistytimer.utils.LongHashSet;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 import com.aricneto.twistytimer.utils.ThemeUtils;
 
-import org.joda.time.DateTime;
-
-import java.util.ArrayList;
-import java.util.List;
-
 import butterknife.Bind;
 import butterknife.ButterKnife;
 
@@ -42,10 +41,22 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
 
     int cardColor;
     int selectedCardColor;
+    int penaltyColor;
 
     private boolean isInSelectionMode;
 
-    private List<Long> selectedItems = new ArrayList<>();
+    private LongHashSet selectedItems = new LongHashSet();
+
+    // The last two solves selected by hand and still selected, the ends of a range selection.
+    // rangeAnchorCount says how many of them are set, the end one first
+    private long rangeStartId;
+    private long rangeStartDate;
+    private long rangeEndId;
+    private long rangeEndDate;
+    private int  rangeAnchorCount;
+
+    // Bumped when the selection is cleared, so a bulk selection that finishes later is dropped
+    private int selectionGeneration;
 
     // Locks opening new windows until the last one is dismissed
     private boolean isLocked;
@@ -56,6 +67,7 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
         this.mFragmentManager = listFragment.getFragmentManager();
         cardColor = ThemeUtils.fetchAttrColor(mContext, R.attr.colorItemListBackground);
         selectedCardColor = ThemeUtils.fetchAttrColor(mContext, R.attr.colorItemListBackgroundSelected);
+        penaltyColor = ContextCompat.getColor(mContext, R.color.red_material);
         thisThing = this;
     }
 
@@ -73,15 +85,45 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
         LayoutInflater inflater = LayoutInflater.from(parent.getContext());
 
         v = inflater.inflate(R.layout.item_time_list, parent, false);
-        viewHolder = new TimeHolder(v);
+        final TimeHolder holder = new TimeHolder(v);
+        holder.penaltyText.setTextColor(penaltyColor);
 
+        // Created once per holder, they read the id of whatever row the holder is showing
+        holder.root.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (isInSelectionMode)
+                    toggleSelection(holder);
+                else if (! isLocked()) {
+                    setIsLocked(true);
+                    TimeDialog timeDialog = TimeDialog.newInstance(holder.id);
+                    timeDialog.show(mFragmentManager, "time_dialog");
+                    timeDialog.setDialogListener(thisThing);
+                }
+
+            }
+        });
+
+        holder.root.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View view) {
+                if (! isInSelectionMode) {
+                    isInSelectionMode = true;
+                    broadcastToMain("SELECTIONMODE TRUE");
+                    toggleSelection(holder);
+                }
+                return true;
+            }
+        });
+
+        viewHolder = holder;
         return viewHolder;
     }
 
     @Override
     public void onBindViewHolderCursor(final RecyclerView.ViewHolder viewHolder, final Cursor cursor) {
         TimeHolder holder = (TimeHolder) viewHolder;
-        handleTime(holder, cursor);
+        handleTime(holder, (TimeListCursor) cursor);
 
     }
 
@@ -103,14 +145,83 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
 
     public void unselectAll() {
         selectedItems.clear();
+        rangeAnchorCount = 0;
+        selectionGeneration++;
         isInSelectionMode = false;
         broadcastToMain("SELECTIONMODE FALSE");
     }
 
+    /**
+     * Selects every solve in the list, with a single query instead of going through the rows.
+     */
+    public void selectAll(String puzzle, String subtype, boolean history) {
+        new SelectSolveIds(puzzle, subtype, history, Long.MIN_VALUE, Long.MAX_VALUE)
+            .executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * Selects every solve between the last two solves selected by hand, both included.
+     */
+    public void selectRange(String puzzle, String subtype, boolean history) {
+        if (rangeAnchorCount < 2)
+            return;
+        new SelectSolveIds(puzzle, subtype, history,
+            Math.min(rangeStartDate, rangeEndDate), Math.max(rangeStartDate, rangeEndDate))
+            .executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * Queries the ids of the solves between two dates in the background, then adds them to the
+     * selection.
+     */
+    private class SelectSolveIds extends AsyncTask<Void, Void, long[]> {
+        private final String  puzzle;
+        private final String  subtype;
+        private final boolean history;
+        private final long    fromDate;
+        private final long    toDate;
+        private final int     generation;
+
+        SelectSolveIds(String puzzle, String subtype, boolean history, long fromDate, long toDate) {
+            this.puzzle = puzzle;
+            this.subtype = subtype;
+            this.history = history;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.generation = selectionGeneration;
+        }
+
+        @Override
+        protected long[] doInBackground(Void... voids) {
+            LongHashSet ids = new LongHashSet();
+            TwistyTimer.getDBHandler().selectSolveIds(puzzle, subtype, history, fromDate, toDate, ids);
+            return ids.toArray();
+        }
+
+        @Override
+        protected void onPostExecute(long[] ids) {
+            // The selection was cleared (or the list reloaded) while the query ran
+            if (generation != selectionGeneration)
+                return;
+            for (long id : ids) {
+                selectedItems.add(id);
+            }
+            onBulkSelection();
+        }
+    }
+
+    private void onBulkSelection() {
+        Intent sendIntent = new Intent("TIMER");
+        sendIntent.putExtra("action", "LISTITEM COUNT");
+        sendIntent.putExtra("count", selectedItems.size());
+        LocalBroadcastManager.getInstance(mContext).sendBroadcast(sendIntent);
+        // Only the visible rows are bound again
+        notifyDataSetChanged();
+    }
+
     public void deleteAllSelected() {
-        DatabaseHandler handler = new DatabaseHandler(mContext);
-        handler.deleteAllFromList(selectedItems);
-        handler.closeDB();
+        DatabaseHandler handler = TwistyTimer.getDBHandler();
+        handler.deleteAllFromSet(selectedItems);
         resetList();
     }
 
@@ -120,20 +231,35 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
         LocalBroadcastManager.getInstance(mContext).sendBroadcast(sendIntent);
     }
 
-    private void toggleSelection(long id, CardView card) {
-        if (! isSelected(id)) {
+    private void toggleSelection(TimeHolder holder) {
+        if (! isSelected(holder.id)) {
             broadcastToMain("LISTITEM SELECTED");
-            selectedItems.add(id);
-            card.setCardBackgroundColor(selectedCardColor);
+            selectedItems.add(holder.id);
+            holder.card.setCardBackgroundColor(selectedCardColor);
+            rangeStartId = rangeEndId;
+            rangeStartDate = rangeEndDate;
+            rangeEndId = holder.id;
+            rangeEndDate = holder.date;
+            rangeAnchorCount = Math.min(rangeAnchorCount + 1, 2);
         } else {
             broadcastToMain("LISTITEM UNSELECTED");
-            selectedItems.remove(id);
-            card.setCardBackgroundColor(cardColor);
+            selectedItems.remove(holder.id);
+            holder.card.setCardBackgroundColor(cardColor);
+            // An unselected solve can't be an end of the range anymore
+            if (rangeAnchorCount == 2 && holder.id == rangeStartId) {
+                rangeAnchorCount = 1;
+            } else if (rangeAnchorCount > 0 && holder.id == rangeEndId) {
+                rangeEndId = rangeStartId;
+                rangeEndDate = rangeStartDate;
+                rangeAnchorCount--;
+            }
         }
 
         if (selectedItems.size() == 0) {
             broadcastToMain("SELECTIONMODE FALSE");
             isInSelectionMode = false;
+            rangeAnchorCount = 0;
+            selectionGeneration++;
         }
     }
 
@@ -143,65 +269,29 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
         LocalBroadcastManager.getInstance(mContext).sendBroadcast(sendIntent);
     }
 
-    private void handleTime(final TimeHolder holder, final Cursor cursor) {
-        final long mId = cursor.getLong(0); // id
-        final int pTime = cursor.getInt(3); // time
-        final int pPenalty = cursor.getInt(6); // penalty
-        final long pDate = cursor.getLong(4); // date
-        final String pComment = cursor.getString(7); // comment
+    // Called for every row shown while scrolling, so it only copies what the loader prepared
+    private void handleTime(TimeHolder holder, TimeListCursor cursor) {
+        int position = cursor.getPosition();
+        char[] labels = cursor.getLabels();
 
-        holder.dateText.setText(new DateTime(pDate).toString("dd'/'MM"));
+        holder.id = cursor.getId(position);
+        holder.date = cursor.getDate(position);
+        holder.timeText.setText(labels, cursor.getTimeStart(position), cursor.getTimeLength(position));
+        holder.dateText.setText(labels, cursor.getDateStart(position), TimeListCursor.DATE_LENGTH);
 
-        if (isSelected(mId))
+        if (isSelected(holder.id))
             holder.card.setCardBackgroundColor(selectedCardColor);
         else
             holder.card.setCardBackgroundColor(cardColor);
 
-        holder.root.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                if (isInSelectionMode)
-                    toggleSelection(mId, holder.card);
-                else if (! isLocked()) {
-                    setIsLocked(true);
-                    TimeDialog timeDialog = TimeDialog.newInstance(mId);
-                    timeDialog.show(mFragmentManager, "time_dialog");
-                    timeDialog.setDialogListener(thisThing);
-                }
-
-            }
-        });
-
-        holder.root.setOnLongClickListener(new View.OnLongClickListener() {
-            @Override
-            public boolean onLongClick(View view) {
-                if (! isInSelectionMode) {
-                    isInSelectionMode = true;
-                    broadcastToMain("SELECTIONMODE TRUE");
-                    toggleSelection(mId, holder.card);
-                }
-                return true;
-            }
-        });
-
-        holder.timeText.setText(PuzzleUtils.convertTimeToString(pTime));
-        holder.penaltyText.setTextColor(ContextCompat.getColor(mContext, R.color.red_material));
-
-        switch (pPenalty) {
-            case PuzzleUtils.PENALTY_DNF:
-                holder.timeText.setText("DNF");
-                holder.penaltyText.setVisibility(View.GONE);
-                break;
-            case PuzzleUtils.PENALTY_PLUSTWO:
-                holder.penaltyText.setText("+2");
-                holder.penaltyText.setVisibility(View.VISIBLE);
-                break;
-            default:
-                holder.penaltyText.setVisibility(View.GONE);
-                break;
+        if (cursor.getPenalty(position) == PuzzleUtils.PENALTY_PLUSTWO) {
+            holder.penaltyText.setText("+2");
+            holder.penaltyText.setVisibility(View.VISIBLE);
+        } else {
+            holder.penaltyText.setVisibility(View.GONE);
         }
 
-        if (! pComment.equals("")) {
+        if (cursor.hasComment(position)) {
             holder.commentIcon.setVisibility(View.VISIBLE);
         } else {
             // This else is needed because the view recycles.
@@ -226,6 +316,10 @@ public class TimeCursorAdapter extends CursorRecyclerAdapter<RecyclerView.ViewHo
         @Bind(R.id.date)        TextView       dateText;
         @Bind(R.id.commentIcon) ImageView      commentIcon;
 
+        // The solve being shown
+        long id;
+        long date;
+
         public TimeHolder(View view) {
             super(view);
             ButterKnife.bind(this, view);
@@ -5,10 +5,12 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.v4.content.CursorLoader;
 
+import com.aricneto.twistytimer.TwistyTimer;
+import com.aricneto.twistytimer.diagnostics.Latency;
+
 public class AlgTaskLoader extends CursorLoader {
 
     String subset;
-    private DatabaseHandler handler;
 
     public AlgTaskLoader(Context context, String subset) {
         super(context);
@@ -19,19 +21,15 @@ public class AlgTaskLoader extends CursorLoader {
 
     @Override
     public Cursor loadInBackground() {
-        handler = new DatabaseHandler(getContext());
-        SQLiteDatabase db = handler.getReadableDatabase();
+        long latencyStart = Latency.start();
+        SQLiteDatabase db = TwistyTimer.getDBHandler().getReadableDatabase();
 
-        return db.query(DatabaseHandler.TABLE_ALGS, null,
+        Cursor cursor = db.query(DatabaseHandler.TABLE_ALGS, null,
                 DatabaseHandler.KEY_SUBSET + "=?",
                 new String[] { subset }, null, null, null, null);
-    }
-
-    @Override
-    protected void onStopLoading() {
-        if (handler != null) {
-            handler.closeDB();
-        }
-        super.onStopLoading();
+        // Runs the query here, in the background, instead of on the first access from the UI
+        cursor.getCount();
+        Latency.stop("loader.algs", latencyStart);
+        return cursor;
     }
 }
\ No newline at end of file
@@ -7,34 +7,60 @@ import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.items.Algorithm;
 import com.aricneto.twistytimer.items.Solve;
+import com.aricneto.twistytimer.items.SolveColumns;
+import com.aricneto.twistytimer.stats.SolveStatistics;
 import com.aricneto.twistytimer.utils.AlgUtils;
+import com.aricneto.twistytimer.utils.LongHashSet;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by Ari on 03/06/2015.
  */
 public class DatabaseHandler extends SQLiteOpenHelper {
 
-    public static final String TABLE_TIMES = "times";
+    public static final String TABLE_TIMES      = "times";
+    public static final String TABLE_CATEGORIES = "categories";
+    public static final String TABLE_SCRAMBLES  = "scrambles";
 
     // Times table
     public static final String KEY_ID       = "_id";
-    public static final String KEY_TYPE     = "type";
-    public static final String KEY_SUBTYPE  = "subtype";
+    public static final String KEY_CATEGORY = "category";
     public static final String KEY_TIME     = "time";
     public static final String KEY_DATE     = "date";
-    public static final String KEY_SCRAMBLE = "scramble";
+    public static final String KEY_SCRAMBLE_ID = "scramble_id";
     public static final String KEY_PENALTY  = "penalty";
     public static final String KEY_COMMENT  = "comment";
     public static final String KEY_HISTORY  = "history";
+    // Hash of the fields that identify a solve, see solveHash()
+    public static final String KEY_CONTENT_HASH = "content_hash";
+    // The tips shown for the scramble of the solve, if they were computed before it was saved
+    public static final String KEY_TIPS     = "tips";
+
+    // Categories table. Every (puzzle, subtype) pair gets an integer id that the times table
+    // references, so the hot queries compare a single integer instead of two strings.
+    public static final String KEY_TYPE     = "type";
+    public static final String KEY_SUBTYPE  = "subtype";
+
+    // Scrambles table. Every distinct scramble is stored once, compressed by ScrambleCodec, and
+    // looked up by the hash of its encoded form. Solves only load it when it's shown or exported.
+    public static final String KEY_HASH     = "hash";
+    public static final String KEY_DATA     = "data";
+
+    // The scramble column of the times table before version 11
+    private static final String KEY_SCRAMBLE = "scramble";
 
     // Algs table
     public static final String TABLE_ALGS   = "algs";
@@ -56,14 +82,43 @@ public class DatabaseHandler extends SQLiteOpenHelper {
     private static final String YEL                = "Y";
     private static final String NUL                = "N";
     // Database Version
-    private static final int    DATABASE_VERSION   = 9;
+    private static final int    DATABASE_VERSION   = 13;
     // Database Name
     private static final String DATABASE_NAME      = "databaseManager";
+    // The subtype every puzzle starts with
+    private static final String DEFAULT_SUBTYPE    = "Normal";
+    // Ids written in one "IN (...)" list, well below the limit on the length of a statement
+    private static final int    ID_LIST_CHUNK_SIZE = 500;
     private static final String CREATE_TABLE_TIMES =
         "CREATE TABLE " + TABLE_TIMES + "("
             + KEY_ID + " INTEGER PRIMARY KEY,"
-            + KEY_TYPE + " TEXT,"
-            + KEY_SUBTYPE + " TEXT,"
+            + KEY_CATEGORY + " INTEGER NOT NULL REFERENCES " + TABLE_CATEGORIES + "(" + KEY_ID + "),"
+            + KEY_TIME + " INTEGER,"
+            + KEY_DATE + " INTEGER NOT NULL DEFAULT (strftime('%s', 'now')),"
+            + KEY_SCRAMBLE_ID + " INTEGER REFERENCES " + TABLE_SCRAMBLES + "(" + KEY_ID + "),"
+            + KEY_PENALTY + " INTEGER,"
+            + KEY_COMMENT + " TEXT,"
+            + KEY_HISTORY + " BOOLEAN,"
+            + KEY_CONTENT_HASH + " INTEGER,"
+            + KEY_TIPS + " TEXT"
+            + ")";
+    // The times table as version 11 created it, before the content hash
+    private static final String CREATE_TABLE_TIMES_V11 =
+        "CREATE TABLE " + TABLE_TIMES + "("
+            + KEY_ID + " INTEGER PRIMARY KEY,"
+            + KEY_CATEGORY + " INTEGER NOT NULL REFERENCES " + TABLE_CATEGORIES + "(" + KEY_ID + "),"
+            + KEY_TIME + " INTEGER,"
+            + KEY_DATE + " INTEGER NOT NULL DEFAULT (strftime('%s', 'now')),"
+            + KEY_SCRAMBLE_ID + " INTEGER REFERENCES " + TABLE_SCRAMBLES + "(" + KEY_ID + "),"
+            + KEY_PENALTY + " INTEGER,"
+            + KEY_COMMENT + " TEXT,"
+            + KEY_HISTORY + " BOOLEAN"
+            + ")";
+    // The times table as version 10 created it, with the scramble text stored in every row
+    private static final String CREATE_TABLE_TIMES_V10 =
+        "CREATE TABLE " + TABLE_TIMES + "("
+            + KEY_ID + " INTEGER PRIMARY KEY,"
+            + KEY_CATEGORY + " INTEGER NOT NULL REFERENCES " + TABLE_CATEGORIES + "(" + KEY_ID + "),"
             + KEY_TIME + " INTEGER,"
             + KEY_DATE + " INTEGER NOT NULL DEFAULT (strftime('%s', 'now')),"
             + KEY_SCRAMBLE + " TEXT,"
@@ -71,6 +126,43 @@ public class DatabaseHandler extends SQLiteOpenHelper {
             + KEY_COMMENT + " TEXT,"
             + KEY_HISTORY + " BOOLEAN"
             + ")";
+    private static final String CREATE_INDEX_TIMES_CATEGORY =
+        "CREATE INDEX times_category_date ON " + TABLE_TIMES + "(" + KEY_CATEGORY + ", " + KEY_DATE + ")";
+    private static final String CREATE_TABLE_CATEGORIES =
+        "CREATE TABLE " + TABLE_CATEGORIES + "("
+            + KEY_ID + " INTEGER PRIMARY KEY,"
+            + KEY_TYPE + " TEXT NOT NULL,"
+            + KEY_SUBTYPE + " TEXT NOT NULL,"
+            + "UNIQUE (" + KEY_TYPE + ", " + KEY_SUBTYPE + ")"
+            + ")";
+    private static final String CREATE_TABLE_SCRAMBLES =
+        "CREATE TABLE " + TABLE_SCRAMBLES + "("
+            + KEY_ID + " INTEGER PRIMARY KEY,"
+            + KEY_HASH + " INTEGER NOT NULL,"
+            + KEY_DATA + " BLOB NOT NULL"
+            + ")";
+    private static final String CREATE_INDEX_SCRAMBLES_HASH =
+        "CREATE INDEX scrambles_hash ON " + TABLE_SCRAMBLES + "(" + KEY_HASH + ")";
+    private static final String CREATE_INDEX_TIMES_SCRAMBLE =
+        "CREATE INDEX times_scramble ON " + TABLE_TIMES + "(" + KEY_SCRAMBLE_ID + ")";
+    // NULLs don't collide, so rows without a hash (duplicates that predate it) are still allowed
+    private static final String CREATE_INDEX_TIMES_CONTENT_HASH =
+        "CREATE UNIQUE INDEX times_content_hash ON " + TABLE_TIMES + "(" + KEY_CONTENT_HASH + ")";
+
+    /**
+     * The times table joined with its category. Queries that hand a cursor over to the UI or to
+     * the exporter select {@link #SOLVE_COLUMNS} from this, so the cursor keeps the column order
+     * the times table had before categories were split out (id, type, subtype, time, date,
+     * scramble, penalty, comment, history). The scramble column holds the id of the scramble,
+     * use {@link #getScramble(long)} to load its text.
+     */
+    public static final String TIMES_WITH_CATEGORIES =
+        TABLE_TIMES + " INNER JOIN " + TABLE_CATEGORIES + " ON "
+            + TABLE_TIMES + "." + KEY_CATEGORY + " = " + TABLE_CATEGORIES + "." + KEY_ID;
+    public static final String SOLVE_COLUMNS =
+        TABLE_TIMES + "." + KEY_ID + " AS " + KEY_ID + ", "
+            + KEY_TYPE + ", " + KEY_SUBTYPE + ", " + KEY_TIME + ", " + KEY_DATE + ", "
+            + KEY_SCRAMBLE_ID + ", " + KEY_PENALTY + ", " + KEY_COMMENT + ", " + KEY_HISTORY;
     private static final String CREATE_TABLE_ALGS  =
         "CREATE TABLE " + TABLE_ALGS + "("
             + KEY_ID + " INTEGER PRIMARY KEY,"
@@ -80,18 +172,110 @@ public class DatabaseHandler extends SQLiteOpenHelper {
             + KEY_ALGS + " TEXT,"
             + KEY_PROGRESS + " INTEGER"
             + ")";
-    private Context mContext;
+    private Context        mContext;
+    private StorageProfile mStorageProfile;
+
+    // Category ids never change once created (renaming keeps the id), so they're cached here to
+    // save a lookup on every query. Keys are "type\nsubtype".
+    private final HashMap<String, Long> mCategoryIds = new HashMap<>();
+
+    // Loads the texts of the solves handed out in a SolveColumns
+    private final SolveColumns.TextLoader mTextLoader = new SolveColumns.TextLoader() {
+        @Override
+        public String loadScramble(long scrambleId) {
+            return getScramble(scrambleId);
+        }
 
+        @Override
+        public String loadComment(long solveId) {
+            return getComment(solveId);
+        }
+    };
+
+    // Connection instrumentation. With a single shared handler the connection should be opened
+    // once and never closed; anything else means somebody is closing it under everybody else.
+    private final AtomicInteger mOpenCount  = new AtomicInteger();
+    private final AtomicInteger mCloseCount = new AtomicInteger();
 
+    /**
+     * Creates the database handler. There must only be one instance of this class per process,
+     * so do not call this directly: use {@link com.aricneto.twistytimer.TwistyTimer#getDBHandler()}.
+     */
     public DatabaseHandler(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
-        mContext = context;
+        this(context, DATABASE_NAME, StorageProfile.fromPreferences(context));
+    }
+
+    /**
+     * Creates a database handler for an arbitrary database file with the given storage profile.
+     * This is only meant for benchmarks and tools that need a scratch copy of the schema.
+     *
+     * @param context        The context
+     * @param databaseName   The name of the database file
+     * @param storageProfile The SQLite settings to apply to the primary connection
+     */
+    public DatabaseHandler(Context context, String databaseName, StorageProfile storageProfile) {
+        super(context.getApplicationContext(), databaseName, null, DATABASE_VERSION);
+        mContext = context.getApplicationContext();
+        mStorageProfile = storageProfile;
+        // WAL lets the loaders read while the timer is writing a new solve
+        setWriteAheadLoggingEnabled(storageProfile.isWalEnabled());
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Only called for the primary connection; the read-only connections WAL adds to the pool
+        // can't be configured, see StorageProfile.
+        // Some of these pragmas return a row, so they have to go through rawQuery, not execSQL
+        for (String pragma : mStorageProfile.getPragmas()) {
+            Cursor cursor = db.rawQuery(pragma, null);
+            cursor.moveToFirst();
+            cursor.close();
+        }
+    }
+
+    public StorageProfile getStorageProfile() {
+        return mStorageProfile;
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        int opens = mOpenCount.incrementAndGet();
+        Log.d("Database", "Opened connection (opens: " + opens + ", closes: " + mCloseCount.get() + ")");
+    }
+
+    @Override
+    public synchronized void close() {
+        int closes = mCloseCount.incrementAndGet();
+        Log.d("Database", "Closed connection (opens: " + mOpenCount.get() + ", closes: " + closes + ")");
+        super.close();
+    }
+
+    /**
+     * Returns how many times the underlying connection has been opened since the process started.
+     */
+    public int getOpenCount() {
+        return mOpenCount.get();
+    }
+
+    /**
+     * Returns how many times the underlying connection has been closed since the process started.
+     */
+    public int getCloseCount() {
+        return mCloseCount.get();
     }
 
     // Creating Tables
     @Override
     public void onCreate(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_CATEGORIES);
+        db.execSQL(CREATE_TABLE_SCRAMBLES);
+        db.execSQL(CREATE_INDEX_SCRAMBLES_HASH);
         db.execSQL(CREATE_TABLE_TIMES);
+        db.execSQL(CREATE_INDEX_TIMES_CATEGORY);
+        db.execSQL(CREATE_INDEX_TIMES_SCRAMBLE);
+        db.execSQL(CREATE_INDEX_TIMES_CONTENT_HASH);
         db.execSQL(CREATE_TABLE_ALGS);
         createInitialAlgs(db);
     }
@@ -110,8 +294,287 @@ public class DatabaseHandler extends SQLiteOpenHelper {
                 SharedPreferences.Editor editor = sharedPreferences.edit();
                 editor.putInt("timerTextSize", sharedPreferences.getInt("timerTextSize", 10) * 10);
                 editor.apply();
+            case 9:
+                moveToCategories(db);
+            case 10:
+                moveToScrambles(db);
+            case 11:
+                addContentHashes(db);
+            case 12:
+                db.execSQL("ALTER TABLE " + TABLE_TIMES + " ADD COLUMN " + KEY_TIPS + " TEXT");
+        }
+
+    }
+
+    /**
+     * Moves the puzzle type and subtype of every solve into the categories table, and replaces
+     * them with the id of the category. The fake "hidden" solves that used to be inserted just
+     * to create a subtype are dropped, since the category row itself now does that job.
+     *
+     * Solves without a subtype are moved to the default one, "Normal". Solves without a puzzle
+     * type were never shown by the app and can't be given a category, so they are dropped too.
+     */
+    private void moveToCategories(SQLiteDatabase db) {
+        db.execSQL("UPDATE " + TABLE_TIMES + " SET " + KEY_SUBTYPE + " = '" + DEFAULT_SUBTYPE + "'"
+            + " WHERE " + KEY_SUBTYPE + " IS NULL");
+        long dropped = DatabaseUtils.queryNumEntries(db, TABLE_TIMES, KEY_TYPE + " IS NULL AND "
+            + KEY_PENALTY + " != " + PuzzleUtils.PENALTY_HIDETIME);
+        if (dropped > 0)
+            Log.w("Database upgrade", "Dropping " + dropped + " solves without a puzzle type");
+
+        db.execSQL(CREATE_TABLE_CATEGORIES);
+        db.execSQL("INSERT INTO " + TABLE_CATEGORIES + " (" + KEY_TYPE + ", " + KEY_SUBTYPE + ")"
+            + " SELECT DISTINCT " + KEY_TYPE + ", " + KEY_SUBTYPE + " FROM " + TABLE_TIMES
+            + " WHERE " + KEY_TYPE + " IS NOT NULL");
+
+        db.execSQL("ALTER TABLE " + TABLE_TIMES + " RENAME TO times_old");
+        db.execSQL(CREATE_TABLE_TIMES_V10);
+        db.execSQL("INSERT INTO " + TABLE_TIMES + " ("
+            + KEY_ID + ", " + KEY_CATEGORY + ", " + KEY_TIME + ", " + KEY_DATE + ", "
+            + KEY_SCRAMBLE + ", " + KEY_PENALTY + ", " + KEY_COMMENT + ", " + KEY_HISTORY + ")"
+            + " SELECT t." + KEY_ID + ", c." + KEY_ID + ", t." + KEY_TIME + ", t." + KEY_DATE + ", t."
+            + KEY_SCRAMBLE + ", t." + KEY_PENALTY + ", t." + KEY_COMMENT + ", t." + KEY_HISTORY
+            + " FROM times_old t INNER JOIN " + TABLE_CATEGORIES + " c"
+            + " ON t." + KEY_TYPE + " = c." + KEY_TYPE + " AND t." + KEY_SUBTYPE + " = c." + KEY_SUBTYPE
+            + " WHERE t." + KEY_PENALTY + " != " + PuzzleUtils.PENALTY_HIDETIME);
+        db.execSQL("DROP TABLE times_old");
+        db.execSQL(CREATE_INDEX_TIMES_CATEGORY);
+    }
+
+    /**
+     * Moves the scramble text of every solve into the scrambles table, storing each distinct
+     * scramble once, and replaces it with the id of the stored scramble.
+     */
+    private void moveToScrambles(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_SCRAMBLES);
+        db.execSQL(CREATE_INDEX_SCRAMBLES_HASH);
+        db.execSQL("ALTER TABLE " + TABLE_TIMES + " ADD COLUMN " + KEY_SCRAMBLE_ID + " INTEGER");
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TIMES
+            + " SET " + KEY_SCRAMBLE_ID + " = ? WHERE " + KEY_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + TABLE_TIMES + "." + KEY_ID + ", " + KEY_TYPE + ", "
+            + KEY_SCRAMBLE + " FROM " + TIMES_WITH_CATEGORIES
+            + " WHERE " + KEY_SCRAMBLE + " IS NOT NULL", null);
+        try {
+            while (cursor.moveToNext()) {
+                update.bindLong(1, storeScramble(db, cursor.getString(1), cursor.getString(2)));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+
+        db.execSQL("ALTER TABLE " + TABLE_TIMES + " RENAME TO times_old");
+        db.execSQL(CREATE_TABLE_TIMES_V11);
+        db.execSQL("INSERT INTO " + TABLE_TIMES + " ("
+            + KEY_ID + ", " + KEY_CATEGORY + ", " + KEY_TIME + ", " + KEY_DATE + ", "
+            + KEY_SCRAMBLE_ID + ", " + KEY_PENALTY + ", " + KEY_COMMENT + ", " + KEY_HISTORY + ")"
+            + " SELECT " + KEY_ID + ", " + KEY_CATEGORY + ", " + KEY_TIME + ", " + KEY_DATE + ", "
+            + KEY_SCRAMBLE_ID + ", " + KEY_PENALTY + ", " + KEY_COMMENT + ", " + KEY_HISTORY
+            + " FROM times_old");
+        db.execSQL("DROP TABLE times_old");
+        db.execSQL(CREATE_INDEX_TIMES_CATEGORY);
+        db.execSQL(CREATE_INDEX_TIMES_SCRAMBLE);
+    }
+
+    /**
+     * Fills in the content hash of every solve. If there already are duplicates, only the oldest
+     * one gets a hash, so the unique index can still be created.
+     */
+    private void addContentHashes(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TIMES + " ADD COLUMN " + KEY_CONTENT_HASH + " INTEGER");
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TIMES
+            + " SET " + KEY_CONTENT_HASH + " = ? WHERE " + KEY_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + TABLE_TIMES + "." + KEY_ID + ", " + KEY_TYPE + ", "
+            + KEY_TIME + ", " + KEY_PENALTY + ", " + KEY_DATE + ", " + KEY_DATA
+            + " FROM " + TIMES_WITH_CATEGORIES + " LEFT JOIN " + TABLE_SCRAMBLES
+            + " ON " + KEY_SCRAMBLE_ID + " = " + TABLE_SCRAMBLES + "." + KEY_ID, null);
+        try {
+            while (cursor.moveToNext()) {
+                String scramble = cursor.isNull(5) ? null : ScrambleCodec.decode(cursor.getBlob(5));
+                update.bindLong(1, solveHash(cursor.getString(1), cursor.getInt(2),
+                    cursor.getInt(3), cursor.getLong(4), scramble));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+
+        db.execSQL("UPDATE " + TABLE_TIMES + " SET " + KEY_CONTENT_HASH + " = NULL"
+            + " WHERE " + KEY_ID + " NOT IN (SELECT MIN(" + KEY_ID + ") FROM " + TABLE_TIMES
+            + " GROUP BY " + KEY_CONTENT_HASH + ")");
+        db.execSQL(CREATE_INDEX_TIMES_CONTENT_HASH);
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the fields that tell two solves apart when importing:
+     * puzzle, time (without the +2 penalty), date and scramble. Everything the app lets the user
+     * change is left out: penalty, comment, history and subtype, which changes when a subtype is
+     * renamed or merged. So a solve that was edited after being exported is still recognized as
+     * the same solve.
+     */
+    static long solveHash(String puzzle, int time, int penalty, long date, String scramble) {
+        if (penalty == PuzzleUtils.PENALTY_PLUSTWO)
+            time -= 2000;
+
+        long hash = 0xcbf29ce484222325L;
+        hash = hashString(hash, puzzle);
+        hash = hashLong(hash, time);
+        hash = hashLong(hash, date);
+        // Keeps a null scramble apart from an empty one
+        hash = hashLong(hash, scramble == null ? 0 : 1);
+        if (scramble != null)
+            hash = hashString(hash, scramble);
+        return hash;
+    }
+
+    private static long hashString(long hash, String string) {
+        hash = hashLong(hash, string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
         }
+        return hash;
+    }
 
+    private static long hashLong(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xFF)) * 0x100000001b3L;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    // The content hash of a solve, using the time addSolve actually stores
+    private static long solveHash(Solve solve, int time) {
+        return solveHash(solve.getPuzzle(), time, solve.getPenalty(), solve.getDate(), solve.getScramble());
+    }
+
+    /**
+     * Returns the id of a stored scramble, or -1 if it isn't stored.
+     *
+     * @param data The scramble, as encoded by {@link ScrambleCodec}
+     * @param hash The hash of the encoded scramble
+     */
+    private static long findScramble(SQLiteDatabase db, byte[] data, long hash) {
+        Cursor cursor = db.rawQuery("SELECT " + KEY_ID + ", " + KEY_DATA + " FROM " + TABLE_SCRAMBLES
+            + " WHERE " + KEY_HASH + " = " + hash, null);
+        try {
+            while (cursor.moveToNext()) {
+                if (Arrays.equals(data, cursor.getBlob(1)))
+                    return cursor.getLong(0);
+            }
+        } finally {
+            cursor.close();
+        }
+        return - 1;
+    }
+
+    /**
+     * Stores a scramble if it isn't stored yet.
+     *
+     * @param puzzle   The puzzle the scramble belongs to
+     * @param scramble The scramble text
+     *
+     * @return The id of the (new or existing) scramble
+     */
+    private static long storeScramble(SQLiteDatabase db, String puzzle, String scramble) {
+        byte[] data = ScrambleCodec.encode(puzzle, scramble);
+        long hash = ScrambleCodec.hash(data);
+
+        long id = findScramble(db, data, hash);
+        if (id != - 1)
+            return id;
+
+        ContentValues values = new ContentValues();
+        values.put(KEY_HASH, hash);
+        values.put(KEY_DATA, data);
+        return db.insert(TABLE_SCRAMBLES, null, values);
+    }
+
+    /**
+     * Loads the text of a scramble.
+     *
+     * @param scrambleId The id of the scramble, as found in the scramble column of a solve cursor
+     *
+     * @return The scramble, or null if the solve has no scramble
+     */
+    public String getScramble(long scrambleId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + KEY_DATA + " FROM " + TABLE_SCRAMBLES
+            + " WHERE " + KEY_ID + " = " + scrambleId, null);
+        String scramble = null;
+        if (cursor.moveToFirst())
+            scramble = ScrambleCodec.decode(cursor.getBlob(0));
+        cursor.close();
+        return scramble;
+    }
+
+    private static String categoryKey(String type, String subtype) {
+        return type + "\n" + subtype;
+    }
+
+    /**
+     * Returns the id of a category, or -1 if it doesn't exist.
+     *
+     * @param type    The puzzle type
+     * @param subtype The puzzle subtype (category name)
+     */
+    public long getCategoryId(String type, String subtype) {
+        String key = categoryKey(type, subtype);
+        synchronized (mCategoryIds) {
+            Long cached = mCategoryIds.get(key);
+            if (cached != null)
+                return cached;
+        }
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + KEY_ID + " FROM " + TABLE_CATEGORIES
+            + " WHERE " + KEY_TYPE + "=? AND " + KEY_SUBTYPE + "=?", new String[] { type, subtype });
+        long id = - 1;
+        if (cursor.moveToFirst())
+            id = cursor.getLong(0);
+        cursor.close();
+
+        if (id != - 1) {
+            synchronized (mCategoryIds) {
+                mCategoryIds.put(key, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Creates a category if it doesn't exist yet.
+     *
+     * @param type    The puzzle type
+     * @param subtype The puzzle subtype (category name)
+     *
+     * @return The id of the (new or existing) category
+     */
+    public long addCategory(String type, String subtype) {
+        long id = getCategoryId(type, subtype);
+        if (id != - 1)
+            return id;
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(KEY_TYPE, type);
+        values.put(KEY_SUBTYPE, subtype);
+        db.insertWithOnConflict(TABLE_CATEGORIES, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+
+        return getCategoryId(type, subtype);
+    }
+
+    // The argument used to bind a category id to a "category=?" selection
+    private String categoryArg(String type, String subtype) {
+        return String.valueOf(getCategoryId(type, subtype));
     }
 
     private void createAlg(SQLiteDatabase db, String subset, String name, String state, String algs) {
@@ -169,128 +632,195 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 
 
     /**
-     * Returns all solves from history or session, from puzzle and category
+     * Returns all solves from history or session, from puzzle and category with a limit
      * @param type
      * @param subtype
      * @return
      */
-    public Cursor getAllSolvesFrom(String type, String subtype, boolean history) {
+    public Cursor getAllSolvesFromWithLimit(int limit, String type, String subtype, boolean history) {
         SQLiteDatabase db = this.getReadableDatabase();
 
         String sqlSelection;
         if (! history)
             sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF + " AND history = 0 ORDER BY date ASC ";
+                " WHERE category =? AND penalty!=10 AND history = 0 ORDER BY date ASC LIMIT " + limit;
         else
             sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF + " AND history = 1 ORDER BY date ASC ";
+                " WHERE category =? AND penalty!=10 AND history = 1 ORDER BY date ASC LIMIT " + limit;
 
-        return db.rawQuery("SELECT * FROM times" + sqlSelection, new String[] { type, subtype });
+        return db.rawQuery("SELECT " + SOLVE_COLUMNS + " FROM " + TIMES_WITH_CATEGORIES + sqlSelection,
+            new String[] { categoryArg(type, subtype) });
     }
 
     /**
-     * Returns all solves from history or session, from puzzle and category with a limit
+     * Moves all current solves from puzzle and category to history
+     *
      * @param type
      * @param subtype
+     *
      * @return
      */
-    public Cursor getAllSolvesFromWithLimit(int limit, String type, String subtype, boolean history) {
-        SQLiteDatabase db = this.getReadableDatabase();
+    public int moveAllSolvesToHistory(String type, String subtype) {
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
 
-        String sqlSelection;
-        if (! history)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND history = 0 ORDER BY date ASC LIMIT " + limit;
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND history = 1 ORDER BY date ASC LIMIT " + limit;
+            ContentValues values = new ContentValues();
+            values.put(KEY_HISTORY, true);
 
-        return db.rawQuery("SELECT * FROM times" + sqlSelection, new String[] { type, subtype });
+            // Updating row
+            return db.update(TABLE_TIMES, values, KEY_CATEGORY + " = ?",
+                new String[] { categoryArg(type, subtype) });
+        } finally {
+            Latency.stop("db.moveAllSolvesToHistory", latencyStart);
+        }
     }
 
-    /**
-     * Returns all solves from puzzle and category
-     * @param type
-     * @param subtype
-     * @return
-     */
-
-    public Cursor getAllSolvesFrom(String type, String subtype) {
-        SQLiteDatabase db = this.getReadableDatabase();
 
-        String sqlSelection;
-        sqlSelection =
-            " WHERE type =? AND subtype =? AND penalty!=" + PuzzleUtils.PENALTY_HIDETIME;
+    // Adding new solve
+    public long addSolve(Solve solve) {
+        long latencyStart = Latency.start();
+        try {
+            return insertSolve(solve, SQLiteDatabase.CONFLICT_NONE);
+        } finally {
+            Latency.stop("db.addSolve", latencyStart);
+        }
+    }
 
-        return db.rawQuery("SELECT * FROM times" + sqlSelection, new String[] { type, subtype });
+    /**
+     * Adds a solve unless the same solve is already stored. Used when importing, so importing the
+     * same file twice doesn't duplicate anything.
+     *
+     * @return True if the solve was added, false if it was already there
+     */
+    public boolean importSolve(Solve solve) {
+        return insertSolve(solve, SQLiteDatabase.CONFLICT_IGNORE) != - 1;
     }
 
     /**
-     * Moves all current solves from puzzle and category to history
+     * Adds the solves of a {@link SolveColumns} that aren't already stored, in a single
+     * transaction. Used when importing.
      *
-     * @param type
-     * @param subtype
+     * @param solves The solves
+     * @param from   The first row to add
+     * @param to     The row after the last one to add
      *
-     * @return
+     * @return How many solves were added
      */
-    public int moveAllSolvesToHistory(String type, String subtype) {
-        SQLiteDatabase db = this.getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put(KEY_HISTORY, true);
-
-        // Updating row
-        return db.update(TABLE_TIMES, values, KEY_TYPE + " = ? AND " + KEY_SUBTYPE + " =?",
-            new String[] { type, subtype });
+    public int importSolves(SolveColumns solves, int from, int to) {
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int added = 0;
+
+            db.beginTransaction();
+            try {
+                for (int i = from; i < to; i++) {
+                    long id = insertSolve(solves.getPuzzle(i), solves.getSubtype(i), solves.getTime(i),
+                        solves.getDate(i), solves.getScramble(i), solves.getPenalty(i), solves.getComment(i),
+                        solves.isHistory(i), SQLiteDatabase.CONFLICT_IGNORE);
+                    if (id != - 1)
+                        added++;
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return added;
+        } finally {
+            Latency.stop("db.importSolves", latencyStart);
+        }
     }
 
+    private long insertSolve(Solve solve, int conflictAlgorithm) {
+        return insertSolve(solve.getPuzzle(), solve.getSubtype(), solve.getTime(), solve.getDate(),
+            solve.getScramble(), solve.getPenalty(), solve.getComment(), solve.isHistory(), conflictAlgorithm);
+    }
 
-    // Adding new solve
-    public long addSolve(Solve solve) {
+    private long insertSolve(String puzzle, String subtype, int time, long date, String scramble,
+                             int penalty, String comment, boolean history, int conflictAlgorithm) {
         SQLiteDatabase db = this.getWritableDatabase();
 
         // Cutting off last digit to fix rounding errors
-        int time = solve.getTime();
         time = time - (time % 10);
 
-        ContentValues values = new ContentValues();
-        values.put(KEY_TYPE, solve.getPuzzle());
-        values.put(KEY_SUBTYPE, solve.getSubtype());
-        values.put(KEY_TIME, time);
-        values.put(KEY_DATE, solve.getDate());
-        values.put(KEY_SCRAMBLE, solve.getScramble());
-        values.put(KEY_PENALTY, solve.getPenalty());
-        values.put(KEY_COMMENT, solve.getComment());
-        values.put(KEY_HISTORY, solve.isHistory());
-
-        // Inserting Row
-        return db.insert(TABLE_TIMES, null, values);
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(KEY_CATEGORY, addCategory(puzzle, subtype));
+            values.put(KEY_TIME, time);
+            values.put(KEY_DATE, date);
+            putScramble(db, values, puzzle, scramble);
+            values.put(KEY_PENALTY, penalty);
+            values.put(KEY_COMMENT, comment);
+            values.put(KEY_HISTORY, history);
+            values.put(KEY_CONTENT_HASH, solveHash(puzzle, time, penalty, date, scramble));
+
+            // Inserting Row
+            long id;
+            if (conflictAlgorithm == SQLiteDatabase.CONFLICT_NONE)
+                id = db.insert(TABLE_TIMES, null, values);
+            else
+                id = db.insertWithOnConflict(TABLE_TIMES, null, values, conflictAlgorithm);
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
     }
 
+    /**
+     * Saves the changes made to a solve.
+     *
+     * @return 1, or 0 if the change would make it a copy of another solve and was not saved
+     */
     public int updateSolve(Solve solve) {
-        SQLiteDatabase db = this.getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put(KEY_TYPE, solve.getPuzzle());
-        values.put(KEY_SUBTYPE, solve.getSubtype());
-        values.put(KEY_TIME, solve.getTime());
-        values.put(KEY_DATE, solve.getDate());
-        values.put(KEY_SCRAMBLE, solve.getScramble());
-        values.put(KEY_PENALTY, solve.getPenalty());
-        values.put(KEY_COMMENT, solve.getComment());
-        values.put(KEY_HISTORY, solve.isHistory());
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+
+            db.beginTransaction();
+            try {
+                ContentValues values = new ContentValues();
+                values.put(KEY_CATEGORY, addCategory(solve.getPuzzle(), solve.getSubtype()));
+                values.put(KEY_TIME, solve.getTime());
+                values.put(KEY_DATE, solve.getDate());
+                putScramble(db, values, solve.getPuzzle(), solve.getScramble());
+                values.put(KEY_PENALTY, solve.getPenalty());
+                values.put(KEY_COMMENT, solve.getComment());
+                values.put(KEY_HISTORY, solve.isHistory());
+                values.put(KEY_CONTENT_HASH, solveHash(solve, solve.getTime()));
+
+                // Updating row. If the edit turns it into a copy of another solve, it's left alone,
+                // and so is the scramble stored above
+                int updated = db.updateWithOnConflict(TABLE_TIMES, values, KEY_ID + " = ?",
+                    new String[] { String.valueOf(solve.getId()) }, SQLiteDatabase.CONFLICT_IGNORE);
+                if (updated > 0)
+                    db.setTransactionSuccessful();
+                return updated;
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            Latency.stop("db.updateSolve", latencyStart);
+        }
+    }
 
-        // Updating row
-        return db.update(TABLE_TIMES, values, KEY_ID + " = ?",
-            new String[] { String.valueOf(solve.getId()) });
+    // Stores the scramble of a solve and puts its id in the values of the solve row
+    private static void putScramble(SQLiteDatabase db, ContentValues values, String puzzle, String scramble) {
+        if (scramble == null)
+            values.putNull(KEY_SCRAMBLE_ID);
+        else
+            values.put(KEY_SCRAMBLE_ID, storeScramble(db, puzzle, scramble));
     }
 
     public Solve getSolve(long id) {
         SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.query(TABLE_TIMES, new String[] { KEY_ID, KEY_TIME, KEY_TYPE, KEY_SUBTYPE, KEY_DATE, KEY_SCRAMBLE, KEY_PENALTY, KEY_COMMENT, KEY_HISTORY }, KEY_ID + "=?",
+        // The only query that needs the scramble text, so it's the only one that joins scrambles
+        Cursor cursor = db.query(TIMES_WITH_CATEGORIES + " LEFT JOIN " + TABLE_SCRAMBLES + " ON "
+                + KEY_SCRAMBLE_ID + " = " + TABLE_SCRAMBLES + "." + KEY_ID,
+            new String[] { TABLE_TIMES + "." + KEY_ID, KEY_TIME, KEY_TYPE, KEY_SUBTYPE, KEY_DATE, KEY_DATA, KEY_PENALTY, KEY_COMMENT, KEY_HISTORY }, TABLE_TIMES + "." + KEY_ID + "=?",
             new String[] { String.valueOf(id) }, null, null, null, null);
         if (cursor != null)
             cursor.moveToFirst();
@@ -301,7 +831,7 @@ public class DatabaseHandler extends SQLiteOpenHelper {
             cursor.getString(2),
             cursor.getString(3),
             cursor.getLong(4),
-            cursor.getString(5),
+            cursor.isNull(5) ? null : ScrambleCodec.decode(cursor.getBlob(5)),
             cursor.getInt(6),
             cursor.getString(7),
             getBoolean(cursor, 8));
@@ -320,8 +850,8 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 
         SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.rawQuery("SELECT DISTINCT " + KEY_SUBTYPE + " FROM "
-            + TABLE_TIMES + " WHERE " + KEY_TYPE + " ='" + type + "' ORDER BY " + KEY_SUBTYPE + " ASC", null);
+        Cursor cursor = db.rawQuery("SELECT " + KEY_SUBTYPE + " FROM " + TABLE_CATEGORIES
+            + " WHERE " + KEY_TYPE + " =? ORDER BY " + KEY_SUBTYPE + " ASC", new String[] { type });
 
         if (cursor.moveToFirst()) {
             do {
@@ -339,23 +869,28 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      * @return
      */
     public int getSolveCountWithLimit(int limit, String type, String subtype, boolean session) {
-        String sqlSelection;
-        if (session)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND history = 0 LIMIT " + limit;
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 LIMIT " + limit;
+        long latencyStart = Latency.start();
+        try {
+            String sqlSelection;
+            if (session)
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND history = 0 LIMIT " + limit;
+            else
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 LIMIT " + limit;
 
-        String countQuery = "SELECT * FROM " + TABLE_TIMES + sqlSelection;
-        SQLiteDatabase db = this.getReadableDatabase();
+            String countQuery = "SELECT * FROM " + TABLE_TIMES + sqlSelection;
+            SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.rawQuery(countQuery, new String[] { type, subtype });
+            Cursor cursor = db.rawQuery(countQuery, new String[] { categoryArg(type, subtype) });
 
-        int count = cursor.getCount();
-        cursor.close();
-        // Return count
-        return count;
+            int count = cursor.getCount();
+            cursor.close();
+            // Return count
+            return count;
+        } finally {
+            Latency.stop("db.getSolveCountWithLimit", latencyStart);
+        }
     }
 
     /**
@@ -364,23 +899,28 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      * @return
      */
     public int getSolveCount(String type, String subtype, boolean session) {
-        String sqlSelection;
-        if (session)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND history = 0";
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10";
+        long latencyStart = Latency.start();
+        try {
+            String sqlSelection;
+            if (session)
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND history = 0";
+            else
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10";
 
-        String countQuery = "SELECT * FROM " + TABLE_TIMES + sqlSelection;
-        SQLiteDatabase db = this.getReadableDatabase();
+            String countQuery = "SELECT * FROM " + TABLE_TIMES + sqlSelection;
+            SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.rawQuery(countQuery, new String[] { type, subtype });
+            Cursor cursor = db.rawQuery(countQuery, new String[] { categoryArg(type, subtype) });
 
-        int count = cursor.getCount();
-        cursor.close();
-        // Return count
-        return count;
+            int count = cursor.getCount();
+            cursor.close();
+            // Return count
+            return count;
+        } finally {
+            Latency.stop("db.getSolveCount", latencyStart);
+        }
     }
 
     /**
@@ -394,64 +934,74 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      * @return The time
      */
     public int getBestOrWorstTime(boolean best, boolean session, String puzzle, String subtype) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor;
-        int time = 0;
-
-        String minOrMax;
-        if (best)
-            minOrMax = "MIN(time)";
-        else
-            minOrMax = "MAX(time)";
-
-        String sqlSelection;
-        if (session)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF + " AND history = 0 ORDER BY date DESC ";
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF;
-
+        long latencyStart = Latency.start();
         try {
-            cursor = db.rawQuery("SELECT " + minOrMax + " FROM " + TABLE_TIMES + sqlSelection,
-                new String[] { puzzle, subtype });
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor;
+            int time = 0;
+
+            String minOrMax;
+            if (best)
+                minOrMax = "MIN(time)";
+            else
+                minOrMax = "MAX(time)";
+
+            String sqlSelection;
+            if (session)
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF + " AND history = 0 ORDER BY date DESC ";
+            else
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF;
+
+            try {
+                cursor = db.rawQuery("SELECT " + minOrMax + " FROM " + TABLE_TIMES + sqlSelection,
+                    new String[] { categoryArg(puzzle, subtype) });
+
+                if (cursor.moveToFirst())
+                    time = cursor.getInt(0);
+                cursor.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
 
-            if (cursor.moveToFirst())
-                time = cursor.getInt(0);
-            cursor.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+            return time;
+        } finally {
+            Latency.stop("db.getBestOrWorstTime", latencyStart);
         }
-
-        return time;
     }
 
     public int getMean(boolean session, String puzzle, String type) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor;
-        int mean = 0;
-
-        String sqlSelection;
-        if (session)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF + " AND history = 0";
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF;
-
-        cursor = db.rawQuery("SELECT AVG(time) FROM " + TABLE_TIMES + sqlSelection,
-            new String[] { puzzle, type });
-        cursor.moveToFirst();
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor;
+            int mean = 0;
+
+            String sqlSelection;
+            if (session)
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF + " AND history = 0";
+            else
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF;
+
+            cursor = db.rawQuery("SELECT AVG(time) FROM " + TABLE_TIMES + sqlSelection,
+                new String[] { categoryArg(puzzle, type) });
+            cursor.moveToFirst();
 
-        if (cursor.getCount() != 0)
-            mean = cursor.getInt(0);
+            if (cursor.getCount() != 0)
+                mean = cursor.getInt(0);
 
-        cursor.close();
-        return mean;
+            cursor.close();
+            return mean;
+        } finally {
+            Latency.stop("db.getMean", latencyStart);
+        }
     }
 
     /**
@@ -466,51 +1016,25 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      */
 
     public int getTruncatedAverageOf(int n, String puzzle, String type, boolean disqualifyDNF) {
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        String sqlSelection =
-            " WHERE type =? AND subtype =? AND penalty!=10 AND history = 0 ORDER BY date DESC ";
-
-        Cursor cursor;
-
-        cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection + "LIMIT " + n,
-            new String[] { puzzle, type });
-
-        if (cursor.getCount() >= n) {
-
-            int timeIndex = cursor.getColumnIndex(KEY_TIME);
-            int penaltyIndex = cursor.getColumnIndex(KEY_PENALTY);
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
 
-            if (cursor.moveToFirst()) {
-                int worst = 0;
-                int best = Integer.MAX_VALUE;
-                int sum = 0;
-                int dnfCount = 0;
-                for (int i = 0; i < n; i++) {
-                    int time = cursor.getInt(timeIndex); // time
-                    sum += time;
+            String sqlSelection =
+                " WHERE category =? AND penalty!=10 AND history = 0 ORDER BY date DESC ";
 
-                    if (time > worst && dnfCount == 0)
-                        worst = time;
-                    if (time < best && cursor.getInt(penaltyIndex) != PuzzleUtils.PENALTY_DNF)
-                        best = time;
+            Cursor cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection + "LIMIT " + n,
+                new String[] { categoryArg(puzzle, type) });
 
-                    if (cursor.getInt(penaltyIndex) == PuzzleUtils.PENALTY_DNF) { // penalty
-                        worst = time;
-                        dnfCount += 1;
-                    }
+            int count = cursor.getCount();
+            int[] times = new int[count];
+            boolean[] dnfs = new boolean[count];
+            readTimes(cursor, times, dnfs);
 
-                    cursor.moveToNext();
-                }
-                cursor.close();
-                if (disqualifyDNF && dnfCount > 1)
-                    return - 1;
-                else
-                    return (sum - worst - best) / (n - 2);
-            }
+            return SolveStatistics.truncatedAverageOf(times, dnfs, count, n, disqualifyDNF);
+        } finally {
+            Latency.stop("db.getTruncatedAverageOf", latencyStart);
         }
-        cursor.close();
-        return 0;
     }
 
     /**
@@ -525,33 +1049,34 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      */
 
     public int getFastAverageOf(int n, String puzzle, String type, boolean session) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        int time = 0;
-
-        String sqlSelection;
-        if (session)
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF + " AND history = 0";
-        else
-            sqlSelection =
-                " WHERE type =? AND subtype =? AND penalty!=10 AND penalty!="
-                    + PuzzleUtils.PENALTY_DNF;
-
-        Cursor cursor;
-
-        cursor = db.rawQuery("SELECT time FROM " + TABLE_TIMES + sqlSelection + " LIMIT " + n,
-            new String[] { puzzle, type });
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+
+            String sqlSelection;
+            if (session)
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF + " AND history = 0";
+            else
+                sqlSelection =
+                    " WHERE category =? AND penalty!=10 AND penalty!="
+                        + PuzzleUtils.PENALTY_DNF;
+
+            Cursor cursor = db.rawQuery("SELECT time FROM " + TABLE_TIMES + sqlSelection + " ORDER BY date DESC LIMIT " + n,
+                new String[] { categoryArg(puzzle, type) });
+
+            int count = cursor.getCount();
+            int[] times = new int[count];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                times[i] = cursor.getInt(0);
+            }
+            cursor.close();
 
-        if (cursor.getCount() >= n) {
-            cursor = db.rawQuery("SELECT AVG(time) FROM (SELECT * FROM " + TABLE_TIMES + sqlSelection + " ORDER BY date DESC LIMIT " + n + ")",
-                new String[] { puzzle, type });
-            if (cursor.moveToFirst())
-                time = cursor.getInt(0);
+            return SolveStatistics.fastAverageOf(times, count, n);
+        } finally {
+            Latency.stop("db.getFastAverageOf", latencyStart);
         }
-
-        cursor.close();
-        return time;
     }
 
 
@@ -567,55 +1092,30 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      */
 
     public ArrayList<Integer> getListOfTruncatedAverageOf(int n, String puzzle, String type, boolean disqualifyDNF) {
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        ArrayList<Integer> timeList = new ArrayList<>(n + 1);
-
-        String sqlSelection =
-            " WHERE type =? AND subtype =? AND penalty!=10 AND history = 0 ORDER BY date DESC ";
-
-        Cursor cursor;
-
-        cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection + "LIMIT " + n,
-            new String[] { puzzle, type });
-
-        if (cursor.getCount() >= n) {
-
-            int timeIndex = cursor.getColumnIndex(KEY_TIME);
-            int penaltyIndex = cursor.getColumnIndex(KEY_PENALTY);
-
-            if (cursor.moveToFirst()) {
-                int worst = 0;
-                int best = Integer.MAX_VALUE;
-                int sum = 0;
-                int dnfCount = 0;
-                for (int i = 0; i < n; i++) {
-                    int time = cursor.getInt(timeIndex); // time
-                    sum += time;
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
 
-                    if (time > worst && dnfCount == 0)
-                        worst = time;
-                    if (time < best && cursor.getInt(penaltyIndex) != PuzzleUtils.PENALTY_DNF)
-                        best = time;
+            String sqlSelection =
+                " WHERE category =? AND penalty!=10 AND history = 0 ORDER BY date DESC ";
 
-                    if (cursor.getInt(penaltyIndex) == PuzzleUtils.PENALTY_DNF) { // penalty
-                        worst = time;
-                        time = PuzzleUtils.TIME_DNF;
-                        dnfCount += 1;
-                    }
+            Cursor cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection + "LIMIT " + n,
+                new String[] { categoryArg(puzzle, type) });
 
-                    timeList.add(time);
+            int count = cursor.getCount();
+            int[] times = new int[count];
+            boolean[] dnfs = new boolean[count];
+            readTimes(cursor, times, dnfs);
 
-                    cursor.moveToNext();
-                }
-                if (disqualifyDNF && dnfCount > 1)
-                    timeList.add(PuzzleUtils.TIME_DNF);
-                else
-                    timeList.add((sum - worst - best) / (n - 2));
+            int[] list = SolveStatistics.listOfTruncatedAverageOf(times, dnfs, count, n, disqualifyDNF);
+            ArrayList<Integer> timeList = new ArrayList<>(n + 1);
+            for (int time : list) {
+                timeList.add(time);
             }
+            return timeList;
+        } finally {
+            Latency.stop("db.getListOfTruncatedAverageOf", latencyStart);
         }
-        cursor.close();
-        return timeList;
     }
 
     /**
@@ -630,112 +1130,206 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      */
 
     public int getBestAverageOf(int n, String puzzle, String type, boolean disqualifyDNF) {
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        String sqlSelection =
-            " WHERE type =? AND subtype =? AND penalty!=10 ORDER BY date DESC";
-
-        Cursor cursor;
-
-        cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection,
-            new String[] { puzzle, type });
-        cursor.moveToFirst();
-
-        int bestAverage = Integer.MAX_VALUE;
-        int count = cursor.getCount();
-
-        if (count >= n) {
-            int timeIndex = cursor.getColumnIndex(KEY_TIME);
-            int penaltyIndex = cursor.getColumnIndex(KEY_PENALTY);
-
-            if (cursor.moveToFirst()) {
-
-                for (int i = 0; i < count - n + 1; i++) {
-                    int worst = Integer.MIN_VALUE;
-                    int best = Integer.MAX_VALUE;
-                    int sum = 0;
-                    int dnfCount = 0;
-
-                    for (int j = 0; j < n; j++) {
-                        cursor.moveToPosition(i + j);
-                        int time = cursor.getInt(timeIndex);
-                        sum += time;
-
-                        if (time > worst && dnfCount == 0)
-                            worst = time;
-                        if (time < best && cursor.getInt(penaltyIndex) != PuzzleUtils.PENALTY_DNF)
-                            best = time;
-
-                        if (disqualifyDNF) {
-                            if (cursor.getInt(penaltyIndex) == PuzzleUtils.PENALTY_DNF) {
-                                worst = time;
-                                dnfCount += 1;
-                            }
-                        }
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
 
-                    }
+            String sqlSelection =
+                " WHERE category =? AND penalty!=10 ORDER BY date DESC";
 
-                    if (! (disqualifyDNF && dnfCount > 1)) {
-                        int average = Integer.MAX_VALUE;
+            Cursor cursor = db.rawQuery("SELECT time, penalty FROM " + TABLE_TIMES + sqlSelection,
+                new String[] { categoryArg(puzzle, type) });
 
-                        if (n == 3) {
-                            if (dnfCount == 0)
-                                average = sum / 3;
-                        } else
-                            average = (sum - worst - best) / (n - 2);
+            int count = cursor.getCount();
+            int[] times = new int[count];
+            boolean[] dnfs = new boolean[count];
+            readTimes(cursor, times, dnfs);
 
-                        if (average < bestAverage)
-                            bestAverage = average;
-                    }
+            return SolveStatistics.bestAverageOf(times, dnfs, count, n, disqualifyDNF);
+        } finally {
+            Latency.stop("db.getBestAverageOf", latencyStart);
+        }
+    }
 
-                }
-                cursor.close();
-                if (bestAverage == Integer.MAX_VALUE)
-                    return 0;
-                else
-                    return bestAverage;
-            }
+    /**
+     * Reads a "SELECT time, penalty" cursor into arrays for {@link SolveStatistics}, and closes it.
+     */
+    private static void readTimes(Cursor cursor, int[] times, boolean[] dnfs) {
+        for (int i = 0; cursor.moveToNext(); i++) {
+            times[i] = cursor.getInt(0);
+            dnfs[i] = cursor.getInt(1) == PuzzleUtils.PENALTY_DNF;
         }
         cursor.close();
-        return 0;
     }
 
 
     // Delete an entry with an id
     public int deleteFromId(long id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_TIMES, KEY_ID + " = ?", new String[] { String.valueOf(id) });
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            return deleteSolves(db, KEY_ID + " = ?", new String[] { String.valueOf(id) });
+        } finally {
+            Latency.stop("db.deleteFromId", latencyStart);
+        }
     }
 
-    // Delete entries with an id list
-    public void deleteAllFromList(List<Long> idList) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        for (int i = 0; i < idList.size(); i++) {
-            db.delete(TABLE_TIMES, KEY_ID + " = ?", new String[] { Long.toString(idList.get(i)) });
+    /**
+     * Adds the ids of the solves of a category between two dates to a set, with a single query.
+     * Used to select every solve in the list, or a range of them, without going through the rows.
+     *
+     * @param history  True to select from the history, false from the session
+     * @param fromDate The oldest date selected, inclusive
+     * @param toDate   The newest date selected, inclusive
+     * @param ids      Receives the ids
+     *
+     * @return How many ids were not in the set yet
+     */
+    public int selectSolveIds(String type, String subtype, boolean history, long fromDate, long toDate,
+                              LongHashSet ids) {
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = db.query(TABLE_TIMES, new String[] { KEY_ID },
+                KEY_CATEGORY + "=? AND " + KEY_HISTORY + "=? AND " + KEY_PENALTY + "!=" + PuzzleUtils.PENALTY_HIDETIME
+                    + " AND " + KEY_DATE + " BETWEEN ? AND ?",
+                new String[] { categoryArg(type, subtype), history ? "1" : "0",
+                    Long.toString(fromDate), Long.toString(toDate) },
+                null, null, null);
+            int added = 0;
+            while (cursor.moveToNext()) {
+                if (ids.add(cursor.getLong(0)))
+                    added++;
+            }
+            cursor.close();
+            return added;
+        } finally {
+            Latency.stop("db.selectSolveIds", latencyStart);
+        }
+    }
+
+    /**
+     * Deletes every solve in a set of ids, a few hundred per statement.
+     *
+     * @return The number of solves deleted
+     */
+    public int deleteAllFromSet(LongHashSet ids) {
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            long[] idArray = ids.toArray();
+            int deleted = 0;
+            db.beginTransaction();
+            try {
+                for (int from = 0; from < idArray.length; from += ID_LIST_CHUNK_SIZE) {
+                    int to = Math.min(from + ID_LIST_CHUNK_SIZE, idArray.length);
+                    deleted += deleteSolves(db, KEY_ID + " IN " + idList(idArray, from, to), null);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return deleted;
+        } finally {
+            Latency.stop("db.deleteAllFromSet", latencyStart);
         }
     }
 
     // Delete entries from session
     public int deleteAllFromSession(String type, String subtype) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_TIMES, KEY_TYPE + "=? AND " + KEY_SUBTYPE + " = ? AND " + KEY_HISTORY + "=0", new String[] { type, subtype });
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            return deleteSolves(db, KEY_CATEGORY + "=? AND " + KEY_HISTORY + "=0", new String[] { categoryArg(type, subtype) });
+        } finally {
+            Latency.stop("db.deleteAllFromSession", latencyStart);
+        }
     }
 
     // Delete a single solve
     public int deleteSolve(Solve solve) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_TIMES, KEY_ID + " = ?", new String[] { String.valueOf(solve.getId()) });
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            return deleteSolves(db, KEY_ID + " = ?", new String[] { String.valueOf(solve.getId()) });
+        } finally {
+            Latency.stop("db.deleteSolve", latencyStart);
+        }
+    }
+
+    /**
+     * Deletes solves, along with any scramble that was only used by them.
+     *
+     * @return The number of solves deleted
+     */
+    private static int deleteSolves(SQLiteDatabase db, String whereClause, String[] whereArgs) {
+        db.beginTransaction();
+        try {
+            LongHashSet scrambleIdSet = new LongHashSet();
+            Cursor cursor = db.query(TABLE_TIMES, new String[] { KEY_SCRAMBLE_ID },
+                "(" + whereClause + ") AND " + KEY_SCRAMBLE_ID + " IS NOT NULL", whereArgs,
+                null, null, null);
+            while (cursor.moveToNext()) {
+                scrambleIdSet.add(cursor.getLong(0));
+            }
+            cursor.close();
+
+            int deleted = db.delete(TABLE_TIMES, whereClause, whereArgs);
+
+            long[] scrambleIds = scrambleIdSet.toArray();
+            for (int from = 0; from < scrambleIds.length; from += ID_LIST_CHUNK_SIZE) {
+                int to = Math.min(from + ID_LIST_CHUNK_SIZE, scrambleIds.length);
+                db.execSQL("DELETE FROM " + TABLE_SCRAMBLES + " WHERE " + KEY_ID + " IN " + idList(scrambleIds, from, to)
+                    + " AND NOT EXISTS (SELECT 1 FROM " + TABLE_TIMES
+                    + " WHERE " + KEY_SCRAMBLE_ID + " = " + TABLE_SCRAMBLES + "." + KEY_ID + ")");
+            }
+            db.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // "(1,2,3)". The values are longs, so they can be written in the statement without arguments
+    private static String idList(long[] ids, int from, int to) {
+        StringBuilder list = new StringBuilder((to - from) * 8);
+        list.append('(');
+        for (int i = from; i < to; i++) {
+            if (i > from)
+                list.append(',');
+            list.append(ids[i]);
+        }
+        return list.append(')').toString();
     }
 
     /**
-     * Deletes all solves from a subtype, thus removing the subtype
+     * Deletes all solves from a subtype, along with the subtype itself
      *
      * @param subtype
      */
     public int deleteSubtype(String type, String subtype) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_TIMES, KEY_TYPE + "=? AND " + KEY_SUBTYPE + " = ?",
-            new String[] { type, subtype });
+        long latencyStart = Latency.start();
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            String[] args = new String[] { categoryArg(type, subtype) };
+            int deleted;
+
+            db.beginTransaction();
+            try {
+                deleted = deleteSolves(db, KEY_CATEGORY + " = ?", args);
+                db.delete(TABLE_CATEGORIES, KEY_ID + " = ?", args);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            synchronized (mCategoryIds) {
+                mCategoryIds.remove(categoryKey(type, subtype));
+            }
+            return deleted;
+        } finally {
+            Latency.stop("db.deleteSubtype", latencyStart);
+        }
     }
 
     /**
@@ -756,22 +1350,185 @@ public class DatabaseHandler extends SQLiteOpenHelper {
      * @param subtype
      */
     public int renameSubtype(String type, String subtype, String newName) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(KEY_SUBTYPE, newName);
-        return db.update(TABLE_TIMES, contentValues, KEY_TYPE + "=? AND " + KEY_SUBTYPE + "=?", new String[] { type, subtype });
+        long latencyStart = Latency.start();
+        try {
+            long oldId = getCategoryId(type, subtype);
+            long newId = getCategoryId(type, newName);
+            if (oldId == - 1 || oldId == newId)
+                return 0;
+
+            SQLiteDatabase db = this.getWritableDatabase();
+            int renamed;
+
+            db.beginTransaction();
+            try {
+                if (newId == - 1) {
+                    // Only the category row has to change, its solves keep pointing at the same id
+                    ContentValues contentValues = new ContentValues();
+                    contentValues.put(KEY_SUBTYPE, newName);
+                    renamed = db.update(TABLE_CATEGORIES, contentValues, KEY_ID + "=?",
+                        new String[] { String.valueOf(oldId) });
+                } else {
+                    // A subtype with the new name already exists, so merge the solves into it.
+                    // Their content hashes don't include the subtype, so they stay the same
+                    ContentValues contentValues = new ContentValues();
+                    contentValues.put(KEY_CATEGORY, newId);
+                    renamed = db.update(TABLE_TIMES, contentValues, KEY_CATEGORY + "=?",
+                        new String[] { String.valueOf(oldId) });
+                    db.delete(TABLE_CATEGORIES, KEY_ID + "=?", new String[] { String.valueOf(oldId) });
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            synchronized (mCategoryIds) {
+                mCategoryIds.clear();
+            }
+            return renamed;
+        } finally {
+            Latency.stop("db.renameSubtype", latencyStart);
+        }
+    }
+
+    /**
+     * Loads every solve of a category (history included) into a {@link SolveColumns}, most
+     * recent first. Scrambles and comments are loaded later, only for the rows that ask for them.
+     *
+     * @param type    The puzzle type
+     * @param subtype The puzzle subtype (category name)
+     */
+    public SolveColumns getSolveColumns(String type, String subtype) {
+        return getSolveColumns(type, subtype, false);
+    }
+
+    /**
+     * Loads every solve of a category (history included) into a {@link SolveColumns}, most
+     * recent first.
+     *
+     * @param type      The puzzle type
+     * @param subtype   The puzzle subtype (category name)
+     * @param withTexts True to load the scrambles and comments in the same query, for callers
+     *                  that read all of them. False to load them later, one row at a time
+     */
+    public SolveColumns getSolveColumns(String type, String subtype, boolean withTexts) {
+        long latencyStart = Latency.start();
+        try {
+            return readSolveColumns(" AND " + KEY_CATEGORY + "=?", new String[] { categoryArg(type, subtype) },
+                withTexts);
+        } finally {
+            Latency.stop("db.getSolveColumns", latencyStart);
+        }
     }
 
-    public Cursor getAllSolves() {
+    /**
+     * Loads every solve of every category into a {@link SolveColumns}, most recent first.
+     *
+     * @param withTexts See {@link #getSolveColumns(String, String, boolean)}
+     */
+    public SolveColumns getAllSolveColumns(boolean withTexts) {
+        long latencyStart = Latency.start();
+        try {
+            return readSolveColumns("", null, withTexts);
+        } finally {
+            Latency.stop("db.getAllSolveColumns", latencyStart);
+        }
+    }
+
+    private SolveColumns readSolveColumns(String selection, String[] selectionArgs, boolean withTexts) {
         SQLiteDatabase db = this.getReadableDatabase();
-        return db.rawQuery("SELECT * FROM times WHERE penalty!=" + PuzzleUtils.PENALTY_HIDETIME, null);
+        String query = "SELECT " + TABLE_TIMES + "." + KEY_ID + ", " + KEY_TYPE + ", " + KEY_SUBTYPE
+            + ", " + KEY_TIME + ", " + KEY_DATE + ", " + KEY_PENALTY + ", " + KEY_HISTORY + ", "
+            + KEY_SCRAMBLE_ID + ", " + KEY_COMMENT + " != ''";
+        if (withTexts)
+            query += ", " + KEY_DATA + ", " + KEY_COMMENT + " FROM " + TIMES_WITH_CATEGORIES
+                + " LEFT JOIN " + TABLE_SCRAMBLES + " ON " + KEY_SCRAMBLE_ID + " = " + TABLE_SCRAMBLES + "." + KEY_ID;
+        else
+            query += " FROM " + TIMES_WITH_CATEGORIES;
+        Cursor cursor = db.rawQuery(query
+            + " WHERE " + KEY_PENALTY + "!=" + PuzzleUtils.PENALTY_HIDETIME + selection
+            + " ORDER BY " + KEY_DATE + " DESC", selectionArgs);
+
+        SolveColumns solves = new SolveColumns(cursor.getCount());
+        solves.setTextLoader(mTextLoader);
+        while (cursor.moveToNext()) {
+            int category = solves.internCategory(cursor.getString(1), cursor.getString(2));
+            if (withTexts) {
+                solves.add(
+                    cursor.getLong(0),
+                    category,
+                    cursor.getInt(3),
+                    cursor.getLong(4),
+                    cursor.isNull(9) ? null : ScrambleCodec.decode(cursor.getBlob(9)),
+                    cursor.getInt(5),
+                    cursor.getString(10),
+                    getBoolean(cursor, 6));
+            } else {
+                solves.add(
+                    cursor.getLong(0),
+                    category,
+                    cursor.getInt(3),
+                    cursor.getLong(4),
+                    cursor.getInt(5),
+                    getBoolean(cursor, 6),
+                    cursor.isNull(7) ? SolveColumns.NO_SCRAMBLE : cursor.getLong(7),
+                    getBoolean(cursor, 8));
+            }
+        }
+        cursor.close();
+        return solves;
     }
 
-    public boolean solveExists(Solve solve) {
+    /**
+     * Loads the comment of a solve.
+     *
+     * @return The comment, or null if the solve doesn't exist
+     */
+    public String getComment(long solveId) {
         SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + KEY_COMMENT + " FROM " + TABLE_TIMES
+            + " WHERE " + KEY_ID + " = " + solveId, null);
+        String comment = null;
+        if (cursor.moveToFirst())
+            comment = cursor.getString(0);
+        cursor.close();
+        return comment;
+    }
 
-        return DatabaseUtils.queryNumEntries(db, TABLE_TIMES, "type=? AND subtype =? AND time=? AND scramble=? AND date=?", new String[] { solve.getPuzzle(), solve.getSubtype(), String.valueOf(solve.getTime()), solve.getScramble(), String.valueOf(solve.getDate()) }) > 0;
+    /**
+     * Loads the tips stored with a solve.
+     *
+     * @return The tips, or null if none were stored or the solve doesn't exist
+     */
+    public String getTips(long solveId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + KEY_TIPS + " FROM " + TABLE_TIMES
+            + " WHERE " + KEY_ID + " = " + solveId, null);
+        String tips = null;
+        if (cursor.moveToFirst())
+            tips = cursor.getString(0);
+        cursor.close();
+        return tips;
+    }
 
+    /**
+     * Stores the tips for the scramble of a solve, so they can be shown again without solving
+     * the scramble.
+     */
+    public int setTips(long solveId, String tips) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(KEY_TIPS, tips);
+        return db.update(TABLE_TIMES, values, KEY_ID + " = ?",
+            new String[] { String.valueOf(solveId) });
+    }
+
+    public boolean solveExists(Solve solve) {
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        // Same rounding as addSolve
+        int time = solve.getTime() - (solve.getTime() % 10);
+        return DatabaseUtils.queryNumEntries(db, TABLE_TIMES, KEY_CONTENT_HASH + "=" + solveHash(solve, time), null) > 0;
     }
 
 
@@ -863,10 +1620,4 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 
     }
 
-    public void closeDB() {
-        SQLiteDatabase db = this.getReadableDatabase();
-        if (db != null && db.isOpen())
-            db.close();
-    }
-
 }
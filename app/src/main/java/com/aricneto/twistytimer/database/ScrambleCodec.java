@@ -0,0 +1,312 @@
+package com.aricneto.twistytimer.database;
+
+import com.aricneto.twistytimer.utils.PuzzleUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compresses scrambles for storage in the scrambles table.
+ *
+ * Every puzzle has a dictionary with all the moves its scrambler can output, so each move is
+ * stored as a single byte. The first byte of an encoded scramble says which dictionary was used
+ * (or that the scramble is plain UTF-8 text), so a stored scramble can always be decoded without
+ * knowing the puzzle it belongs to. Anything that doesn't round-trip exactly through a
+ * dictionary (odd spacing, hand-typed scrambles from an import) is stored as plain text.
+ */
+public class ScrambleCodec {
+
+    private static final int FORMAT_RAW = 0;
+
+    // Codes above the dictionary range
+    private static final int CODE_NEWLINE = 0xFE;
+    private static final int CODE_ESCAPE  = 0xFF;
+    private static final int MAX_TOKENS   = 0xFE;
+
+    private static final String[] CUBE_FACES    = { "U", "D", "L", "R", "F", "B" };
+    private static final String[] CUBE_SUFFIXES = { "", "'", "2" };
+
+    // Dictionaries, indexed by format (format 0 is raw text)
+    private static final List<String[]>                  DICTIONARIES = new ArrayList<>();
+    private static final List<HashMap<String, Integer>>  CODES        = new ArrayList<>();
+    private static final HashMap<String, Integer>        FORMATS      = new HashMap<>();
+
+    static {
+        DICTIONARIES.add(null);
+        CODES.add(null);
+
+        int cube = addDictionary(cubeTokens());
+        FORMATS.put(PuzzleUtils.TYPE_222, cube);
+        FORMATS.put(PuzzleUtils.TYPE_333, cube);
+        FORMATS.put(PuzzleUtils.TYPE_444, cube);
+        FORMATS.put(PuzzleUtils.TYPE_555, cube);
+        FORMATS.put(PuzzleUtils.TYPE_666, cube);
+        FORMATS.put(PuzzleUtils.TYPE_777, cube);
+        FORMATS.put(PuzzleUtils.TYPE_MEGA, addDictionary(megaminxTokens()));
+        FORMATS.put(PuzzleUtils.TYPE_PYRA, addDictionary(pyraminxTokens()));
+        FORMATS.put(PuzzleUtils.TYPE_SKEWB, addDictionary(skewbTokens()));
+        FORMATS.put(PuzzleUtils.TYPE_CLOCK, addDictionary(clockTokens()));
+        FORMATS.put(PuzzleUtils.TYPE_SQUARE1, addDictionary(squareOneTokens()));
+    }
+
+    private ScrambleCodec() {
+    }
+
+    private static int addDictionary(List<String> tokens) {
+        if (tokens.size() > MAX_TOKENS)
+            throw new IllegalStateException("Dictionary too large: " + tokens.size());
+
+        HashMap<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            codes.put(tokens.get(i), i);
+        }
+        DICTIONARIES.add(tokens.toArray(new String[tokens.size()]));
+        CODES.add(codes);
+        return DICTIONARIES.size() - 1;
+    }
+
+    // Face turns, wide turns (Uw, 3Uw) and rotations, for every NxN cube up to 7x7
+    private static List<String> cubeTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (String prefix : new String[] { "", "w", "3w" }) {
+            for (String face : CUBE_FACES) {
+                for (String suffix : CUBE_SUFFIXES) {
+                    if (prefix.equals("3w"))
+                        tokens.add("3" + face + "w" + suffix);
+                    else
+                        tokens.add(face + prefix + suffix);
+                }
+            }
+        }
+        for (String rotation : new String[] { "x", "y", "z" }) {
+            for (String suffix : CUBE_SUFFIXES) {
+                tokens.add(rotation + suffix);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> megaminxTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (String face : new String[] { "R", "D" }) {
+            tokens.add(face + "++");
+            tokens.add(face + "--");
+        }
+        tokens.add("U");
+        tokens.add("U'");
+        return tokens;
+    }
+
+    private static List<String> pyraminxTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (String face : new String[] { "U", "L", "R", "B", "u", "l", "r", "b" }) {
+            tokens.add(face);
+            tokens.add(face + "'");
+        }
+        return tokens;
+    }
+
+    private static List<String> skewbTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (String face : new String[] { "U", "L", "R", "B" }) {
+            tokens.add(face);
+            tokens.add(face + "'");
+        }
+        return tokens;
+    }
+
+    private static List<String> clockTokens() {
+        List<String> tokens = new ArrayList<>();
+        String[] pins = { "UR", "DR", "DL", "UL", "U", "R", "D", "L", "ALL" };
+        for (String pin : pins) {
+            for (int turns = 0; turns <= 6; turns++) {
+                tokens.add(pin + turns + "+");
+                tokens.add(pin + turns + "-");
+            }
+        }
+        tokens.add("y2");
+        // Pins left up at the end of the scramble
+        for (int i = 0; i < 4; i++) {
+            tokens.add(pins[i]);
+        }
+        return tokens;
+    }
+
+    private static List<String> squareOneTokens() {
+        List<String> tokens = new ArrayList<>();
+        for (int top = - 5; top <= 6; top++) {
+            for (int bottom = - 5; bottom <= 6; bottom++) {
+                tokens.add("(" + top + "," + bottom + ")");
+            }
+        }
+        tokens.add("/");
+        return tokens;
+    }
+
+    /**
+     * Encodes a scramble for storage.
+     *
+     * @param puzzle   The puzzle type the scramble was generated for
+     * @param scramble The scramble text
+     *
+     * @return The encoded scramble. Never null
+     */
+    public static byte[] encode(String puzzle, String scramble) {
+        Integer format = FORMATS.get(puzzle);
+        if (format != null) {
+            byte[] encoded = encodeWithDictionary(format, scramble);
+            if (encoded != null && scramble.equals(decode(encoded)))
+                return encoded;
+        }
+        return encodeRaw(scramble);
+    }
+
+    /**
+     * Decodes a scramble created by {@link #encode(String, String)}.
+     *
+     * @param data The encoded scramble
+     *
+     * @return The scramble text
+     */
+    public static String decode(byte[] data) {
+        int format = data[0] & 0xFF;
+        if (format == FORMAT_RAW)
+            return utf8(data, 1, data.length - 1);
+
+        String[] dictionary = DICTIONARIES.get(format);
+        StringBuilder builder = new StringBuilder(data.length * 3);
+        char separator = ' ';
+        boolean first = true;
+
+        int i = 1;
+        while (i < data.length) {
+            int code = data[i++] & 0xFF;
+            if (code == CODE_NEWLINE) {
+                separator = '\n';
+                continue;
+            }
+            if (! first)
+                builder.append(separator);
+            if (code == CODE_ESCAPE) {
+                int length = data[i++] & 0xFF;
+                builder.append(utf8(data, i, length));
+                i += length;
+            } else {
+                builder.append(dictionary[code]);
+            }
+            separator = ' ';
+            first = false;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of an encoded scramble. Used to find scrambles that are
+     * already stored; different scrambles can share a hash, so the data itself must still be
+     * compared.
+     */
+    public static long hash(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Returns null if the scramble can't be split into single-space or newline separated tokens
+    private static byte[] encodeWithDictionary(int format, String scramble) {
+        HashMap<String, Integer> codes = CODES.get(format);
+        // One byte per move in the common case
+        ByteBuilder out = new ByteBuilder(scramble.length() / 2 + 2);
+        out.append(format);
+
+        int length = scramble.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && scramble.charAt(end) != ' ' && scramble.charAt(end) != '\n')
+                end++;
+            if (end == start)
+                return null;
+
+            String token = scramble.substring(start, end);
+            Integer code = codes.get(token);
+            if (code != null) {
+                out.append(code);
+            } else {
+                byte[] bytes = utf8(token);
+                if (bytes.length > 0xFF)
+                    return null;
+                out.append(CODE_ESCAPE);
+                out.append(bytes.length);
+                out.append(bytes);
+            }
+
+            if (end < length && scramble.charAt(end) == '\n')
+                out.append(CODE_NEWLINE);
+            start = end + 1;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeRaw(String scramble) {
+        byte[] text = utf8(scramble);
+        byte[] encoded = new byte[text.length + 1];
+        encoded[0] = FORMAT_RAW;
+        System.arraycopy(text, 0, encoded, 1, text.length);
+        return encoded;
+    }
+
+    private static byte[] utf8(String text) {
+        try {
+            return text.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String utf8(byte[] data, int offset, int length) {
+        try {
+            return new String(data, offset, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ByteBuilder {
+        private byte[] bytes;
+        private int    size;
+
+        ByteBuilder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void append(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        void append(byte[] b) {
+            ensureCapacity(size + b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                byte[] grown = new byte[Math.max(capacity, bytes.length * 2)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[size];
+            System.arraycopy(bytes, 0, result, 0, size);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.aricneto.twistytimer.database;
+
+import com.aricneto.twistytimer.items.SolveColumns;
+import com.aricneto.twistytimer.utils.CsvTokenizer;
+import com.aricneto.twistytimer.utils.TimeCodec;
+
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Imports a file of solves into the database while it's being read.
+ *
+ * The calling thread parses the file into batches of {@link #BATCH_SIZE} solves, and a second
+ * thread writes each batch in its own transaction. Only {@link #BATCHES} batches exist and they
+ * are reused, so the memory used is the same whatever the size of the file.
+ */
+public class SolveImporter {
+
+    public static final int BATCH_SIZE = 500;
+
+    // One being parsed, one being written and one waiting in between
+    private static final int BATCHES = 3;
+
+    // Tells the writer there are no more batches
+    private static final SolveColumns END = new SolveColumns(1);
+
+    /**
+     * Receives the progress of an import.
+     */
+    public interface ProgressListener {
+        /**
+         * @param percent How much of the file was read, from 0 to 100
+         */
+        void onProgress(int percent);
+    }
+
+    private final DatabaseHandler handler;
+
+    private final BlockingQueue<SolveColumns> freeBatches   = new ArrayBlockingQueue<>(BATCHES);
+    private final BlockingQueue<SolveColumns> filledBatches = new ArrayBlockingQueue<>(BATCHES);
+
+    private int parseErrors;
+    private volatile int successes;
+    private volatile int duplicates;
+
+    // Set by the writer if a batch couldn't be written
+    private volatile RuntimeException writeError;
+
+    public SolveImporter(DatabaseHandler handler) {
+        this.handler = handler;
+        for (int i = 0; i < BATCHES; i++) {
+            freeBatches.add(new SolveColumns(BATCH_SIZE));
+        }
+    }
+
+    public int getParseErrors() {
+        return parseErrors;
+    }
+
+    public int getSuccesses() {
+        return successes;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Imports a backup file: a header line, then "puzzle;category;time;date;scramble;penalty;comment"
+     * lines.
+     *
+     * @param reader   The file
+     * @param length   The length of the file, for the progress
+     * @param listener Receives the progress. Can be null
+     */
+    public void importBackup(Reader reader, long length, ProgressListener listener)
+        throws IOException, InterruptedException {
+        run(reader, length, listener, true, null, null);
+    }
+
+    /**
+     * Imports a file from another timer: "time;scramble;date" lines, where the scramble and the
+     * date are optional. Every solve goes to the given puzzle and category.
+     *
+     * @param reader   The file
+     * @param length   The length of the file, for the progress
+     * @param puzzle   The puzzle of the solves
+     * @param category The category of the solves
+     * @param listener Receives the progress. Can be null
+     */
+    public void importExternal(Reader reader, long length, String puzzle, String category,
+                               ProgressListener listener) throws IOException, InterruptedException {
+        run(reader, length, listener, false, puzzle, category);
+    }
+
+    private void run(Reader reader, long length, ProgressListener listener, boolean backup,
+                     String puzzle, String category) throws IOException, InterruptedException {
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "SolveImporter");
+        writer.start();
+
+        boolean ended = false;
+        try {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader, ';');
+            // throw away the header
+            if (backup)
+                tokenizer.nextRecord();
+
+            SolveColumns batch = freeBatches.take();
+            while (tokenizer.nextRecord()) {
+                if (backup)
+                    parseBackup(tokenizer, batch);
+                else
+                    parseExternal(tokenizer, batch, puzzle, category);
+
+                if (batch.size() == BATCH_SIZE) {
+                    filledBatches.put(batch);
+                    if (listener != null && length > 0)
+                        listener.onProgress((int) Math.min(100, tokenizer.getCharsRead() * 100 / length));
+                    batch = freeBatches.take();
+                }
+            }
+            filledBatches.put(batch);
+            filledBatches.put(END);
+            ended = true;
+            writer.join();
+        } finally {
+            if (! ended) {
+                writer.interrupt();
+            }
+        }
+
+        if (writeError != null)
+            throw writeError;
+        if (listener != null)
+            listener.onProgress(100);
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                SolveColumns batch = filledBatches.take();
+                if (batch == END)
+                    return;
+
+                // After an error, the rest of the batches are only handed back
+                if (writeError == null) {
+                    try {
+                        int added = handler.importSolves(batch, 0, batch.size());
+                        successes += added;
+                        duplicates += batch.size() - added;
+                    } catch (RuntimeException e) {
+                        writeError = e;
+                    }
+                }
+                batch.clear();
+                freeBatches.put(batch);
+            }
+        } catch (InterruptedException e) {
+            // The import was abandoned
+        }
+    }
+
+    private void parseBackup(CsvTokenizer tokenizer, SolveColumns batch) {
+        try {
+            if (tokenizer.getFieldCount() < 7)
+                throw new IllegalArgumentException("Missing fields");
+            int time = tokenizer.getInt(2);
+            long date = tokenizer.getLong(3);
+            int penalty = tokenizer.getInt(5);
+            batch.add(batch.internCategory(tokenizer.getString(0), tokenizer.getString(1)), time, date,
+                tokenizer.getString(4), penalty, tokenizer.getString(6), true);
+        } catch (Exception e) {
+            parseErrors++;
+        }
+    }
+
+    private void parseExternal(CsvTokenizer tokenizer, SolveColumns batch, String puzzle, String category) {
+        int fields = tokenizer.getFieldCount();
+        if (fields > 3) {
+            parseErrors++;
+            return;
+        }
+
+        try {
+            long parsed = TimeCodec.parse(tokenizer.getString(0));
+            if (parsed == TimeCodec.INVALID)
+                throw new IllegalArgumentException("Not a time");
+            // Rounded to hundredths, like a time typed in by hand
+            int time = 10 * ((TimeCodec.timeOf(parsed) + 5) / 10);
+            int penalty = TimeCodec.penaltyOf(parsed);
+            String scramble = "";
+            long date = DateTime.now().getMillis();
+            if (fields >= 2) {
+                scramble = tokenizer.getString(1);
+            }
+            if (fields == 3) {
+                try {
+                    date = DateTime.parse(tokenizer.getString(2)).getMillis();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+
+            batch.add(batch.internCategory(puzzle, category), time, date, scramble, penalty, "", true);
+        } catch (Exception e) {
+            parseErrors++;
+        }
+    }
+}
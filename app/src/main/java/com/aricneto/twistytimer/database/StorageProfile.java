@@ -0,0 +1,121 @@
+package com.aricneto.twistytimer.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+/**
+ * A set of SQLite settings applied to the database every time the connection is configured.
+ * The profile in use is read from the "storageProfile" preference, picked on the settings screen,
+ * and defaults to {@link #BALANCED}.
+ *
+ * Android only lets the app configure the primary connection, the one that writes. With WAL the
+ * framework also opens a few read-only connections, which get its own defaults for cache_size,
+ * temp_store and mmap_size. synchronous only matters for writes, so it applies in full.
+ */
+public class StorageProfile {
+
+    public static final String PREF_STORAGE_PROFILE = "storageProfile";
+
+    /**
+     * Rollback journal with SQLite's own defaults. This is how the database ran before profiles
+     * existed, and is only kept around so the benchmark can compare against it.
+     */
+    public static final StorageProfile LEGACY =
+        new StorageProfile("legacy", false, "FULL", -2000, "DEFAULT", 0);
+
+    /**
+     * WAL with a synchronous level that can only lose the last few commits on power loss (never
+     * corrupt the file), a 4MB page cache, in-memory temp tables and a 64MB memory map.
+     */
+    public static final StorageProfile BALANCED =
+        new StorageProfile("balanced", true, "NORMAL", -4096, "MEMORY", 64L * 1024 * 1024);
+
+    /**
+     * WAL with a full fsync on every commit, for people who'd rather be slow than lose a solve.
+     */
+    public static final StorageProfile DURABLE =
+        new StorageProfile("durable", true, "FULL", -2000, "DEFAULT", 0);
+
+    /**
+     * WAL with syncing turned off and large caches. Fastest, but a crash can lose recent solves.
+     */
+    public static final StorageProfile FAST =
+        new StorageProfile("fast", true, "OFF", -16384, "MEMORY", 256L * 1024 * 1024);
+
+    public static final StorageProfile[] ALL = { LEGACY, BALANCED, DURABLE, FAST };
+
+    /**
+     * The profiles offered on the settings screen.
+     */
+    public static final StorageProfile[] SELECTABLE = { BALANCED, DURABLE, FAST };
+
+    private final String  name;
+    private final boolean walEnabled;
+    private final String  synchronous;
+    private final int     cacheSize;
+    private final String  tempStore;
+    private final long    mmapSize;
+
+    /**
+     * @param name        The name used to select this profile in the preferences
+     * @param walEnabled  True to use write-ahead logging instead of a rollback journal
+     * @param synchronous The value of "PRAGMA synchronous" (OFF, NORMAL or FULL)
+     * @param cacheSize   The value of "PRAGMA cache_size". Negative values are in KiB, positive
+     *                    values are in pages
+     * @param tempStore   The value of "PRAGMA temp_store" (DEFAULT, FILE or MEMORY)
+     * @param mmapSize    The value of "PRAGMA mmap_size" in bytes. 0 disables memory mapping
+     */
+    public StorageProfile(String name, boolean walEnabled, String synchronous, int cacheSize,
+                          String tempStore, long mmapSize) {
+        this.name = name;
+        this.walEnabled = walEnabled;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.tempStore = tempStore;
+        this.mmapSize = mmapSize;
+    }
+
+    /**
+     * Returns the profile selected in the preferences, or {@link #BALANCED} if none (or an
+     * unknown one) is selected.
+     */
+    public static StorageProfile fromPreferences(Context context) {
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        return fromName(sharedPreferences.getString(PREF_STORAGE_PROFILE, BALANCED.name));
+    }
+
+    public static StorageProfile fromName(String name) {
+        for (StorageProfile profile : ALL) {
+            if (profile.name.equals(name))
+                return profile;
+        }
+        return BALANCED;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isWalEnabled() {
+        return walEnabled;
+    }
+
+    /**
+     * Returns the pragmas to run on the primary connection when it's configured, in order.
+     */
+    public String[] getPragmas() {
+        return new String[] {
+            "PRAGMA synchronous=" + synchronous,
+            "PRAGMA cache_size=" + cacheSize,
+            "PRAGMA temp_store=" + tempStore,
+            "PRAGMA mmap_size=" + mmapSize
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name + " (wal=" + walEnabled + ", synchronous=" + synchronous + ", cache_size="
+            + cacheSize + ", temp_store=" + tempStore + ", mmap_size=" + mmapSize + ")";
+    }
+}
@@ -0,0 +1,149 @@
+package com.aricneto.twistytimer.database;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+import com.aricneto.twistytimer.utils.PuzzleUtils;
+import com.aricneto.twistytimer.utils.TimeCodec;
+
+import org.joda.time.DateTime;
+
+/**
+ * A cursor over the time list that also holds, for every row, what the list shows: the id, the
+ * date, the penalty, whether there's a comment, and the time and date labels already formatted.
+ *
+ * Everything is read and formatted in {@link TimeTaskLoader#loadInBackground()}, so binding a row
+ * on the main thread only copies values out of arrays. The labels are all stored in one char
+ * array and set with {@link android.widget.TextView#setText(char[], int, int)}, which doesn't
+ * create a String.
+ */
+public class TimeListCursor extends CursorWrapper {
+
+    /**
+     * Every date label is "dd/MM".
+     */
+    public static final int DATE_LENGTH = 5;
+
+    private static final int COLUMN_ID      = 0;
+    private static final int COLUMN_TIME    = 3;
+    private static final int COLUMN_DATE    = 4;
+    private static final int COLUMN_PENALTY = 6;
+    private static final int COLUMN_COMMENT = 7;
+
+    private final long[]    ids;
+    private final long[]    dates;
+    private final byte[]    penalties;
+    private final boolean[] hasComments;
+
+    private char[]       labels;
+    private int          labelsLength;
+    private final int[]  timeStarts;
+    private final byte[] timeLengths;
+    private final int[]  dateStarts;
+
+    public TimeListCursor(Cursor cursor) {
+        super(cursor);
+
+        int count = cursor.getCount();
+        ids = new long[count];
+        dates = new long[count];
+        penalties = new byte[count];
+        hasComments = new boolean[count];
+        timeStarts = new int[count];
+        timeLengths = new byte[count];
+        dateStarts = new int[count];
+        // Most labels are "12.34" and a date
+        labels = new char[Math.max(count, 1) * 8];
+
+        // Rows are sorted by date, so most of them share their date label with the row before
+        long dayStart = 0;
+        long dayEnd = 0;
+        int dateStart = 0;
+
+        for (int i = 0; i < count; i++) {
+            cursor.moveToPosition(i);
+            ids[i] = cursor.getLong(COLUMN_ID);
+            int penalty = cursor.getInt(COLUMN_PENALTY);
+            penalties[i] = (byte) penalty;
+            String comment = cursor.getString(COLUMN_COMMENT);
+            hasComments[i] = comment != null && ! comment.isEmpty();
+
+            int time = penalty == PuzzleUtils.PENALTY_DNF ? PuzzleUtils.TIME_DNF : cursor.getInt(COLUMN_TIME);
+            ensureLabelsCapacity(TimeCodec.MAX_LENGTH);
+            timeStarts[i] = labelsLength;
+            timeLengths[i] = (byte) TimeCodec.format(time, TimeCodec.STYLE_DEFAULT, labels, labelsLength);
+            labelsLength += timeLengths[i];
+
+            long date = cursor.getLong(COLUMN_DATE);
+            dates[i] = date;
+            if (i == 0 || date < dayStart || date >= dayEnd) {
+                DateTime day = new DateTime(date).withTimeAtStartOfDay();
+                dayStart = day.getMillis();
+                dayEnd = day.plusDays(1).getMillis();
+
+                ensureLabelsCapacity(DATE_LENGTH);
+                dateStart = labelsLength;
+                putTwoDigits(day.getDayOfMonth());
+                labels[labelsLength++] = '/';
+                putTwoDigits(day.getMonthOfYear());
+            }
+            dateStarts[i] = dateStart;
+        }
+        cursor.moveToPosition(- 1);
+    }
+
+    public long getId(int position) {
+        return ids[position];
+    }
+
+    public long getDate(int position) {
+        return dates[position];
+    }
+
+    public int getPenalty(int position) {
+        return penalties[position];
+    }
+
+    public boolean hasComment(int position) {
+        return hasComments[position];
+    }
+
+    /**
+     * The array holding every label. Don't modify it.
+     */
+    public char[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * Where the time label of a row starts in {@link #getLabels()}. "DNF" for DNFs.
+     */
+    public int getTimeStart(int position) {
+        return timeStarts[position];
+    }
+
+    public int getTimeLength(int position) {
+        return timeLengths[position];
+    }
+
+    /**
+     * Where the date label of a row starts in {@link #getLabels()}. It's {@link #DATE_LENGTH}
+     * chars long.
+     */
+    public int getDateStart(int position) {
+        return dateStarts[position];
+    }
+
+    private void putTwoDigits(int value) {
+        labels[labelsLength++] = (char) ('0' + value / 10);
+        labels[labelsLength++] = (char) ('0' + value % 10);
+    }
+
+    private void ensureLabelsCapacity(int free) {
+        if (labelsLength + free > labels.length) {
+            char[] grown = new char[Math.max(labelsLength + free, labels.length * 2)];
+            System.arraycopy(labels, 0, grown, 0, labelsLength);
+            labels = grown;
+        }
+    }
+}
@@ -5,13 +5,12 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.v4.content.CursorLoader;
 
+import com.aricneto.twistytimer.TwistyTimer;
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 
 public class TimeTaskLoader extends CursorLoader {
 
-    private DatabaseHandler handler;
-    private SQLiteDatabase  db;
-
     String puzzleType;
     String puzzleSubtype;
     boolean history = false;
@@ -25,30 +24,20 @@ public class TimeTaskLoader extends CursorLoader {
 
     @Override
     public Cursor loadInBackground() {
-        handler = new DatabaseHandler(getContext());
-        db = handler.getReadableDatabase();
-
-        if (history)
-            return db.query(DatabaseHandler.TABLE_TIMES, null,
-                    DatabaseHandler.KEY_PENALTY + "!=" + PuzzleUtils.PENALTY_HIDETIME + " AND "
-                            + DatabaseHandler.KEY_TYPE + "=?" + " AND "
-                            + DatabaseHandler.KEY_SUBTYPE + "=?" + " AND history = 1",
-                    new String[] { puzzleType, puzzleSubtype, }, null, null,
-                    DatabaseHandler.KEY_DATE + " DESC", null);
-        else
-            return db.query(DatabaseHandler.TABLE_TIMES, null,
-                    DatabaseHandler.KEY_PENALTY + "!=" + PuzzleUtils.PENALTY_HIDETIME + " AND "
-                            + DatabaseHandler.KEY_TYPE + "=?" + " AND "
-                            + DatabaseHandler.KEY_SUBTYPE + "=?" + " AND history = 0",
-                    new String[] { puzzleType, puzzleSubtype, }, null, null,
-                    DatabaseHandler.KEY_DATE + " DESC", null);
-    }
-
-    @Override
-    protected void onStopLoading() {
-        if (handler != null) {
-            handler.closeDB();
-        }
-        super.onStopLoading();
+        long latencyStart = Latency.start();
+        DatabaseHandler handler = TwistyTimer.getDBHandler();
+        SQLiteDatabase db = handler.getReadableDatabase();
+        String category = String.valueOf(handler.getCategoryId(puzzleType, puzzleSubtype));
+
+        Cursor cursor = db.query(DatabaseHandler.TIMES_WITH_CATEGORIES,
+                new String[] { DatabaseHandler.SOLVE_COLUMNS },
+                DatabaseHandler.KEY_PENALTY + "!=" + PuzzleUtils.PENALTY_HIDETIME + " AND "
+                        + DatabaseHandler.KEY_CATEGORY + "=?" + " AND history = " + (history ? 1 : 0),
+                new String[] { category }, null, null,
+                DatabaseHandler.KEY_DATE + " DESC", null);
+        // Runs the query and formats every row here, in the background, instead of on every bind
+        TimeListCursor timeListCursor = new TimeListCursor(cursor);
+        Latency.stop("loader.times", latencyStart);
+        return timeListCursor;
     }
-}
\ No newline at end of file
+}
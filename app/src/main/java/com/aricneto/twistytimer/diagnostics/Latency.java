@@ -0,0 +1,165 @@
+package com.aricneto.twistytimer.diagnostics;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long the app's slow operations take (database calls, scramble generation, scramble
+ * images, tips, import/export and loaders), one {@link LatencyHistogram} per operation.
+ *
+ * Timed code looks like this:
+ *
+ * long start = Latency.start();
+ * try {
+ *     ...
+ * } finally {
+ *     Latency.stop("db.addSolve", start);
+ * }
+ *
+ * Methods returning a Cursor are timed by the code that reads the cursor, not where it's created:
+ * SQLite only runs the query on the first read.
+ *
+ * While disabled, start() is a single volatile read and stop() returns right away, so the calls
+ * can stay in hot paths. The switch is a hidden preference toggled from the diagnostics screen.
+ */
+public final class Latency {
+
+    public static final String PREF_ENABLED = "diagnosticsLatencyEnabled";
+
+    // Returned by start() while disabled. System.nanoTime() can't realistically return it
+    private static final long DISABLED = 0;
+
+    private static volatile boolean sEnabled;
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> sHistograms = new ConcurrentHashMap<>();
+
+    private Latency() {
+    }
+
+    /**
+     * Reads the enabled preference. Called once when the application starts.
+     */
+    public static void init(Context context) {
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        sEnabled = sharedPreferences.getBoolean(PREF_ENABLED, false);
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static void setEnabled(Context context, boolean enabled) {
+        sEnabled = enabled;
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+            .putBoolean(PREF_ENABLED, enabled)
+            .apply();
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The value to pass to {@link #stop(String, long)}
+     */
+    public static long start() {
+        return sEnabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Records the time elapsed since {@link #start()}.
+     *
+     * @param operation The operation name, like "db.addSolve"
+     * @param start     The value returned by {@link #start()}
+     */
+    public static void stop(String operation, long start) {
+        if (start == DISABLED)
+            return;
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram histogram = sHistograms.get(operation);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram(operation);
+            histogram = sHistograms.putIfAbsent(operation, created);
+            if (histogram == null)
+                histogram = created;
+        }
+        histogram.record(elapsed);
+    }
+
+    public static void reset() {
+        sHistograms.clear();
+    }
+
+    /**
+     * Returns a snapshot of every operation recorded so far, sorted by name.
+     */
+    public static List<LatencyHistogram.Snapshot> snapshots() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : sHistograms.values()) {
+            snapshots.add(histogram.snapshot());
+        }
+        Collections.sort(snapshots, new Comparator<LatencyHistogram.Snapshot>() {
+            @Override
+            public int compare(LatencyHistogram.Snapshot a, LatencyHistogram.Snapshot b) {
+                return a.name.compareTo(b.name);
+            }
+        });
+        return snapshots;
+    }
+
+    public static JSONObject toJson() throws JSONException {
+        JSONArray operations = new JSONArray();
+        for (LatencyHistogram.Snapshot snapshot : snapshots()) {
+            JSONObject operation = new JSONObject();
+            operation.put("name", snapshot.name);
+            operation.put("count", snapshot.count);
+            operation.put("window", snapshot.window);
+            operation.put("totalNanos", snapshot.totalNanos);
+            operation.put("p50Nanos", snapshot.p50);
+            operation.put("p95Nanos", snapshot.p95);
+            operation.put("p99Nanos", snapshot.p99);
+            operation.put("maxNanos", snapshot.max);
+            operations.put(operation);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("windowSize", LatencyHistogram.CAPACITY);
+        json.put("operations", operations);
+        return json;
+    }
+
+    /**
+     * Writes {@link #toJson()} to a file.
+     *
+     * @param file The file to write. Its directory must exist
+     */
+    public static void dump(File file) throws IOException {
+        String json;
+        try {
+            json = toJson().toString(2);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(json);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.aricneto.twistytimer.diagnostics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples of one operation in a fixed-size ring buffer, so memory
+ * use is bounded no matter how often the operation runs. Percentiles are computed over the
+ * samples still in the buffer when a {@link Snapshot} is taken.
+ */
+public class LatencyHistogram {
+
+    public static final int CAPACITY = 1024;
+
+    private final String name;
+    private final long[] samples = new long[CAPACITY];
+
+    // Total number of samples ever recorded. The next sample goes to count % CAPACITY
+    private long count;
+    private long totalNanos;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[(int) (count % CAPACITY)] = nanos;
+        count++;
+        totalNanos += nanos;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        totalNanos = 0;
+    }
+
+    public Snapshot snapshot() {
+        long[] sorted;
+        long total;
+        long recorded;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, CAPACITY));
+            total = totalNanos;
+            recorded = count;
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(name, recorded, total, sorted);
+    }
+
+    /**
+     * The percentiles of a histogram at the time {@link #snapshot()} was called. All the
+     * durations are in nanoseconds.
+     */
+    public static class Snapshot {
+        public final String name;
+        // Every sample ever recorded, not only the ones in the buffer
+        public final long   count;
+        public final long   totalNanos;
+        // How many samples the percentiles are computed from
+        public final int    window;
+        public final long   p50;
+        public final long   p95;
+        public final long   p99;
+        public final long   max;
+
+        Snapshot(String name, long count, long totalNanos, long[] sorted) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.window = sorted.length;
+            this.p50 = percentile(sorted, 50);
+            this.p95 = percentile(sorted, 95);
+            this.p99 = percentile(sorted, 99);
+            this.max = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        // Nearest-rank percentile of a sorted array
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0)
+                return 0;
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -48,15 +48,17 @@ import android.widget.Toast;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.items.Solve;
 import com.aricneto.twistytimer.layout.ChronometerMilli;
-import com.aricneto.twistytimer.solver.RubiksCubeOptimalCross;
-import com.aricneto.twistytimer.solver.RubiksCubeOptimalXCross;
+import com.aricneto.twistytimer.solver.TipPrefetcher;
 import com.aricneto.twistytimer.utils.Broadcaster;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 import com.aricneto.twistytimer.utils.ScrambleGenerator;
 import com.aricneto.twistytimer.utils.ThemeUtils;
+import com.aricneto.twistytimer.utils.TipUtils;
 import com.skyfishjy.library.RippleBackground;
 import com.sothree.slidinguppanel.SlidingUpPanelLayout;
 
@@ -162,7 +164,6 @@ public class TimerFragment extends BaseFragment {
     private float   scrambleTextSize;
     private boolean advancedEnabled;
     private boolean showHints;
-    private boolean showHintsXCross;
 
     // Global best/worst
     private int currentBestTime;
@@ -199,8 +200,8 @@ public class TimerFragment extends BaseFragment {
     private Handler        holdHandler;
     private CountDownTimer plusTwoCountdown;
 
-    private RubiksCubeOptimalCross  optimalCross;
-    private RubiksCubeOptimalXCross optimalXCross;
+    // Computes the hints while the user inspects, null if the hints are off
+    private TipPrefetcher           tipPrefetcher;
     private SharedPreferences       sharedPreferences;
 
 
@@ -231,7 +232,7 @@ public class TimerFragment extends BaseFragment {
                 case R.id.button_dnf:
                     currentSolve = PuzzleUtils.applyPenalty(currentSolve, PuzzleUtils.PENALTY_DNF);
                     chronometer.setText("DNF");
-                    dbHandler.updateSolve(currentSolve);
+                    updateSolve();
 
                     handleButtons(true);
                     undoButton.setVisibility(View.VISIBLE);
@@ -241,7 +242,7 @@ public class TimerFragment extends BaseFragment {
                         currentSolve = PuzzleUtils.applyPenalty(currentSolve, PuzzleUtils.PENALTY_PLUSTWO);
                         chronometer.setText(Html.fromHtml(
                                 PuzzleUtils.convertTimeToStringWithSmallDecimal(currentSolve.getTime()) + " <small>+</small>"));
-                        dbHandler.updateSolve(currentSolve);
+                        updateSolve();
                     }
 
                     handleButtons(true);
@@ -254,8 +255,8 @@ public class TimerFragment extends BaseFragment {
                                 @Override
                                 public void onInput(MaterialDialog dialog, CharSequence input) {
                                     currentSolve.setComment(input.toString());
-                                    dbHandler.updateSolve(currentSolve);
-                                    Toast.makeText(getContext(), getString(R.string.added_comment), Toast.LENGTH_SHORT).show();
+                                    if (updateSolve())
+                                        Toast.makeText(getContext(), getString(R.string.added_comment), Toast.LENGTH_SHORT).show();
                                     handleButtons(false);
                                 }
                             })
@@ -287,7 +288,7 @@ public class TimerFragment extends BaseFragment {
                 case R.id.button_undo:
                     currentSolve = PuzzleUtils.applyPenalty(currentSolve, PuzzleUtils.NO_PENALTY);
                     chronometer.setText(Html.fromHtml(PuzzleUtils.convertTimeToStringWithSmallDecimal(currentSolve.getTime())));
-                    dbHandler.updateSolve(currentSolve);
+                    updateSolve();
                     undoButton.setVisibility(View.GONE);
                     undone = true;
                     handleButtons(false);
@@ -308,6 +309,18 @@ public class TimerFragment extends BaseFragment {
         Broadcaster.broadcast(getActivity(), "TIMELIST", "TIME UPDATED");
     }
 
+    /**
+     * Saves the changes made to the current solve, and tells the user if they couldn't be saved.
+     *
+     * @return True if they were saved
+     */
+    private boolean updateSolve() {
+        if (dbHandler.updateSolve(currentSolve) > 0)
+            return true;
+        Toast.makeText(getContext(), getString(R.string.solve_not_saved), Toast.LENGTH_SHORT).show();
+        return false;
+    }
+
     public static TimerFragment newInstance(String puzzle, String puzzleSubType) {
         TimerFragment fragment = new TimerFragment();
         Bundle args = new Bundle();
@@ -332,13 +345,14 @@ public class TimerFragment extends BaseFragment {
         }
 
 
-        dbHandler = new DatabaseHandler(getContext());
+        dbHandler = TwistyTimer.getDBHandler();
 
         scrambleGeneratorAsync = new GenerateScrambleSequence();
         statCalculatorAsync = new CalculateStats();
         updateBestAndWorst();
 
-        generator = new ScrambleGenerator(currentPuzzle);
+        generator = new ScrambleGenerator(currentPuzzle, PreferenceManager
+                .getDefaultSharedPreferences(getContext()).getBoolean("fastScrambles", false));
         // Register a receiver to update if something has changed
         LocalBroadcastManager.getInstance(getContext()).registerReceiver(mReceiver, new IntentFilter("TIMELIST"));
     }
@@ -424,12 +438,11 @@ public class TimerFragment extends BaseFragment {
         backgroundEnabled = sharedPreferences.getBoolean("backgroundEnabled", false);
         startCueEnabled = sharedPreferences.getBoolean("startCue", false);
         showHints = sharedPreferences.getBoolean("showHints", true);
-        showHintsXCross = sharedPreferences.getBoolean("showHintsXCross", false);
 
-        if (showHints && currentPuzzle.equals(PuzzleUtils.TYPE_333) && scrambleEnabled) {
+        if (showHints && TipUtils.hasTips(currentPuzzle) && scrambleEnabled) {
             hintCard.setVisibility(View.VISIBLE);
-            optimalCross = new RubiksCubeOptimalCross(getString(R.string.optimal_cross));
-            optimalXCross = new RubiksCubeOptimalXCross(getString(R.string.optimal_x_cross));
+            tipPrefetcher = new TipPrefetcher(TwistyTimer.getTipCache(),
+                    TipUtils.getTips(getContext(), sharedPreferences, currentPuzzle));
         }
 
         if (scrambleEnabled) {
@@ -675,6 +688,13 @@ public class TimerFragment extends BaseFragment {
         currentId = dbHandler.addSolve(currentSolve);
         currentSolve.setId(currentId);
 
+        // Kept with the solve, so its details show them without solving the scramble again
+        if (tipPrefetcher != null && currentScramble != null) {
+            String tips = tipPrefetcher.getCachedTip(currentScramble);
+            if (tips != null)
+                dbHandler.setTips(currentId, tips);
+        }
+
         Broadcaster.broadcast(getActivity(), "TIMELIST", "TIME ADDED");
 
         currentPenalty = PuzzleUtils.NO_PENALTY;
@@ -706,7 +726,7 @@ public class TimerFragment extends BaseFragment {
                 scrambleImg.setEnabled(true);
                 showImage();
             }
-            if (showHints && currentPuzzle.equals(PuzzleUtils.TYPE_333) && scrambleEnabled) {
+            if (showHints && TipUtils.hasTips(currentPuzzle) && scrambleEnabled) {
                 hintCard.setEnabled(true);
                 hintCard.setVisibility(View.VISIBLE);
                 hintCard.animate()
@@ -768,7 +788,7 @@ public class TimerFragment extends BaseFragment {
                 scrambleImg.setEnabled(false);
                 hideImage();
             }
-            if (showHints && currentPuzzle.equals(PuzzleUtils.TYPE_333) && scrambleEnabled) {
+            if (showHints && TipUtils.hasTips(currentPuzzle) && scrambleEnabled) {
                 hintCard.setEnabled(false);
                 hintCard.animate()
                         .alpha(0)
@@ -851,12 +871,21 @@ public class TimerFragment extends BaseFragment {
         super.onDetach();
         // To fix memory leaks
         LocalBroadcastManager.getInstance(getContext()).unregisterReceiver(mReceiver);
-        dbHandler.closeDB();
         ButterKnife.unbind(this);
         scrambleGeneratorAsync.cancel(true);
         statCalculatorAsync.cancel(true);
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // A new prefetcher is created with the next view, so this one's thread must not be left behind
+        if (tipPrefetcher != null) {
+            tipPrefetcher.shutdown();
+            tipPrefetcher = null;
+        }
+    }
+
     public static void lockOrientation(Activity activity) {
         Display display = ((WindowManager) activity.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
         int rotation = display.getRotation();
@@ -895,6 +924,9 @@ public class TimerFragment extends BaseFragment {
 
     private class GetOptimalCross extends AsyncTask<Void, Void, String> {
 
+        // The view, and its prefetcher, can be destroyed while this runs
+        private final TipPrefetcher prefetcher = tipPrefetcher;
+
         @Override
         protected void onPreExecute() {
             super.onPreExecute();
@@ -902,20 +934,22 @@ public class TimerFragment extends BaseFragment {
 
         @Override
         protected String doInBackground(Void... voids) {
-            Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
-            String text = "";
-            text += optimalCross.getTip(realScramble);
-            if (showHintsXCross) {
-                text += "\n\n";
-                text += optimalXCross.getTip(realScramble);
+            // Usually already computed while the user was inspecting, so this doesn't wait
+            long latencyStart = Latency.start();
+            try {
+                return prefetcher != null ? prefetcher.getTip(realScramble) : null;
+            } catch (InterruptedException e) {
+                return null;
+            } finally {
+                Latency.stop("tip.wait", latencyStart);
             }
-            return text;
         }
 
         @Override
         protected void onPostExecute(String text) {
             super.onPostExecute(text);
-            if (panelSpinnerText != null && panelText != null && ! isRunning) {
+            // Null if the scramble was replaced while waiting
+            if (text != null && panelSpinnerText != null && panelText != null && ! isRunning) {
                 panelText.setText(text);
                 panelText.setVisibility(View.VISIBLE);
                 panelSpinner.setVisibility(View.GONE);
@@ -928,9 +962,12 @@ public class TimerFragment extends BaseFragment {
 
         @Override
         protected void onPreExecute() {
-            if (showHints && currentPuzzle.equals(PuzzleUtils.TYPE_333) && scrambleEnabled)
+            if (showHints && TipUtils.hasTips(currentPuzzle) && scrambleEnabled)
                 slidingLayout.setPanelState(SlidingUpPanelLayout.PanelState.HIDDEN);
             canShowHint = false;
+            // The hints for the scramble being replaced are no longer needed
+            if (tipPrefetcher != null)
+                tipPrefetcher.cancel();
             scrambleText.setText(R.string.generating_scramble);
             scrambleText.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
             scrambleText.setClickable(false);
@@ -942,7 +979,9 @@ public class TimerFragment extends BaseFragment {
 
         @Override
         protected String doInBackground(String... params) {
-            String scramble = generator.getPuzzle().generateScramble();
+            long latencyStart = Latency.start();
+            String scramble = generator.generateScramble();
+            Latency.stop("scramble.generate", latencyStart);
             return scramble;
         }
 
@@ -989,6 +1028,8 @@ public class TimerFragment extends BaseFragment {
                 }
             });
             realScramble = scramble;
+            if (tipPrefetcher != null)
+                tipPrefetcher.prefetch(scramble);
             if (scrambleImgEnabled)
                 generateScrambleImage();
             else
@@ -42,9 +42,9 @@ import android.widget.Toast;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.adapter.SpinnerAdapter;
 import com.aricneto.twistytimer.database.DatabaseHandler;
-import com.aricneto.twistytimer.items.Solve;
 import com.aricneto.twistytimer.layout.LockedViewPager;
 import com.aricneto.twistytimer.utils.Broadcaster;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
@@ -133,6 +133,12 @@ public class TimerFragmentMain extends BaseFragment {
                     LocalBroadcastManager.getInstance(getActivity()).sendBroadcast(sendIntent);
                     mode.finish();
                     return true;
+                case R.id.select_all:
+                    Broadcaster.broadcast(getActivity(), "TIMELIST", "SELECT ALL");
+                    return true;
+                case R.id.select_range:
+                    Broadcaster.broadcast(getActivity(), "TIMELIST", "SELECT RANGE");
+                    return true;
                 default:
                     return false;
             }
@@ -234,6 +240,10 @@ public class TimerFragmentMain extends BaseFragment {
                         selectCount -= 1;
                         actionMode.setTitle(selectCount + " " + getString(R.string.selected_list));
                         break;
+                    case "LISTITEM COUNT":
+                        selectCount = intent.getIntExtra("count", selectCount);
+                        actionMode.setTitle(selectCount + " " + getString(R.string.selected_list));
+                        break;
 
                     case "BACK PRESSED":
                         boolean timerRunning = currentTimerFragmentInstance.isRunning;
@@ -315,7 +325,7 @@ public class TimerFragmentMain extends BaseFragment {
 
         tabStrip = ((LinearLayout) tabLayout.getChildAt(0));
 
-        dbHandler = new DatabaseHandler(getContext());
+        dbHandler = TwistyTimer.getDBHandler();
 
         if (savedInstanceState == null) {
             updateCurrentSubtype();
@@ -395,7 +405,6 @@ public class TimerFragmentMain extends BaseFragment {
         super.onDetach();
         LocalBroadcastManager.getInstance(getContext()).unregisterReceiver(mReceiver);
         ButterKnife.unbind(this);
-        dbHandler.closeDB();
     }
 
     private void setupTypeDialogItem() {
@@ -422,7 +431,7 @@ public class TimerFragmentMain extends BaseFragment {
             .input(R.string.enter_type_name, 0, false, new MaterialDialog.InputCallback() {
                 @Override
                 public void onInput(MaterialDialog materialDialog, CharSequence input) {
-                    dbHandler.addSolve(new Solve(1, currentPuzzle, input.toString(), 0L, "", PuzzleUtils.PENALTY_HIDETIME, "", true));
+                    dbHandler.addCategory(currentPuzzle, input.toString());
                     historyChecked = false; // Resets the checked state of the switch
                     currentPuzzleSubtype = input.toString();
                     editor.putString(KEY_SAVEDSUBTYPE + currentPuzzle, currentPuzzleSubtype);
@@ -436,7 +445,7 @@ public class TimerFragmentMain extends BaseFragment {
         final List<String> subtypeList = dbHandler.getAllSubtypesFromType(currentPuzzle);
         if (subtypeList.size() == 0) {
             subtypeList.add("Normal");
-            dbHandler.addSolve(new Solve(1, currentPuzzle, "Normal", 0L, "", PuzzleUtils.PENALTY_HIDETIME, "", true));
+            dbHandler.addCategory(currentPuzzle, "Normal");
         } else if (subtypeList.size() == 1) {
             currentPuzzleSubtype = subtypeList.get(0);
         }
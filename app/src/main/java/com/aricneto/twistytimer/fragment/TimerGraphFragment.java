@@ -6,7 +6,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.res.Configuration;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.os.AsyncTask;
 import android.os.Bundle;
@@ -21,8 +20,11 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.items.SolveColumns;
 import com.aricneto.twistytimer.spans.TimeFormatter;
+import com.aricneto.twistytimer.stats.SolveStatistics;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.components.LimitLine;
@@ -133,7 +135,7 @@ public class TimerGraphFragment extends Fragment {
             currentPuzzleSubtype = getArguments().getString(PUZZLE_SUBTYPE);
             history = getArguments().getBoolean(HISTORY);
         }
-        dbHandler = new DatabaseHandler(getContext());
+        dbHandler = TwistyTimer.getDBHandler();
         LocalBroadcastManager.getInstance(getContext()).registerReceiver(mReceiver, new IntentFilter("TIMELIST"));
         mContext = getContext();
     }
@@ -235,28 +237,24 @@ public class TimerGraphFragment extends Fragment {
 
             Pair<ArrayList<Entry>, ArrayList<String>> tempPair = new Pair<>(yVals, xVals);
 
-            Cursor cursor = dbHandler.getAllSolvesFrom(currentPuzzle, currentPuzzleSubtype, history);
+            SolveColumns solves = dbHandler.getSolveColumns(currentPuzzle, currentPuzzleSubtype);
 
-            // Looping through all rows and adding to list
-            int timeIndex = cursor.getColumnIndex(DatabaseHandler.KEY_TIME);
-            int penaltyIndex = cursor.getColumnIndex(DatabaseHandler.KEY_DATE);
+            // Looping through the solves from the oldest and adding them to the list
             int count = 0;
-            if (cursor.getCount() > 0) {
-                if (cursor.moveToFirst()) {
-                    do {
-                        tempPair.first.add(new Entry((float) cursor.getInt(timeIndex) / 1000,
-                                count));
-                        tempPair.second.add(new DateTime(cursor.getLong(penaltyIndex)).toString("dd'/'MM"));
-                        count++;
-                    } while (cursor.moveToNext());
-                }
+            for (int i = solves.size() - 1; i >= 0; i--) {
+                if (solves.isDnf(i) || solves.isHistory(i) != history)
+                    continue;
+                tempPair.first.add(new Entry((float) solves.getTime(i) / 1000, count));
+                tempPair.second.add(new DateTime(solves.getDate(i)).toString("dd'/'MM"));
+                count++;
             }
 
             // Adding the mean to the string arraylist, so we don't have
             // to create another variable to store it in (remember to remove it from the list in the next step)
-            tempPair.second.add(String.valueOf(dbHandler.getMean(! history, currentPuzzle, currentPuzzleSubtype) / 1000));
+            int[] times = new int[solves.size()];
+            int length = solves.selectTimes(! history, false, times, null);
+            tempPair.second.add(String.valueOf(SolveStatistics.mean(times, length) / 1000));
 
-            cursor.close();
             return tempPair;
         }
 
@@ -310,27 +308,42 @@ public class TimerGraphFragment extends Fragment {
         @Override
         protected int[] doInBackground(Void... voids) {
             Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
-            int BestAvg3 = dbHandler.getBestAverageOf(3, currentPuzzle, currentPuzzleSubtype, true);
-            int BestAvg5 = dbHandler.getBestAverageOf(5, currentPuzzle, currentPuzzleSubtype, true);
-            int BestAvg12 = dbHandler.getBestAverageOf(12, currentPuzzle, currentPuzzleSubtype, true);
-            int BestAvg100 = dbHandler.getBestAverageOf(100, currentPuzzle, currentPuzzleSubtype, false);
-            int BestAvg50 = dbHandler.getBestAverageOf(50, currentPuzzle, currentPuzzleSubtype, false);
-            int BestAvg1000 = dbHandler.getBestAverageOf(1000, currentPuzzle, currentPuzzleSubtype, false);
-            int BestMean = dbHandler.getMean(false, currentPuzzle, currentPuzzleSubtype);
-            int BestBest = dbHandler.getBestOrWorstTime(true, false, currentPuzzle, currentPuzzleSubtype);
-            int BestWorst = dbHandler.getBestOrWorstTime(false, false, currentPuzzle, currentPuzzleSubtype);
-            int BestSolveCount = dbHandler.getSolveCount(currentPuzzle, currentPuzzleSubtype, false);
-
-            int SessionAvg3 = dbHandler.getFastAverageOf(3, currentPuzzle, currentPuzzleSubtype, true);
-            int SessionAvg5 = dbHandler.getTruncatedAverageOf(5, currentPuzzle, currentPuzzleSubtype, true);
-            int SessionAvg12 = dbHandler.getTruncatedAverageOf(12, currentPuzzle, currentPuzzleSubtype, true);
-            int SessionAvg100 = dbHandler.getTruncatedAverageOf(100, currentPuzzle, currentPuzzleSubtype, false);
-            int SessionAvg50 = dbHandler.getTruncatedAverageOf(50, currentPuzzle, currentPuzzleSubtype, false);
-            int SessionAvg1000 = dbHandler.getTruncatedAverageOf(1000, currentPuzzle, currentPuzzleSubtype, false);
-            int SessionMean = dbHandler.getMean(true, currentPuzzle, currentPuzzleSubtype);
-            int SessionBest = dbHandler.getBestOrWorstTime(true, true, currentPuzzle, currentPuzzleSubtype);
-            int SessionWorst = dbHandler.getBestOrWorstTime(false, true, currentPuzzle, currentPuzzleSubtype);
-            int SessionSolveCount = dbHandler.getSolveCount(currentPuzzle, currentPuzzleSubtype, true);
+            // One query for the whole category, everything else is computed from it
+            SolveColumns solves = dbHandler.getSolveColumns(currentPuzzle, currentPuzzleSubtype);
+            int[] times = new int[solves.size()];
+            boolean[] dnfs = new boolean[solves.size()];
+
+            // All the solves, with DNFs
+            int length = solves.selectTimes(false, true, times, dnfs);
+            int BestAvg3 = SolveStatistics.bestAverageOf(times, dnfs, length, 3, true);
+            int BestAvg5 = SolveStatistics.bestAverageOf(times, dnfs, length, 5, true);
+            int BestAvg12 = SolveStatistics.bestAverageOf(times, dnfs, length, 12, true);
+            int BestAvg100 = SolveStatistics.bestAverageOf(times, dnfs, length, 100, false);
+            int BestAvg50 = SolveStatistics.bestAverageOf(times, dnfs, length, 50, false);
+            int BestAvg1000 = SolveStatistics.bestAverageOf(times, dnfs, length, 1000, false);
+            int BestSolveCount = length;
+
+            // All the solves, without DNFs
+            length = solves.selectTimes(false, false, times, null);
+            int BestMean = SolveStatistics.mean(times, length);
+            int BestBest = SolveStatistics.bestTime(times, length);
+            int BestWorst = SolveStatistics.worstTime(times, length);
+
+            // The session, with DNFs
+            length = solves.selectTimes(true, true, times, dnfs);
+            int SessionAvg5 = SolveStatistics.truncatedAverageOf(times, dnfs, length, 5, true);
+            int SessionAvg12 = SolveStatistics.truncatedAverageOf(times, dnfs, length, 12, true);
+            int SessionAvg100 = SolveStatistics.truncatedAverageOf(times, dnfs, length, 100, false);
+            int SessionAvg50 = SolveStatistics.truncatedAverageOf(times, dnfs, length, 50, false);
+            int SessionAvg1000 = SolveStatistics.truncatedAverageOf(times, dnfs, length, 1000, false);
+            int SessionSolveCount = length;
+
+            // The session, without DNFs
+            length = solves.selectTimes(true, false, times, null);
+            int SessionAvg3 = SolveStatistics.fastAverageOf(times, length, 3);
+            int SessionMean = SolveStatistics.mean(times, length);
+            int SessionBest = SolveStatistics.bestTime(times, length);
+            int SessionWorst = SolveStatistics.worstTime(times, length);
 
             return new int[] { BestAvg5, BestAvg12, BestAvg100, BestMean, BestBest, BestWorst, BestSolveCount,
                                SessionAvg5, SessionAvg12, SessionAvg100, SessionMean, SessionBest, SessionWorst, SessionSolveCount,
@@ -395,7 +408,6 @@ public class TimerGraphFragment extends Fragment {
     @Override
     public void onDetach() {
         super.onDetach();
-        dbHandler.closeDB();
         LocalBroadcastManager.getInstance(getContext()).unregisterReceiver(mReceiver);
     }
 }
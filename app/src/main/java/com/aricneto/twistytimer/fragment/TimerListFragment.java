@@ -33,6 +33,7 @@ import android.widget.Toast;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.adapter.TimeCursorAdapter;
 import com.aricneto.twistytimer.database.DatabaseHandler;
 import com.aricneto.twistytimer.database.TimeTaskLoader;
@@ -155,6 +156,12 @@ public class TimerListFragment extends BaseFragment implements LoaderManager.Loa
                     case "DELETE SELECTED":
                         timeCursorAdapter.deleteAllSelected();
                         break;
+                    case "SELECT ALL":
+                        timeCursorAdapter.selectAll(currentPuzzle, currentPuzzleSubtype, history);
+                        break;
+                    case "SELECT RANGE":
+                        timeCursorAdapter.selectRange(currentPuzzle, currentPuzzleSubtype, history);
+                        break;
                 }
             }
         }
@@ -183,7 +190,7 @@ public class TimerListFragment extends BaseFragment implements LoaderManager.Loa
             currentPuzzleSubtype = getArguments().getString(PUZZLE_SUBTYPE);
             history = getArguments().getBoolean(HISTORY);
         }
-        dbHandler = new DatabaseHandler(getContext());
+        dbHandler = TwistyTimer.getDBHandler();
     }
 
     @Override
@@ -289,7 +296,6 @@ public class TimerListFragment extends BaseFragment implements LoaderManager.Loa
     public void onDetach() {
         super.onDetach();
         // To fix memory leaks
-        dbHandler.closeDB();
         ButterKnife.unbind(this);
         LocalBroadcastManager.getInstance(mContext).unregisterReceiver(mReceiver);
         getLoaderManager().destroyLoader(TASK_LOADER_ID);
@@ -24,6 +24,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
 import com.aricneto.twistytimer.items.Algorithm;
 import com.aricneto.twistytimer.listener.DialogListener;
@@ -139,7 +140,7 @@ public class AlgDialog extends DialogFragment {
         ButterKnife.bind(this, dialogView);
 
         mId = getArguments().getLong("id");
-        handler = new DatabaseHandler(getActivity());
+        handler = TwistyTimer.getDBHandler();
 
         getDialog().getWindow().setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
         getDialog().getWindow().requestFeature(Window.FEATURE_NO_TITLE);
@@ -192,7 +193,6 @@ public class AlgDialog extends DialogFragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        handler.closeDB();
         ButterKnife.unbind(this);
         if (dialogListener != null)
             dialogListener.onDismissDialog();
@@ -14,8 +14,8 @@ import android.widget.Spinner;
 import android.widget.TextView;
 
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
-import com.aricneto.twistytimer.items.Solve;
 import com.aricneto.twistytimer.listener.ExportImportDialogInterface;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 
@@ -60,7 +60,7 @@ public class ExportImportSelectionDialog extends DialogFragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         final View dialogView = inflater.inflate(R.layout.dialog_export_import_selection_dialog, container);
         ButterKnife.bind(this, dialogView);
-        handler = new DatabaseHandler(getContext());
+        handler = TwistyTimer.getDBHandler();
         if (getArguments() != null) {
             type = getArguments().getInt(TYPE);
         }
@@ -121,7 +121,7 @@ public class ExportImportSelectionDialog extends DialogFragment {
         final List<String> subtypeList = handler.getAllSubtypesFromType(currentPuzzle);
         if (subtypeList.size() == 0) {
             subtypeList.add("Normal");
-            handler.addSolve(new Solve(1, currentPuzzle, "Normal", 0L, "", PuzzleUtils.PENALTY_HIDETIME, "", true));
+            handler.addCategory(currentPuzzle, "Normal");
         }
         categoryAdapter =
                 new ArrayAdapter<String>(getContext(), android.R.layout.simple_spinner_dropdown_item, subtypeList);
@@ -133,7 +133,6 @@ public class ExportImportSelectionDialog extends DialogFragment {
     public void onDestroyView() {
         super.onDestroyView();
         ButterKnife.unbind(this);
-        handler.closeDB();
     }
 
     public void setDialogInterface(ExportImportDialogInterface dialogInterface) {
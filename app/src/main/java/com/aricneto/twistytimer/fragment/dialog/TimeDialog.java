@@ -3,6 +3,7 @@ package com.aricneto.twistytimer.fragment.dialog;
 import android.content.Intent;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v4.app.DialogFragment;
@@ -23,11 +24,15 @@ import android.widget.Toast;
 
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.TwistyTimer;
 import com.aricneto.twistytimer.database.DatabaseHandler;
 import com.aricneto.twistytimer.items.Solve;
 import com.aricneto.twistytimer.listener.DialogListener;
+import com.aricneto.twistytimer.solver.Tip;
+import com.aricneto.twistytimer.solver.TipPrefetcher;
 import com.aricneto.twistytimer.utils.PuzzleUtils;
 import com.aricneto.twistytimer.utils.ScrambleGenerator;
+import com.aricneto.twistytimer.utils.TipUtils;
 
 import org.joda.time.DateTime;
 
@@ -43,6 +48,7 @@ public class TimeDialog extends DialogFragment {
     @Bind(R.id.puzzlePenaltyText) TextView  penaltyText;
     @Bind(R.id.dateText)          TextView  dateText;
     @Bind(R.id.scrambleText)      TextView  scrambleText;
+    @Bind(R.id.tipsText)          TextView  tipsText;
     @Bind(R.id.editButton)        ImageView editButton;
     @Bind(R.id.commentButton)     ImageView commentButton;
     @Bind(R.id.commentText)       TextView  commentText;
@@ -52,6 +58,7 @@ public class TimeDialog extends DialogFragment {
     private DatabaseHandler handler;
     private Solve           solve;
     private DialogListener  dialogListener;
+    private GetTips         tipCalculator;
 
     private View.OnClickListener clickListener = new View.OnClickListener() {
         @Override
@@ -80,15 +87,15 @@ public class TimeDialog extends DialogFragment {
                                     break;
                                 case R.id.history_to:
                                     solve.setHistory(true);
-                                    Toast.makeText(getContext(), getString(R.string.sent_to_history), Toast.LENGTH_SHORT).show();
-                                    handler.updateSolve(solve);
+                                    if (updateSolve())
+                                        Toast.makeText(getContext(), getString(R.string.sent_to_history), Toast.LENGTH_SHORT).show();
                                     updateList();
                                     dismiss();
                                     break;
                                 case R.id.history_from:
                                     solve.setHistory(false);
-                                    Toast.makeText(getContext(), getString(R.string.sent_to_session), Toast.LENGTH_SHORT).show();
-                                    handler.updateSolve(solve);
+                                    if (updateSolve())
+                                        Toast.makeText(getContext(), getString(R.string.sent_to_session), Toast.LENGTH_SHORT).show();
                                     updateList();
                                     dismiss();
                                     break;
@@ -116,7 +123,7 @@ public class TimeDialog extends DialogFragment {
                                             solve = PuzzleUtils.applyPenalty(solve, PuzzleUtils.PENALTY_DNF);
                                             break;
                                     }
-                                    handler.updateSolve(solve);
+                                    updateSolve();
                                     // dismiss dialog
                                     updateList();
                                     return true;
@@ -132,8 +139,8 @@ public class TimeDialog extends DialogFragment {
                                 @Override
                                 public void onInput(MaterialDialog dialog, CharSequence input) {
                                     solve.setComment(input.toString());
-                                    handler.updateSolve(solve);
-                                    Toast.makeText(getContext(), getString(R.string.added_comment), Toast.LENGTH_SHORT).show();
+                                    if (updateSolve())
+                                        Toast.makeText(getContext(), getString(R.string.added_comment), Toast.LENGTH_SHORT).show();
                                     updateList();
                                 }
                             })
@@ -177,7 +184,7 @@ public class TimeDialog extends DialogFragment {
         ButterKnife.bind(this, dialogView);
 
         mId = getArguments().getLong("id");
-        handler = new DatabaseHandler(getActivity());
+        handler = TwistyTimer.getDBHandler();
 
         //Log.d("TIME DIALOG", "mId: " + mId + "\nexists: " + handler.idExists(mId));
 
@@ -210,6 +217,8 @@ public class TimeDialog extends DialogFragment {
             if (solve.getScramble() != null) {
                 if (solve.getScramble().equals(""))
                     scrambleText.setVisibility(View.GONE);
+                else
+                    showTips();
             }
 
             scrambleText.setOnClickListener(clickListener);
@@ -223,6 +232,29 @@ public class TimeDialog extends DialogFragment {
         return dialogView;
     }
 
+    /**
+     * Shows the tips stored with the solve, or computes them in the background if it has none
+     * (it was saved before they were ready, or before they were stored at all).
+     */
+    private void showTips() {
+        String tips = handler.getTips(mId);
+        if (tips != null) {
+            // Empty if none of the tips could read the scramble
+            if (! tips.isEmpty()) {
+                tipsText.setText(tips);
+                tipsText.setVisibility(View.VISIBLE);
+            }
+            return;
+        }
+
+        Tip[] enabledTips = TipUtils.getTips(getContext(),
+                PreferenceManager.getDefaultSharedPreferences(getContext()), solve.getPuzzle());
+        if (enabledTips.length > 0) {
+            tipCalculator = new GetTips(solve.getScramble(), enabledTips);
+            tipCalculator.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        }
+    }
+
     public void setDialogListener(DialogListener listener) {
         dialogListener = listener;
     }
@@ -232,6 +264,18 @@ public class TimeDialog extends DialogFragment {
         super.onResume();
     }
 
+    /**
+     * Saves the changes made to the solve, and tells the user if they couldn't be saved.
+     *
+     * @return True if they were saved
+     */
+    private boolean updateSolve() {
+        if (handler.updateSolve(solve) > 0)
+            return true;
+        Toast.makeText(getContext(), getString(R.string.solve_not_saved), Toast.LENGTH_SHORT).show();
+        return false;
+    }
+
     private void updateList() {
         if (dialogListener != null) {
             dialogListener.onUpdateDialog();
@@ -246,11 +290,39 @@ public class TimeDialog extends DialogFragment {
 
     @Override
     public void onDestroyView() {
-        handler.closeDB();
+        if (tipCalculator != null)
+            tipCalculator.cancel(true);
         ButterKnife.unbind(this);
         if (dialogListener != null)
             dialogListener.onDismissDialog();
         super.onDestroyView();
     }
 
+    private class GetTips extends AsyncTask<Void, Void, String> {
+        private final String scramble;
+        private final Tip[]  tips;
+
+        GetTips(String scramble, Tip[] tips) {
+            this.scramble = scramble;
+            this.tips = tips;
+        }
+
+        @Override
+        protected String doInBackground(Void... voids) {
+            // Goes through the tip cache, so a scramble seen before isn't solved again. The result
+            // isn't stored with the solve: it follows the current settings, not the ones the solve
+            // was timed with
+            return TipPrefetcher.computeTips(TwistyTimer.getTipCache(), tips, scramble);
+        }
+
+        @Override
+        protected void onPostExecute(String text) {
+            super.onPostExecute(text);
+            if (text != null && ! text.isEmpty() && tipsText != null) {
+                tipsText.setText(text);
+                tipsText.setVisibility(View.VISIBLE);
+            }
+        }
+    }
+
 }
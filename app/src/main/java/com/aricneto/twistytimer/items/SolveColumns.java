@@ -0,0 +1,267 @@
+package com.aricneto.twistytimer.items;
+
+import com.aricneto.twistytimer.utils.PuzzleUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Stores many solves column by column, for the code paths that handle whole categories or whole
+ * files at once (stats, graphs, import and export).
+ *
+ * A {@link Solve} costs a few hundred bytes of heap: the object, four Strings and their char
+ * arrays. Here every solve is a row of parallel primitive arrays, puzzle and subtype are stored
+ * once per category, and scrambles and comments are only read when asked for, so a solve costs
+ * about 40 bytes.
+ *
+ * Rows loaded from the database keep the id of their scramble and a flag telling whether they
+ * have a comment. The texts are loaded one at a time through a {@link TextLoader}. Rows added with
+ * their texts keep them in memory: when importing, since there's nowhere to load them from, and
+ * when exporting, which reads every text and shouldn't run a query per row to do it.
+ */
+public class SolveColumns {
+
+    /**
+     * Loads the texts of rows that came from the database.
+     */
+    public interface TextLoader {
+        String loadScramble(long scrambleId);
+
+        String loadComment(long solveId);
+    }
+
+    /**
+     * Scramble id of a solve without a scramble.
+     */
+    public static final long NO_SCRAMBLE = - 1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte FLAG_HISTORY     = 1;
+    private static final byte FLAG_HAS_COMMENT = 1 << 1;
+
+    private int size;
+
+    private long[] ids;
+    private int[]  times;
+    private long[] dates;
+    private byte[] penalties;
+    private byte[] flags;
+    private int[]  categories;
+    private long[] scrambleIds;
+
+    // Only allocated once a row is added with its texts
+    private String[] scrambles;
+    private String[] comments;
+
+    // Interned categories. A row's category is an index into these
+    private final ArrayList<String>        puzzles       = new ArrayList<>();
+    private final ArrayList<String>        subtypes      = new ArrayList<>();
+    private final HashMap<String, Integer> categoryIndex = new HashMap<>();
+
+    private TextLoader textLoader;
+
+    public SolveColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public SolveColumns(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ids = new long[capacity];
+        times = new int[capacity];
+        dates = new long[capacity];
+        penalties = new byte[capacity];
+        flags = new byte[capacity];
+        categories = new int[capacity];
+        scrambleIds = new long[capacity];
+    }
+
+    public void setTextLoader(TextLoader textLoader) {
+        this.textLoader = textLoader;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        if (scrambles != null)
+            Arrays.fill(scrambles, null);
+        if (comments != null)
+            Arrays.fill(comments, null);
+    }
+
+    /**
+     * Returns the index of a category, adding it if it's new. Pass the result to the add methods.
+     */
+    public int internCategory(String puzzle, String subtype) {
+        String key = puzzle + "\n" + subtype;
+        Integer index = categoryIndex.get(key);
+        if (index == null) {
+            index = puzzles.size();
+            puzzles.add(puzzle);
+            subtypes.add(subtype);
+            categoryIndex.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a row read from the database. Its texts will be loaded through the {@link TextLoader}.
+     *
+     * @param category   The index returned by {@link #internCategory(String, String)}
+     * @param scrambleId The id of the scramble, or {@link #NO_SCRAMBLE}
+     * @param hasComment True if the solve has a non-empty comment
+     */
+    public void add(long id, int category, int time, long date, int penalty, boolean history,
+                    long scrambleId, boolean hasComment) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        categories[size] = category;
+        times[size] = time;
+        dates[size] = date;
+        penalties[size] = (byte) penalty;
+        flags[size] = (byte) ((history ? FLAG_HISTORY : 0) | (hasComment ? FLAG_HAS_COMMENT : 0));
+        scrambleIds[size] = scrambleId;
+        size++;
+    }
+
+    /**
+     * Adds a row that isn't in the database yet, with its texts.
+     *
+     * @param category The index returned by {@link #internCategory(String, String)}
+     */
+    public void add(int category, int time, long date, String scramble, int penalty, String comment,
+                    boolean history) {
+        add(0, category, time, date, scramble, penalty, comment, history);
+    }
+
+    /**
+     * Adds a row read from the database along with its texts, for callers that read every text
+     * anyway and would otherwise load them one row at a time.
+     *
+     * @param category The index returned by {@link #internCategory(String, String)}
+     */
+    public void add(long id, int category, int time, long date, String scramble, int penalty,
+                    String comment, boolean history) {
+        boolean hasComment = comment != null && ! comment.isEmpty();
+        if (scramble != null && scrambles == null)
+            scrambles = new String[ids.length];
+        if (hasComment && comments == null)
+            comments = new String[ids.length];
+
+        int index = size;
+        add(id, category, time, date, penalty, history, NO_SCRAMBLE, hasComment);
+        if (scramble != null)
+            scrambles[index] = scramble;
+        if (hasComment)
+            comments[index] = comment;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length)
+            return;
+        int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, grown);
+        times = Arrays.copyOf(times, grown);
+        dates = Arrays.copyOf(dates, grown);
+        penalties = Arrays.copyOf(penalties, grown);
+        flags = Arrays.copyOf(flags, grown);
+        categories = Arrays.copyOf(categories, grown);
+        scrambleIds = Arrays.copyOf(scrambleIds, grown);
+        if (scrambles != null)
+            scrambles = Arrays.copyOf(scrambles, grown);
+        if (comments != null)
+            comments = Arrays.copyOf(comments, grown);
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public int getTime(int index) {
+        return times[index];
+    }
+
+    public long getDate(int index) {
+        return dates[index];
+    }
+
+    public int getPenalty(int index) {
+        return penalties[index];
+    }
+
+    public boolean isDnf(int index) {
+        return penalties[index] == PuzzleUtils.PENALTY_DNF;
+    }
+
+    public boolean isHistory(int index) {
+        return (flags[index] & FLAG_HISTORY) != 0;
+    }
+
+    public String getPuzzle(int index) {
+        return puzzles.get(categories[index]);
+    }
+
+    public String getSubtype(int index) {
+        return subtypes.get(categories[index]);
+    }
+
+    /**
+     * Returns the scramble of a row, loading it if needed. Not cached.
+     *
+     * @return The scramble, or null if the solve has none
+     */
+    public String getScramble(int index) {
+        if (scrambles != null && scrambles[index] != null)
+            return scrambles[index];
+        if (scrambleIds[index] == NO_SCRAMBLE || textLoader == null)
+            return null;
+        return textLoader.loadScramble(scrambleIds[index]);
+    }
+
+    /**
+     * Returns the comment of a row, loading it if needed. Not cached.
+     *
+     * @return The comment, or an empty string if the solve has none
+     */
+    public String getComment(int index) {
+        if ((flags[index] & FLAG_HAS_COMMENT) == 0)
+            return "";
+        if (comments != null && comments[index] != null)
+            return comments[index];
+        if (textLoader == null)
+            return "";
+        String comment = textLoader.loadComment(ids[index]);
+        return comment == null ? "" : comment;
+    }
+
+    /**
+     * Copies the times of some of the rows, in row order, into arrays ready for
+     * {@link com.aricneto.twistytimer.stats.SolveStatistics}.
+     *
+     * @param sessionOnly Skip the rows in history
+     * @param includeDnfs Keep the DNFs. If false they're skipped
+     * @param times       Receives the times. Must hold at least {@link #size()} values
+     * @param dnfs        Receives true for every DNF. Can be null
+     *
+     * @return How many times were copied
+     */
+    public int selectTimes(boolean sessionOnly, boolean includeDnfs, int[] times, boolean[] dnfs) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (sessionOnly && (flags[i] & FLAG_HISTORY) != 0)
+                continue;
+            boolean dnf = penalties[i] == PuzzleUtils.PENALTY_DNF;
+            if (dnf && ! includeDnfs)
+                continue;
+            times[count] = this.times[i];
+            if (dnfs != null)
+                dnfs[count] = dnf;
+            count++;
+        }
+        return count;
+    }
+}
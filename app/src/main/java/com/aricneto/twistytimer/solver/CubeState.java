@@ -0,0 +1,343 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.Arrays;
+
+/**
+ * A 3x3 cube that moves are applied to in place, from the int codes of {@link MoveSequence}.
+ *
+ * The whole cube is a single array of 20 bytes, one per position: 8 corners, each piece * 3 +
+ * orientation, then 12 edges, each piece * 2 + orientation. Pieces are numbered as in
+ * {@link State}. Every move and every rotation of the whole cube is precomputed as a table that
+ * says, for each position, which position its piece comes from and how its value changes, so
+ * applying one is a single pass over the array that allocates nothing.
+ *
+ * Like {@link State}, the cube only knows where the pieces are relative to the centers. A wide
+ * move, slice move or rotation also turns the centers, so it's applied as the face turns that move
+ * the pieces the same way, followed by a rotation of the whole cube: afterwards, the cube is seen
+ * as the user now holds it.
+ */
+public class CubeState {
+
+    /**
+     * Whole cube rotations, as in {@link RubiksCubeOptimalXCross}.
+     */
+    public static final State X = new State(
+            new byte[] { 3, 2, 6, 7, 0, 1, 5, 4 },
+            new byte[] { 2, 1, 2, 1, 1, 2, 1, 2 },
+            new byte[] { 7, 5, 9, 11, 6, 2, 10, 3, 4, 1, 8, 0 },
+            new byte[] { 0, 0, 0, 0, 1, 0, 1, 0, 1, 0, 1, 0 });
+
+    public static final State Y = new State(
+            new byte[] { 3, 0, 1, 2, 7, 4, 5, 6 },
+            new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 },
+            new byte[] { 3, 0, 1, 2, 7, 4, 5, 6, 11, 8, 9, 10 },
+            new byte[] { 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0 });
+
+    public static final State Z = new State(
+            new byte[] { 4, 0, 3, 7, 5, 1, 2, 6 },
+            new byte[] { 1, 2, 1, 2, 2, 1, 2, 1 },
+            new byte[] { 8, 4, 6, 10, 0, 7, 3, 11, 1, 5, 2, 9 },
+            new byte[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 });
+
+    public static final int N_ROTATIONS = 24;
+
+    /**
+     * The names of the 24 ways to hold the cube: which face goes to U, then a turn around U.
+     * Rotation r is {@link #ROTATION_NAMES}[r], and r % 4 is the number of y turns.
+     */
+    public static final String[] ROTATION_NAMES = new String[N_ROTATIONS];
+
+    private static final String[] UP_ROTATIONS = { "", "x", "x2", "x'", "z", "z'" };
+    private static final String[] Y_ROTATIONS  = { "", "y", "y2", "y'" };
+
+    private static final int N_CORNERS = 8;
+    private static final int N_EDGES   = 12;
+    private static final int N_PIECES  = N_CORNERS + N_EDGES;
+    // A position holds one of 24 values, 8 corners * 3 or 12 edges * 2
+    private static final int N_VALUES  = 24;
+
+    private static final Transform[] MOVES     = new Transform[MoveSequence.N_CODES];
+    private static final Transform[] ROTATIONS = new Transform[N_ROTATIONS];
+
+    static {
+        State u = State.moves.get("U");
+        State d = State.moves.get("D");
+        State l = State.moves.get("L");
+        State r = State.moves.get("R");
+        State f = State.moves.get("F");
+        State b = State.moves.get("B");
+        State id = State.id;
+
+        // Uw is D then y, Dw is U then y', and so on. M turns like L, E like D and S like F
+        State[] pieces = {
+                u, d, l, r, f, b,
+                d, u, r, l, b, f,
+                r.multiply(power(l, 3)), u.multiply(power(d, 3)), power(f, 3).multiply(b),
+                id, id, id,
+                };
+        State[] rotations = {
+                null, null, null, null, null, null,
+                Y, power(Y, 3), power(X, 3), X, Z, power(Z, 3),
+                power(X, 3), power(Y, 3), Z,
+                X, Y, Z,
+                };
+
+        for (int kind = 0; kind < MoveSequence.N_KINDS; kind++) {
+            for (int turns = 1; turns <= 3; turns++) {
+                Transform move = Transform.multiply(power(pieces[kind], turns));
+                if (rotations[kind] != null)
+                    move = move.then(Transform.conjugate(power(rotations[kind], turns)));
+                MOVES[kind * 3 + turns - 1] = move;
+            }
+        }
+
+        State[] upRotations = { id, X, power(X, 2), power(X, 3), Z, power(Z, 3) };
+        for (int i = 0; i < UP_ROTATIONS.length; i++) {
+            for (int j = 0; j < Y_ROTATIONS.length; j++) {
+                int rotation = i * 4 + j;
+                ROTATIONS[rotation] = Transform.conjugate(upRotations[i].multiply(power(Y, j)));
+                ROTATION_NAMES[rotation] = i == 0 ? Y_ROTATIONS[j]
+                        : j == 0 ? UP_ROTATIONS[i] : UP_ROTATIONS[i] + " " + Y_ROTATIONS[j];
+            }
+        }
+    }
+
+    private byte[] pieces = new byte[N_PIECES];
+    // Moves are written here, then swapped with pieces
+    private byte[] next   = new byte[N_PIECES];
+
+    /**
+     * A solved cube.
+     */
+    public CubeState() {
+        set(State.id);
+    }
+
+    public CubeState(State state) {
+        set(state);
+    }
+
+    public void set(State state) {
+        for (int i = 0; i < N_CORNERS; i++)
+            pieces[i] = (byte) (state.cornersPermutation[i] * 3 + state.cornersOrientation[i]);
+        for (int i = 0; i < N_EDGES; i++)
+            pieces[N_CORNERS + i] = (byte) (state.edgesPermutation[i] * 2 + state.edgesOrientation[i]);
+    }
+
+    public void set(CubeState state) {
+        System.arraycopy(state.pieces, 0, pieces, 0, N_PIECES);
+    }
+
+    /**
+     * Applies a move sequence, such as a scramble.
+     *
+     * @throws IllegalArgumentException If a move isn't a 3x3 move
+     */
+    public void apply(CharSequence sequence) {
+        apply(MoveSequence.parse(sequence));
+    }
+
+    public void apply(int[] codes) {
+        for (int code : codes)
+            apply(code);
+    }
+
+    public void apply(int code) {
+        MOVES[code].apply(pieces, next);
+        swap();
+    }
+
+    /**
+     * Turns the whole cube: solving it afterwards and writing {@link #ROTATION_NAMES}[rotation]
+     * before the solution solves the cube as it was.
+     */
+    public void rotate(int rotation) {
+        ROTATIONS[rotation].apply(pieces, next);
+        swap();
+    }
+
+    /**
+     * Returns the rotation with the given name, as in {@link #ROTATION_NAMES}.
+     */
+    public static int getRotation(String name) {
+        int rotation = Arrays.asList(ROTATION_NAMES).indexOf(name);
+        if (rotation < 0)
+            throw new IllegalArgumentException("Not a rotation: " + name);
+        return rotation;
+    }
+
+    public int getCornerPermutation(int position) {
+        return pieces[position] / 3;
+    }
+
+    public int getCornerOrientation(int position) {
+        return pieces[position] % 3;
+    }
+
+    public int getEdgePermutation(int position) {
+        return pieces[N_CORNERS + position] >> 1;
+    }
+
+    public int getEdgeOrientation(int position) {
+        return pieces[N_CORNERS + position] & 1;
+    }
+
+    /**
+     * A copy of the current state.
+     */
+    public State toState() {
+        return toState(pieces);
+    }
+
+    /**
+     * A copy of the state after a rotation, leaving this one as it is.
+     */
+    public State toState(int rotation) {
+        ROTATIONS[rotation].apply(pieces, next);
+        return toState(next);
+    }
+
+    private static State toState(byte[] pieces) {
+        State state = new State(new byte[N_CORNERS], new byte[N_CORNERS], new byte[N_EDGES], new byte[N_EDGES]);
+        for (int i = 0; i < N_CORNERS; i++) {
+            state.cornersPermutation[i] = (byte) (pieces[i] / 3);
+            state.cornersOrientation[i] = (byte) (pieces[i] % 3);
+        }
+        for (int i = 0; i < N_EDGES; i++) {
+            state.edgesPermutation[i] = (byte) (pieces[N_CORNERS + i] >> 1);
+            state.edgesOrientation[i] = (byte) (pieces[N_CORNERS + i] & 1);
+        }
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CubeState && Arrays.equals(pieces, ((CubeState) other).pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pieces);
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the state, the same for every scramble that leaves the cube in it.
+     */
+    public long getHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (byte piece : pieces)
+            hash = (hash ^ piece) * 0x100000001b3L;
+        return hash;
+    }
+
+    private void swap() {
+        byte[] swap = pieces;
+        pieces = next;
+        next = swap;
+    }
+
+    public static State inverse(State state) {
+        byte[] cornersPermutation = new byte[N_CORNERS];
+        byte[] cornersOrientation = new byte[N_CORNERS];
+        for (int i = 0; i < N_CORNERS; i++) {
+            cornersPermutation[state.cornersPermutation[i]] = (byte) i;
+            cornersOrientation[state.cornersPermutation[i]] = (byte) ((3 - state.cornersOrientation[i]) % 3);
+        }
+
+        byte[] edgesPermutation = new byte[N_EDGES];
+        byte[] edgesOrientation = new byte[N_EDGES];
+        for (int i = 0; i < N_EDGES; i++) {
+            edgesPermutation[state.edgesPermutation[i]] = (byte) i;
+            edgesOrientation[state.edgesPermutation[i]] = state.edgesOrientation[i];
+        }
+
+        return new State(cornersPermutation, cornersOrientation, edgesPermutation, edgesOrientation);
+    }
+
+    private static State power(State state, int n) {
+        State result = State.id;
+        for (int i = 0; i < n; i++)
+            result = result.multiply(state);
+        return result;
+    }
+
+    /**
+     * Moves the piece at position sources[i] to position i, changing its value v to
+     * values[i * 24 + v].
+     */
+    private static class Transform {
+        final byte[] sources = new byte[N_PIECES];
+        final byte[] values  = new byte[N_PIECES * N_VALUES];
+
+        void apply(byte[] pieces, byte[] result) {
+            for (int i = 0; i < N_PIECES; i++)
+                result[i] = values[i * N_VALUES + pieces[sources[i]]];
+        }
+
+        /**
+         * This transform followed by another one.
+         */
+        Transform then(Transform other) {
+            Transform result = new Transform();
+            for (int i = 0; i < N_PIECES; i++) {
+                int source = other.sources[i];
+                result.sources[i] = sources[source];
+                for (int v = 0; v < N_VALUES; v++)
+                    result.values[i * N_VALUES + v] = other.values[i * N_VALUES + values[source * N_VALUES + v]];
+            }
+            return result;
+        }
+
+        /**
+         * state -> state * move, like {@link State#multiply(State)}.
+         */
+        static Transform multiply(State move) {
+            Transform result = new Transform();
+            for (int i = 0; i < N_PIECES; i++) {
+                boolean corner = i < N_CORNERS;
+                int position = corner ? i : i - N_CORNERS;
+                int orientations = corner ? 3 : 2;
+                int source = corner ? move.cornersPermutation[position] : move.edgesPermutation[position];
+                int twist = corner ? move.cornersOrientation[position] : move.edgesOrientation[position];
+
+                result.sources[i] = (byte) (corner ? source : N_CORNERS + source);
+                for (int v = 0; v < N_VALUES; v++) {
+                    int piece = v / orientations;
+                    int orientation = (v % orientations + twist) % orientations;
+                    result.values[i * N_VALUES + v] = (byte) (piece * orientations + orientation);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * state -> move * state.
+         */
+        static Transform premultiply(State move) {
+            Transform result = new Transform();
+            for (int i = 0; i < N_PIECES; i++) {
+                boolean corner = i < N_CORNERS;
+                int orientations = corner ? 3 : 2;
+                byte[] permutation = corner ? move.cornersPermutation : move.edgesPermutation;
+                byte[] twist = corner ? move.cornersOrientation : move.edgesOrientation;
+
+                result.sources[i] = (byte) i;
+                for (int v = 0; v < N_VALUES; v++) {
+                    int piece = v / orientations;
+                    int orientation = (twist[piece] + v % orientations) % orientations;
+                    result.values[i * N_VALUES + v] = (byte) (permutation[piece] * orientations + orientation);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * state -> rotation' * state * rotation, the cube as seen after the rotation.
+         */
+        static Transform conjugate(State rotation) {
+            return premultiply(inverse(rotation)).then(multiply(rotation));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the distance tables used to prune the searches: for every index of a coordinate (or of
+ * several coordinates combined into one index), the number of moves needed to reach a goal index.
+ *
+ * The table is filled one depth at a time, without rescanning it: the indices found at a depth
+ * are kept as a bitset, one bit per index, so the next depth only visits those, and in order,
+ * which keeps the move table reads close together. Once there are more of them than indices still
+ * unknown, it's cheaper to go backward: each unknown index looks for a move that leads to the
+ * depth before, and stops at the first one. Either way, a large depth is split between threads.
+ *
+ * Going backward needs the inverse of every move to be one of the moves, which is true of every
+ * move set of the solvers (a face turn comes with its inverse, and half turns are their own).
+ */
+public class DistanceTable {
+
+    /**
+     * Where the moves of a table go.
+     */
+    public interface Moves {
+        int getCount();
+
+        /**
+         * Writes the index reached by each move to next. Called from several threads at once.
+         */
+        void getNext(int index, int[] next);
+    }
+
+    private static final int N_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Smaller depths aren't worth handing to other threads: indices, or words of the frontier
+    private static final int MIN_PARALLEL_SIZE = 1 << 12;
+
+    // Idle threads stop after this long, so nothing is kept once the tables are built
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+    private static ThreadPoolExecutor sExecutor;
+
+    private DistanceTable() {
+    }
+
+    /**
+     * The moves of a single coordinate.
+     */
+    public static Moves of(final MoveTable table) {
+        return new Moves() {
+            @Override
+            public int getCount() {
+                return table.getMoveCount();
+            }
+
+            @Override
+            public void getNext(int index, int[] next) {
+                table.getRow(index, next);
+            }
+        };
+    }
+
+    /**
+     * The moves of two coordinates combined as first * (values of second) + second.
+     */
+    public static Moves of(final MoveTable first, final MoveTable second) {
+        return new Moves() {
+            @Override
+            public int getCount() {
+                return first.getMoveCount();
+            }
+
+            @Override
+            public void getNext(int index, int[] next) {
+                int firstIndex = index / second.getSize();
+                int secondIndex = index % second.getSize();
+                for (int move = 0; move < next.length; move++)
+                    next[move] = first.get(firstIndex, move) * second.getSize() + second.get(secondIndex, move);
+            }
+        };
+    }
+
+    /**
+     * Returns the distance from each index to the nearest goal, or -1 if no goal can be reached.
+     */
+    public static byte[] build(int size, Moves moves, int... goals) {
+        return build(size, moves, goals, N_THREADS);
+    }
+
+    static byte[] build(int size, Moves moves, int[] goals, int nThreads) {
+        byte[] distances = new byte[size];
+        Arrays.fill(distances, (byte) - 1);
+
+        // The indices at the current distance
+        long[] frontier = new long[(size + 63) >>> 6];
+        int frontierSize = 0;
+        for (int goal : goals) {
+            if (distances[goal] < 0) {
+                distances[goal] = 0;
+                frontier[goal >>> 6] |= 1L << goal;
+                frontierSize++;
+            }
+        }
+        int unknown = size - frontierSize;
+
+        // Only listed the first time the search goes backward
+        IntList unknowns = null;
+
+        // Both ways look at every move of the indices they go over, but backward stops at the
+        // first move that leads to the depth before
+        for (int distance = 0; frontierSize > 0; distance++) {
+            ArrayList<IntList> found;
+            if (frontierSize <= unknown) {
+                found = forward(distances, moves, frontier, distance, nThreads);
+            } else {
+                if (unknowns == null)
+                    unknowns = getUnknowns(distances, unknown);
+                found = backward(distances, moves, unknowns, distance, nThreads);
+            }
+
+            Arrays.fill(frontier, 0);
+            frontierSize = 0;
+            for (IntList list : found) {
+                for (int i = 0; i < list.size; i++) {
+                    int index = list.values[i];
+                    // Two threads going forward can both find the same index
+                    if ((frontier[index >>> 6] & (1L << index)) == 0) {
+                        frontier[index >>> 6] |= 1L << index;
+                        frontierSize++;
+                    }
+                }
+            }
+            unknown -= frontierSize;
+        }
+
+        return distances;
+    }
+
+    private static IntList getUnknowns(byte[] distances, int unknown) {
+        IntList unknowns = new IntList(unknown);
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] < 0)
+                unknowns.add(i);
+        }
+        return unknowns;
+    }
+
+    /**
+     * Sets the unknown neighbours of the frontier to distance + 1, and returns them.
+     */
+    private static ArrayList<IntList> forward(final byte[] distances, final Moves moves, final long[] frontier,
+                                              final int distance, int nThreads) {
+        ArrayList<Callable<IntList>> parts = new ArrayList<Callable<IntList>>();
+        for (final int[] range : split(frontier.length, nThreads)) {
+            parts.add(new Callable<IntList>() {
+                @Override
+                public IntList call() {
+                    IntList found = new IntList(range[1] - range[0]);
+                    int[] next = new int[moves.getCount()];
+                    for (int word = range[0]; word < range[1]; word++) {
+                        for (long bits = frontier[word]; bits != 0; bits &= bits - 1) {
+                            moves.getNext((word << 6) + Long.numberOfTrailingZeros(bits), next);
+                            for (int index : next) {
+                                if (distances[index] < 0) {
+                                    distances[index] = (byte) (distance + 1);
+                                    found.add(index);
+                                }
+                            }
+                        }
+                    }
+                    return found;
+                }
+            });
+        }
+
+        return run(parts);
+    }
+
+    /**
+     * Sets the unknown indices next to one at the given distance to distance + 1, and returns
+     * them. The indices still unknown are kept at the start of unknowns, which drops the ones
+     * found since the last call as well.
+     *
+     * Each thread only writes the indices of its own part, and an index it sets never looks like
+     * one at the given distance to the others.
+     */
+    private static ArrayList<IntList> backward(final byte[] distances, final Moves moves, final IntList unknowns,
+                                               final int distance, int nThreads) {
+        final ArrayList<int[]> ranges = split(unknowns.size, nThreads);
+        final int[] lefts = new int[ranges.size()];
+
+        ArrayList<Callable<IntList>> parts = new ArrayList<Callable<IntList>>();
+        for (int part = 0; part < ranges.size(); part++) {
+            final int[] range = ranges.get(part);
+            final int partIndex = part;
+            parts.add(new Callable<IntList>() {
+                @Override
+                public IntList call() {
+                    IntList found = new IntList((range[1] - range[0]) / 8);
+                    int[] next = new int[moves.getCount()];
+                    int left = range[0];
+                    for (int i = range[0]; i < range[1]; i++) {
+                        int index = unknowns.values[i];
+                        if (distances[index] >= 0)
+                            continue;
+
+                        moves.getNext(index, next);
+                        boolean isNext = false;
+                        for (int j = 0; j < next.length && ! isNext; j++)
+                            isNext = distances[next[j]] == distance;
+                        if (isNext) {
+                            distances[index] = (byte) (distance + 1);
+                            found.add(index);
+                        } else {
+                            unknowns.values[left++] = index;
+                        }
+                    }
+                    lefts[partIndex] = left - range[0];
+                    return found;
+                }
+            });
+        }
+
+        ArrayList<IntList> found = run(parts);
+        unknowns.size = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            System.arraycopy(unknowns.values, ranges.get(i)[0], unknowns.values, unknowns.size, lefts[i]);
+            unknowns.size += lefts[i];
+        }
+        return found;
+    }
+
+    /**
+     * Splits [0, size) into one range per thread, or a single one if size is small.
+     */
+    private static ArrayList<int[]> split(int size, int nThreads) {
+        int nParts = size < MIN_PARALLEL_SIZE ? 1 : nThreads;
+        ArrayList<int[]> ranges = new ArrayList<int[]>();
+        for (int i = 0; i < nParts; i++)
+            ranges.add(new int[] {
+                    (int) ((long) size * i / nParts),
+                    (int) ((long) size * (i + 1) / nParts),
+                    });
+        return ranges;
+    }
+
+    /**
+     * Runs the parts on the pool, the last one on the calling thread, and returns their results.
+     */
+    private static <T> ArrayList<T> run(ArrayList<Callable<T>> parts) {
+        ArrayList<Future<T>> futures = new ArrayList<Future<T>>();
+        for (int i = 0; i < parts.size() - 1; i++)
+            futures.add(getExecutor().submit(parts.get(i)));
+
+        ArrayList<T> results = new ArrayList<T>();
+        boolean interrupted = false;
+        try {
+            T last = parts.get(parts.size() - 1).call();
+            for (Future<T> future : futures) {
+                // A table left half done would be kept by the solver, so an interrupt only takes
+                // effect once every part is over
+                while (true) {
+                    try {
+                        results.add(future.get());
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            results.add(last);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = new ThreadPoolExecutor(N_THREADS, N_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "DistanceTable");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sExecutor;
+    }
+
+    private static class IntList {
+        int[] values;
+        int   size;
+
+        IntList(int capacity) {
+            values = new int[Math.max(capacity, 16)];
+        }
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -1,16 +1,47 @@
 package com.aricneto.twistytimer.solver;
 
+/**
+ * Numbers permutations, orientations and combinations of cube pieces, and back.
+ *
+ * Factorials and binomials come from tables, and the pieces already used (or still left) are kept
+ * as bits of a single int or long, so every conversion is a single pass over the pieces.
+ */
 public class IndexMapping {
-    // permutation
+    // More pieces than any puzzle has
+    private static final int MAX_LENGTH = 12;
+
+    // The pieces not placed yet, 4 bits each in increasing order: taking the n-th smallest one
+    // is a shift, and so is closing the gap it leaves
+    private static final long ALL_PIECES = 0xFEDCBA9876543210L;
+
+    private static final int[]   FACTORIALS = new int[MAX_LENGTH + 1];
+    private static final int[][] BINOMIALS  = new int[MAX_LENGTH + 1][MAX_LENGTH + 1];
+
+    static {
+        FACTORIALS[0] = 1;
+        for (int i = 1; i <= MAX_LENGTH; i++) {
+            FACTORIALS[i] = FACTORIALS[i - 1] * i;
+        }
+
+        for (int n = 0; n <= MAX_LENGTH; n++) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + (k <= n - 1 ? BINOMIALS[n - 1][k] : 0);
+            }
+        }
+    }
+
+    // permutation, of the pieces 0 to length - 1
     public static int permutationToIndex(byte[] permutation) {
+        // The Lehmer code: for each piece, how many of the pieces after it are smaller, which is
+        // how many smaller pieces haven't been seen yet
         int index = 0;
+        int seen = 0;
         for (int i = 0; i < permutation.length - 1; i++) {
-            index *= permutation.length - i;
-            for (int j = i + 1; j < permutation.length; j++) {
-                if (permutation[i] > permutation[j]) {
-                    index++;
-                }
-            }
+            int piece = permutation[i];
+            int smaller = piece - Integer.bitCount(seen & ((1 << piece) - 1));
+            index += smaller * FACTORIALS[permutation.length - 1 - i];
+            seen |= 1 << piece;
         }
 
         return index;
@@ -18,15 +49,16 @@ public class IndexMapping {
 
     public static byte[] indexToPermutation(int index, int length) {
         byte[] permutation = new byte[length];
-        permutation[length - 1] = 0;
-        for (int i = length - 2; i >= 0; i--) {
-            permutation[i] = (byte) (index % (length - i));
-            index /= length - i;
-            for (int j = i + 1; j < length; j++) {
-                if (permutation[j] >= permutation[i]) {
-                    permutation[j]++;
-                }
-            }
+        long left = ALL_PIECES;
+        for (int i = 0; i < length; i++) {
+            int factorial = FACTORIALS[length - 1 - i];
+            int smaller = index / factorial;
+            index -= smaller * factorial;
+
+            int shift = smaller << 2;
+            long below = (1L << shift) - 1;
+            permutation[i] = (byte) ((left >>> shift) & 0xF);
+            left = (left & below) | ((left >>> 4) & ~below);
         }
 
         return permutation;
@@ -34,41 +66,40 @@ public class IndexMapping {
 
     // even permutation
     public static int evenPermutationToIndex(byte[] permutation) {
+        // Like a permutation, but the last two pieces follow from the parity
         int index = 0;
+        int seen = 0;
         for (int i = 0; i < permutation.length - 2; i++) {
-            index *= permutation.length - i;
-            for (int j = i + 1; j < permutation.length; j++) {
-                if (permutation[i] > permutation[j]) {
-                    index++;
-                }
-            }
+            int piece = permutation[i];
+            int smaller = piece - Integer.bitCount(seen & ((1 << piece) - 1));
+            index += smaller * (FACTORIALS[permutation.length - 1 - i] / 2);
+            seen |= 1 << piece;
         }
 
         return index;
     }
 
     public static byte[] indexToEvenPermutation(int index, int length) {
-        int sum = 0;
         byte[] permutation = new byte[length];
-
-        permutation[length - 1] = 1;
-        permutation[length - 2] = 0;
-        for (int i = length - 3; i >= 0; i--) {
-            permutation[i] = (byte) (index % (length - i));
-            sum += permutation[i];
-            index /= length - i;
-            for (int j = i + 1; j < length; j++) {
-                if (permutation[j] >= permutation[i]) {
-                    permutation[j]++;
-                }
-            }
+        long left = ALL_PIECES;
+        int sum = 0;
+        for (int i = 0; i < length - 2; i++) {
+            int factorial = FACTORIALS[length - 1 - i] / 2;
+            int smaller = index / factorial;
+            index -= smaller * factorial;
+            sum += smaller;
+
+            int shift = smaller << 2;
+            long below = (1L << shift) - 1;
+            permutation[i] = (byte) ((left >>> shift) & 0xF);
+            left = (left & below) | ((left >>> 4) & ~below);
         }
 
-        if (sum % 2 != 0) {
-            byte temp = permutation[permutation.length - 1];
-            permutation[permutation.length - 1] = permutation[permutation.length - 2];
-            permutation[permutation.length - 2] = temp;
-        }
+        // The two pieces left, swapped if the others make an odd permutation
+        int first = (int) (left & 0xF);
+        int second = (int) ((left >>> 4) & 0xF);
+        permutation[length - 2] = (byte) (sum % 2 == 0 ? first : second);
+        permutation[length - 1] = (byte) (sum % 2 == 0 ? second : first);
 
         return permutation;
     }
@@ -119,17 +150,7 @@ public class IndexMapping {
 
     // combinations
     private static int nChooseK(int n, int k) {
-        int value = 1;
-
-        for (int i = 0; i < k; i++) {
-            value *= n - i;
-        }
-
-        for (int i = 0; i < k; i++) {
-            value /= k - i;
-        }
-
-        return value;
+        return k > n ? 0 : BINOMIALS[n][k];
     }
 
     public static int combinationToIndex(boolean[] combination, int k) {
@@ -154,4 +175,5 @@ public class IndexMapping {
 
         return combination;
     }
-}
\ No newline at end of file
+
+}
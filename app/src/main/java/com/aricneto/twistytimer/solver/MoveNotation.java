@@ -0,0 +1,129 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+
+/**
+ * Turns the move sequences of a puzzle into int codes, like {@link MoveSequence} does for the
+ * 3x3, for the puzzles that TNoodle writes as a few move names each followed by "'", "2", or
+ * nothing: "U L' R B u' b" on the Pyraminx, "R U' L B" on the Skewb.
+ *
+ * A code is name * (order - 1) + (turns - 1), where a move of a name can be repeated order times
+ * before it does nothing, and the names are in the order given to the constructor. With an order
+ * of 3, the codes of a name are its clockwise turn, then its counter-clockwise one.
+ */
+public class MoveNotation {
+
+    private final String[] names;
+    private final int      order;
+
+    /**
+     * @param order The number of turns of a move that leave the puzzle as it was
+     * @param names The moves, such as "U", without suffix
+     */
+    public MoveNotation(int order, String... names) {
+        this.order = order;
+        this.names = names;
+    }
+
+    /**
+     * The number of codes.
+     */
+    public int getCount() {
+        return names.length * (order - 1);
+    }
+
+    /**
+     * Returns the codes of the moves of a sequence separated by spaces.
+     *
+     * @throws IllegalArgumentException If a move isn't one of the names
+     */
+    public int[] parse(CharSequence sequence) {
+        int[] codes = new int[sequence.length() / 2 + 1];
+        int count = 0;
+
+        int length = sequence.length();
+        int start = 0;
+        while (true) {
+            while (start < length && Character.isWhitespace(sequence.charAt(start)))
+                start++;
+            if (start == length)
+                break;
+            int end = start + 1;
+            while (end < length && ! Character.isWhitespace(sequence.charAt(end)))
+                end++;
+
+            codes[count++] = parse(sequence, start, end);
+            start = end;
+        }
+
+        return Arrays.copyOf(codes, count);
+    }
+
+    /**
+     * Returns the code of a single move, such as "U", "u'" or "R2".
+     *
+     * @throws IllegalArgumentException If it isn't one of the names
+     */
+    public int parse(CharSequence sequence, int start, int end) {
+        // The longest name that starts the move, so that "Rw" isn't read as "R"
+        int name = - 1;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].length() <= end - start && startsWith(sequence, start, names[i])
+                    && (name < 0 || names[i].length() > names[name].length()))
+                name = i;
+        }
+        if (name < 0)
+            throw invalid(sequence, start, end);
+        int position = start + names[name].length();
+
+        int turns = 1;
+        if (position < end && sequence.charAt(position) >= '0' && sequence.charAt(position) <= '9') {
+            turns = sequence.charAt(position) - '0';
+            position++;
+        }
+        if (position < end && sequence.charAt(position) == '\'') {
+            turns = - turns;
+            position++;
+        }
+        if (position != end)
+            throw invalid(sequence, start, end);
+
+        turns = ((turns % order) + order) % order;
+        if (turns == 0)
+            throw invalid(sequence, start, end);
+        return name * (order - 1) + turns - 1;
+    }
+
+    /**
+     * The name of a code, with "'" for the counter-clockwise turn.
+     */
+    public String toString(int code) {
+        int turns = code % (order - 1) + 1;
+        String name = names[code / (order - 1)];
+        if (turns == order - 1 && order > 2)
+            return name + "'";
+        return turns == 1 ? name : name + turns;
+    }
+
+    public String toString(int[] codes) {
+        StringBuilder text = new StringBuilder();
+        for (int code : codes) {
+            if (text.length() > 0)
+                text.append(' ');
+            text.append(toString(code));
+        }
+        return text.toString();
+    }
+
+    private static boolean startsWith(CharSequence sequence, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (sequence.charAt(start + i) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence sequence, int start, int end) {
+        return new IllegalArgumentException("Not a move: " + sequence.subSequence(start, end));
+    }
+}
@@ -0,0 +1,150 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+
+/**
+ * Turns 3x3 move sequences into int codes, in one pass over the text and without creating a
+ * String per move. The codes are applied by {@link CubeState}.
+ *
+ * A code is kind * 3 + (quarter turns - 1). The kinds are the faces (U D L R F B, so the first 18
+ * codes are in the order of {@link PatternSolver#MOVE_NAMES}), the wide moves (Uw or u, ...), the
+ * slices (M E S) and the rotations (x y z).
+ */
+public class MoveSequence {
+
+    public static final int N_KINDS = 18;
+    public static final int N_CODES = N_KINDS * 3;
+
+    public static final int FIRST_WIDE     = 6 * 3;
+    public static final int FIRST_SLICE    = 12 * 3;
+    public static final int FIRST_ROTATION = 15 * 3;
+
+    private static final String[] KIND_NAMES = {
+            "U", "D", "L", "R", "F", "B",
+            "Uw", "Dw", "Lw", "Rw", "Fw", "Bw",
+            "M", "E", "S",
+            "x", "y", "z",
+            };
+
+    private static final String[] SUFFIXES = { "", "2", "'" };
+
+    private static final String[] NAMES = new String[N_CODES];
+
+    static {
+        for (int i = 0; i < N_CODES; i++) {
+            NAMES[i] = KIND_NAMES[i / 3] + SUFFIXES[i % 3];
+        }
+    }
+
+    private MoveSequence() {
+    }
+
+    /**
+     * Returns the codes of the moves of a sequence separated by spaces.
+     *
+     * @throws IllegalArgumentException If a move isn't a 3x3 move
+     */
+    public static int[] parse(CharSequence sequence) {
+        int[] codes = new int[sequence.length() / 2 + 1];
+        int count = 0;
+
+        int length = sequence.length();
+        int start = 0;
+        while (true) {
+            while (start < length && Character.isWhitespace(sequence.charAt(start)))
+                start++;
+            if (start == length)
+                break;
+            int end = start + 1;
+            while (end < length && ! Character.isWhitespace(sequence.charAt(end)))
+                end++;
+
+            codes[count++] = parse(sequence, start, end);
+            start = end;
+        }
+
+        return Arrays.copyOf(codes, count);
+    }
+
+    /**
+     * Returns the code of a single move, such as "R2", "Rw'", "r", "M" or "y'".
+     *
+     * @throws IllegalArgumentException If it isn't a 3x3 move
+     */
+    public static int parse(CharSequence sequence, int start, int end) {
+        int kind = kindOf(sequence.charAt(start));
+        int position = start + 1;
+        if (kind < 0)
+            throw invalid(sequence, start, end);
+
+        // "Rw" is the same as "r"
+        if (position < end && sequence.charAt(position) == 'w') {
+            if (kind >= 6)
+                throw invalid(sequence, start, end);
+            kind += 6;
+            position++;
+        }
+
+        int turns = 1;
+        if (position < end && sequence.charAt(position) >= '0' && sequence.charAt(position) <= '9') {
+            turns = sequence.charAt(position) - '0';
+            position++;
+        }
+        if (position < end && sequence.charAt(position) == '\'') {
+            turns = - turns;
+            position++;
+        }
+        if (position != end)
+            throw invalid(sequence, start, end);
+
+        turns = ((turns % 4) + 4) % 4;
+        if (turns == 0)
+            throw invalid(sequence, start, end);
+        return kind * 3 + turns - 1;
+    }
+
+    /**
+     * The name of a code, as in the standard notation.
+     */
+    public static String toString(int code) {
+        return NAMES[code];
+    }
+
+    public static String toString(int[] codes) {
+        StringBuilder text = new StringBuilder();
+        for (int code : codes) {
+            if (text.length() > 0)
+                text.append(' ');
+            text.append(NAMES[code]);
+        }
+        return text.toString();
+    }
+
+    private static int kindOf(char c) {
+        switch (c) {
+            case 'U': return 0;
+            case 'D': return 1;
+            case 'L': return 2;
+            case 'R': return 3;
+            case 'F': return 4;
+            case 'B': return 5;
+            case 'u': return 6;
+            case 'd': return 7;
+            case 'l': return 8;
+            case 'r': return 9;
+            case 'f': return 10;
+            case 'b': return 11;
+            case 'M': return 12;
+            case 'E': return 13;
+            case 'S': return 14;
+            case 'x': return 15;
+            case 'y': return 16;
+            case 'z': return 17;
+            default:  return - 1;
+        }
+    }
+
+    private static IllegalArgumentException invalid(CharSequence sequence, int start, int end) {
+        return new IllegalArgumentException("Not a 3x3 move: " + sequence.subSequence(start, end));
+    }
+}
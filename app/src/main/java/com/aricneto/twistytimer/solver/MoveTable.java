@@ -0,0 +1,70 @@
+package com.aricneto.twistytimer.solver;
+
+/**
+ * Where each move takes each index of a coordinate, stored in a single flat array with 16 bits
+ * per entry instead of an int[] per index.
+ *
+ * Coordinates of up to 65,536 values fit in the 16 bits. Larger ones, up to 131,072 values (the
+ * X-cross edges have 95,040), keep the 17th bit of every entry in a separate bitset.
+ */
+public class MoveTable {
+
+    private static final int MAX_SIZE = 1 << 17;
+
+    private final int    size;
+    private final int    nMoves;
+    private final char[] entries;
+    // The 17th bit of each entry, or null if the values fit in 16 bits
+    private final long[] highBits;
+
+    public MoveTable(int size, int nMoves) {
+        if (size > MAX_SIZE)
+            throw new IllegalArgumentException("Move table too large: " + size);
+
+        this.size = size;
+        this.nMoves = nMoves;
+        entries = new char[size * nMoves];
+        highBits = size > 1 << 16 ? new long[(size * nMoves + 63) >>> 6] : null;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMoveCount() {
+        return nMoves;
+    }
+
+    public int get(int index, int move) {
+        int entry = index * nMoves + move;
+        if (highBits == null)
+            return entries[entry];
+        return entries[entry] | (int) ((highBits[entry >>> 6] >>> entry) & 1) << 16;
+    }
+
+    /**
+     * Writes where every move takes an index to next.
+     */
+    public void getRow(int index, int[] next) {
+        for (int move = 0; move < nMoves; move++)
+            next[move] = get(index, move);
+    }
+
+    public void set(int index, int move, int value) {
+        int entry = index * nMoves + move;
+        entries[entry] = (char) value;
+        if (highBits != null) {
+            if (value > 0xFFFF)
+                highBits[entry >>> 6] |= 1L << entry;
+            else
+                highBits[entry >>> 6] &= ~(1L << entry);
+        }
+    }
+
+    /**
+     * The memory used by the table, in bytes.
+     */
+    public long getResidentSize() {
+        return 2L * entries.length + (highBits == null ? 0 : 8L * highBits.length);
+    }
+}
@@ -0,0 +1,255 @@
+package com.aricneto.twistytimer.solver;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Finds every optimal solution of a puzzle small enough to have the distance of each of its
+ * positions in a table: the 2x2, the Pyraminx and the Skewb. A position is two coordinates, each
+ * with its {@link MoveTable}, combined as first * (values of second) + second.
+ *
+ * Every move changes the distance by at most one, so the distance modulo 3 is enough to tell a
+ * move that goes closer from one that doesn't: the table keeps only that, in 2 bits per position.
+ * The exact distance of a position is found by walking down to the solved one once, and the
+ * search never takes a move that doesn't lead closer.
+ *
+ * The table is built in parallel by {@link DistanceTable}, and written to the directory given to
+ * {@link SolverTables#setDirectory(File)}, so that it's only read afterwards. The file starts with
+ * a header (format version, number of positions and a CRC32 of the table), and a file that doesn't
+ * match it, or whose solved position isn't at distance 0, is built again: a wrong table would send
+ * the search around in circles.
+ */
+public class OptimalSolver {
+
+    // The 2 bits of a position no move sequence reaches
+    private static final int UNREACHABLE = 3;
+
+    // Change it whenever the file is laid out differently
+    private static final int FILE_VERSION = 1;
+    // Version, number of positions, CRC32
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+
+    private final MoveTable first;
+    private final MoveTable second;
+    private final int       movesPerAxis;
+    private final int       solved;
+    // The distance of each position modulo 3, 4 positions per byte
+    private final byte[]    distances;
+
+    /**
+     * Reads the table from the directory of the solver tables, or builds it and writes it there.
+     *
+     * @param fileName     The name of the table in the directory. Change it whenever the table is
+     *                     laid out differently
+     * @param movesPerAxis The moves are grouped by axis (the turns of a face, say), this many per
+     *                     axis, and two moves of the same axis never follow each other
+     * @param solved       The solved position
+     */
+    public OptimalSolver(String fileName, MoveTable first, MoveTable second, int movesPerAxis, int solved) {
+        this.first = first;
+        this.second = second;
+        this.movesPerAxis = movesPerAxis;
+        this.solved = solved;
+
+        int size = first.getSize() * second.getSize();
+        byte[] distances = read(fileName, size);
+        if (distances == null || getModuloDistance(distances, solved) != 0) {
+            byte[] built = DistanceTable.build(size, DistanceTable.of(first, second), solved);
+            distances = new byte[(size + 3) >>> 2];
+            for (int i = 0; i < size; i++)
+                distances[i >>> 2] |= (built[i] < 0 ? UNREACHABLE : built[i] % 3) << ((i & 3) << 1);
+            write(fileName, size, distances);
+        }
+        this.distances = distances;
+    }
+
+    /**
+     * The number of positions, including any the moves don't reach.
+     */
+    public int getSize() {
+        return first.getSize() * second.getSize();
+    }
+
+    /**
+     * Whether the moves reach a position from the solved one.
+     */
+    public boolean isReachable(int index) {
+        return getModuloDistance(index) != UNREACHABLE;
+    }
+
+    /**
+     * The position of the given coordinates.
+     */
+    public int getIndex(int firstIndex, int secondIndex) {
+        return firstIndex * second.getSize() + secondIndex;
+    }
+
+    /**
+     * The number of moves of an optimal solution.
+     *
+     * @throws IllegalArgumentException If the position can't be solved
+     * @throws IllegalStateException    If the table is wrong and no move leads closer
+     */
+    public int getDistance(int index) {
+        if (! isReachable(index))
+            throw new IllegalArgumentException("Not a position of the puzzle: " + index);
+
+        // Walks down to the solved position, one move to a position at distance - 1 at a time
+        int distance = 0;
+        int[] next = new int[first.getMoveCount()];
+        while (index != solved) {
+            int closer = (getModuloDistance(index) + 2) % 3;
+            getNext(index, next);
+            int move = 0;
+            while (move < next.length && getModuloDistance(next[move]) != closer)
+                move++;
+            // No position is further away than there are positions, so past that it's going round
+            if (move == next.length || distance == getSize())
+                throw new IllegalStateException("No move leads closer from position " + index);
+            index = next[move];
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * The number of moves of an optimal solution of a position one move away from another, whose
+     * distance is known. Much faster than {@link #getDistance(int)}, for a search that keeps the
+     * distance as it goes.
+     */
+    public int getDistance(int index, int nearDistance) {
+        int moduloDistance = getModuloDistance(index);
+        if (moduloDistance == (nearDistance + 2) % 3)
+            return nearDistance - 1;
+        return moduloDistance == nearDistance % 3 ? nearDistance : nearDistance + 1;
+    }
+
+    /**
+     * Returns every optimal solution, as indices into the moves of the move tables.
+     *
+     * @param maxSolutions Stop after finding this many
+     * @throws IllegalArgumentException If the position can't be solved
+     */
+    public ArrayList<int[]> solve(int index, int maxSolutions) {
+        int depth = getDistance(index);
+        ArrayList<int[]> solutions = new ArrayList<int[]>();
+        search(index, depth, new int[depth], - 1, solutions, maxSolutions);
+        return solutions;
+    }
+
+    /**
+     * The memory used by the tables, in bytes.
+     */
+    public long getResidentSize() {
+        return first.getResidentSize() + second.getResidentSize() + distances.length;
+    }
+
+    /**
+     * The memory used by the distances alone, without the move tables, which may be shared.
+     */
+    public long getDistancesSize() {
+        return distances.length;
+    }
+
+    private int getModuloDistance(int index) {
+        return getModuloDistance(distances, index);
+    }
+
+    private static int getModuloDistance(byte[] distances, int index) {
+        return (distances[index >>> 2] >>> ((index & 3) << 1)) & 3;
+    }
+
+    private void getNext(int index, int[] next) {
+        int firstIndex = index / second.getSize();
+        int secondIndex = index % second.getSize();
+        for (int move = 0; move < next.length; move++)
+            next[move] = first.get(firstIndex, move) * second.getSize() + second.get(secondIndex, move);
+    }
+
+    /**
+     * Follows every move to a position at depth - 1. Knowing the exact depth, the distance modulo 3
+     * tells it apart from depth and depth + 1, so every path taken is a solution.
+     */
+    private void search(int index, int depth, int[] path, int lastAxis,
+                        ArrayList<int[]> solutions, int maxSolutions) {
+        if (depth == 0) {
+            solutions.add(path.clone());
+            return;
+        }
+
+        int closer = (depth - 1) % 3;
+        int[] next = new int[first.getMoveCount()];
+        getNext(index, next);
+        for (int move = 0; move < next.length && solutions.size() < maxSolutions; move++) {
+            if (move / movesPerAxis == lastAxis || getModuloDistance(next[move]) != closer)
+                continue;
+
+            path[path.length - depth] = move;
+            search(next[move], depth - 1, path, move / movesPerAxis, solutions, maxSolutions);
+        }
+    }
+
+    // Returns null if the file is missing, or doesn't hold a table of this size in this format
+    private static byte[] read(String fileName, int size) {
+        File directory = SolverTables.getDirectory();
+        if (directory == null)
+            return null;
+        File file = new File(directory, fileName);
+        int length = (size + 3) >>> 2;
+        if (file.length() != HEADER_SIZE + length)
+            return null;
+
+        try {
+            byte[] distances = new byte[length];
+            long checksum;
+            DataInputStream input = new DataInputStream(new FileInputStream(file));
+            try {
+                if (input.readInt() != FILE_VERSION || input.readInt() != size)
+                    return null;
+                checksum = input.readLong();
+                input.readFully(distances);
+            } finally {
+                input.close();
+            }
+            return checksum == checksum(distances) ? distances : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long checksum(byte[] distances) {
+        CRC32 crc = new CRC32();
+        crc.update(distances);
+        return crc.getValue();
+    }
+
+    private static void write(String fileName, int size, byte[] distances) {
+        File directory = SolverTables.getDirectory();
+        if (directory == null || (! directory.isDirectory() && ! directory.mkdirs()))
+            return;
+
+        // Written aside and renamed, so a table is never read half written
+        File temporary = new File(directory, fileName + ".tmp");
+        try {
+            DataOutputStream output = new DataOutputStream(new FileOutputStream(temporary));
+            try {
+                output.writeInt(FILE_VERSION);
+                output.writeInt(size);
+                output.writeLong(checksum(distances));
+                output.write(distances);
+            } finally {
+                output.close();
+            }
+            if (! temporary.renameTo(new File(directory, fileName)))
+                temporary.delete();
+        } catch (IOException e) {
+            temporary.delete();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.HashMap;
+
+/**
+ * A coordinate over part of a Rubik's cube: where a few chosen pieces are (and how they're
+ * twisted), or the orientation of every edge. Used by {@link PatternSolver}.
+ *
+ * A coordinate tracking k pieces stores each one as a position and an orientation, and its value
+ * is those k numbers in base (positions * orientations). That wastes some values (two pieces can't
+ * share a position) but a move only has to be applied to each piece on its own, so the move table
+ * is built without going through whole cube states.
+ *
+ * Coordinates are shared: asking twice for the same one returns the same object, with its move
+ * table built only once, or again after {@link SolverTables#release()}.
+ */
+public class PatternCoordinate {
+
+    private static final int N_CORNERS = 8;
+    private static final int N_EDGES   = 12;
+
+    private static final HashMap<String, PatternCoordinate> sCoordinates = new HashMap<>();
+
+    private final String  key;
+    private final boolean corners;
+    private final int[]   pieces;
+    private final boolean orientation;
+    // True for the orientation of all the edges, false for a set of pieces
+    private final boolean allEdgesOrientation;
+
+    // Values a single piece can take
+    private final int base;
+    private final int size;
+    private final int solved;
+
+    private MoveTable moveTable;
+
+    private PatternCoordinate(String key, boolean corners, int[] pieces, boolean orientation,
+                              boolean allEdgesOrientation) {
+        this.key = key;
+        this.corners = corners;
+        this.pieces = pieces;
+        this.orientation = orientation;
+        this.allEdgesOrientation = allEdgesOrientation;
+
+        if (allEdgesOrientation) {
+            base = 2;
+            size = 1 << (N_EDGES - 1);
+            solved = 0;
+        } else {
+            base = (corners ? N_CORNERS : N_EDGES) * (orientation ? (corners ? 3 : 2) : 1);
+            int size = 1;
+            int solved = 0;
+            for (int piece : pieces) {
+                size *= base;
+                solved = solved * base + pieceValue(piece, 0);
+            }
+            this.size = size;
+            this.solved = solved;
+        }
+    }
+
+    /**
+     * The position and orientation of some corners.
+     *
+     * @param pieces Corners, numbered as in {@link State}
+     */
+    public static PatternCoordinate corners(int... pieces) {
+        return get(true, pieces, true, false);
+    }
+
+    /**
+     * The position and orientation of some edges.
+     *
+     * @param pieces Edges, numbered as in {@link State}
+     */
+    public static PatternCoordinate edges(int... pieces) {
+        return get(false, pieces, true, false);
+    }
+
+    /**
+     * The position of some edges, whatever their orientation.
+     *
+     * @param pieces Edges, numbered as in {@link State}
+     */
+    public static PatternCoordinate edgePositions(int... pieces) {
+        return get(false, pieces, false, false);
+    }
+
+    /**
+     * The orientation of every edge, as flipped by F and B.
+     */
+    public static PatternCoordinate edgesOrientation() {
+        return get(false, new int[0], true, true);
+    }
+
+    private static PatternCoordinate get(boolean corners, int[] pieces, boolean orientation,
+                                         boolean allEdgesOrientation) {
+        StringBuilder key = new StringBuilder();
+        if (allEdgesOrientation) {
+            key.append("EO");
+        } else {
+            key.append(corners ? 'C' : 'E').append(orientation ? "o" : "p");
+            for (int piece : pieces)
+                key.append(':').append(piece);
+        }
+
+        synchronized (sCoordinates) {
+            PatternCoordinate coordinate = sCoordinates.get(key.toString());
+            if (coordinate == null) {
+                coordinate = new PatternCoordinate(key.toString(), corners, pieces.clone(), orientation,
+                    allEdgesOrientation);
+                sCoordinates.put(key.toString(), coordinate);
+            }
+            return coordinate;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The number of values, including some that can't happen on a real cube.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The value on a solved cube.
+     */
+    public int getSolvedIndex() {
+        return solved;
+    }
+
+    public int getIndex(CubeState state) {
+        if (allEdgesOrientation) {
+            int index = 0;
+            for (int i = 0; i < N_EDGES - 1; i++)
+                index = 2 * index + state.getEdgeOrientation(i);
+            return index;
+        }
+
+        int index = 0;
+        for (int piece : pieces) {
+            int position = 0;
+            while ((corners ? state.getCornerPermutation(position) : state.getEdgePermutation(position)) != piece)
+                position++;
+            int orientation = corners ? state.getCornerOrientation(position) : state.getEdgeOrientation(position);
+            index = index * base + pieceValue(position, orientation);
+        }
+        return index;
+    }
+
+    /**
+     * The value after a move.
+     *
+     * @param move An index into {@link PatternSolver#MOVES}
+     */
+    public int move(int index, int move) {
+        return getMoveTable().get(index, move);
+    }
+
+    /**
+     * The move table, built the first time it's needed (or after {@link #release()}).
+     */
+    public synchronized MoveTable getMoveTable() {
+        if (moveTable == null)
+            moveTable = allEdgesOrientation ? buildOrientationMoveTable() : buildPiecesMoveTable();
+        return moveTable;
+    }
+
+    /**
+     * The memory used by the move tables of every coordinate, in bytes.
+     */
+    static long getResidentSize() {
+        long size = 0;
+        synchronized (sCoordinates) {
+            for (PatternCoordinate coordinate : sCoordinates.values()) {
+                synchronized (coordinate) {
+                    if (coordinate.moveTable != null)
+                        size += coordinate.moveTable.getResidentSize();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops the move tables of every coordinate. They're built again when needed.
+     */
+    static void release() {
+        synchronized (sCoordinates) {
+            for (PatternCoordinate coordinate : sCoordinates.values()) {
+                synchronized (coordinate) {
+                    coordinate.moveTable = null;
+                }
+            }
+        }
+    }
+
+    private int pieceValue(int position, int orientation) {
+        return this.orientation ? position * (corners ? 3 : 2) + orientation : position;
+    }
+
+    private MoveTable buildPiecesMoveTable() {
+        int orientations = orientation ? (corners ? 3 : 2) : 1;
+
+        // Where a single piece goes with each move
+        int[][] pieceMove = new int[PatternSolver.N_MOVES][base];
+        for (int m = 0; m < PatternSolver.N_MOVES; m++) {
+            State move = PatternSolver.MOVES[m];
+            byte[] permutation = corners ? move.cornersPermutation : move.edgesPermutation;
+            byte[] twist = corners ? move.cornersOrientation : move.edgesOrientation;
+            // The piece at position permutation[i] goes to position i
+            for (int i = 0; i < permutation.length; i++) {
+                for (int o = 0; o < orientations; o++) {
+                    pieceMove[m][permutation[i] * orientations + o] =
+                        i * orientations + (o + (orientation ? twist[i] : 0)) % orientations;
+                }
+            }
+        }
+
+        MoveTable table = new MoveTable(size, PatternSolver.N_MOVES);
+        for (int index = 0; index < size; index++) {
+            for (int m = 0; m < PatternSolver.N_MOVES; m++) {
+                int moved = 0;
+                int power = 1;
+                for (int rest = index; power < size; rest /= base) {
+                    moved += pieceMove[m][rest % base] * power;
+                    power *= base;
+                }
+                table.set(index, m, moved);
+            }
+        }
+        return table;
+    }
+
+    private MoveTable buildOrientationMoveTable() {
+        MoveTable table = new MoveTable(size, PatternSolver.N_MOVES);
+        byte[] moved = new byte[N_EDGES];
+        for (int index = 0; index < size; index++) {
+            byte[] orientation = IndexMapping.indexToZeroSumOrientation(index, 2, N_EDGES);
+            for (int m = 0; m < PatternSolver.N_MOVES; m++) {
+                State move = PatternSolver.MOVES[m];
+                for (int i = 0; i < N_EDGES; i++) {
+                    moved[i] = (byte) ((orientation[move.edgesPermutation[i]] + move.edgesOrientation[i]) % 2);
+                }
+                table.set(index, m, IndexMapping.zeroSumOrientationToIndex(moved, 2));
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
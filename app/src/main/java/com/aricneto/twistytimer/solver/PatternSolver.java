@@ -0,0 +1,236 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds the shortest ways to solve part of a Rubik's cube: the pieces tracked by a few
+ * {@link PatternCoordinate}s, or the edge orientation.
+ *
+ * The move tables come from the coordinates and the pruning tables from groups of them, so a new
+ * step only needs the list of its pieces. The tables are shared by every solver using the same
+ * coordinates, and the search is an iterative deepening one, pruned with the largest distance
+ * of all the groups.
+ */
+public class PatternSolver {
+
+    public static final String[] MOVE_NAMES = {
+            "U", "U2", "U'",
+            "D", "D2", "D'",
+            "L", "L2", "L'",
+            "R", "R2", "R'",
+            "F", "F2", "F'",
+            "B", "B2", "B'",
+            };
+
+    public static final int N_MOVES = MOVE_NAMES.length;
+
+    public static final State[] MOVES = new State[N_MOVES];
+
+    static {
+        for (int i = 0; i < N_MOVES; i++) {
+            MOVES[i] = State.moves.get(MOVE_NAMES[i]);
+        }
+    }
+
+    /**
+     * The four ways to turn the cube around the vertical axis, as {@link CubeState} rotations.
+     */
+    public static final int[] Y_ROTATIONS = { 0, 1, 2, 3 };
+
+    /**
+     * The eight ways to hold the cube with U or D at the bottom.
+     */
+    public static final int[] D_AND_U_ROTATIONS = new int[8];
+
+    static {
+        for (int i = 0; i < 4; i++) {
+            D_AND_U_ROTATIONS[i] = Y_ROTATIONS[i];
+            D_AND_U_ROTATIONS[i + 4] = CubeState.getRotation("x2") + Y_ROTATIONS[i];
+        }
+    }
+
+    // No solution in the tips is longer than this
+    private static final int MAX_DEPTH = 20;
+
+    private final PatternCoordinate[] coordinates;
+    // For each pruning table, which of the coordinates it uses
+    private final int[][]             groups;
+
+    /**
+     * @param coordinates The parts of the cube to solve
+     * @param groups      Which coordinates to put together in each pruning table, as indices into
+     *                    coordinates. A single group of every coordinate gives the exact distance,
+     *                    but may be too large. Every coordinate must be in a group
+     */
+    public PatternSolver(PatternCoordinate[] coordinates, int[][] groups) {
+        this.coordinates = coordinates;
+        this.groups = groups;
+    }
+
+    /**
+     * Builds the tables now instead of at the first solve.
+     */
+    public void init() {
+        getTables();
+    }
+
+    /**
+     * The tables are looked up again for every solve instead of being kept, so that they can be
+     * released while the solver isn't in use. A solve keeps the ones it started with.
+     */
+    private Tables getTables() {
+        Tables tables = new Tables();
+        tables.pruning = new PruningTable[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            PatternCoordinate[] group = new PatternCoordinate[groups[i].length];
+            for (int j = 0; j < group.length; j++)
+                group[j] = coordinates[groups[i][j]];
+            tables.pruning[i] = PruningTable.get(group);
+        }
+        tables.moves = new MoveTable[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            tables.moves[i] = coordinates[i].getMoveTable();
+        return tables;
+    }
+
+    /**
+     * Returns the shortest solutions.
+     *
+     * @param maxSolutions Stop after finding this many
+     */
+    public ArrayList<String[]> solve(CubeState state, int maxSolutions) {
+        Tables tables = getTables();
+        int[] values = getValues(state);
+        for (int depth = getLowerBound(tables, values); depth <= MAX_DEPTH; depth++) {
+            ArrayList<String[]> solutions = new ArrayList<String[]>();
+            search(tables, values, depth, new int[depth], -1, solutions, maxSolutions);
+            if (solutions.size() > 0)
+                return solutions;
+        }
+        return new ArrayList<String[]>();
+    }
+
+    /**
+     * Returns the solutions of exactly the given length, if any. Lets the caller look for the
+     * shortest solution among several states, trying every state at each length.
+     *
+     * @param maxSolutions Stop after finding this many
+     */
+    public ArrayList<String[]> solve(CubeState state, int depth, int maxSolutions) {
+        Tables tables = getTables();
+        int[] values = getValues(state);
+        ArrayList<String[]> solutions = new ArrayList<String[]>();
+        if (getLowerBound(tables, values) <= depth)
+            search(tables, values, depth, new int[depth], -1, solutions, maxSolutions);
+        return solutions;
+    }
+
+    /**
+     * Returns the shortest solutions among several ways to hold the cube. Each solution is a
+     * string starting with the name of its rotation.
+     *
+     * @param rotations    {@link CubeState} rotations
+     * @param maxSolutions Stop after finding this many
+     */
+    public ArrayList<String> solve(CubeState state, int[] rotations, int maxSolutions) {
+        CubeState rotated = new CubeState();
+
+        ArrayList<String> solutions = new ArrayList<String>();
+        for (int depth = 0; depth <= MAX_DEPTH && solutions.isEmpty(); depth++) {
+            for (int i = 0; i < rotations.length && solutions.size() < maxSolutions; i++) {
+                rotated.set(state);
+                rotated.rotate(rotations[i]);
+                for (String[] solution : solve(rotated, depth, maxSolutions - solutions.size()))
+                    solutions.add(getPrefix(rotations[i]) + StringUtils.join(" ", solution));
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * The name of a {@link CubeState} rotation followed by a space, to write before a solution.
+     */
+    public static String getPrefix(int rotation) {
+        return rotation == 0 ? "" : CubeState.ROTATION_NAMES[rotation] + " ";
+    }
+
+    /**
+     * The names of a sequence of moves, given as indices into {@link #MOVE_NAMES}.
+     */
+    public static String[] getMoveNames(int[] moves) {
+        String[] names = new String[moves.length];
+        for (int i = 0; i < moves.length; i++)
+            names[i] = MOVE_NAMES[moves[i]];
+        return names;
+    }
+
+    /**
+     * Whether a move can follow a turn of lastFace (-1 at the start) in a search. A face is never
+     * turned twice in a row, and turns of opposite faces, which commute, only come in one order
+     * (U before D), so that no two sequences searched do the same thing for the same reason.
+     */
+    static boolean isCanonical(int lastFace, int move) {
+        int face = move / 3;
+        return face != lastFace && ! (face / 2 == lastFace / 2 && face < lastFace);
+    }
+
+    private int[] getValues(CubeState state) {
+        int[] values = new int[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            values[i] = coordinates[i].getIndex(state);
+        return values;
+    }
+
+    private int getLowerBound(Tables tables, int[] values) {
+        int bound = 0;
+        for (int i = 0; i < groups.length; i++) {
+            PruningTable table = tables.pruning[i];
+            bound = Math.max(bound, table.getDistance(table.getIndex(values, groups[i])));
+        }
+        return bound;
+    }
+
+    private void search(Tables tables, int[] values, int depth, int[] path, int lastFace,
+                        ArrayList<String[]> solutions, int maxSolutions) {
+        for (int i = 0; i < groups.length; i++) {
+            PruningTable table = tables.pruning[i];
+            if (table.getDistance(table.getIndex(values, groups[i])) > depth)
+                return;
+        }
+
+        if (depth == 0) {
+            // Every table is at distance 0, so every coordinate is solved
+            String[] sequence = new String[path.length];
+            for (int i = 0; i < sequence.length; i++)
+                sequence[i] = MOVE_NAMES[path[i]];
+            solutions.add(sequence);
+            return;
+        }
+
+        // Lets a prefetch be cancelled. Only checked near the root, where there are few nodes
+        if (depth >= 4 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+
+        int[] next = new int[values.length];
+        for (int move = 0; move < N_MOVES; move++) {
+            if (! isCanonical(lastFace, move))
+                continue;
+
+            for (int i = 0; i < values.length; i++)
+                next[i] = tables.moves[i].get(values[i], move);
+            path[path.length - depth] = move;
+            search(tables, next, depth - 1, path, move / 3, solutions, maxSolutions);
+            if (solutions.size() >= maxSolutions)
+                return;
+        }
+    }
+
+    private static class Tables {
+        PruningTable[] pruning;
+        MoveTable[]    moves;
+    }
+}
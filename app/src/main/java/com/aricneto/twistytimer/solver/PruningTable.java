@@ -0,0 +1,139 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The number of moves needed to solve a group of {@link PatternCoordinate}s together, for every
+ * combination of their values. Used by {@link PatternSolver} to prune the search.
+ *
+ * The table is built by {@link DistanceTable} from the solved values. Tables are shared by every
+ * solver that uses the same group of coordinates, and are only built once, or again after
+ * {@link SolverTables#release()}.
+ */
+public class PruningTable {
+
+    // 8 MB, more than enough for the tips
+    private static final int MAX_SIZE = 8 * 1024 * 1024;
+
+    private static final HashMap<String, PruningTable> sTables = new HashMap<>();
+
+    private final PatternCoordinate[] coordinates;
+    private final int[]               strides;
+    private final byte[]              distances;
+
+    private PruningTable(PatternCoordinate[] coordinates) {
+        this.coordinates = coordinates;
+
+        strides = new int[coordinates.length];
+        long size = 1;
+        for (int i = coordinates.length - 1; i >= 0; i--) {
+            strides[i] = (int) size;
+            size *= coordinates[i].getSize();
+        }
+        if (size > MAX_SIZE)
+            throw new IllegalArgumentException("Pruning table too large: " + size);
+
+        distances = build((int) size);
+    }
+
+    /**
+     * Returns the table for a group of coordinates, building it the first time.
+     */
+    public static PruningTable get(PatternCoordinate... coordinates) {
+        StringBuilder key = new StringBuilder();
+        for (PatternCoordinate coordinate : coordinates)
+            key.append(coordinate.getKey()).append(' ');
+
+        synchronized (sTables) {
+            PruningTable table = sTables.get(key.toString());
+            if (table == null) {
+                table = new PruningTable(coordinates.clone());
+                sTables.put(key.toString(), table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * The memory used by every table built so far, in bytes.
+     */
+    static long getResidentSize() {
+        long size = 0;
+        synchronized (sTables) {
+            for (PruningTable table : sTables.values())
+                size += table.distances.length;
+        }
+        return size;
+    }
+
+    /**
+     * Drops every table. They're built again when needed.
+     */
+    static void release() {
+        synchronized (sTables) {
+            sTables.clear();
+        }
+    }
+
+    public PatternCoordinate[] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * The index of a combination of values, one per coordinate of the group.
+     */
+    public int getIndex(int[] values) {
+        int index = 0;
+        for (int i = 0; i < values.length; i++)
+            index += values[i] * strides[i];
+        return index;
+    }
+
+    /**
+     * The index of the values of the group, picked out of a larger set of values.
+     *
+     * @param group Where each coordinate of the group is in values
+     */
+    public int getIndex(int[] values, int[] group) {
+        int index = 0;
+        for (int i = 0; i < group.length; i++)
+            index += values[group[i]] * strides[i];
+        return index;
+    }
+
+    /**
+     * The number of moves needed to solve the group, or -1 if the values can't happen.
+     */
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    private byte[] build(int size) {
+        final MoveTable[] moveTables = new MoveTable[coordinates.length];
+        final int[] sizes = new int[coordinates.length];
+        int[] solved = new int[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++) {
+            moveTables[i] = coordinates[i].getMoveTable();
+            sizes[i] = coordinates[i].getSize();
+            solved[i] = coordinates[i].getSolvedIndex();
+        }
+
+        return DistanceTable.build(size, new DistanceTable.Moves() {
+            @Override
+            public int getCount() {
+                return PatternSolver.N_MOVES;
+            }
+
+            @Override
+            public void getNext(int index, int[] next) {
+                Arrays.fill(next, 0);
+                for (int i = 0; i < moveTables.length; i++) {
+                    int value = (index / strides[i]) % sizes[i];
+                    for (int move = 0; move < PatternSolver.N_MOVES; move++)
+                        next[move] += moveTables[i].get(value, move) * strides[i];
+                }
+            }
+        }, getIndex(solved));
+    }
+}
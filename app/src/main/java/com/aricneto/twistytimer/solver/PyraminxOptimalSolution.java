@@ -0,0 +1,48 @@
+package com.aricneto.twistytimer.solver;
+
+public class PyraminxOptimalSolution implements Tip {
+    // Past this many, the others are counted instead of listed
+    private static final int MAX_SOLUTIONS = 12;
+
+    private String description;
+
+    public PyraminxOptimalSolution(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "PYRAMINX-OPTIMAL-SOLUTION";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "PYRAMINX";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return ("PYRAMINX-OPTIMAL-SOLUTION");
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        StringBuilder solutions = new StringBuilder();
+        int count = 0;
+        int length = 0;
+        for (int[] solution : PyraminxSolver.solve(scramble, Integer.MAX_VALUE)) {
+            length = solution.length;
+            if (count++ < MAX_SOLUTIONS)
+                solutions.append("  " + PyraminxSolver.NOTATION.toString(solution) + "\n");
+        }
+        if (count > MAX_SOLUTIONS)
+            solutions.append("  (+" + (count - MAX_SOLUTIONS) + ")\n");
+
+        return (description + " (" + length + "):\n" + solutions).trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
@@ -0,0 +1,190 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+
+/**
+ * Finds every optimal solution of a Pyraminx scramble, with an {@link OptimalSolver}.
+ *
+ * The tips turn on their own, so the table only covers the 6 edges (360 even permutations and 32
+ * orientations) and the 4 axial centers (81 orientations), 933,120 positions in all, which take
+ * 233,280 bytes. Each tip left twisted once the rest is solved takes one more move, written at
+ * the end as TNoodle does.
+ *
+ * Vertices, and their tips and centers, are numbered U L R B, as in the notation. Edges are
+ * numbered by the two vertices they join: UL, UR, UB, LR, LB, RB.
+ */
+public class PyraminxSolver {
+
+    /**
+     * The moves of TNoodle's scrambles. Each vertex turns clockwise (as seen from the vertex),
+     * then counter-clockwise, the layers first and the tips after.
+     */
+    public static final MoveNotation NOTATION = new MoveNotation(3, "U", "L", "R", "B", "u", "l", "r", "b");
+
+    private static final int N_VERTICES = 4;
+    private static final int N_EDGES    = 6;
+
+    // The layer moves, the first codes of NOTATION
+    private static final int N_MOVES = N_VERTICES * 2;
+
+    private static final int N_EDGE_STATES   = 360 * 32;
+    private static final int N_CENTER_STATES = 81;
+
+    private static final int SOLVED = 0;
+
+    // Changed whenever the table is laid out differently
+    private static final String FILE_NAME = "pyraminx-distances-1";
+
+    // For a clockwise turn of each vertex, the edge position each edge comes from, and whether
+    // it's flipped on the way. Each turn also adds one to the orientation of its center and tip
+    private static final byte[][] EDGES_PERMUTATION = {
+            { 1, 2, 0, 3, 4, 5 },
+            { 4, 1, 2, 0, 3, 5 },
+            { 0, 3, 2, 5, 4, 1 },
+            { 0, 1, 5, 3, 2, 4 },
+            };
+    private static final byte[][] EDGES_ORIENTATION = {
+            { 1, 1, 0, 0, 0, 0 },
+            { 0, 0, 0, 1, 1, 0 },
+            { 0, 1, 0, 1, 0, 0 },
+            { 0, 0, 0, 0, 1, 1 },
+            };
+
+    // tables, built by the first solve and dropped by release()
+    private static volatile OptimalSolver sSolver;
+
+    private PyraminxSolver() {
+    }
+
+    static OptimalSolver getSolver() {
+        // Two threads solving at once may both build it, which only wastes a little time
+        OptimalSolver solver = sSolver;
+        if (solver == null) {
+            solver = buildSolver();
+            sSolver = solver;
+        }
+        return solver;
+    }
+
+    private static OptimalSolver buildSolver() {
+        MoveTable edgesMove = new MoveTable(N_EDGE_STATES, N_MOVES);
+        for (int index = 0; index < N_EDGE_STATES; index++) {
+            for (int move = 0; move < N_MOVES; move++) {
+                State state = new State();
+                state.setEdges(index);
+                state.apply(move);
+                edgesMove.set(index, move, state.getEdges());
+            }
+        }
+
+        MoveTable centersMove = new MoveTable(N_CENTER_STATES, N_MOVES);
+        for (int index = 0; index < N_CENTER_STATES; index++) {
+            for (int move = 0; move < N_MOVES; move++) {
+                State state = new State();
+                state.setCenters(index);
+                state.apply(move);
+                centersMove.set(index, move, state.getCenters());
+            }
+        }
+
+        return new OptimalSolver(FILE_NAME, edgesMove, centersMove, 2, SOLVED);
+    }
+
+    /**
+     * The memory used by the tables, in bytes, or 0 if they aren't built.
+     */
+    static long getResidentSize() {
+        OptimalSolver solver = sSolver;
+        return solver == null ? 0 : solver.getResidentSize();
+    }
+
+    /**
+     * Drops the tables. The next solve reads them again, and a solve already running keeps them
+     * until it's done.
+     */
+    static void release() {
+        sSolver = null;
+    }
+
+    /**
+     * Returns every optimal solution of a scramble, as codes of {@link #NOTATION}: the same tip
+     * moves follow each solution of the rest of the puzzle.
+     *
+     * @param maxSolutions Stop after finding this many
+     * @throws IllegalArgumentException If a move of the scramble isn't a Pyraminx move
+     */
+    public static ArrayList<int[]> solve(String scramble, int maxSolutions) {
+        State state = new State();
+        for (int code : NOTATION.parse(scramble))
+            state.apply(code);
+
+        // A tip that's turned as far as its center goes with it
+        int[] tips = new int[N_VERTICES];
+        int nTips = 0;
+        for (int vertex = 0; vertex < N_VERTICES; vertex++) {
+            int twist = (state.tips[vertex] - state.centers[vertex] + 3) % 3;
+            if (twist != 0)
+                tips[nTips++] = N_MOVES + vertex * 2 + (twist == 1 ? 1 : 0);
+        }
+
+        OptimalSolver solver = getSolver();
+        ArrayList<int[]> solutions = solver.solve(solver.getIndex(state.getEdges(), state.getCenters()), maxSolutions);
+        for (int i = 0; i < solutions.size(); i++) {
+            int[] solution = new int[solutions.get(i).length + nTips];
+            System.arraycopy(solutions.get(i), 0, solution, 0, solutions.get(i).length);
+            System.arraycopy(tips, 0, solution, solutions.get(i).length, nTips);
+            solutions.set(i, solution);
+        }
+        return solutions;
+    }
+
+    /**
+     * Where every piece is: the edges as a permutation and orientations, the centers and tips
+     * as the number of clockwise turns they're away from solved.
+     */
+    private static class State {
+        final byte[] edgesPermutation = { 0, 1, 2, 3, 4, 5 };
+        final byte[] edgesOrientation = new byte[N_EDGES];
+        final byte[] centers          = new byte[N_VERTICES];
+        final byte[] tips             = new byte[N_VERTICES];
+
+        void apply(int code) {
+            int vertex = code / 2 % N_VERTICES;
+            boolean layer = code < N_MOVES;
+            // Counter-clockwise is two clockwise turns
+            for (int turn = code % 2; turn >= 0; turn--) {
+                if (layer) {
+                    byte[] permutation = edgesPermutation.clone();
+                    byte[] orientation = edgesOrientation.clone();
+                    for (int i = 0; i < N_EDGES; i++) {
+                        int source = EDGES_PERMUTATION[vertex][i];
+                        edgesPermutation[i] = permutation[source];
+                        edgesOrientation[i] = (byte) ((orientation[source] + EDGES_ORIENTATION[vertex][i]) % 2);
+                    }
+                    centers[vertex] = (byte) ((centers[vertex] + 1) % 3);
+                }
+                tips[vertex] = (byte) ((tips[vertex] + 1) % 3);
+            }
+        }
+
+        int getEdges() {
+            return IndexMapping.evenPermutationToIndex(edgesPermutation) * 32
+                    + IndexMapping.zeroSumOrientationToIndex(edgesOrientation, 2);
+        }
+
+        void setEdges(int index) {
+            System.arraycopy(IndexMapping.indexToEvenPermutation(index / 32, N_EDGES), 0,
+                    edgesPermutation, 0, N_EDGES);
+            System.arraycopy(IndexMapping.indexToZeroSumOrientation(index % 32, 2, N_EDGES), 0,
+                    edgesOrientation, 0, N_EDGES);
+        }
+
+        int getCenters() {
+            return IndexMapping.orientationToIndex(centers, 3);
+        }
+
+        void setCenters(int index) {
+            System.arraycopy(IndexMapping.indexToOrientation(index, 3, N_VERTICES), 0, centers, 0, N_VERTICES);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.aricneto.twistytimer.solver;
+
+/**
+ * The shortest 2x2x2 block, on any of the eight corners.
+ */
+public class RubiksCubeOptimalBlock implements Tip {
+    private static final int MAX_SOLUTIONS = 3;
+
+    // The DLB block. Rotating the cube gives the others. A single table over the four pieces,
+    // so the distance is exact
+    private static final PatternSolver solver = new PatternSolver(
+            new PatternCoordinate[] {
+                    PatternCoordinate.corners(4),
+                    PatternCoordinate.edges(11),
+                    PatternCoordinate.edges(8),
+                    PatternCoordinate.edges(0),
+                    },
+            new int[][] { { 0, 1, 2, 3 } });
+
+    private String description;
+
+    public RubiksCubeOptimalBlock(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "RUBIKS-CUBE-OPTIMAL-BLOCK";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "RUBIKS-CUBE";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return "RUBIKS-CUBE-OPTIMAL-BLOCK";
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        CubeState state = new CubeState();
+        state.apply(scramble);
+
+        StringBuilder tip = new StringBuilder();
+        tip.append(description + ":\n");
+        for (String solution : solver.solve(state, PatternSolver.D_AND_U_ROTATIONS, MAX_SOLUTIONS)) {
+            tip.append("  " + solution + "\n");
+        }
+
+        return tip.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
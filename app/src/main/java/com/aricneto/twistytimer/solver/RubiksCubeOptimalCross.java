@@ -3,28 +3,12 @@ package com.aricneto.twistytimer.solver;
 import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
 
 public class RubiksCubeOptimalCross implements Tip {
-    private static State x;
-    private static State z;
     private String description;
 
     public RubiksCubeOptimalCross(String description) {
         this.description = description;
     }
 
-    static {
-        x = new State(
-                new byte[] { 3, 2, 6, 7, 0, 1, 5, 4 },
-                new byte[] { 2, 1, 2, 1, 1, 2, 1, 2 },
-                new byte[] { 7, 5, 9, 11, 6, 2, 10, 3, 4, 1, 8, 0 },
-                new byte[] { 0, 0, 0,  0, 1, 0,  1, 0, 1, 0, 1, 0 });
-
-        z = new State(
-                new byte[] { 4, 0, 3, 7, 5, 1, 2, 6 },
-                new byte[] { 1, 2, 1, 2, 2, 1, 2, 1 },
-                new byte[] { 8, 4, 6, 10, 0, 7, 3, 11, 1, 5, 2, 9 },
-                new byte[] { 1, 1, 1,  1, 1, 1, 1, 1,  1, 1, 1, 1 });
-    }
-
     @Override
     public String getTipId() {
         return "RUBIKS-CUBE-OPTIMAL-CROSS";
@@ -43,84 +27,56 @@ public class RubiksCubeOptimalCross implements Tip {
     @Override
     public String getTip(String scramble) {
         int maxCount = 3;
-        State state = State.id.applySequence(scramble.split(" "));
+        CubeState state = new CubeState();
+        state.apply(scramble);
 
         StringBuilder tip = new StringBuilder();
 
         // cross on U
-        int count = 0; // limit number of algs
-        State stateU =
-                x.multiply(x).multiply(state).multiply(x).multiply(x);
+        State stateU = state.toState(CubeState.getRotation("x2"));
         tip.append(description + " U" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateU)) {
-            tip.append("  x2 " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateU, maxCount, 0)) {
+            tip.append("  x2 " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
         // cross on D
-        count = 0;
-        State stateD = state;
+        State stateD = state.toState();
         tip.append(description + " D" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateD)) {
-            tip.append("  " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateD, maxCount, 0)) {
+            tip.append("  " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
         // cross on L
-        count = 0;
-        State stateL =
-                z.multiply(state).multiply(z).multiply(z).multiply(z);
+        State stateL = state.toState(CubeState.getRotation("z'"));
         tip.append(description + " L" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateL)) {
-            tip.append("  z' " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateL, maxCount, 0)) {
+            tip.append("  z' " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
         // cross on R
-        count = 0;
-        State stateR =
-                z.multiply(z).multiply(z).multiply(state).multiply(z);
+        State stateR = state.toState(CubeState.getRotation("z"));
         tip.append(description + " R" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateR)) {
-            tip.append("  z " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateR, maxCount, 0)) {
+            tip.append("  z " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
         // cross on F
-        count = 0;
-        State stateF =
-                x.multiply(state).multiply(x).multiply(x).multiply(x);
+        State stateF = state.toState(CubeState.getRotation("x'"));
         tip.append(description + " F" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateF)) {
-            tip.append("  x' " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateF, maxCount, 0)) {
+            tip.append("  x' " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
         // cross on B
-        count = 0;
-        State stateB =
-                x.multiply(x).multiply(x).multiply(state).multiply(x);
+        State stateB = state.toState(CubeState.getRotation("x"));
         tip.append(description + " B" + ":\n");
-        for (String[] solution : RubiksCubeCrossSolver.solve(stateB)) {
-            tip.append("  x " + StringUtils.join(" ", solution) + "\n");
-            count++;
-            if (count == maxCount)
-                break;
+        for (int[] solution : RubiksCubeCrossSolver.solve(stateB, maxCount, 0)) {
+            tip.append("  x " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
         }
         tip.append("\n");
 
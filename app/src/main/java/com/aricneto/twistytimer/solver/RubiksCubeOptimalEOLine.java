@@ -0,0 +1,62 @@
+package com.aricneto.twistytimer.solver;
+
+/**
+ * The shortest EOLine (the first step of ZZ): every edge oriented, and DF and DB solved.
+ */
+public class RubiksCubeOptimalEOLine implements Tip {
+    private static final int MAX_SOLUTIONS = 3;
+
+    // The line along F and B, with the edges oriented for F and B turns. A y gives the other line
+    private static final int[] ROTATIONS = {
+            CubeState.getRotation(""), CubeState.getRotation("y"),
+            CubeState.getRotation("x2"), CubeState.getRotation("x2 y"),
+            };
+
+    // A single table over both coordinates, so the distance is exact
+    private static final PatternSolver solver = new PatternSolver(
+            new PatternCoordinate[] {
+                    PatternCoordinate.edgesOrientation(),
+                    PatternCoordinate.edgePositions(10, 8),
+                    },
+            new int[][] { { 0, 1 } });
+
+    private String description;
+
+    public RubiksCubeOptimalEOLine(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "RUBIKS-CUBE-OPTIMAL-EOLINE";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "RUBIKS-CUBE";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return "RUBIKS-CUBE-OPTIMAL-EOLINE";
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        CubeState state = new CubeState();
+        state.apply(scramble);
+
+        StringBuilder tip = new StringBuilder();
+        tip.append(description + ":\n");
+        for (String solution : solver.solve(state, ROTATIONS, MAX_SOLUTIONS)) {
+            tip.append("  " + solution + "\n");
+        }
+
+        return tip.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
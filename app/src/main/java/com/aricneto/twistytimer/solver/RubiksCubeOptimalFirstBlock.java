@@ -0,0 +1,59 @@
+package com.aricneto.twistytimer.solver;
+
+/**
+ * The shortest Roux first block: the 1x2x3 block on the left, with U or D at the bottom.
+ */
+public class RubiksCubeOptimalFirstBlock implements Tip {
+    private static final int MAX_SOLUTIONS = 3;
+
+    // DLB, DFL, DL, FL and BL. Rotating the cube gives the other blocks. The five pieces together
+    // are too many for one table, so there are three tables of four pieces
+    private static final PatternSolver solver = new PatternSolver(
+            new PatternCoordinate[] {
+                    PatternCoordinate.corners(4, 7),
+                    PatternCoordinate.edges(11),
+                    PatternCoordinate.edges(3),
+                    PatternCoordinate.edges(0),
+                    },
+            new int[][] { { 0, 1, 2 }, { 0, 1, 3 }, { 0, 2, 3 } });
+
+    private String description;
+
+    public RubiksCubeOptimalFirstBlock(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "RUBIKS-CUBE-OPTIMAL-FIRST-BLOCK";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "RUBIKS-CUBE";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return "RUBIKS-CUBE-OPTIMAL-FIRST-BLOCK";
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        CubeState state = new CubeState();
+        state.apply(scramble);
+
+        StringBuilder tip = new StringBuilder();
+        tip.append(description + ":\n");
+        for (String solution : solver.solve(state, PatternSolver.D_AND_U_ROTATIONS, MAX_SOLUTIONS)) {
+            tip.append("  " + solution + "\n");
+        }
+
+        return tip.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
@@ -0,0 +1,92 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+
+/**
+ * The shortest first F2L pair after an optimal cross on D, into any of the four slots.
+ */
+public class RubiksCubeOptimalPair implements Tip {
+    private static final int MAX_CROSSES   = 3;
+    private static final int MAX_SOLUTIONS = 2;
+
+    // No pair takes more moves than this
+    private static final int MAX_DEPTH = 14;
+
+    // The DLB corner and the BL edge, without breaking the cross. Rotating the cube gives the
+    // other slots. One table for the cross and one for the pair and the two cross edges next to it
+    private static final PatternSolver solver = new PatternSolver(
+            new PatternCoordinate[] {
+                    PatternCoordinate.edges(8),
+                    PatternCoordinate.edges(9),
+                    PatternCoordinate.edges(10),
+                    PatternCoordinate.edges(11),
+                    PatternCoordinate.corners(4),
+                    PatternCoordinate.edges(0),
+                    },
+            new int[][] { { 0, 1, 2, 3 }, { 4, 5, 3, 0 } });
+
+    private String description;
+
+    public RubiksCubeOptimalPair(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "RUBIKS-CUBE-OPTIMAL-PAIR";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "RUBIKS-CUBE";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return "RUBIKS-CUBE-OPTIMAL-PAIR";
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        CubeState state = new CubeState();
+        state.apply(scramble);
+
+        // The cube after each cross, seen from each slot
+        ArrayList<String> crosses = new ArrayList<String>();
+        ArrayList<CubeState> rotated = new ArrayList<CubeState>();
+        for (int[] cross : RubiksCubeCrossSolver.solve(state.toState(), MAX_CROSSES, 0)) {
+            crosses.add(StringUtils.join(" ", PatternSolver.getMoveNames(cross)));
+            for (int rotation : PatternSolver.Y_ROTATIONS) {
+                CubeState slot = new CubeState();
+                slot.set(state);
+                slot.apply(crosses.get(crosses.size() - 1));
+                slot.rotate(rotation);
+                rotated.add(slot);
+            }
+        }
+
+        StringBuilder tip = new StringBuilder();
+        tip.append(description + ":\n");
+
+        // Every cross and slot at each length, so only the shortest pairs are searched to the end
+        int count = 0;
+        for (int depth = 0; depth <= MAX_DEPTH && count == 0; depth++) {
+            for (int i = 0; i < rotated.size() && count < MAX_SOLUTIONS; i++) {
+                for (String[] pair : solver.solve(rotated.get(i), depth, MAX_SOLUTIONS - count)) {
+                    tip.append(String.format("  %s\n    %s%s\n",
+                            crosses.get(i / PatternSolver.Y_ROTATIONS.length),
+                            PatternSolver.getPrefix(PatternSolver.Y_ROTATIONS[i % PatternSolver.Y_ROTATIONS.length]),
+                            StringUtils.join(" ", pair)));
+                    count++;
+                }
+            }
+        }
+
+        return tip.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
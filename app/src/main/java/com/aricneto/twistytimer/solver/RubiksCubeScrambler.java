@@ -0,0 +1,92 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.Random;
+
+/**
+ * Random-state 3x3 scrambles, as the WCA asks for them: a position picked uniformly among all the
+ * positions of the cube, and the inverse of a two-phase solution of it from
+ * {@link RubiksCubeSolver#generate(State, int)}.
+ *
+ * It needs none of the tables of TNoodle's 3x3, only those of {@link RubiksCubeSolver}, which are
+ * built by the first scramble.
+ */
+public class RubiksCubeScrambler {
+
+    /**
+     * The longest scramble by default, the same as TNoodle's.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 21;
+
+    /**
+     * The shortest maximum length. At 20 moves the search can take seconds, and no shorter one is
+     * found for every position.
+     */
+    public static final int MIN_MAX_LENGTH = 21;
+
+    // Positions this close to solved aren't scrambles
+    private static final int MIN_LENGTH = 2;
+
+    private final Random random;
+    private final int    maxLength;
+
+    /**
+     * @param maxLength The longest scramble, at least {@link #MIN_MAX_LENGTH}
+     */
+    public RubiksCubeScrambler(Random random, int maxLength) {
+        if (maxLength < MIN_MAX_LENGTH)
+            throw new IllegalArgumentException("Scrambles can't be limited to " + maxLength + " moves");
+        this.random = random;
+        this.maxLength = maxLength;
+    }
+
+    public RubiksCubeScrambler() {
+        this(new Random(), DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Returns a position picked uniformly among all the positions of the cube.
+     */
+    public State generateState() {
+        byte[] cornersPermutation = IndexMapping.indexToPermutation(
+                random.nextInt(RubiksCubeSolver.N_CORNERS_PERMUTATIONS), 8);
+        byte[] cornersOrientation = IndexMapping.indexToZeroSumOrientation(
+                random.nextInt(RubiksCubeSolver.N_CORNERS_ORIENTATIONS), 3, 8);
+        byte[] edgesPermutation = IndexMapping.indexToEvenPermutation(
+                random.nextInt(RubiksCubeSolver.N_EDGES_PERMUTATIONS / 2), 12);
+        byte[] edgesOrientation = IndexMapping.indexToZeroSumOrientation(
+                random.nextInt(RubiksCubeSolver.N_EDGES_ORIENTATIONS), 2, 12);
+
+        // The edges are swapped an odd number of times whenever the corners are
+        if (! isEven(cornersPermutation)) {
+            byte swap = edgesPermutation[10];
+            edgesPermutation[10] = edgesPermutation[11];
+            edgesPermutation[11] = swap;
+        }
+
+        return new State(cornersPermutation, cornersOrientation, edgesPermutation, edgesOrientation);
+    }
+
+    /**
+     * Returns the moves of a scramble leading to a random position, separated by spaces.
+     */
+    public String generateScramble() {
+        while (true) {
+            String[] scramble = RubiksCubeSolver.generate(generateState(), maxLength);
+            if (scramble != null && scramble.length >= MIN_LENGTH)
+                return StringUtils.join(" ", scramble);
+        }
+    }
+
+    private static boolean isEven(byte[] permutation) {
+        int inversions = 0;
+        for (int i = 0; i < permutation.length; i++) {
+            for (int j = i + 1; j < permutation.length; j++) {
+                if (permutation[i] > permutation[j])
+                    inversions++;
+            }
+        }
+        return inversions % 2 == 0;
+    }
+}
@@ -4,7 +4,7 @@ package com.aricneto.twistytimer.solver;
 // references: http://kociemba.org/cube.htm
 //             http://www.jaapsch.net/puzzles/compcube.htm
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class RubiksCubeSolver {
@@ -44,12 +44,23 @@ public class RubiksCubeSolver {
         }
 
         public State applySequence(String[] sequence) {
-            State state = this;
+            CubeState state = new CubeState(this);
             for (String move : sequence) {
-                state = state.multiply(moves.get(move));
+                state.apply(MoveSequence.parse(move, 0, move.length()));
             }
 
-            return state;
+            return state.toState();
+        }
+
+        /**
+         * Applies a sequence of moves separated by spaces. It can have wide moves, slice moves and
+         * rotations, see {@link CubeState}.
+         */
+        public State applySequence(CharSequence sequence) {
+            CubeState state = new CubeState(this);
+            state.apply(sequence);
+
+            return state.toState();
         }
 
         public static HashMap<String, State> moves;
@@ -112,6 +123,13 @@ public class RubiksCubeSolver {
     private static State[]  moves2;
     private static int[]    sides2;
     private static int[]    axes2;
+    // whether each phase 1 move is also a phase 2 move, and the phase 1 move of each phase 2 move
+    private static boolean[] isPhase2Move;
+    private static int[]     phase1Moves2;
+    // the cube turned so that each axis is the U-D axis, and the moves seen that way
+    private static State[]   axisRotations;
+    private static int[][]   axisMoves;
+    private static HashMap<String, String> inverseMoveNames;
 
     static {
         // phase 1
@@ -179,37 +197,128 @@ public class RubiksCubeSolver {
                 2,
                 2,
                 };
+
+        isPhase2Move = new boolean[moves1.length];
+        phase1Moves2 = new int[moves2.length];
+        for (int i = 0; i < moves1.length; i++) {
+            for (int j = 0; j < moves2.length; j++) {
+                if (moveNames1[i].equals(moveNames2[j])) {
+                    isPhase2Move[i] = true;
+                    phase1Moves2[j] = i;
+                }
+            }
+        }
+
+        axisRotations = new State[] { State.id, CubeState.Z, CubeState.X };
+        axisMoves = new int[axisRotations.length][moves1.length];
+        for (int i = 0; i < axisRotations.length; i++) {
+            State rotation = axisRotations[i];
+            for (int j = 0; j < moves1.length; j++) {
+                State move = rotation.multiply(moves1[j]).multiply(CubeState.inverse(rotation));
+                axisMoves[i][j] = - 1;
+                for (int k = 0; k < moves1.length; k++) {
+                    if (Arrays.equals(move.cornersPermutation, moves1[k].cornersPermutation)
+                            && Arrays.equals(move.cornersOrientation, moves1[k].cornersOrientation)
+                            && Arrays.equals(move.edgesPermutation, moves1[k].edgesPermutation)
+                            && Arrays.equals(move.edgesOrientation, moves1[k].edgesOrientation)) {
+                        axisMoves[i][j] = k;
+                    }
+                }
+            }
+        }
+
+        inverseMoveNames = new HashMap<String, String>();
+        inverseMoveNames.put("U", "U'");
+        inverseMoveNames.put("U2", "U2");
+        inverseMoveNames.put("U'", "U");
+        inverseMoveNames.put("D", "D'");
+        inverseMoveNames.put("D2", "D2");
+        inverseMoveNames.put("D'", "D");
+        inverseMoveNames.put("L", "L'");
+        inverseMoveNames.put("L2", "L2");
+        inverseMoveNames.put("L'", "L");
+        inverseMoveNames.put("R", "R'");
+        inverseMoveNames.put("R2", "R2");
+        inverseMoveNames.put("R'", "R");
+        inverseMoveNames.put("F", "F'");
+        inverseMoveNames.put("F2", "F2");
+        inverseMoveNames.put("F'", "F");
+        inverseMoveNames.put("B", "B'");
+        inverseMoveNames.put("B2", "B2");
+        inverseMoveNames.put("B'", "B");
+    }
+
+    // Changed whenever a distance table is laid out differently
+    private static final String CORNERS_ORIENTATION_FILE_NAME   = "333-corners-orientation-distances-1";
+    private static final String EDGES_ORIENTATION_FILE_NAME     = "333-edges-orientation-distances-1";
+    private static final String ORIENTATIONS_FILE_NAME          = "333-orientations-distances-1";
+    private static final String CORNERS_PERMUTATION_FILE_NAME   = "333-corners-permutation-distances-1";
+    private static final String U_D_EDGES_PERMUTATION_FILE_NAME = "333-u-d-edges-permutation-distances-1";
+
+    // tables, built by the first solve and dropped by release()
+    private static volatile Tables sTables;
+
+    private static class Tables {
+        MoveTable cornersOrientationMove;
+        MoveTable edgesOrientationMove;
+        MoveTable eEdgesCombinationMove;
+        MoveTable cornersPermutationMove;
+        MoveTable uDEdgesPermutationMove;
+        MoveTable eEdgesPermutationMove;
+
+        // 2 bits per position, read from disk after the first build: the search keeps the exact
+        // distances as it goes
+        OptimalSolver cornersOrientationDistance;
+        OptimalSolver edgesOrientationDistance;
+        // both orientations together, which prune phase 1 much better than either with the e edges
+        OptimalSolver orientationsDistance;
+        OptimalSolver cornersPermutationDistance;
+        OptimalSolver uDEdgesPermutationDistance;
+
+        long getResidentSize() {
+            return cornersOrientationMove.getResidentSize() + edgesOrientationMove.getResidentSize()
+                    + eEdgesCombinationMove.getResidentSize() + cornersPermutationMove.getResidentSize()
+                    + uDEdgesPermutationMove.getResidentSize() + eEdgesPermutationMove.getResidentSize()
+                    + cornersOrientationDistance.getDistancesSize() + edgesOrientationDistance.getDistancesSize()
+                    + orientationsDistance.getDistancesSize()
+                    + cornersPermutationDistance.getDistancesSize() + uDEdgesPermutationDistance.getDistancesSize();
+        }
     }
 
-    // move tables
-    private static int[][] cornersOrientationMove;
-    private static int[][] edgesOrientationMove;
-    private static int[][] eEdgesCombinationMove;
-    private static int[][] cornersPermutationMove;
-    private static int[][] uDEdgesPermutationMove;
-    private static int[][] eEdgesPermutationMove;
+    private static Tables getTables() {
+        // Two threads solving at once may both build them, which only wastes a little time
+        Tables tables = sTables;
+        if (tables == null) {
+            tables = buildTables();
+            sTables = tables;
+        }
+        return tables;
+    }
 
-    static {
+    private static Tables buildTables() {
+        Tables tables = new Tables();
+
+        // move tables
         // phase 1
-        cornersOrientationMove = new int[N_CORNERS_ORIENTATIONS][moves1.length];
+        tables.cornersOrientationMove = new MoveTable(N_CORNERS_ORIENTATIONS, moves1.length);
         for (int i = 0; i < N_CORNERS_ORIENTATIONS; i++) {
             State state = new State(new byte[8], IndexMapping.indexToZeroSumOrientation(i, 3, 8), new byte[12], new byte[12]);
             for (int j = 0; j < moves1.length; j++) {
-                cornersOrientationMove[i][j] = IndexMapping.zeroSumOrientationToIndex(state.multiply(moves1[j]).cornersOrientation, 3);
+                tables.cornersOrientationMove.set(i, j, IndexMapping.zeroSumOrientationToIndex(state.multiply(moves1[j]).cornersOrientation, 3));
             }
         }
 
 
-        edgesOrientationMove = new int[N_EDGES_ORIENTATIONS][moves1.length];
+        tables.edgesOrientationMove = new MoveTable(N_EDGES_ORIENTATIONS, moves1.length);
         for (int i = 0; i < N_EDGES_ORIENTATIONS; i++) {
             State state = new State(new byte[8], new byte[8], new byte[12], IndexMapping.indexToZeroSumOrientation(i, 2, 12));
             for (int j = 0; j < moves1.length; j++) {
-                edgesOrientationMove[i][j] = IndexMapping.zeroSumOrientationToIndex(state.multiply(moves1[j]).edgesOrientation, 2);
+                tables.edgesOrientationMove.set(i, j, IndexMapping.zeroSumOrientationToIndex(state.multiply(moves1[j]).edgesOrientation, 2));
             }
         }
 
 
-        eEdgesCombinationMove = new int[N_E_EDGES_COMBINATIONS][moves1.length];
+        tables.eEdgesCombinationMove = new MoveTable(N_E_EDGES_COMBINATIONS, moves1.length);
         for (int i = 0; i < N_E_EDGES_COMBINATIONS; i++) {
             boolean[] combination = IndexMapping.indexToCombination(i, 4, 12);
 
@@ -234,45 +343,48 @@ public class RubiksCubeSolver {
                     isEEdge[k] = result.edgesPermutation[k] < 4;
                 }
 
-                eEdgesCombinationMove[i][j] = IndexMapping.combinationToIndex(isEEdge, 4);
+                tables.eEdgesCombinationMove.set(i, j, IndexMapping.combinationToIndex(isEEdge, 4));
             }
         }
 
 
         // phase 2
-        cornersPermutationMove = new int[N_CORNERS_PERMUTATIONS][moves2.length];
+        // the permutations are moved in place, as State.multiply() would, without a new state for
+        // each of the 403,200 entries
+        tables.cornersPermutationMove = new MoveTable(N_CORNERS_PERMUTATIONS, moves2.length);
+        byte[] cornersPermutation = new byte[8];
         for (int i = 0; i < N_CORNERS_PERMUTATIONS; i++) {
-            State state = new State(IndexMapping.indexToPermutation(i, 8), new byte[8], new byte[12], new byte[12]);
+            byte[] permutation = IndexMapping.indexToPermutation(i, 8);
             for (int j = 0; j < moves2.length; j++) {
-                cornersPermutationMove[i][j] = IndexMapping.permutationToIndex(state.multiply(moves2[j]).cornersPermutation);
+                for (int k = 0; k < cornersPermutation.length; k++) {
+                    cornersPermutation[k] = permutation[moves2[j].cornersPermutation[k]];
+                }
+                tables.cornersPermutationMove.set(i, j, IndexMapping.permutationToIndex(cornersPermutation));
             }
         }
 
 
-        uDEdgesPermutationMove = new int[N_U_D_EDGES_PERMUTATIONS][moves2.length];
+        tables.uDEdgesPermutationMove = new MoveTable(N_U_D_EDGES_PERMUTATIONS, moves2.length);
+        byte[] uDEdges = new byte[8];
         for (int i = 0; i < N_U_D_EDGES_PERMUTATIONS; i++) {
             byte[] permutation = IndexMapping.indexToPermutation(i, 8);
 
             byte[] edges = new byte[12];
             for (int j = 0; j < edges.length; j++) {
-                edges[j] = j >= 4 ? permutation[j - 4] : (byte) j;
+                edges[j] = j >= 4 ? (byte) (permutation[j - 4] + 4) : (byte) j;
             }
 
-            State state = new State(new byte[8], new byte[8], edges, new byte[12]);
             for (int j = 0; j < moves2.length; j++) {
-                State result = state.multiply(moves2[j]);
-
-                byte[] uDEdges = new byte[8];
                 for (int k = 0; k < uDEdges.length; k++) {
-                    uDEdges[k] = (byte) (result.edgesPermutation[k + 4] - 4);
+                    uDEdges[k] = (byte) (edges[moves2[j].edgesPermutation[k + 4]] - 4);
                 }
 
-                uDEdgesPermutationMove[i][j] = IndexMapping.permutationToIndex(uDEdges);
+                tables.uDEdgesPermutationMove.set(i, j, IndexMapping.permutationToIndex(uDEdges));
             }
         }
 
 
-        eEdgesPermutationMove = new int[N_E_EDGES_PERMUTATIONS][moves2.length];
+        tables.eEdgesPermutationMove = new MoveTable(N_E_EDGES_PERMUTATIONS, moves2.length);
         for (int i = 0; i < N_E_EDGES_PERMUTATIONS; i++) {
             byte[] permutation = IndexMapping.indexToPermutation(i, 4);
 
@@ -290,286 +402,260 @@ public class RubiksCubeSolver {
                     eEdges[k] = result.edgesPermutation[k];
                 }
 
-                eEdgesPermutationMove[i][j] = IndexMapping.permutationToIndex(eEdges);
+                tables.eEdgesPermutationMove.set(i, j, IndexMapping.permutationToIndex(eEdges));
             }
         }
-    }
-
-    // prune tables
-    private static byte[][] cornersOrientationDistance;
-    private static byte[][] edgesOrientationDistance;
-    private static byte[][] cornersPermutationDistance;
-    private static byte[][] uDEdgesPermutationDistance;
 
-    static {
+        // prune tables
         // phase 1
-        cornersOrientationDistance = new byte[N_CORNERS_ORIENTATIONS][N_E_EDGES_COMBINATIONS];
-        for (int i = 0; i < cornersOrientationDistance.length; i++) {
-            for (int j = 0; j < cornersOrientationDistance[i].length; j++) {
-                cornersOrientationDistance[i][j] = - 1;
-            }
-        }
-        cornersOrientationDistance[0][0] = 0;
-
-        int distance = 0;
-        int nVisited = 1;
-        while (nVisited < N_CORNERS_ORIENTATIONS * N_E_EDGES_COMBINATIONS) {
-            for (int i = 0; i < N_CORNERS_ORIENTATIONS; i++) {
-                for (int j = 0; j < N_E_EDGES_COMBINATIONS; j++) {
-                    if (cornersOrientationDistance[i][j] == distance) {
-                        for (int k = 0; k < moves1.length; k++) {
-                            int nextCornersOrientation = cornersOrientationMove[i][k];
-                            int nextEEdgesCombination = eEdgesCombinationMove[j][k];
-                            if (cornersOrientationDistance[nextCornersOrientation][nextEEdgesCombination] < 0) {
-                                cornersOrientationDistance[nextCornersOrientation][nextEEdgesCombination] = (byte) (distance + 1);
-                                nVisited++;
-                            }
-                        }
-                    }
-                }
-            }
-            distance++;
-        }
-
-
-        edgesOrientationDistance = new byte[N_EDGES_ORIENTATIONS][N_E_EDGES_COMBINATIONS];
-        for (int i = 0; i < edgesOrientationDistance.length; i++) {
-            for (int j = 0; j < edgesOrientationDistance[i].length; j++) {
-                edgesOrientationDistance[i][j] = - 1;
-            }
-        }
-        edgesOrientationDistance[0][0] = 0;
-
-        distance = 0;
-        nVisited = 1;
-        while (nVisited < N_EDGES_ORIENTATIONS * N_E_EDGES_COMBINATIONS) {
-            for (int i = 0; i < N_EDGES_ORIENTATIONS; i++) {
-                for (int j = 0; j < N_E_EDGES_COMBINATIONS; j++) {
-                    if (edgesOrientationDistance[i][j] == distance) {
-                        for (int k = 0; k < moves1.length; k++) {
-                            int nextEdgesOrientation = edgesOrientationMove[i][k];
-                            int nextEEdgesCombination = eEdgesCombinationMove[j][k];
-                            if (edgesOrientationDistance[nextEdgesOrientation][nextEEdgesCombination] < 0) {
-                                edgesOrientationDistance[nextEdgesOrientation][nextEEdgesCombination] = (byte) (distance + 1);
-                                nVisited++;
-                            }
-                        }
-                    }
-                }
-            }
-            distance++;
-        }
-
-
-        // phase 2
-        cornersPermutationDistance = new byte[N_CORNERS_PERMUTATIONS][N_E_EDGES_PERMUTATIONS];
-        for (int i = 0; i < cornersPermutationDistance.length; i++) {
-            for (int j = 0; j < cornersPermutationDistance[i].length; j++) {
-                cornersPermutationDistance[i][j] = - 1;
-            }
-        }
-        cornersPermutationDistance[0][0] = 0;
-
-        distance = 0;
-        nVisited = 1;
-        while (nVisited < N_CORNERS_PERMUTATIONS * N_E_EDGES_PERMUTATIONS) {
-            for (int i = 0; i < N_CORNERS_PERMUTATIONS; i++) {
-                for (int j = 0; j < N_E_EDGES_PERMUTATIONS; j++) {
-                    if (cornersPermutationDistance[i][j] == distance) {
-                        for (int k = 0; k < moves2.length; k++) {
-                            int nextCornersPermutation = cornersPermutationMove[i][k];
-                            int nextEEdgesPermutation = eEdgesPermutationMove[j][k];
-                            if (cornersPermutationDistance[nextCornersPermutation][nextEEdgesPermutation] < 0) {
-                                cornersPermutationDistance[nextCornersPermutation][nextEEdgesPermutation] = (byte) (distance + 1);
-                                nVisited++;
-                            }
-                        }
-                    }
-                }
-            }
-            distance++;
-        }
+        tables.cornersOrientationDistance = new OptimalSolver(CORNERS_ORIENTATION_FILE_NAME,
+                tables.cornersOrientationMove, tables.eEdgesCombinationMove, 3, 0);
+        tables.edgesOrientationDistance = new OptimalSolver(EDGES_ORIENTATION_FILE_NAME,
+                tables.edgesOrientationMove, tables.eEdgesCombinationMove, 3, 0);
+        tables.orientationsDistance = new OptimalSolver(ORIENTATIONS_FILE_NAME,
+                tables.cornersOrientationMove, tables.edgesOrientationMove, 3, 0);
+
+        // phase 2, whose moves aren't 3 per face, but these are never solved with
+        tables.cornersPermutationDistance = new OptimalSolver(CORNERS_PERMUTATION_FILE_NAME,
+                tables.cornersPermutationMove, tables.eEdgesPermutationMove, 1, 0);
+        tables.uDEdgesPermutationDistance = new OptimalSolver(U_D_EDGES_PERMUTATION_FILE_NAME,
+                tables.uDEdgesPermutationMove, tables.eEdgesPermutationMove, 1, 0);
+
+        return tables;
+    }
 
+    /**
+     * The memory used by the tables, in bytes, or 0 if they aren't built.
+     */
+    static long getResidentSize() {
+        Tables tables = sTables;
+        return tables == null ? 0 : tables.getResidentSize();
+    }
 
-        uDEdgesPermutationDistance = new byte[N_U_D_EDGES_PERMUTATIONS][N_E_EDGES_PERMUTATIONS];
-        for (int i = 0; i < uDEdgesPermutationDistance.length; i++) {
-            for (int j = 0; j < uDEdgesPermutationDistance[i].length; j++) {
-                uDEdgesPermutationDistance[i][j] = - 1;
-            }
-        }
-        uDEdgesPermutationDistance[0][0] = 0;
-
-        distance = 0;
-        nVisited = 1;
-        while (nVisited < N_U_D_EDGES_PERMUTATIONS * N_E_EDGES_PERMUTATIONS) {
-            for (int i = 0; i < N_U_D_EDGES_PERMUTATIONS; i++) {
-                for (int j = 0; j < N_E_EDGES_PERMUTATIONS; j++) {
-                    if (uDEdgesPermutationDistance[i][j] == distance) {
-                        for (int k = 0; k < moves2.length; k++) {
-                            int nextUDEdgesPermutation = uDEdgesPermutationMove[i][k];
-                            int nextEEdgesPermutation = eEdgesPermutationMove[j][k];
-                            if (uDEdgesPermutationDistance[nextUDEdgesPermutation][nextEEdgesPermutation] < 0) {
-                                uDEdgesPermutationDistance[nextUDEdgesPermutation][nextEEdgesPermutation] = (byte) (distance + 1);
-                                nVisited++;
-                            }
-                        }
-                    }
-                }
-            }
-            distance++;
-        }
+    /**
+     * Drops the tables. The next solve reads or builds them again, and a solve already running
+     * keeps them until it's done.
+     */
+    static void release() {
+        sTables = null;
     }
 
     // search
-    private static int MAX_SOLUTION_LENGTH         = 23;
-    private static int MAX_PHASE_2_SOLUTION_LENGTH = 12;
-
-    private static State              initialState;
-    private static ArrayList<Integer> solution1;
-    private static ArrayList<Integer> solution2;
-
-    private static String[] solution(State state) {
-        initialState = state;
-
-        // corners orientation index
-        int cornersOrientation = IndexMapping.zeroSumOrientationToIndex(state.cornersOrientation, 3);
+    /**
+     * The longest scramble {@link #generate(State)} returns, long enough for the search to always
+     * find one fast.
+     */
+    public static final int MAX_SOLUTION_LENGTH = 23;
+
+    // Past this, another phase 1 solution is tried instead
+    private static final int MAX_PHASE_2_SOLUTION_LENGTH = 12;
+
+    /**
+     * The search for a solution of one state, so that several threads can search at once.
+     */
+    private static class Search {
+        final Tables tables;
+        final int    maxLength;
+        final State  initialState;
+
+        final int cornersOrientation;
+        final int edgesOrientation;
+        final int eEdgesCombination;
+        final int cornersOrientationDistance;
+        final int edgesOrientationDistance;
+        final int orientationsDistance;
+        // no phase 1 solution is shorter than this
+        final int minDepth;
+
+        int[] solution1;
+        int   length1;
+        int[] solution2;
+        int   length2;
+
+        Search(Tables tables, State state, int maxLength) {
+            this.tables = tables;
+            this.maxLength = maxLength;
+            initialState = state;
+            solution1 = new int[maxLength];
+            solution2 = new int[maxLength];
+
+            // corners orientation index
+            cornersOrientation = IndexMapping.zeroSumOrientationToIndex(state.cornersOrientation, 3);
+
+            // edges orientation index
+            edgesOrientation = IndexMapping.zeroSumOrientationToIndex(state.edgesOrientation, 2);
+
+            // e edges combination index
+            boolean[] isEEdge = new boolean[12];
+            for (int i = 0; i < isEEdge.length; i++) {
+                isEEdge[i] = state.edgesPermutation[i] < 4;
+            }
+            eEdgesCombination = IndexMapping.combinationToIndex(isEEdge, 4);
 
-        // edges orientation index
-        int edgesOrientation = IndexMapping.zeroSumOrientationToIndex(state.edgesOrientation, 2);
+            cornersOrientationDistance = tables.cornersOrientationDistance.getDistance(
+                    tables.cornersOrientationDistance.getIndex(cornersOrientation, eEdgesCombination));
+            edgesOrientationDistance = tables.edgesOrientationDistance.getDistance(
+                    tables.edgesOrientationDistance.getIndex(edgesOrientation, eEdgesCombination));
+            orientationsDistance = tables.orientationsDistance.getDistance(
+                    tables.orientationsDistance.getIndex(cornersOrientation, edgesOrientation));
 
-        // e edges combination index
-        boolean[] isEEdge = new boolean[12];
-        for (int i = 0; i < isEEdge.length; i++) {
-            isEEdge[i] = state.edgesPermutation[i] < 4;
+            minDepth = Math.max(orientationsDistance, Math.max(cornersOrientationDistance, edgesOrientationDistance));
         }
-        int eEdgesCombination = IndexMapping.combinationToIndex(isEEdge, 4);
-
-        for (int depth = 0; ; depth++) {
-            solution1 = new ArrayList<Integer>(MAX_SOLUTION_LENGTH);
-            if (search1(cornersOrientation, edgesOrientation, eEdgesCombination, depth)) {
-                ArrayList<String> sequence = new ArrayList<String>();
-                for (int moveIndex : solution1) {
-                    sequence.add(moveNames1[moveIndex]);
-                }
-                for (int moveIndex : solution2) {
-                    sequence.add(moveNames2[moveIndex]);
-                }
 
-                String[] sequenceArray = new String[sequence.size()];
-                sequence.toArray(sequenceArray);
-
-                return sequenceArray;
+        /**
+         * Looks for a solution of at most maxLength moves whose phase 1 takes exactly depth moves.
+         */
+        boolean search(int depth) {
+            if (depth < minDepth) {
+                return false;
             }
-        }
-    }
+            length1 = 0;
+            return search1(cornersOrientation, edgesOrientation, eEdgesCombination,
+                    cornersOrientationDistance, edgesOrientationDistance, orientationsDistance, depth);
+        }
+
+        /**
+         * The solution found by the last successful search, as indices into the phase 1 moves.
+         */
+        int[] getSolution() {
+            int[] solution = new int[length1 + length2];
+            System.arraycopy(solution1, 0, solution, 0, length1);
+            for (int i = 0; i < length2; i++) {
+                solution[length1 + i] = phase1Moves2[solution2[i]];
+            }
+            return solution;
+        }
+
+        // the distances are at most depth: the caller only goes on with the positions where they are
+        private boolean search1(int cornersOrientation, int edgesOrientation, int eEdgesCombinations,
+                                int cornersOrientationDistance, int edgesOrientationDistance,
+                                int orientationsDistance, int depth) {
+            if (depth == 0) {
+                if (cornersOrientation == 0 && edgesOrientation == 0 && eEdgesCombinations == 0) {
+                    State state = initialState;
+                    for (int i = 0; i < length1; i++) {
+                        state = state.multiply(moves1[solution1[i]]);
+                    }
 
-    private static boolean search1(int cornersOrientation, int edgesOrientation, int eEdgesCombinations, int depth) {
-        if (depth == 0) {
-            if (cornersOrientation == 0 && edgesOrientation == 0 && eEdgesCombinations == 0) {
-                State state = initialState;
-                for (int moveIndex : solution1) {
-                    state = state.multiply(moves1[moveIndex]);
+                    return solution2(state, maxLength - length1);
                 }
 
-                return solution2(state, MAX_SOLUTION_LENGTH - solution1.size());
+                return false;
             }
 
-            return false;
-        }
-
-        if (cornersOrientationDistance[cornersOrientation][eEdgesCombinations] <= depth &&
-                edgesOrientationDistance[edgesOrientation][eEdgesCombinations] <= depth) {
-            int[] lastMoves = { - 1, - 1 };
-            for (int i = 0; i < lastMoves.length && i < solution1.size(); i++) {
-                lastMoves[i] = solution1.get(solution1.size() - 1 - i);
-            }
+            int lastMove = length1 > 0 ? solution1[length1 - 1] : - 1;
+            int lastButOneMove = length1 > 1 ? solution1[length1 - 2] : - 1;
 
             for (int i = 0; i < moves1.length; i++) {
                 // same side
-                if (lastMoves[0] >= 0 && sides1[i] == sides1[lastMoves[0]]) {
+                if (lastMove >= 0 && sides1[i] == sides1[lastMove]) {
                     continue;
                 }
 
                 // same axis three times in a row
-                if (lastMoves[0] >= 0 && axes1[i] == axes1[lastMoves[0]] &&
-                        lastMoves[1] >= 0 && axes1[i] == axes1[lastMoves[1]]) {
+                if (lastMove >= 0 && axes1[i] == axes1[lastMove] &&
+                        lastButOneMove >= 0 && axes1[i] == axes1[lastButOneMove]) {
                     continue;
                 }
 
-                solution1.add(i);
-                if (search1(cornersOrientationMove[cornersOrientation][i],
-                        edgesOrientationMove[edgesOrientation][i],
-                        eEdgesCombinationMove[eEdgesCombinations][i],
-                        depth - 1)) {
-                    return true;
+                // the orientations table first, it prunes the most
+                int nextCornersOrientation = tables.cornersOrientationMove.get(cornersOrientation, i);
+                int nextEdgesOrientation = tables.edgesOrientationMove.get(edgesOrientation, i);
+                int nextOrientationsDistance = tables.orientationsDistance.getDistance(
+                        tables.orientationsDistance.getIndex(nextCornersOrientation, nextEdgesOrientation),
+                        orientationsDistance);
+                if (nextOrientationsDistance >= depth) {
+                    continue;
                 }
-                solution1.remove(solution1.size() - 1);
-            }
-        }
 
-        return false;
-    }
+                int nextEEdgesCombination = tables.eEdgesCombinationMove.get(eEdgesCombinations, i);
+                int nextCornersOrientationDistance = tables.cornersOrientationDistance.getDistance(
+                        tables.cornersOrientationDistance.getIndex(nextCornersOrientation, nextEEdgesCombination),
+                        cornersOrientationDistance);
+                if (nextCornersOrientationDistance >= depth) {
+                    continue;
+                }
+                int nextEdgesOrientationDistance = tables.edgesOrientationDistance.getDistance(
+                        tables.edgesOrientationDistance.getIndex(nextEdgesOrientation, nextEEdgesCombination),
+                        edgesOrientationDistance);
+                if (nextEdgesOrientationDistance >= depth) {
+                    continue;
+                }
 
-    private static boolean solution2(State state, int maxDepth) {
-        if (solution1.size() > 0) {
-            int lastMove = solution1.get(solution1.size() - 1);
-            for (int i = 0; i < moveNames2.length; i++) {
-                if (moveNames1[lastMove].equals(moveNames2[i])) {
-                    return false;
+                solution1[length1++] = i;
+                if (search1(nextCornersOrientation, nextEdgesOrientation, nextEEdgesCombination,
+                        nextCornersOrientationDistance, nextEdgesOrientationDistance, nextOrientationsDistance,
+                        depth - 1)) {
+                    return true;
                 }
+                length1--;
             }
-        }
-
-        // corners permutation index
-        int cornersPermutation = IndexMapping.permutationToIndex(state.cornersPermutation);
 
-        // u and d eges permutation index
-        byte[] uDEdges = new byte[8];
-        for (int i = 0; i < uDEdges.length; i++) {
-            uDEdges[i] = (byte) (state.edgesPermutation[i + 4] - 4);
+            return false;
         }
-        int uDEdgesPermutation = IndexMapping.permutationToIndex(uDEdges);
 
-        // e edges permutation index
-        byte[] eEdges = new byte[4];
-        for (int i = 0; i < eEdges.length; i++) {
-            eEdges[i] = state.edgesPermutation[i];
-        }
-        int eEdgesPermutation = IndexMapping.permutationToIndex(eEdges);
+        private boolean solution2(State state, int maxDepth) {
+            // a phase 1 solution ending in a phase 2 move was already tried one move shorter
+            if (length1 > 0 && isPhase2Move[solution1[length1 - 1]]) {
+                return false;
+            }
+
+            // corners permutation index
+            int cornersPermutation = IndexMapping.permutationToIndex(state.cornersPermutation);
 
-        for (int depth = 0; depth < Math.min(MAX_PHASE_2_SOLUTION_LENGTH, maxDepth); depth++) {
-            solution2 = new ArrayList<Integer>(MAX_SOLUTION_LENGTH);
-            if (search2(cornersPermutation, uDEdgesPermutation, eEdgesPermutation, depth)) {
-                return true;
+            // u and d eges permutation index
+            byte[] uDEdges = new byte[8];
+            for (int i = 0; i < uDEdges.length; i++) {
+                uDEdges[i] = (byte) (state.edgesPermutation[i + 4] - 4);
             }
-        }
+            int uDEdgesPermutation = IndexMapping.permutationToIndex(uDEdges);
 
-        return false;
-    }
+            // e edges permutation index
+            byte[] eEdges = new byte[4];
+            for (int i = 0; i < eEdges.length; i++) {
+                eEdges[i] = state.edgesPermutation[i];
+            }
+            int eEdgesPermutation = IndexMapping.permutationToIndex(eEdges);
+
+            // no phase 2 solution is shorter than both distances
+            int cornersPermutationDistance = tables.cornersPermutationDistance.getDistance(
+                    tables.cornersPermutationDistance.getIndex(cornersPermutation, eEdgesPermutation));
+            int uDEdgesPermutationDistance = tables.uDEdgesPermutationDistance.getDistance(
+                    tables.uDEdgesPermutationDistance.getIndex(uDEdgesPermutation, eEdgesPermutation));
+            int minDepth = Math.max(cornersPermutationDistance, uDEdgesPermutationDistance);
+
+            for (int depth = minDepth; depth <= Math.min(MAX_PHASE_2_SOLUTION_LENGTH, maxDepth); depth++) {
+                length2 = 0;
+                if (search2(cornersPermutation, uDEdgesPermutation, eEdgesPermutation,
+                        cornersPermutationDistance, uDEdgesPermutationDistance, depth)) {
+                    return true;
+                }
+            }
 
-    private static boolean search2(int cornersPermutation, int uDEdgesPermutation, int eEdgesPermutation, int depth) {
-        if (depth == 0) {
-            return cornersPermutation == 0 && uDEdgesPermutation == 0 && eEdgesPermutation == 0;
+            return false;
         }
 
-        if (cornersPermutationDistance[cornersPermutation][eEdgesPermutation] <= depth &&
-                uDEdgesPermutationDistance[uDEdgesPermutation][eEdgesPermutation] <= depth) {
+        // the distances are at most depth, as in search1()
+        private boolean search2(int cornersPermutation, int uDEdgesPermutation, int eEdgesPermutation,
+                                int cornersPermutationDistance, int uDEdgesPermutationDistance, int depth) {
+            if (depth == 0) {
+                return cornersPermutation == 0 && uDEdgesPermutation == 0 && eEdgesPermutation == 0;
+            }
+
             int lastSide = Integer.MAX_VALUE;
-            if (solution2.size() > 0) {
-                lastSide = sides2[solution2.get(solution2.size() - 1)];
+            if (length2 > 0) {
+                lastSide = sides2[solution2[length2 - 1]];
             }
 
-            for (int i = 0; i < moves2.length; i++) {
-                // avoid superflous moves between phases
-                if (solution2.size() == 0) {
-                    int lastPhase1Axis = Integer.MAX_VALUE;
-                    if (solution1.size() > 0) {
-                        lastPhase1Axis = axes1[solution1.get(solution1.size() - 1)];
-                    }
+            // avoid superflous moves between phases
+            int lastPhase1Axis = Integer.MAX_VALUE;
+            if (length2 == 0 && length1 > 0) {
+                lastPhase1Axis = axes1[solution1[length1 - 1]];
+            }
 
-                    if (axes2[i] == lastPhase1Axis) {
-                        continue;
-                    }
+            for (int i = 0; i < moves2.length; i++) {
+                if (axes2[i] == lastPhase1Axis) {
+                    continue;
                 }
 
                 // same side
@@ -577,48 +663,74 @@ public class RubiksCubeSolver {
                     continue;
                 }
 
-                solution2.add(i);
-                if (search2(cornersPermutationMove[cornersPermutation][i],
-                        uDEdgesPermutationMove[uDEdgesPermutation][i],
-                        eEdgesPermutationMove[eEdgesPermutation][i],
-                        depth - 1)) {
+                int nextCornersPermutation = tables.cornersPermutationMove.get(cornersPermutation, i);
+                int nextEEdgesPermutation = tables.eEdgesPermutationMove.get(eEdgesPermutation, i);
+                int nextCornersPermutationDistance = tables.cornersPermutationDistance.getDistance(
+                        tables.cornersPermutationDistance.getIndex(nextCornersPermutation, nextEEdgesPermutation),
+                        cornersPermutationDistance);
+                if (nextCornersPermutationDistance >= depth) {
+                    continue;
+                }
+
+                int nextUDEdgesPermutation = tables.uDEdgesPermutationMove.get(uDEdgesPermutation, i);
+                int nextUDEdgesPermutationDistance = tables.uDEdgesPermutationDistance.getDistance(
+                        tables.uDEdgesPermutationDistance.getIndex(nextUDEdgesPermutation, nextEEdgesPermutation),
+                        uDEdgesPermutationDistance);
+                if (nextUDEdgesPermutationDistance >= depth) {
+                    continue;
+                }
+
+                solution2[length2++] = i;
+                if (search2(nextCornersPermutation, nextUDEdgesPermutation, nextEEdgesPermutation,
+                        nextCornersPermutationDistance, nextUDEdgesPermutationDistance, depth - 1)) {
                     return true;
                 }
-                solution2.remove(solution2.size() - 1);
+                length2--;
             }
-        }
 
-        return false;
+            return false;
+        }
     }
 
+    /**
+     * Returns a scramble of at most {@link #MAX_SOLUTION_LENGTH} moves leading to a state.
+     */
     public static String[] generate(State state) {
-        String[] solution = solution(state);
+        return generate(state, MAX_SOLUTION_LENGTH);
+    }
 
-        HashMap<String, String> inverseMoveNames = new HashMap<String, String>();
-        inverseMoveNames.put("U", "U'");
-        inverseMoveNames.put("U2", "U2");
-        inverseMoveNames.put("U'", "U");
-        inverseMoveNames.put("D", "D'");
-        inverseMoveNames.put("D2", "D2");
-        inverseMoveNames.put("D'", "D");
-        inverseMoveNames.put("L", "L'");
-        inverseMoveNames.put("L2", "L2");
-        inverseMoveNames.put("L'", "L");
-        inverseMoveNames.put("R", "R'");
-        inverseMoveNames.put("R2", "R2");
-        inverseMoveNames.put("R'", "R");
-        inverseMoveNames.put("F", "F'");
-        inverseMoveNames.put("F2", "F2");
-        inverseMoveNames.put("F'", "F");
-        inverseMoveNames.put("B", "B'");
-        inverseMoveNames.put("B2", "B2");
-        inverseMoveNames.put("B'", "B");
+    /**
+     * Returns a scramble leading to a state, the inverse of a two-phase solution, or null if no
+     * solution of at most maxLength moves was found. 21 moves or more are found in a few
+     * milliseconds, 20 can take much longer.
+     *
+     * Phase 1 is much shorter on some axes than on others, so the state is searched from all three
+     * at once, one phase 1 depth at a time.
+     */
+    public static String[] generate(State state, int maxLength) {
+        Tables tables = getTables();
+        Search[] searches = new Search[axisRotations.length];
+        for (int i = 0; i < searches.length; i++) {
+            State rotation = axisRotations[i];
+            searches[i] = new Search(tables, CubeState.inverse(rotation).multiply(state).multiply(rotation), maxLength);
+        }
+
+        for (int depth = 0; depth <= maxLength; depth++) {
+            for (int i = 0; i < searches.length; i++) {
+                if (searches[i].search(depth)) {
+                    int[] solution = searches[i].getSolution();
+
+                    String[] sequence = new String[solution.length];
+                    for (int j = 0; j < solution.length; j++) {
+                        int move = axisMoves[i][solution[solution.length - j - 1]];
+                        sequence[j] = inverseMoveNames.get(moveNames1[move]);
+                    }
 
-        String[] sequence = new String[solution.length];
-        for (int i = 0; i < solution.length; i++) {
-            sequence[i] = inverseMoveNames.get(solution[solution.length - i - 1]);
+                    return sequence;
+                }
+            }
         }
 
-        return sequence;
+        return null;
     }
-}
\ No newline at end of file
+}
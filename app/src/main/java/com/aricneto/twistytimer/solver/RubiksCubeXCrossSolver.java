@@ -3,25 +3,16 @@ package com.aricneto.twistytimer.solver;
 import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
 
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
 
 public class RubiksCubeXCrossSolver {
-    // moves
-    private static String[] moveNames;
+    // moves, in the order of PatternSolver.MOVE_NAMES
     private static State[] moves;
 
     static {
-        moveNames = new String[] {
-                "U", "U2", "U'",
-                "D", "D2", "D'",
-                "L", "L2", "L'",
-                "R", "R2", "R'",
-                "F", "F2", "F'",
-                "B", "B2", "B'",
-                };
-
-        moves = new State[moveNames.length];
+        moves = new State[PatternSolver.N_MOVES];
         for (int i = 0; i < moves.length; i++) {
-            moves[i] = RubiksCubeSolver.State.moves.get(moveNames[i]);
+            moves[i] = RubiksCubeSolver.State.moves.get(PatternSolver.MOVE_NAMES[i]);
         }
     }
 
@@ -52,66 +43,6 @@ public class RubiksCubeXCrossSolver {
                 goalIndices[3] * N_EDGES_ORIENTATIONS + goalIndices[5];
     }
 
-    // move tables
-    private static int[][] cornersPermutationMove;
-    private static int[][] cornersOrientationMove;
-    private static int[][] edgesPermutationMove;
-    private static int[][] edgesOrientationMove;
-
-    static {
-        // corners permutation
-        cornersPermutationMove = new int[N_CORNERS_COMBINATIONS * N_CORNERS_PERMUTATIONS][moves.length];
-        for (int i = 0; i < N_CORNERS_COMBINATIONS; i++) {
-            for (int j = 0; j < N_CORNERS_PERMUTATIONS; j++) {
-                State state = indicesToState(new int[] { i, j, 0, 0, 0, 0 });
-                for (int k = 0; k < moves.length; k++) {
-                    int[] indices = stateToIndices(state.multiply(moves[k]));
-                    cornersPermutationMove[i * N_CORNERS_PERMUTATIONS + j][k] =
-                            indices[0] * N_CORNERS_PERMUTATIONS + indices[1];
-                }
-            }
-        }
-
-        // corners orientation
-        cornersOrientationMove = new int[N_CORNERS_COMBINATIONS * N_CORNERS_ORIENTATIONS][moves.length];
-        for (int i = 0; i < N_CORNERS_COMBINATIONS; i++) {
-            for (int j = 0; j < N_CORNERS_ORIENTATIONS; j++) {
-                State state = indicesToState(new int[] { i, 0, j, 0, 0, 0 });
-                for (int k = 0; k < moves.length; k++) {
-                    int[] indices = stateToIndices(state.multiply(moves[k]));
-                    cornersOrientationMove[i * N_CORNERS_ORIENTATIONS + j][k] =
-                            indices[0] * N_CORNERS_ORIENTATIONS + indices[2];
-                }
-            }
-        }
-
-        // edges permutation
-        edgesPermutationMove = new int[N_EDGES_COMBINATIONS * N_EDGES_PERMUTATIONS][moves.length];
-        for (int i = 0; i < N_EDGES_COMBINATIONS; i++) {
-            for (int j = 0; j < N_EDGES_PERMUTATIONS; j++) {
-                State state = indicesToState(new int[] { 0, 0, 0, i, j, 0 });
-                for (int k = 0; k < moves.length; k++) {
-                    int[] indices = stateToIndices(state.multiply(moves[k]));
-                    edgesPermutationMove[i * N_EDGES_PERMUTATIONS + j][k] =
-                            indices[3] * N_EDGES_PERMUTATIONS + indices[4];
-                }
-            }
-        }
-
-        // edges orientation
-        edgesOrientationMove = new int[N_EDGES_COMBINATIONS * N_EDGES_ORIENTATIONS][moves.length];
-        for (int i = 0; i < N_EDGES_COMBINATIONS; i++) {
-            for (int j = 0; j < N_EDGES_ORIENTATIONS; j++) {
-                State state = indicesToState(new int[] { 0, 0, 0, i, 0, j });
-                for (int k = 0; k < moves.length; k++) {
-                    int[] indices = stateToIndices(state.multiply(moves[k]));
-                    edgesOrientationMove[i * N_EDGES_ORIENTATIONS + j][k] =
-                            indices[3] * N_EDGES_ORIENTATIONS + indices[5];
-                }
-            }
-        }
-    }
-
     private static int[] stateToIndices(State state) {
         // corners
         boolean[] selectedCorners = {
@@ -253,68 +184,132 @@ public class RubiksCubeXCrossSolver {
                 edgesOrientation);
     }
 
-    // distance tables
-    private static byte[] edgesPermutationDistance;
-    private static byte[] edgesOrientationDistance;
+    // tables, built by the first solve and dropped by release()
+    private static volatile Tables sTables;
+
+    private static class Tables {
+        MoveTable cornersPermutationMove;
+        MoveTable cornersOrientationMove;
+        MoveTable edgesPermutationMove;
+        MoveTable edgesOrientationMove;
+        byte[]    edgesPermutationDistance;
+        byte[]    edgesOrientationDistance;
+
+        long getResidentSize() {
+            return cornersPermutationMove.getResidentSize() + cornersOrientationMove.getResidentSize()
+                    + edgesPermutationMove.getResidentSize() + edgesOrientationMove.getResidentSize()
+                    + edgesPermutationDistance.length + edgesOrientationDistance.length;
+        }
+    }
 
-    static {
-        // edges permutation
-        edgesPermutationDistance = new byte[N_EDGES_COMBINATIONS * N_EDGES_PERMUTATIONS];
-        for (int i = 0; i < edgesPermutationDistance.length; i++) {
-            edgesPermutationDistance[i] = -1;
+    private static Tables getTables() {
+        // Two threads solving at once may both build them, which only wastes a little time
+        Tables tables = sTables;
+        if (tables == null) {
+            tables = buildTables();
+            sTables = tables;
         }
-        edgesPermutationDistance[goalEdgesPermutation] = 0;
-
-        int distance = 0;
-        int nVisited = 1;
-        while (nVisited < N_EDGES_COMBINATIONS * N_EDGES_PERMUTATIONS) {
-            for (int i = 0; i < edgesPermutationDistance.length; i++) {
-                if (edgesPermutationDistance[i] != distance) {
-                    continue;
-                }
+        return tables;
+    }
+
+    private static Tables buildTables() {
+        Tables tables = new Tables();
 
-                for (int j = 0; j < edgesPermutationMove[i].length; j++) {
-                    int next = edgesPermutationMove[i][j];
-                    if (edgesPermutationDistance[next] < 0) {
-                        edgesPermutationDistance[next] = (byte) (distance + 1);
-                        nVisited++;
-                    }
+        // corners permutation
+        tables.cornersPermutationMove = new MoveTable(N_CORNERS_COMBINATIONS * N_CORNERS_PERMUTATIONS, moves.length);
+        for (int i = 0; i < N_CORNERS_COMBINATIONS; i++) {
+            for (int j = 0; j < N_CORNERS_PERMUTATIONS; j++) {
+                State state = indicesToState(new int[] { i, j, 0, 0, 0, 0 });
+                for (int k = 0; k < moves.length; k++) {
+                    int[] indices = stateToIndices(state.multiply(moves[k]));
+                    tables.cornersPermutationMove.set(i * N_CORNERS_PERMUTATIONS + j, k,
+                            indices[0] * N_CORNERS_PERMUTATIONS + indices[1]);
                 }
             }
-
-            distance++;
         }
 
-
-        // edges orientation
-        edgesOrientationDistance = new byte[N_EDGES_COMBINATIONS * N_EDGES_ORIENTATIONS];
-        for (int i = 0; i < edgesOrientationDistance.length; i++) {
-            edgesOrientationDistance[i] = -1;
-        }
-        edgesOrientationDistance[goalEdgesOrientation] = 0;
-
-        distance = 0;
-        nVisited = 1;
-        while (nVisited < N_EDGES_COMBINATIONS * N_EDGES_ORIENTATIONS) {
-            for (int i = 0; i < edgesOrientationDistance.length; i++) {
-                if (edgesOrientationDistance[i] != distance) {
-                    continue;
+        // corners orientation
+        tables.cornersOrientationMove = new MoveTable(N_CORNERS_COMBINATIONS * N_CORNERS_ORIENTATIONS, moves.length);
+        for (int i = 0; i < N_CORNERS_COMBINATIONS; i++) {
+            for (int j = 0; j < N_CORNERS_ORIENTATIONS; j++) {
+                State state = indicesToState(new int[] { i, 0, j, 0, 0, 0 });
+                for (int k = 0; k < moves.length; k++) {
+                    int[] indices = stateToIndices(state.multiply(moves[k]));
+                    tables.cornersOrientationMove.set(i * N_CORNERS_ORIENTATIONS + j, k,
+                            indices[0] * N_CORNERS_ORIENTATIONS + indices[2]);
                 }
+            }
+        }
 
-                for (int j = 0; j < edgesOrientationMove[i].length; j++) {
-                    int next = edgesOrientationMove[i][j];
-                    if (edgesOrientationDistance[next] < 0) {
-                        edgesOrientationDistance[next] = (byte) (distance + 1);
-                        nVisited++;
-                    }
+        // edges permutation
+        tables.edgesPermutationMove = new MoveTable(N_EDGES_COMBINATIONS * N_EDGES_PERMUTATIONS, moves.length);
+        for (int i = 0; i < N_EDGES_COMBINATIONS; i++) {
+            for (int j = 0; j < N_EDGES_PERMUTATIONS; j++) {
+                State state = indicesToState(new int[] { 0, 0, 0, i, j, 0 });
+                for (int k = 0; k < moves.length; k++) {
+                    int[] indices = stateToIndices(state.multiply(moves[k]));
+                    tables.edgesPermutationMove.set(i * N_EDGES_PERMUTATIONS + j, k,
+                            indices[3] * N_EDGES_PERMUTATIONS + indices[4]);
                 }
             }
+        }
 
-            distance++;
+        // edges orientation
+        tables.edgesOrientationMove = new MoveTable(N_EDGES_COMBINATIONS * N_EDGES_ORIENTATIONS, moves.length);
+        for (int i = 0; i < N_EDGES_COMBINATIONS; i++) {
+            for (int j = 0; j < N_EDGES_ORIENTATIONS; j++) {
+                State state = indicesToState(new int[] { 0, 0, 0, i, 0, j });
+                for (int k = 0; k < moves.length; k++) {
+                    int[] indices = stateToIndices(state.multiply(moves[k]));
+                    tables.edgesOrientationMove.set(i * N_EDGES_ORIENTATIONS + j, k,
+                            indices[3] * N_EDGES_ORIENTATIONS + indices[5]);
+                }
+            }
         }
+
+        tables.edgesPermutationDistance = DistanceTable.build(N_EDGES_COMBINATIONS * N_EDGES_PERMUTATIONS,
+                DistanceTable.of(tables.edgesPermutationMove), goalEdgesPermutation);
+        tables.edgesOrientationDistance = DistanceTable.build(N_EDGES_COMBINATIONS * N_EDGES_ORIENTATIONS,
+                DistanceTable.of(tables.edgesOrientationMove), goalEdgesOrientation);
+
+        return tables;
+    }
+
+    /**
+     * The memory used by the tables, in bytes, or 0 if they aren't built.
+     */
+    static long getResidentSize() {
+        Tables tables = sTables;
+        return tables == null ? 0 : tables.getResidentSize();
+    }
+
+    /**
+     * Drops the tables. The next solve builds them again, and a solve already running keeps them
+     * until it's done.
+     */
+    static void release() {
+        sTables = null;
     }
 
+    /**
+     * Every shortest solution, as move names.
+     */
     public static ArrayList<String[]> solve(State state) {
+        ArrayList<String[]> solutions = new ArrayList<String[]>();
+        for (int[] solution : solve(state, Integer.MAX_VALUE, 0))
+            solutions.add(PatternSolver.getMoveNames(solution));
+        return solutions;
+    }
+
+    /**
+     * Returns the shortest solutions, as indices into {@link PatternSolver#MOVE_NAMES}. Solutions
+     * that only differ by the order of turns of opposite faces (U D and D U) are returned once.
+     *
+     * @param maxSolutions Stop after finding this many
+     * @param extraDepth   While there are fewer than maxSolutions, look for solutions up to this
+     *                     many moves longer than the shortest
+     */
+    public static ArrayList<int[]> solve(State state, int maxSolutions, int extraDepth) {
         int[] indices = stateToIndices(state);
 
         int cornersPermutationIndex =
@@ -326,64 +321,87 @@ public class RubiksCubeXCrossSolver {
         int edgesOrientationIndex =
                 indices[3] * N_EDGES_ORIENTATIONS + indices[5];
 
-        ArrayList<String[]> solutions = new ArrayList<String[]>();
+        Tables tables = getTables();
+        ArrayList<int[]> solutions = new ArrayList<int[]>();
 
-        for (int depth = 0; ; depth++) {
+        int minDepth = Math.max(
+                tables.edgesPermutationDistance[edgesPermutationIndex],
+                tables.edgesOrientationDistance[edgesOrientationIndex]);
+        int maxDepth = Integer.MAX_VALUE;
+        for (int depth = minDepth; depth <= maxDepth && solutions.size() < maxSolutions; depth++) {
             int[] path = new int[depth];
 
-            search(cornersPermutationIndex,
+            search(tables,
+                    cornersPermutationIndex,
                     cornersOrientationIndex,
                     edgesPermutationIndex,
                     edgesOrientationIndex,
                     depth,
                     path,
-                    solutions);
+                    - 1,
+                    solutions,
+                    maxSolutions);
 
-            if (solutions.size() > 0) {
-                return solutions;
+            if (solutions.size() > 0 && maxDepth == Integer.MAX_VALUE) {
+                maxDepth = depth + extraDepth;
             }
         }
+
+        return solutions;
     }
 
     private static void search(
+            Tables tables,
             int cornersPermutation,
             int cornersOrientation,
             int edgesPermutation,
             int edgesOrientation,
             int depth,
             int[] path,
-            ArrayList<String[]> solutions) {
+            int lastFace,
+            ArrayList<int[]> solutions,
+            int maxSolutions) {
+        boolean solved = cornersPermutation == goalCornersPermutation &&
+                cornersOrientation == goalCornersOrientation &&
+                edgesPermutation == goalEdgesPermutation &&
+                edgesOrientation == goalEdgesOrientation;
         if (depth == 0) {
-            if (cornersPermutation == goalCornersPermutation &&
-                    cornersOrientation == goalCornersOrientation &&
-                    edgesPermutation == goalEdgesPermutation &&
-                    edgesOrientation == goalEdgesOrientation) {
-                String[] sequence = new String[path.length];
-                for (int i = 0; i < sequence.length; i++) {
-                    sequence[i] = moveNames[path[i]];
-                }
-
-                solutions.add(sequence);
+            if (solved) {
+                solutions.add(path.clone());
             }
 
             return;
         }
 
-        if (edgesPermutationDistance[edgesPermutation] > depth ||
-                edgesOrientationDistance[edgesOrientation] > depth) {
+        // Solved before the end: the moves left could only be a detour
+        if (solved ||
+                tables.edgesPermutationDistance[edgesPermutation] > depth ||
+                tables.edgesOrientationDistance[edgesOrientation] > depth) {
             return;
         }
 
-        for (int i = 0; i < moves.length; i++) {
+        // Lets a prefetch be cancelled. Only checked near the root, where there are few nodes
+        if (depth >= 4 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+
+        for (int i = 0; i < moves.length && solutions.size() < maxSolutions; i++) {
+            if (! PatternSolver.isCanonical(lastFace, i)) {
+                continue;
+            }
+
             path[path.length - depth] = i;
             search(
-                    cornersPermutationMove[cornersPermutation][i],
-                    cornersOrientationMove[cornersOrientation][i],
-                    edgesPermutationMove[edgesPermutation][i],
-                    edgesOrientationMove[edgesOrientation][i],
+                    tables,
+                    tables.cornersPermutationMove.get(cornersPermutation, i),
+                    tables.cornersOrientationMove.get(cornersOrientation, i),
+                    tables.edgesPermutationMove.get(edgesPermutation, i),
+                    tables.edgesOrientationMove.get(edgesOrientation, i),
                     depth - 1,
                     path,
-                    solutions);
+                    i / 3,
+                    solutions,
+                    maxSolutions);
         }
     }
 }
@@ -0,0 +1,218 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Finds every optimal solution of a Skewb scramble, with an {@link OptimalSolver}.
+ *
+ * The moves of the notation turn the corners ULB (U), DBR (R), DFL (L) and DLB (B), and none of
+ * them moves the UFR corner, so the puzzle is solved relative to it. There are 8,748 positions of
+ * the other corners and 360 of the centers, 3,149,280 positions in all, which take 787,320 bytes.
+ *
+ * Corners are numbered as in {@link RubiksCubeSolver.State}: ULB UBR UFR UFL DLB DBR DFR DFL, and
+ * centers U D L R F B. The positions of the corners don't follow a simple rule, so they're
+ * numbered in the order they're listed in by {@link #getCornerKey(byte[])}.
+ */
+public class SkewbSolver {
+
+    /**
+     * The moves of TNoodle's scrambles. Each corner turns clockwise (as seen from the corner),
+     * then counter-clockwise.
+     */
+    public static final MoveNotation NOTATION = new MoveNotation(3, "R", "U", "L", "B");
+
+    private static final int N_CORNERS = 8;
+    private static final int N_CENTERS = 6;
+
+    private static final int N_MOVES = 8;
+
+    private static final int N_CORNER_STATES = 8748;
+    private static final int N_CENTER_STATES = 360;
+
+    // Changed whenever the table is laid out differently
+    private static final String FILE_NAME = "skewb-distances-1";
+
+    // For a clockwise turn of each move, the position each corner comes from and how much it's
+    // twisted on the way, and the position each center comes from
+    private static final byte[][] CORNERS_PERMUTATION = {
+            { 0, 6, 2, 3, 1, 5, 4, 7 },
+            { 0, 4, 2, 1, 3, 5, 6, 7 },
+            { 0, 1, 2, 4, 6, 5, 3, 7 },
+            { 5, 1, 2, 3, 4, 7, 6, 0 },
+            };
+    private static final byte[][] CORNERS_ORIENTATION = {
+            { 0, 1, 0, 0, 1, 2, 1, 0 },
+            { 2, 1, 0, 1, 1, 0, 0, 0 },
+            { 0, 0, 0, 1, 1, 0, 1, 2 },
+            { 1, 0, 0, 0, 2, 1, 0, 1 },
+            };
+    private static final byte[][] CENTERS_PERMUTATION = {
+            { 0, 5, 2, 1, 4, 3 },
+            { 5, 1, 0, 3, 4, 2 },
+            { 0, 4, 1, 3, 2, 5 },
+            { 0, 2, 5, 3, 4, 1 },
+            };
+
+    // tables, built by the first solve and dropped by release()
+    private static volatile Tables sTables;
+
+    private static class Tables {
+        // The keys of the corner positions, sorted: a position is numbered by its place here
+        long[]        cornerKeys;
+        OptimalSolver solver;
+    }
+
+    private SkewbSolver() {
+    }
+
+    private static Tables getTables() {
+        // Two threads solving at once may both build them, which only wastes a little time
+        Tables tables = sTables;
+        if (tables == null) {
+            tables = buildTables();
+            sTables = tables;
+        }
+        return tables;
+    }
+
+    static OptimalSolver getSolver() {
+        return getTables().solver;
+    }
+
+    private static Tables buildTables() {
+        Tables tables = new Tables();
+        tables.cornerKeys = listCorners();
+
+        MoveTable cornersMove = new MoveTable(N_CORNER_STATES, N_MOVES);
+        byte[] corners = new byte[N_CORNERS];
+        for (int index = 0; index < N_CORNER_STATES; index++) {
+            for (int move = 0; move < N_MOVES; move++) {
+                setCornerKey(corners, tables.cornerKeys[index]);
+                applyCorners(corners, move);
+                cornersMove.set(index, move, Arrays.binarySearch(tables.cornerKeys, getCornerKey(corners)));
+            }
+        }
+
+        MoveTable centersMove = new MoveTable(N_CENTER_STATES, N_MOVES);
+        for (int index = 0; index < N_CENTER_STATES; index++) {
+            for (int move = 0; move < N_MOVES; move++) {
+                byte[] centers = IndexMapping.indexToEvenPermutation(index, N_CENTERS);
+                applyCenters(centers, move);
+                centersMove.set(index, move, IndexMapping.evenPermutationToIndex(centers));
+            }
+        }
+
+        tables.solver = new OptimalSolver(FILE_NAME, cornersMove, centersMove, 2,
+                Arrays.binarySearch(tables.cornerKeys, getCornerKey(solvedCorners())) * N_CENTER_STATES);
+        return tables;
+    }
+
+    /**
+     * Every position of the corners the moves reach from the solved one, as sorted keys.
+     */
+    private static long[] listCorners() {
+        HashSet<Long> seen = new HashSet<Long>();
+        ArrayList<byte[]> found = new ArrayList<byte[]>();
+        byte[] solved = solvedCorners();
+        seen.add(getCornerKey(solved));
+        found.add(solved);
+        for (int i = 0; i < found.size(); i++) {
+            for (int move = 0; move < N_MOVES; move += 2) {
+                byte[] corners = found.get(i).clone();
+                applyCorners(corners, move);
+                if (seen.add(getCornerKey(corners)))
+                    found.add(corners);
+            }
+        }
+
+        long[] keys = new long[seen.size()];
+        int next = 0;
+        for (long key : seen)
+            keys[next++] = key;
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static byte[] solvedCorners() {
+        byte[] corners = new byte[N_CORNERS];
+        for (int i = 0; i < N_CORNERS; i++)
+            corners[i] = (byte) (i * 3);
+        return corners;
+    }
+
+    /**
+     * The corners, each piece * 3 + orientation as in {@link CubeState}, 5 bits each.
+     */
+    private static long getCornerKey(byte[] corners) {
+        long key = 0;
+        for (byte corner : corners)
+            key = (key << 5) | corner;
+        return key;
+    }
+
+    private static void setCornerKey(byte[] corners, long key) {
+        for (int i = N_CORNERS - 1; i >= 0; i--) {
+            corners[i] = (byte) (key & 31);
+            key >>>= 5;
+        }
+    }
+
+    private static void applyCorners(byte[] corners, int code) {
+        int move = code / 2;
+        // Counter-clockwise is two clockwise turns
+        for (int turn = code % 2; turn >= 0; turn--) {
+            byte[] previous = corners.clone();
+            for (int i = 0; i < N_CORNERS; i++) {
+                int corner = previous[CORNERS_PERMUTATION[move][i]];
+                corners[i] = (byte) (corner / 3 * 3 + (corner % 3 + CORNERS_ORIENTATION[move][i]) % 3);
+            }
+        }
+    }
+
+    private static void applyCenters(byte[] centers, int code) {
+        int move = code / 2;
+        for (int turn = code % 2; turn >= 0; turn--) {
+            byte[] previous = centers.clone();
+            for (int i = 0; i < N_CENTERS; i++)
+                centers[i] = previous[CENTERS_PERMUTATION[move][i]];
+        }
+    }
+
+    /**
+     * The memory used by the tables, in bytes, or 0 if they aren't built.
+     */
+    static long getResidentSize() {
+        Tables tables = sTables;
+        return tables == null ? 0 : 8L * tables.cornerKeys.length + tables.solver.getResidentSize();
+    }
+
+    /**
+     * Drops the tables. The next solve reads them again, and a solve already running keeps them
+     * until it's done.
+     */
+    static void release() {
+        sTables = null;
+    }
+
+    /**
+     * Returns every optimal solution of a scramble, as codes of {@link #NOTATION}.
+     *
+     * @param maxSolutions Stop after finding this many
+     * @throws IllegalArgumentException If a move of the scramble isn't a Skewb move
+     */
+    public static ArrayList<int[]> solve(String scramble, int maxSolutions) {
+        byte[] corners = solvedCorners();
+        byte[] centers = { 0, 1, 2, 3, 4, 5 };
+        for (int code : NOTATION.parse(scramble)) {
+            applyCorners(corners, code);
+            applyCenters(centers, code);
+        }
+
+        Tables tables = getTables();
+        int cornersIndex = Arrays.binarySearch(tables.cornerKeys, getCornerKey(corners));
+        return tables.solver.solve(tables.solver.getIndex(cornersIndex, IndexMapping.evenPermutationToIndex(centers)),
+                maxSolutions);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aricneto.twistytimer.solver;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+
+/**
+ * The tables of every solver, taken together. They're built by the first solve that needs them,
+ * and can be dropped when memory runs low, to be built again by the next solve.
+ */
+public class SolverTables {
+
+    private static File sDirectory;
+
+    private SolverTables() {
+    }
+
+    /**
+     * Where the tables of the {@link OptimalSolver}s are kept between runs, or null to build them
+     * every time.
+     */
+    public static synchronized void setDirectory(File directory) {
+        sDirectory = directory;
+    }
+
+    static synchronized File getDirectory() {
+        return sDirectory;
+    }
+
+    /**
+     * The memory used by the tables of each solver, in bytes, 0 for the ones not built.
+     */
+    public static LinkedHashMap<String, Long> getResidentSizes() {
+        LinkedHashMap<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put("RubiksCubeSolver", RubiksCubeSolver.getResidentSize());
+        sizes.put("RubiksCubeCrossSolver", RubiksCubeCrossSolver.getResidentSize());
+        sizes.put("RubiksCubeXCrossSolver", RubiksCubeXCrossSolver.getResidentSize());
+        sizes.put("TwoByTwoCubeSolver", TwoByTwoCubeSolver.getResidentSize());
+        sizes.put("PyraminxSolver", PyraminxSolver.getResidentSize());
+        sizes.put("SkewbSolver", SkewbSolver.getResidentSize());
+        sizes.put("PatternCoordinate", PatternCoordinate.getResidentSize());
+        sizes.put("PruningTable", PruningTable.getResidentSize());
+        return sizes;
+    }
+
+    /**
+     * The memory used by every table, in bytes.
+     */
+    public static long getResidentSize() {
+        long size = 0;
+        for (long solverSize : getResidentSizes().values())
+            size += solverSize;
+        return size;
+    }
+
+    /**
+     * Drops every table, and returns the memory they used, in bytes. Solves already running keep
+     * theirs until they're done.
+     */
+    public static long release() {
+        long size = getResidentSize();
+        RubiksCubeSolver.release();
+        RubiksCubeCrossSolver.release();
+        RubiksCubeXCrossSolver.release();
+        TwoByTwoCubeSolver.release();
+        PyraminxSolver.release();
+        SkewbSolver.release();
+        PatternCoordinate.release();
+        PruningTable.release();
+        return size;
+    }
+}
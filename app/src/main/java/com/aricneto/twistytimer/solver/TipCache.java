@@ -0,0 +1,163 @@
+package com.aricneto.twistytimer.solver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps the tips already computed, so the same scramble (or another one leaving the cube the same
+ * way) never goes through the solvers twice. The latest ones are kept in memory, and every one is
+ * written to a directory as a small file, so they survive the process.
+ *
+ * Tips are looked up by {@link #getKey(Tip, String)}: for the 3x3 and 2x2, the hash of the state
+ * the scramble leads to, so two scrambles for the same state share their tips.
+ */
+public class TipCache {
+
+    // The tips of the last few scrambles, each tip on its own
+    private static final int MEMORY_SIZE = 32;
+
+    // Files kept on disk, a few KB each. The least recently used ones go first
+    private static final int DISK_SIZE = 512;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+
+    private final LinkedHashMap<String, String> memory =
+        new LinkedHashMap<String, String>(MEMORY_SIZE * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MEMORY_SIZE;
+            }
+        };
+
+    /**
+     * @param directory Where the tips are written, created if needed. Null to only keep them in
+     *                  memory
+     */
+    public TipCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The key of a tip for a scramble. The tips are written in the language of the device, so it's
+     * part of the key.
+     */
+    public static String getKey(Tip tip, String scramble) {
+        String state = null;
+        if (tip.getPuzzleId().equals("RUBIKS-CUBE") || tip.getPuzzleId().equals("TWO-BY-TWO-CUBE")) {
+            CubeState cube = new CubeState();
+            try {
+                cube.apply(scramble);
+                state = Long.toHexString(cube.getHash());
+            } catch (IllegalArgumentException e) {
+                // Not 3x3 notation. The tip can't read it either, so any key will do
+            }
+        }
+        if (state == null)
+            state = Integer.toHexString(scramble.trim().replaceAll("\\s+", " ").hashCode());
+        return tip.getTipId() + "_" + Locale.getDefault() + "_" + state;
+    }
+
+    /**
+     * Returns a tip, or null if it isn't cached.
+     */
+    public String get(String key) {
+        synchronized (memory) {
+            String tip = memory.get(key);
+            if (tip != null)
+                return tip;
+        }
+
+        String tip = read(key);
+        if (tip != null) {
+            synchronized (memory) {
+                memory.put(key, tip);
+            }
+        }
+        return tip;
+    }
+
+    public void put(String key, String tip) {
+        synchronized (memory) {
+            memory.put(key, tip);
+        }
+        write(key, tip);
+    }
+
+    private synchronized String read(String key) {
+        if (directory == null)
+            return null;
+        File file = new File(directory, key);
+        if (! file.exists())
+            return null;
+
+        try {
+            InputStream input = new FileInputStream(file);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = input.read(buffer)) > 0; )
+                    bytes.write(buffer, 0, read);
+                // Marks it as recently used
+                file.setLastModified(System.currentTimeMillis());
+                return new String(bytes.toByteArray(), UTF_8);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private synchronized void write(String key, String tip) {
+        if (directory == null || (! directory.isDirectory() && ! directory.mkdirs()))
+            return;
+
+        // Written aside and renamed, so a tip is never read half written
+        File temporary = new File(directory, key + ".tmp");
+        try {
+            OutputStream output = new FileOutputStream(temporary);
+            try {
+                output.write(tip.getBytes(UTF_8));
+            } finally {
+                output.close();
+            }
+            if (! temporary.renameTo(new File(directory, key)))
+                temporary.delete();
+        } catch (IOException e) {
+            temporary.delete();
+            return;
+        }
+
+        trim();
+    }
+
+    // Deletes the least recently used files over DISK_SIZE
+    private void trim() {
+        File[] files = directory.listFiles();
+        if (files == null || files.length <= DISK_SIZE)
+            return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long difference = a.lastModified() - b.lastModified();
+                return difference < 0 ? - 1 : difference > 0 ? 1 : 0;
+            }
+        });
+        for (int i = 0; i < files.length - DISK_SIZE; i++)
+            files[i].delete();
+    }
+}
@@ -0,0 +1,254 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Computes the tips for a scramble in the background as soon as the scramble is known, while the
+ * user inspects the cube, so they're ready by the time the hint is opened.
+ *
+ * Tips run one at a time on a single thread, at low priority unless someone is waiting for them.
+ * Results are cached by scramble, and the work for a scramble that is replaced before it's done is
+ * cancelled. Tips can stop early by checking the interrupted flag of their thread. Each tip, once
+ * computed, also goes to a {@link TipCache}, which outlives the prefetcher.
+ */
+public class TipPrefetcher {
+
+    // Enough for the scramble on screen and a few before it
+    private static final int CACHE_SIZE = 4;
+
+    private final Tip[]    tips;
+    private final TipCache tipCache;
+
+    private final ExecutorService executor;
+    private volatile Thread worker;
+    private boolean isShutdown;
+
+    // How many getTip calls are waiting for each scramble. Guarded by this
+    private final HashMap<String, Integer> waiting = new HashMap<>();
+
+    private final LinkedHashMap<String, Future<String>> cache =
+        new LinkedHashMap<String, Future<String>>(CACHE_SIZE * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Future<String>> eldest) {
+                if (size() > CACHE_SIZE) {
+                    eldest.getValue().cancel(true);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+    /**
+     * @param tipCache Where to look for the tips before computing them, and to keep them. May be
+     *                 null
+     * @param tips     The tips to compute. Their results are joined with a blank line
+     */
+    public TipPrefetcher(TipCache tipCache, Tip... tips) {
+        this.tipCache = tipCache;
+        this.tips = tips;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TipPrefetcher");
+                thread.setDaemon(true);
+                worker = thread;
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts computing the tips for a scramble, cancelling the work for any other scramble that
+     * isn't done yet.
+     */
+    public synchronized void prefetch(String scramble) {
+        if (isShutdown)
+            return;
+        cancelPending(scramble);
+        submit(scramble);
+    }
+
+    /**
+     * Cancels the work that isn't done yet. Finished tips stay cached.
+     */
+    public synchronized void cancel() {
+        cancelPending(null);
+    }
+
+    /**
+     * Returns the tips for a scramble, waiting for them if they're still being computed, or
+     * computing them if they were never asked for. Call it from a background thread.
+     *
+     * A tip that can't read the scramble (another puzzle's notation, or a scramble typed by hand)
+     * is left out, so the result is empty if none of them can.
+     *
+     * @return The tips, or null if the work was cancelled while waiting or the prefetcher is shut
+     *         down
+     */
+    public String getTip(String scramble) throws InterruptedException {
+        Future<String> future;
+        synchronized (this) {
+            if (isShutdown)
+                return null;
+            future = submit(scramble);
+            Integer count = waiting.get(scramble);
+            waiting.put(scramble, count == null ? 1 : count + 1);
+        }
+
+        try {
+            // Someone is waiting now, it's no longer speculative. If the worker is still busy with
+            // another scramble, that one is in the way, so it's sped up too
+            Thread thread = worker;
+            if (! future.isDone() && thread != null)
+                thread.setPriority(Thread.MAX_PRIORITY);
+
+            return future.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException)
+                return null;
+            throw new RuntimeException(e.getCause());
+        } finally {
+            synchronized (this) {
+                int count = waiting.get(scramble);
+                if (count == 1)
+                    waiting.remove(scramble);
+                else
+                    waiting.put(scramble, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the tips for a scramble if they're all computed already, without waiting for them or
+     * computing them. Can be called from any thread.
+     *
+     * @return The tips, or null if they aren't all computed
+     */
+    public String getCachedTip(String scramble) {
+        Future<String> future;
+        synchronized (this) {
+            future = cache.get(scramble);
+        }
+        if (future != null && future.isDone() && ! future.isCancelled()) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        if (tipCache == null)
+            return null;
+        String[] texts = new String[tips.length];
+        for (int i = 0; i < tips.length; i++) {
+            texts[i] = tipCache.get(TipCache.getKey(tips[i], scramble));
+            if (texts[i] == null)
+                return null;
+        }
+        return join(texts);
+    }
+
+    /**
+     * Computes the tips for a scramble on the calling thread, the same way the prefetcher does, for
+     * a one-off scramble that isn't worth a thread of its own. Call it from a background thread.
+     *
+     * @param tipCache Where to look for the tips before computing them, and to keep them. May be
+     *                 null
+     * @return The tips that could read the scramble, joined with a blank line
+     */
+    public static String computeTips(TipCache tipCache, Tip[] tips, String scramble) {
+        String[] texts = new String[tips.length];
+        for (int i = 0; i < tips.length; i++)
+            texts[i] = getTip(tipCache, tips[i], scramble);
+        return join(texts);
+    }
+
+    /**
+     * Stops the background thread. The prefetcher can't be used afterwards.
+     */
+    public synchronized void shutdown() {
+        isShutdown = true;
+        cancelPending(null);
+        executor.shutdownNow();
+    }
+
+    // Returns the cached future for the scramble, submitting it if needed
+    private Future<String> submit(final String scramble) {
+        Future<String> future = cache.get(scramble);
+        if (future != null && ! future.isCancelled())
+            return future;
+
+        future = executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                Thread.currentThread().setPriority(isWaitedFor(scramble) ? Thread.MAX_PRIORITY : Thread.MIN_PRIORITY);
+                return computeTips(tipCache, tips, scramble);
+            }
+        });
+        cache.put(scramble, future);
+        return future;
+    }
+
+    private synchronized boolean isWaitedFor(String scramble) {
+        return waiting.containsKey(scramble);
+    }
+
+    // Returns null if the tip can't read the scramble
+    private static String getTip(TipCache tipCache, Tip tip, String scramble) {
+        try {
+            if (tipCache == null)
+                return tip.getTip(scramble);
+
+            String key = TipCache.getKey(tip, scramble);
+            String text = tipCache.get(key);
+            if (text == null) {
+                // A tip that's cancelled or can't read the scramble throws, so only complete ones
+                // are kept
+                text = tip.getTip(scramble);
+                tipCache.put(key, text);
+            }
+            return text;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String join(String[] texts) {
+        StringBuilder text = new StringBuilder();
+        for (String tip : texts) {
+            if (tip == null || tip.isEmpty())
+                continue;
+            if (text.length() > 0)
+                text.append("\n\n");
+            text.append(tip);
+        }
+        return text.toString();
+    }
+
+    // Cancels and forgets every unfinished future except the one for keep
+    private void cancelPending(String keep) {
+        Iterator<Map.Entry<String, Future<String>>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Future<String>> entry = iterator.next();
+            if (! entry.getValue().isDone() && ! entry.getKey().equals(keep)) {
+                entry.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+    }
+}
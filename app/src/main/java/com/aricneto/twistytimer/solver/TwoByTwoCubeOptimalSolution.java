@@ -0,0 +1,52 @@
+package com.aricneto.twistytimer.solver;
+
+public class TwoByTwoCubeOptimalSolution implements Tip {
+    // Past this many, the others are counted instead of listed
+    private static final int MAX_SOLUTIONS = 12;
+
+    private String description;
+
+    public TwoByTwoCubeOptimalSolution(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getTipId() {
+        return "TWO-BY-TWO-CUBE-OPTIMAL-SOLUTION";
+    }
+
+    @Override
+    public String getPuzzleId() {
+        return "TWO-BY-TWO-CUBE";
+    }
+
+    @Override
+    public String getTipDescription() {
+        return ("TWO-BY-TWO-CUBE-OPTIMAL-SOLUTION");
+    }
+
+    @Override
+    public String getTip(String scramble) {
+        CubeState scrambled = new CubeState();
+        scrambled.apply(scramble);
+        CubeState state = TwoByTwoCubeSolver.toFixedCorner(scrambled);
+
+        StringBuilder tip = new StringBuilder();
+        tip.append(description + " (" + TwoByTwoCubeSolver.getDistance(state) + "):\n");
+
+        int count = 0;
+        for (int[] solution : TwoByTwoCubeSolver.solve(state, Integer.MAX_VALUE)) {
+            if (count++ < MAX_SOLUTIONS)
+                tip.append("  " + StringUtils.join(" ", PatternSolver.getMoveNames(solution)) + "\n");
+        }
+        if (count > MAX_SOLUTIONS)
+            tip.append("  (+" + (count - MAX_SOLUTIONS) + ")\n");
+
+        return tip.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTipDescription();
+    }
+}
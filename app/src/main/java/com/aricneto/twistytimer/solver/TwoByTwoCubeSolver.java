@@ -0,0 +1,176 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.ArrayList;
+
+/**
+ * Finds every optimal solution of a 2x2 cube, in U, R and F moves, which keep the DLB corner in
+ * place, with an {@link OptimalSolver}.
+ *
+ * There are 5,040 permutations and 729 orientations of the other 7 corners, 3,674,160 positions
+ * in all, so the table takes 918,540 bytes.
+ */
+public class TwoByTwoCubeSolver {
+
+    // U, R and F, as indices into PatternSolver.MOVE_NAMES
+    private static final int[] MOVES = { 0, 1, 2, 9, 10, 11, 12, 13, 14 };
+
+    private static final int N_CORNERS = 7;
+    // The corner that stays in place, numbered as in State
+    private static final int FIXED_CORNER = 4;
+
+    private static final int N_PERMUTATIONS = 5040;
+    private static final int N_ORIENTATIONS = 729;
+
+    private static final int SOLVED = 0;
+
+    // Changed whenever the table is laid out differently
+    private static final String FILE_NAME = "222-distances-1";
+
+    // The 24 ways to hold the cube, as corner permutations
+    private static final State[] ROTATIONS = new State[CubeState.N_ROTATIONS];
+
+    static {
+        State[] upRotations = {
+                State.id, CubeState.X, CubeState.X.multiply(CubeState.X),
+                CubeState.X.multiply(CubeState.X).multiply(CubeState.X),
+                CubeState.Z, CubeState.Z.multiply(CubeState.Z).multiply(CubeState.Z),
+                };
+        for (int i = 0; i < upRotations.length; i++) {
+            State rotation = upRotations[i];
+            for (int j = 0; j < 4; j++) {
+                ROTATIONS[i * 4 + j] = rotation;
+                rotation = rotation.multiply(CubeState.Y);
+            }
+        }
+    }
+
+    // tables, built by the first solve and dropped by release()
+    private static volatile OptimalSolver sSolver;
+
+    private TwoByTwoCubeSolver() {
+    }
+
+    static OptimalSolver getSolver() {
+        // Two threads solving at once may both build it, which only wastes a little time
+        OptimalSolver solver = sSolver;
+        if (solver == null) {
+            solver = buildSolver();
+            sSolver = solver;
+        }
+        return solver;
+    }
+
+    private static OptimalSolver buildSolver() {
+        State[] moves = new State[MOVES.length];
+        for (int m = 0; m < MOVES.length; m++)
+            moves[m] = PatternSolver.MOVES[MOVES[m]];
+
+        MoveTable permutationMove = new MoveTable(N_PERMUTATIONS, MOVES.length);
+        byte[] moved = new byte[N_CORNERS];
+        for (int index = 0; index < N_PERMUTATIONS; index++) {
+            byte[] permutation = IndexMapping.indexToPermutation(index, N_CORNERS);
+            for (int m = 0; m < MOVES.length; m++) {
+                for (int i = 0; i < N_CORNERS; i++)
+                    moved[i] = permutation[toSlot(moves[m].cornersPermutation[toPosition(i)])];
+                permutationMove.set(index, m, IndexMapping.permutationToIndex(moved));
+            }
+        }
+
+        MoveTable orientationMove = new MoveTable(N_ORIENTATIONS, MOVES.length);
+        for (int index = 0; index < N_ORIENTATIONS; index++) {
+            byte[] orientation = IndexMapping.indexToZeroSumOrientation(index, 3, N_CORNERS);
+            for (int m = 0; m < MOVES.length; m++) {
+                for (int i = 0; i < N_CORNERS; i++) {
+                    int position = toPosition(i);
+                    moved[i] = (byte) ((orientation[toSlot(moves[m].cornersPermutation[position])]
+                            + moves[m].cornersOrientation[position]) % 3);
+                }
+                orientationMove.set(index, m, IndexMapping.zeroSumOrientationToIndex(moved, 3));
+            }
+        }
+
+        return new OptimalSolver(FILE_NAME, permutationMove, orientationMove, 3, SOLVED);
+    }
+
+    // The 7 corners other than DLB are numbered 0 to 6 in the coordinates
+    private static int toPosition(int slot) {
+        return slot < FIXED_CORNER ? slot : slot + 1;
+    }
+
+    private static int toSlot(int position) {
+        return position < FIXED_CORNER ? position : position - 1;
+    }
+
+    /**
+     * The memory used by the tables, in bytes, or 0 if they aren't built.
+     */
+    static long getResidentSize() {
+        OptimalSolver solver = sSolver;
+        return solver == null ? 0 : solver.getResidentSize();
+    }
+
+    /**
+     * Drops the tables. The next solve reads them again, and a solve already running keeps them
+     * until it's done.
+     */
+    static void release() {
+        sSolver = null;
+    }
+
+    /**
+     * Returns the same 2x2 position, with the corners renamed after the one at DLB: a 2x2 has no
+     * centers, so the cube is solved whichever way it's held, and a scramble that turns D, L or B
+     * only leaves it held differently. Solving the result in U, R and F solves the scramble.
+     */
+    public static CubeState toFixedCorner(CubeState state) {
+        State scrambled = state.toState();
+        for (State rotation : ROTATIONS) {
+            State renamed = rotation.multiply(scrambled);
+            if (renamed.cornersPermutation[FIXED_CORNER] == FIXED_CORNER
+                    && renamed.cornersOrientation[FIXED_CORNER] == 0)
+                return new CubeState(renamed);
+        }
+        throw new IllegalStateException("No rotation of the cube solves the DLB corner");
+    }
+
+    /**
+     * The number of moves of an optimal solution.
+     *
+     * @param state A cube with the DLB corner solved, see {@link #toFixedCorner(CubeState)}
+     */
+    public static int getDistance(CubeState state) {
+        return getSolver().getDistance(getIndex(state));
+    }
+
+    /**
+     * Returns every optimal solution, as indices into {@link PatternSolver#MOVE_NAMES}.
+     *
+     * @param state        A cube with the DLB corner solved, see {@link #toFixedCorner(CubeState)}
+     * @param maxSolutions Stop after finding this many
+     */
+    public static ArrayList<int[]> solve(CubeState state, int maxSolutions) {
+        ArrayList<int[]> solutions = getSolver().solve(getIndex(state), maxSolutions);
+        for (int[] solution : solutions) {
+            for (int i = 0; i < solution.length; i++)
+                solution[i] = MOVES[solution[i]];
+        }
+        return solutions;
+    }
+
+    private static int getIndex(CubeState state) {
+        if (state.getCornerPermutation(FIXED_CORNER) != FIXED_CORNER
+                || state.getCornerOrientation(FIXED_CORNER) != 0)
+            throw new IllegalArgumentException("The DLB corner isn't solved");
+
+        byte[] permutation = new byte[N_CORNERS];
+        byte[] orientation = new byte[N_CORNERS];
+        for (int i = 0; i < N_CORNERS; i++) {
+            permutation[i] = (byte) toSlot(state.getCornerPermutation(toPosition(i)));
+            orientation[i] = (byte) state.getCornerOrientation(toPosition(i));
+        }
+        return getSolver().getIndex(IndexMapping.permutationToIndex(permutation),
+                IndexMapping.zeroSumOrientationToIndex(orientation, 3));
+    }
+}
@@ -0,0 +1,242 @@
+package com.aricneto.twistytimer.stats;
+
+/**
+ * Averages over a list of solve times. This is plain Java with no Android dependencies, so it can
+ * be benchmarked and checked on the JVM. DatabaseHandler only loads the times and hands them over.
+ *
+ * Every method takes the times ordered from the most recent to the oldest (date DESC), together
+ * with a parallel array telling which of them are DNFs. Times already include +2 penalties.
+ *
+ * The results match what DatabaseHandler used to compute while walking its cursors, quirks
+ * included, so the numbers shown to the user don't change.
+ */
+public final class SolveStatistics {
+
+    /**
+     * Marks a DNF in {@link #listOfTruncatedAverageOf}. Same value as PuzzleUtils.TIME_DNF.
+     */
+    public static final int TIME_DNF = - 1;
+
+    private static final int[] NO_TIMES = new int[0];
+
+    private SolveStatistics() {
+    }
+
+    /**
+     * Returns the truncated average of the n most recent times: the best and worst times are
+     * left out and the rest are averaged. A DNF always counts as the worst time.
+     *
+     * @param times         The times, most recent first
+     * @param dnfs          True for every time that is a DNF
+     * @param length        How many entries of the arrays are used
+     * @param n             The "average of" (5, 12...)
+     * @param disqualifyDNF True if 2 DNFs disqualify the attempt
+     *
+     * @return The average, -1 if the average is a DNF, or 0 if there are fewer than n times
+     */
+    public static int truncatedAverageOf(int[] times, boolean[] dnfs, int length, int n, boolean disqualifyDNF) {
+        if (length < n || n <= 0)
+            return 0;
+
+        int worst = 0;
+        int best = Integer.MAX_VALUE;
+        int sum = 0;
+        int dnfCount = 0;
+        for (int i = 0; i < n; i++) {
+            int time = times[i];
+            sum += time;
+
+            if (time > worst && dnfCount == 0)
+                worst = time;
+            if (time < best && ! dnfs[i])
+                best = time;
+
+            if (dnfs[i]) {
+                worst = time;
+                dnfCount += 1;
+            }
+        }
+
+        if (disqualifyDNF && dnfCount > 1)
+            return TIME_DNF;
+        return (sum - worst - best) / (n - 2);
+    }
+
+    /**
+     * Returns the n most recent times (DNFs replaced by {@link #TIME_DNF}), followed by their
+     * truncated average as computed by {@link #truncatedAverageOf}.
+     *
+     * @return n + 1 values, or an empty array if there are fewer than n times
+     */
+    public static int[] listOfTruncatedAverageOf(int[] times, boolean[] dnfs, int length, int n, boolean disqualifyDNF) {
+        if (length < n || n <= 0)
+            return NO_TIMES;
+
+        int[] list = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            list[i] = dnfs[i] ? TIME_DNF : times[i];
+        }
+        list[n] = truncatedAverageOf(times, dnfs, length, n, disqualifyDNF);
+        return list;
+    }
+
+    /**
+     * Returns the best truncated average of n consecutive times.
+     *
+     * Every window of n times is looked at once, keeping the window's sum, its worst time and its
+     * best non-DNF time up to date as it slides, so this runs in linear time whatever n is.
+     *
+     * @param times         The times, most recent first
+     * @param dnfs          True for every time that is a DNF
+     * @param length        How many entries of the arrays are used
+     * @param n             The "average of" (3, 5, 12...). For 3 it's a plain mean
+     * @param disqualifyDNF True if DNFs count as DNFs. If false, a DNF is just its time
+     *
+     * @return The best average, or 0 if there is none
+     */
+    public static int bestAverageOf(int[] times, boolean[] dnfs, int length, int n, boolean disqualifyDNF) {
+        if (length < n || n <= 0)
+            return 0;
+
+        // Sliding maximum over all the times, and sliding minimum over the non-DNF times. Both
+        // keep the indices of the candidates, each index is pushed and popped at most once.
+        int[] maxQueue = new int[length];
+        int maxHead = 0;
+        int maxTail = 0;
+        int[] minQueue = new int[length];
+        int minHead = 0;
+        int minTail = 0;
+
+        int sum = 0;
+        int dnfCount = 0;
+        // With a single DNF in the window, this is the DNF's time
+        int dnfTimeSum = 0;
+
+        int bestAverage = Integer.MAX_VALUE;
+
+        for (int i = 0; i < length; i++) {
+            // Add time i to the window
+            int time = times[i];
+            sum += time;
+            while (maxTail > maxHead && times[maxQueue[maxTail - 1]] <= time)
+                maxTail--;
+            maxQueue[maxTail++] = i;
+            if (dnfs[i]) {
+                dnfCount++;
+                dnfTimeSum += time;
+            } else {
+                while (minTail > minHead && times[minQueue[minTail - 1]] >= time)
+                    minTail--;
+                minQueue[minTail++] = i;
+            }
+
+            // Drop time i - n from the window
+            int start = i - n + 1;
+            if (start > 0) {
+                int removed = start - 1;
+                sum -= times[removed];
+                if (dnfs[removed]) {
+                    dnfCount--;
+                    dnfTimeSum -= times[removed];
+                }
+            }
+            if (start < 0)
+                continue;
+            while (maxQueue[maxHead] < start)
+                maxHead++;
+            while (minTail > minHead && minQueue[minHead] < start)
+                minHead++;
+
+            int best = minTail > minHead ? times[minQueue[minHead]] : Integer.MAX_VALUE;
+            int worst = times[maxQueue[maxHead]];
+            int windowDnfs = disqualifyDNF ? dnfCount : 0;
+
+            if (windowDnfs > 1)
+                continue;
+            if (windowDnfs == 1)
+                worst = dnfTimeSum;
+
+            int average = Integer.MAX_VALUE;
+            if (n == 3) {
+                if (windowDnfs == 0)
+                    average = sum / 3;
+            } else
+                average = (sum - worst - best) / (n - 2);
+
+            if (average < bestAverage)
+                bestAverage = average;
+        }
+
+        return bestAverage == Integer.MAX_VALUE ? 0 : bestAverage;
+    }
+
+    /**
+     * Returns the mean of the n most recent non-DNF times. Faster than a real average, since
+     * nothing is truncated.
+     *
+     * @param times  The non-DNF times, most recent first
+     * @param length How many entries of the array are used
+     * @param n      The "average of" (5, 12...)
+     *
+     * @return The mean, or 0 if there are fewer than n times
+     */
+    public static int fastAverageOf(int[] times, int length, int n) {
+        if (length < n || n <= 0)
+            return 0;
+
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += times[i];
+        }
+        // SQLite's AVG returned a real, which the cursor truncated
+        return (int) (long) ((double) sum / n);
+    }
+
+    /**
+     * Returns the mean of every time, like SQLite's AVG(time) read as an int.
+     *
+     * @param times  The non-DNF times
+     * @param length How many entries of the array are used
+     *
+     * @return The mean, or 0 if there are no times
+     */
+    public static int mean(int[] times, int length) {
+        return fastAverageOf(times, length, length);
+    }
+
+    /**
+     * Returns the best (lowest) time.
+     *
+     * @param times  The non-DNF times
+     * @param length How many entries of the array are used
+     *
+     * @return The best time, or 0 if there are no times
+     */
+    public static int bestTime(int[] times, int length) {
+        if (length <= 0)
+            return 0;
+        int best = times[0];
+        for (int i = 1; i < length; i++) {
+            if (times[i] < best)
+                best = times[i];
+        }
+        return best;
+    }
+
+    /**
+     * Returns the worst (highest) time.
+     *
+     * @param times  The non-DNF times
+     * @param length How many entries of the array are used
+     *
+     * @return The worst time, or 0 if there are no times
+     */
+    public static int worstTime(int[] times, int length) {
+        int worst = 0;
+        for (int i = 0; i < length; i++) {
+            if (times[i] > worst)
+                worst = times[i];
+        }
+        return worst;
+    }
+}
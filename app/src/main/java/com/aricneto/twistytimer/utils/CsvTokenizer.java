@@ -0,0 +1,219 @@
+package com.aricneto.twistytimer.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a CSV file one record at a time.
+ *
+ * Only the current record is kept in memory, in a single char buffer that is reused for every
+ * record, so reading a file of any size takes the same memory. Fields can be read as numbers
+ * straight from that buffer, without creating a String.
+ *
+ * Fields may be quoted. A quoted field can contain the separator, line breaks and quotes (written
+ * twice, as in ""). Line breaks in a quoted field are read as '\n', whatever the file uses, as
+ * opencsv did. Empty lines are skipped.
+ */
+public class CsvTokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char   separator;
+
+    // Input buffer
+    private final char[] in = new char[BUFFER_SIZE];
+    private int  inLength;
+    private int  inPosition;
+    private long charsRead;
+
+    // The current record: the unquoted contents of every field, one after the other
+    private char[] record      = new char[256];
+    private int    recordLength;
+    private int[]  fieldStarts = new int[16];
+    private int[]  fieldEnds   = new int[16];
+    private int    fieldCount;
+
+    public CsvTokenizer(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return False if the end of the file was reached
+     */
+    public boolean nextRecord() throws IOException {
+        int c;
+        // Skip empty lines
+        do {
+            c = read();
+        } while (c == '\n' || c == '\r');
+        if (c == - 1)
+            return false;
+
+        recordLength = 0;
+        fieldCount = 0;
+        boolean quoted = false;
+        boolean fieldQuoted = false;
+        startField();
+
+        while (true) {
+            if (quoted) {
+                if (c == - 1) {
+                    // Unterminated quote, take what we have
+                    endField();
+                    return true;
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else if (c == '\r') {
+                    skipLineFeed();
+                    append('\n');
+                } else {
+                    append((char) c);
+                }
+            } else {
+                if (c == - 1 || c == '\n' || c == '\r') {
+                    endField();
+                    if (c == '\r')
+                        skipLineFeed();
+                    return true;
+                }
+                if (c == separator) {
+                    endField();
+                    startField();
+                    fieldQuoted = false;
+                } else if (c == '"' && ! fieldQuoted && fieldStarts[fieldCount] == recordLength) {
+                    quoted = true;
+                    fieldQuoted = true;
+                } else {
+                    append((char) c);
+                }
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns how many fields the current record has.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns how many characters were consumed so far. Useful to show progress.
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    public String getString(int field) {
+        checkField(field);
+        return new String(record, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * Parses a field as an int, without creating a String.
+     *
+     * @throws NumberFormatException If the field is not a valid int
+     */
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new NumberFormatException("Out of range: " + getString(field));
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a long, without creating a String.
+     *
+     * @throws NumberFormatException If the field is not a valid long
+     */
+    public long getLong(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+
+        boolean negative = false;
+        if (start < end && (record[start] == '-' || record[start] == '+')) {
+            negative = record[start] == '-';
+            start++;
+        }
+        if (start == end || end - start > 19)
+            throw new NumberFormatException("Not a number: " + getString(field));
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException("Not a number: " + getString(field));
+            value = value * 10 - digit;
+            if (value > 0)
+                throw new NumberFormatException("Out of range: " + getString(field));
+        }
+        if (! negative) {
+            if (value == Long.MIN_VALUE)
+                throw new NumberFormatException("Out of range: " + getString(field));
+            value = - value;
+        }
+        return value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount)
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount);
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = recordLength;
+    }
+
+    private void endField() {
+        fieldEnds[fieldCount] = recordLength;
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length)
+            record = Arrays.copyOf(record, recordLength * 2);
+        record[recordLength++] = c;
+    }
+
+    private void skipLineFeed() throws IOException {
+        if (fill() && in[inPosition] == '\n') {
+            inPosition++;
+            charsRead++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (! fill())
+            return - 1;
+        charsRead++;
+        return in[inPosition++];
+    }
+
+    // Returns false at the end of the input
+    private boolean fill() throws IOException {
+        if (inPosition < inLength)
+            return true;
+        inLength = reader.read(in, 0, in.length);
+        inPosition = 0;
+        return inLength > 0;
+    }
+}
@@ -0,0 +1,184 @@
+package com.aricneto.twistytimer.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs, stored in a single long array with open addressing and linear probing.
+ *
+ * Unlike a {@code HashSet<Long>} or a {@code List<Long>}, adding, removing and looking up an id
+ * doesn't box it and takes constant time, so it stays fast with thousands of selected solves.
+ */
+public class LongHashSet {
+
+    // Marks an empty slot. A zero key is tracked separately in hasZero
+    private static final long FREE = 0;
+
+    private static final int   MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR  = 0.5f;
+
+    private long[]  keys;
+    private int     mask;
+    private int     size;
+    private boolean hasZero;
+
+    // Grow when size reaches this
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expected How many values the set should hold without growing
+     */
+    public LongHashSet(int expected) {
+        allocate(tableSizeFor(expected));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE)
+            return hasZero;
+        int slot = slot(key);
+        while (true) {
+            long existing = keys[slot];
+            if (existing == FREE)
+                return false;
+            if (existing == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return True if the key wasn't in the set
+     */
+    public boolean add(long key) {
+        if (key == FREE) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = slot(key);
+        while (true) {
+            long existing = keys[slot];
+            if (existing == FREE)
+                break;
+            if (existing == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++ size >= resizeAt)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * @return True if the key was in the set
+     */
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (! hasZero)
+                return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+
+        int slot = slot(key);
+        while (true) {
+            long existing = keys[slot];
+            if (existing == FREE)
+                return false;
+            if (existing == key)
+                break;
+            slot = (slot + 1) & mask;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * Returns the values in no particular order.
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int count = 0;
+        if (hasZero)
+            values[count++] = 0;
+        for (long key : keys) {
+            if (key != FREE)
+                values[count++] = key;
+        }
+        return values;
+    }
+
+    // Closes the gap left by a removed key, moving back the keys after it that would no longer
+    // be found, so lookups never need tombstones
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE)
+                break;
+            int home = slot(key);
+            // Move the key if its home slot is not between the gap and its current slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                gap = slot;
+            }
+        }
+        keys[gap] = FREE;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key != FREE) {
+                int slot = slot(key);
+                while (keys[slot] != FREE)
+                    slot = (slot + 1) & mask;
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        // Ids are sequential, so mix the bits before taking the low ones
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR <= expected)
+            capacity <<= 1;
+        return capacity;
+    }
+}
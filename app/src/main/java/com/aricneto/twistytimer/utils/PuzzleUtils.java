@@ -7,16 +7,12 @@ import android.support.annotation.StringRes;
 
 import com.aricneto.twistify.R;
 import com.aricneto.twistytimer.database.DatabaseHandler;
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.items.Solve;
 
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Locale;
-import java.util.Scanner;
 import java.util.Set;
 
 /**
@@ -113,69 +109,15 @@ public class PuzzleUtils {
     }
 
     public static String convertTimeToString(int time) {
-
-        if (time == TIME_DNF)
-            return "DNF";
-        if (time == 0)
-            return "--";
-
-        // Magic (not-so-magic actually) numbers below
-        int hours = time / 3600000; // 3600 * 1000
-        int remaining = time % 3600000; // 3600 * 1000
-        int minutes = remaining / 60000; // 60 * 1000
-
-        if (hours > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("k':'mm':'ss");
-
-        else if (minutes > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("m':'ss'.'SS");
-
-        else
-            return new DateTime(time, DateTimeZone.UTC).toString("s'.'SS");
+        return TimeCodec.toString(time, TimeCodec.STYLE_DEFAULT);
     }
 
     public static String convertTimeToStringWithSmallDecimal(int time) {
-
-        if (time == TIME_DNF)
-            return "DNF";
-        if (time == 0)
-            return "--";
-
-        // Magic (not-so-magic actually) numbers below
-        int hours = time / 3600000; // 3600 * 1000
-        int remaining = time % 3600000; // 3600 * 1000
-        int minutes = remaining / 60000; // 60 * 1000
-
-        if (hours > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("k':'mm'<small>:'ss'</small>'");
-
-        else if (minutes > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("m':'ss'<small>.'SS'</small>'");
-
-        else
-            return new DateTime(time, DateTimeZone.UTC).toString("s'<small>.'SS'</small>'");
+        return TimeCodec.toString(time, TimeCodec.STYLE_SMALL_DECIMAL);
     }
 
     public static String convertTimeToStringWithoutMilli(int time) {
-
-        if (time == - 1)
-            return "DNF";
-        if (time == 0)
-            return "--";
-
-        // Magic (not-so-magic actually) numbers below
-        int hours = time / 3600000; // 3600 * 1000
-        int remaining = time % 3600000; // 3600 * 1000
-        int minutes = remaining / 60000; // 60 * 1000
-
-        if (hours > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("kk':'mm':'ss");
-
-        else if (minutes > 0)
-            return new DateTime(time, DateTimeZone.UTC).toString("mm':'ss");
-
-        else
-            return new DateTime(time, DateTimeZone.UTC).toString("s");
+        return TimeCodec.toString(time, TimeCodec.STYLE_NO_MILLIS);
     }
 
 
@@ -193,58 +135,19 @@ public class PuzzleUtils {
 
 
     /**
-     * Converts times such as 00:00.00 into int for storage
-     * Code shamelessly stolen from Prisma Puzzle Timer (love you).
+     * Converts times such as 00:00.00 into int for storage. See {@link TimeCodec#parse(CharSequence)}
+     * for the accepted forms. A penalty written after the time is ignored.
      *
      * @param input
      *
-     * @return time in millis
+     * @return time in millis, rounded to hundredths, or 0 if the input isn't a time
      */
-    public static int parseTime(String input) {
-        Scanner scanner = new Scanner(input.trim());
-        scanner.useLocale(Locale.ENGLISH);
-
-        int time;
-
-        // 00:00.00
-        if (input.contains(":")) {
-            scanner.useDelimiter(":");
-
-            if (! scanner.hasNextLong()) {
-                return 0;
-            }
-
-            long minutes = scanner.nextLong();
-            if (minutes < 0) {
-                return 0;
-            }
-
-            if (! scanner.hasNextDouble()) {
-                return 0;
-            }
-
-            double seconds = scanner.nextDouble();
-            if (seconds < 0.0 || seconds >= 60.0) {
-                return 0;
-            }
-
-            time = (int) (60000 * minutes + 1000 * seconds);
-        }
-
-        // 00.00
-        else {
-            if (! scanner.hasNextDouble()) {
-                return 0;
-            }
-
-            double seconds = scanner.nextDouble();
-            if (seconds < 0.0) {
-                return 0;
-            }
-
-            time = (int) (1000 * seconds);
-        }
+    public static int parseTime(CharSequence input) {
+        long parsed = TimeCodec.parse(input);
+        if (parsed == TimeCodec.INVALID)
+            return 0;
 
+        int time = TimeCodec.timeOf(parsed);
         return 10 * ((time + 5) / 10);
     }
 
@@ -391,6 +294,8 @@ public class PuzzleUtils {
 
 
     public static String createHistogramOf(String currentPuzzle, String currentPuzzleSubtype, DatabaseHandler dbHandler) {
+        // The query only runs when the cursor is read, so it's timed here rather than in the handler
+        long latencyStart = Latency.start();
         Cursor cursor = dbHandler.getAllSolvesFromWithLimit(100, currentPuzzle, currentPuzzleSubtype, false);
 
 
@@ -407,6 +312,8 @@ public class PuzzleUtils {
                 time = - 1;
             timeList.add(time);
         }
+        cursor.close();
+        Latency.stop("db.getAllSolvesFromWithLimit", latencyStart);
 
         StringBuilder histogram = new StringBuilder();
 
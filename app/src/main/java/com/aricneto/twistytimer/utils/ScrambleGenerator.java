@@ -4,13 +4,17 @@ import android.content.SharedPreferences;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.PictureDrawable;
 
+import com.aricneto.twistytimer.diagnostics.Latency;
 import com.aricneto.twistytimer.puzzle.NbyNCubePuzzle;
+import com.aricneto.twistytimer.solver.RubiksCubeScrambler;
 import com.caverock.androidsvg.SVG;
 import com.caverock.androidsvg.SVGParseException;
 
 import net.gnehzr.tnoodle.scrambles.InvalidScrambleException;
 import net.gnehzr.tnoodle.scrambles.Puzzle;
 
+import java.security.SecureRandom;
+
 import puzzle.ClockPuzzle;
 import puzzle.MegaminxPuzzle;
 import puzzle.NoInspectionFiveByFiveCubePuzzle;
@@ -28,6 +32,8 @@ public class ScrambleGenerator {
     private Puzzle puzzle;
     private String finalScramble;
     private String puzzleType;
+    // Generates the 3x3 scrambles instead of TNoodle, if the user chose it
+    private RubiksCubeScrambler scrambler;
 
     public ScrambleGenerator(String type) {
         puzzleType = type;
@@ -68,6 +74,25 @@ public class ScrambleGenerator {
         }
     }
 
+    /**
+     * Generates the 3x3 scrambles with the built-in solver if fastScrambles is true, which saves
+     * building the tables of TNoodle's 3x3.
+     */
+    public ScrambleGenerator(String type, boolean fastScrambles) {
+        this(type);
+        if (fastScrambles && type.equals(PuzzleUtils.TYPE_333))
+            scrambler = new RubiksCubeScrambler(new SecureRandom(), RubiksCubeScrambler.DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Returns a new random-state scramble.
+     */
+    public String generateScramble() {
+        if (scrambler != null)
+            return scrambler.generateScramble();
+        return puzzle.generateScramble();
+    }
+
     public Puzzle getPuzzle() {
         return puzzle;
     }
@@ -84,6 +109,8 @@ public class ScrambleGenerator {
      */
 
     public Drawable generateImageFromScramble(SharedPreferences sp, String scramble) {
+        long latencyStart = Latency.start();
+
         // Getting the color scheme
         String top;
         String left;
@@ -126,6 +153,7 @@ public class ScrambleGenerator {
             }
         }
 
+        Latency.stop("scramble.image", latencyStart);
         return pic;
     }
 }
@@ -0,0 +1,344 @@
+package com.aricneto.twistytimer.utils;
+
+/**
+ * Parses and formats solve times without creating garbage. This is plain Java with no Android
+ * dependencies, so it can be benchmarked and checked on the JVM.
+ *
+ * Formatting writes into a buffer supplied by the caller and gives the same text as the old
+ * Joda-Time based formatters in {@link PuzzleUtils}. Parsing reads from any CharSequence, without
+ * split() or regular expressions.
+ */
+public final class TimeCodec {
+
+    /**
+     * "1:02:03", "1:02.34" or "12.34"
+     */
+    public static final int STYLE_DEFAULT       = 0;
+    /**
+     * Same as {@link #STYLE_DEFAULT} with the decimals (or seconds) in a small html tag
+     */
+    public static final int STYLE_SMALL_DECIMAL = 1;
+    /**
+     * "01:02:03", "01:02" or "12"
+     */
+    public static final int STYLE_NO_MILLIS     = 2;
+
+    /**
+     * The longest text {@link #format(int, int, char[], int)} can write.
+     */
+    public static final int MAX_LENGTH = 40;
+
+    /**
+     * Returned by {@link #parse(CharSequence, int, int)} when the text isn't a time.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    // Same values as in PuzzleUtils
+    public static final int TIME_DNF        = - 1;
+    public static final int NO_PENALTY      = 0;
+    public static final int PENALTY_PLUSTWO = 1;
+    public static final int PENALTY_DNF     = 2;
+
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final int MILLIS_PER_HOUR   = 60 * MILLIS_PER_MINUTE;
+
+    private static final char[] DNF         = { 'D', 'N', 'F' };
+    private static final char[] NO_TIME     = { '-', '-' };
+    private static final char[] SMALL_OPEN  = "<small>".toCharArray();
+    private static final char[] SMALL_CLOSE = "</small>".toCharArray();
+
+    private TimeCodec() {
+    }
+
+    /**
+     * Formats a time.
+     *
+     * @param time   The time in milliseconds. {@link #TIME_DNF} gives "DNF", 0 gives "--" and
+     *               other negative values get a minus sign
+     * @param style  One of the STYLE constants
+     * @param buffer Receives the text. Must have {@link #MAX_LENGTH} chars free from offset
+     * @param offset Where to start writing
+     *
+     * @return How many chars were written
+     */
+    public static int format(int time, int style, char[] buffer, int offset) {
+        if (time == TIME_DNF)
+            return put(DNF, buffer, offset) - offset;
+        if (time == 0)
+            return put(NO_TIME, buffer, offset) - offset;
+
+        int i = offset;
+        // A difference between two times can be negative
+        if (time < 0) {
+            buffer[i++] = '-';
+            time = - time;
+        }
+
+        int hours = time / MILLIS_PER_HOUR;
+        int minutes = time % MILLIS_PER_HOUR / MILLIS_PER_MINUTE;
+        int seconds = time % MILLIS_PER_MINUTE / MILLIS_PER_SECOND;
+        int centis = time % MILLIS_PER_SECOND / 10;
+        // Times are printed as a time of day, so hours wrap like a clock, from 1 to 24
+        int clockHours = hours % 24 == 0 ? 24 : hours % 24;
+
+        switch (style) {
+            case STYLE_NO_MILLIS:
+                if (hours > 0) {
+                    i = putTwoDigits(clockHours, buffer, i);
+                    buffer[i++] = ':';
+                    i = putTwoDigits(minutes, buffer, i);
+                    buffer[i++] = ':';
+                    i = putTwoDigits(seconds, buffer, i);
+                } else if (minutes > 0) {
+                    i = putTwoDigits(minutes, buffer, i);
+                    buffer[i++] = ':';
+                    i = putTwoDigits(seconds, buffer, i);
+                } else {
+                    i = putNumber(seconds, buffer, i);
+                }
+                break;
+
+            default:
+                boolean small = style == STYLE_SMALL_DECIMAL;
+                if (hours > 0) {
+                    i = putNumber(clockHours, buffer, i);
+                    buffer[i++] = ':';
+                    i = putTwoDigits(minutes, buffer, i);
+                    if (small)
+                        i = put(SMALL_OPEN, buffer, i);
+                    buffer[i++] = ':';
+                    i = putTwoDigits(seconds, buffer, i);
+                } else {
+                    if (minutes > 0) {
+                        i = putNumber(minutes, buffer, i);
+                        buffer[i++] = ':';
+                        i = putTwoDigits(seconds, buffer, i);
+                    } else {
+                        i = putNumber(seconds, buffer, i);
+                    }
+                    if (small)
+                        i = put(SMALL_OPEN, buffer, i);
+                    buffer[i++] = '.';
+                    i = putTwoDigits(centis, buffer, i);
+                }
+                if (small)
+                    i = put(SMALL_CLOSE, buffer, i);
+                break;
+        }
+        return i - offset;
+    }
+
+    /**
+     * Formats a time at the end of a StringBuilder. Same as {@link #format(int, int, char[], int)}.
+     *
+     * @param scratch A buffer of at least {@link #MAX_LENGTH} chars, reused between calls
+     */
+    public static void append(int time, int style, StringBuilder out, char[] scratch) {
+        out.append(scratch, 0, format(time, style, scratch, 0));
+    }
+
+    /**
+     * Formats a time into a new String. Same as {@link #format(int, int, char[], int)}.
+     */
+    public static String toString(int time, int style) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(time, style, buffer, 0));
+    }
+
+    /**
+     * Parses a whole CharSequence. Same as {@link #parse(CharSequence, int, int)}.
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a time. Accepted forms, with any whitespace around them:
+     *
+     * "12.34", "12.345", "12" (seconds)
+     * "1:02.34", "75:02" (minutes and seconds)
+     * "1:02:03.45" (hours, minutes and seconds)
+     *
+     * followed by an optional "+" or "+2" for a +2 (the time already includes the two seconds,
+     * as it does everywhere in the app). "DNF" alone, "DNF(12.34)" or "12.34 DNF" are DNFs.
+     * Digits after the milliseconds are ignored.
+     *
+     * @return The time and the penalty, read with {@link #timeOf(long)} and
+     * {@link #penaltyOf(long)}, or {@link #INVALID}
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        start = skipSpaces(text, start, end);
+        end = trimSpaces(text, start, end);
+        if (start == end)
+            return INVALID;
+
+        int penalty = NO_PENALTY;
+
+        // DNF, DNF(time) or time DNF
+        if (startsWithIgnoreCase(text, start, end, DNF)) {
+            int i = skipSpaces(text, start + DNF.length, end);
+            if (i == end)
+                return pack(0, PENALTY_DNF);
+            if (text.charAt(i) != '(' || text.charAt(end - 1) != ')')
+                return INVALID;
+            start = i + 1;
+            end = end - 1;
+            penalty = PENALTY_DNF;
+        } else if (endsWithIgnoreCase(text, start, end, DNF)) {
+            end = trimSpaces(text, start, end - DNF.length);
+            penalty = PENALTY_DNF;
+        } else if (end - start >= 2 && text.charAt(end - 2) == '+' && text.charAt(end - 1) == '2') {
+            end = trimSpaces(text, start, end - 2);
+            penalty = PENALTY_PLUSTWO;
+        } else if (text.charAt(end - 1) == '+') {
+            end = trimSpaces(text, start, end - 1);
+            penalty = PENALTY_PLUSTWO;
+        }
+
+        long time = parseClock(text, start, end);
+        if (time == INVALID)
+            return INVALID;
+        return pack((int) time, penalty);
+    }
+
+    public static int timeOf(long parsed) {
+        return (int) parsed;
+    }
+
+    public static int penaltyOf(long parsed) {
+        return (int) (parsed >>> 32);
+    }
+
+    private static long pack(int time, int penalty) {
+        return ((long) penalty << 32) | (time & 0xFFFFFFFFL);
+    }
+
+    // Parses [[h:]m:]s[.fff]. Returns the time in milliseconds, or INVALID
+    private static long parseClock(CharSequence text, int start, int end) {
+        if (start >= end)
+            return INVALID;
+
+        // Up to three colon-separated integer parts, the last one may have decimals
+        long first = 0;
+        long second = 0;
+        int partCount = 0;
+        long value = 0;
+        int digits = 0;
+        int i = start;
+
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++ digits > 9)
+                    return INVALID;
+            } else if (c == ':') {
+                if (digits == 0 || partCount == 2)
+                    return INVALID;
+                if (partCount == 0)
+                    first = value;
+                else
+                    second = value;
+                partCount++;
+                value = 0;
+                digits = 0;
+            } else if (c == '.') {
+                break;
+            } else {
+                return INVALID;
+            }
+        }
+        if (digits == 0)
+            return INVALID;
+        // Two digits after a colon ("1:05"), but a single one is accepted like before
+        if (partCount > 0 && (digits > 2 || value >= 60))
+            return INVALID;
+
+        // Milliseconds
+        int millis = 0;
+        if (i < end) {
+            i++; // the '.'
+            if (i == end)
+                return INVALID;
+            int scale = 100;
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9')
+                    return INVALID;
+                millis += (c - '0') * scale;
+                scale /= 10;
+            }
+        }
+
+        long time;
+        switch (partCount) {
+            case 0:
+                time = value * MILLIS_PER_SECOND;
+                break;
+            case 1:
+                time = first * MILLIS_PER_MINUTE + value * MILLIS_PER_SECOND;
+                break;
+            default:
+                if (second >= 60)
+                    return INVALID;
+                time = first * MILLIS_PER_HOUR + second * MILLIS_PER_MINUTE + value * MILLIS_PER_SECOND;
+                break;
+        }
+        time += millis;
+        return time > Integer.MAX_VALUE ? INVALID : time;
+    }
+
+    private static int skipSpaces(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start)))
+            start++;
+        return start;
+    }
+
+    private static int trimSpaces(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1)))
+            end--;
+        return end;
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence text, int start, int end, char[] prefix) {
+        if (end - start < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (Character.toUpperCase(text.charAt(start + i)) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean endsWithIgnoreCase(CharSequence text, int start, int end, char[] suffix) {
+        return end - start >= suffix.length && startsWithIgnoreCase(text, end - suffix.length, end, suffix);
+    }
+
+    private static int put(char[] chars, char[] buffer, int offset) {
+        System.arraycopy(chars, 0, buffer, offset, chars.length);
+        return offset + chars.length;
+    }
+
+    private static int putTwoDigits(int value, char[] buffer, int offset) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+        return offset + 2;
+    }
+
+    // Writes a non-negative number without padding
+    private static int putNumber(int value, char[] buffer, int offset) {
+        if (value < 10) {
+            buffer[offset] = (char) ('0' + value);
+            return offset + 1;
+        }
+        int digits = 0;
+        for (int v = value; v > 0; v /= 10)
+            digits++;
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+}
@@ -0,0 +1,60 @@
+package com.aricneto.twistytimer.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.aricneto.twistify.R;
+import com.aricneto.twistytimer.solver.PyraminxOptimalSolution;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalBlock;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalCross;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalEOLine;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalFirstBlock;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalPair;
+import com.aricneto.twistytimer.solver.RubiksCubeOptimalXCross;
+import com.aricneto.twistytimer.solver.SkewbOptimalSolution;
+import com.aricneto.twistytimer.solver.Tip;
+import com.aricneto.twistytimer.solver.TwoByTwoCubeOptimalSolution;
+
+import java.util.ArrayList;
+
+/**
+ * The tips the user chose to see, shared by the timer and the solve details.
+ */
+public class TipUtils {
+
+    /**
+     * Whether a puzzle has any tips.
+     */
+    public static boolean hasTips(String puzzle) {
+        return puzzle.equals(PuzzleUtils.TYPE_333) || puzzle.equals(PuzzleUtils.TYPE_222)
+                || puzzle.equals(PuzzleUtils.TYPE_PYRA) || puzzle.equals(PuzzleUtils.TYPE_SKEWB);
+    }
+
+    /**
+     * Returns the tips enabled in the preferences for a puzzle, or an empty array if the puzzle
+     * has none or they're turned off.
+     */
+    public static Tip[] getTips(Context context, SharedPreferences sharedPreferences, String puzzle) {
+        ArrayList<Tip> tips = new ArrayList<>();
+        if (sharedPreferences.getBoolean("showHints", true) && puzzle.equals(PuzzleUtils.TYPE_333)) {
+            tips.add(new RubiksCubeOptimalCross(context.getString(R.string.optimal_cross)));
+            if (sharedPreferences.getBoolean("showHintsXCross", false))
+                tips.add(new RubiksCubeOptimalXCross(context.getString(R.string.optimal_x_cross)));
+            if (sharedPreferences.getBoolean("showHintsEOLine", false))
+                tips.add(new RubiksCubeOptimalEOLine(context.getString(R.string.optimal_eoline)));
+            if (sharedPreferences.getBoolean("showHintsBlock", false))
+                tips.add(new RubiksCubeOptimalBlock(context.getString(R.string.optimal_block)));
+            if (sharedPreferences.getBoolean("showHintsFirstBlock", false))
+                tips.add(new RubiksCubeOptimalFirstBlock(context.getString(R.string.optimal_first_block)));
+            if (sharedPreferences.getBoolean("showHintsPair", false))
+                tips.add(new RubiksCubeOptimalPair(context.getString(R.string.optimal_pair)));
+        } else if (sharedPreferences.getBoolean("showHints", true) && puzzle.equals(PuzzleUtils.TYPE_222)) {
+            tips.add(new TwoByTwoCubeOptimalSolution(context.getString(R.string.optimal_solution)));
+        } else if (sharedPreferences.getBoolean("showHints", true) && puzzle.equals(PuzzleUtils.TYPE_PYRA)) {
+            tips.add(new PyraminxOptimalSolution(context.getString(R.string.optimal_solution)));
+        } else if (sharedPreferences.getBoolean("showHints", true) && puzzle.equals(PuzzleUtils.TYPE_SKEWB)) {
+            tips.add(new SkewbOptimalSolution(context.getString(R.string.optimal_solution)));
+        }
+        return tips.toArray(new Tip[tips.size()]);
+    }
+}
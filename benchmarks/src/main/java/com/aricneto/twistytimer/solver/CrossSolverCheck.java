@@ -0,0 +1,96 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Checks the bounded search of {@link RubiksCubeCrossSolver} and {@link RubiksCubeXCrossSolver}
+ * on the scramble corpus:
+ *
+ * - every solution solves the pieces, and no two are the same or differ only by the order of
+ *   turns of opposite faces
+ * - the shortest solutions are as short as the ones of the full search
+ * - a limited search returns the first solutions of the full one, and stops at the limit
+ * - with one extra move, the shortest solutions come first and none is longer than one more move
+ *
+ * ./gradlew :benchmarks:checkCrossSolver
+ */
+public class CrossSolverCheck {
+
+    private static final int MAX_SOLUTIONS = 3;
+
+    public static void main(String[] args) {
+        PatternCoordinate[] cross = {
+                PatternCoordinate.edges(8, 9, 10),
+                PatternCoordinate.edges(11),
+                };
+        PatternCoordinate[] xCross = {
+                PatternCoordinate.edges(8, 9, 10),
+                PatternCoordinate.edges(11, 0),
+                PatternCoordinate.corners(4),
+                };
+
+        for (String scramble : ScrambleCorpus.scrambles()) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            RubiksCubeSolver.State solverState = state.toState();
+
+            check("cross " + scramble, state, cross,
+                    RubiksCubeCrossSolver.solve(solverState, Integer.MAX_VALUE, 0),
+                    RubiksCubeCrossSolver.solve(solverState, MAX_SOLUTIONS, 0),
+                    RubiksCubeCrossSolver.solve(solverState, Integer.MAX_VALUE, 1));
+            check("X-cross " + scramble, state, xCross,
+                    RubiksCubeXCrossSolver.solve(solverState, Integer.MAX_VALUE, 0),
+                    RubiksCubeXCrossSolver.solve(solverState, MAX_SOLUTIONS, 0),
+                    RubiksCubeXCrossSolver.solve(solverState, Integer.MAX_VALUE, 1));
+        }
+        System.out.println("Cross and X-cross: OK");
+    }
+
+    private static void check(String name, CubeState state, PatternCoordinate[] pieces,
+                              ArrayList<int[]> all, ArrayList<int[]> limited, ArrayList<int[]> longer) {
+        if (all.isEmpty())
+            throw new AssertionError(name + ": no solution");
+        int length = all.get(0).length;
+        checkSolutions(name, state, pieces, all, length, length);
+        checkSolutions(name + " +1", state, pieces, longer, length, length + 1);
+
+        assertEquals(name + " limited count", Math.min(all.size(), MAX_SOLUTIONS), limited.size());
+        for (int i = 0; i < limited.size(); i++)
+            assertEquals(name + " limited " + i, getSequence(all.get(i)), getSequence(limited.get(i)));
+        for (int i = 0; i < all.size(); i++)
+            assertEquals(name + " +1 " + i, getSequence(all.get(i)), getSequence(longer.get(i)));
+    }
+
+    private static void checkSolutions(String name, CubeState state, PatternCoordinate[] pieces,
+                                       ArrayList<int[]> solutions, int minLength, int maxLength) {
+        HashSet<String> seen = new HashSet<String>();
+        CubeState solved = new CubeState();
+        for (int[] solution : solutions) {
+            String sequence = getSequence(solution);
+            if (solution.length < minLength || solution.length > maxLength)
+                throw new AssertionError(name + " " + sequence + ": length " + solution.length);
+            if (! seen.add(sequence))
+                throw new AssertionError(name + " " + sequence + ": found twice");
+            for (int i = 1; i < solution.length; i++) {
+                if (! PatternSolver.isCanonical(solution[i - 1] / 3, solution[i]))
+                    throw new AssertionError(name + " " + sequence + ": not in canonical order");
+            }
+
+            solved.set(state);
+            solved.apply(sequence);
+            for (PatternCoordinate coordinate : pieces)
+                assertEquals(name + " " + sequence + " " + coordinate, coordinate.getSolvedIndex(),
+                        coordinate.getIndex(solved));
+        }
+    }
+
+    private static String getSequence(int[] solution) {
+        return StringUtils.join(" ", PatternSolver.getMoveNames(solution));
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,81 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to fill a distance table with {@link DistanceTable}, on one thread and on all of them,
+ * against the rescanning loop of {@link LegacyDistanceTable}. The move tables are built once, so
+ * only the search is measured. {@link TableBuildBenchmark} has the full build of each solver.
+ *
+ * The tables, all from {@link PatternCoordinate}s:
+ * - cross:  the four D edges, as two pairs, 331,776 indices
+ * - pairs:  the DLF and DLB corners with the DF and DL edges, 331,776 indices
+ * - eo:     the orientation of every edge with where the DB, DR and DF edges are, 3,538,944
+ *           indices, most of them reachable
+ * - block:  the DLF and DLB corners with the DL, DB and BL edges, 7,962,624 indices
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistanceTableBenchmark {
+
+    @Param({ "cross", "pairs", "eo", "block" })
+    public String table;
+
+    private int                 size;
+    private DistanceTable.Moves moves;
+    private int                 goal;
+
+    @Setup
+    public void setUp() {
+        PatternCoordinate first;
+        PatternCoordinate second;
+        if (table.equals("cross")) {
+            first = PatternCoordinate.edges(8, 9);
+            second = PatternCoordinate.edges(10, 11);
+        } else if (table.equals("pairs")) {
+            first = PatternCoordinate.corners(4, 7);
+            second = PatternCoordinate.edges(10, 11);
+        } else if (table.equals("eo")) {
+            first = PatternCoordinate.edgesOrientation();
+            second = PatternCoordinate.edgePositions(8, 9, 10);
+        } else {
+            first = PatternCoordinate.corners(4, 7);
+            second = PatternCoordinate.edges(11, 8, 0);
+        }
+
+        size = first.getSize() * second.getSize();
+        moves = DistanceTable.of(first.getMoveTable(), second.getMoveTable());
+        goal = first.getSolvedIndex() * second.getSize() + second.getSolvedIndex();
+    }
+
+    @Benchmark
+    public byte[] legacy() {
+        return LegacyDistanceTable.build(size, moves, goal);
+    }
+
+    @Benchmark
+    public byte[] singleThread() {
+        return DistanceTable.build(size, moves, new int[] { goal }, 1);
+    }
+
+    @Benchmark
+    public byte[] allThreads() {
+        return DistanceTable.build(size, moves, goal);
+    }
+}
@@ -0,0 +1,57 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+
+/**
+ * Checks {@link DistanceTable} against {@link LegacyDistanceTable}, on one thread and split
+ * between several: tables of one and two coordinates, a table with several goals, tables with unreachable
+ * indices, and the pruning tables of the tips.
+ *
+ * ./gradlew :benchmarks:checkDistanceTable
+ */
+public class DistanceTableCheck {
+
+    private static final int PARTS = 4;
+
+    public static void main(String[] args) {
+        PatternCoordinate cross = PatternCoordinate.edges(8, 9, 10);
+        check("three D edges", cross.getSize(), DistanceTable.of(cross.getMoveTable()), cross.getSolvedIndex());
+
+        PatternCoordinate corners = PatternCoordinate.corners(4, 7);
+        PatternCoordinate edges = PatternCoordinate.edges(11, 8, 0);
+        check("block", corners.getSize() * edges.getSize(),
+                DistanceTable.of(corners.getMoveTable(), edges.getMoveTable()),
+                corners.getSolvedIndex() * edges.getSize() + edges.getSolvedIndex());
+
+        // The EO of every edge, solved with the edges flipped or not: two goals
+        PatternCoordinate orientation = PatternCoordinate.edgesOrientation();
+        check("edges orientation", orientation.getSize(),
+                DistanceTable.of(orientation.getMoveTable()),
+                orientation.getSolvedIndex(), orientation.getSize() - 1);
+
+        // Edge positions only: most values put two edges in the same place and can't be reached
+        PatternCoordinate positions = PatternCoordinate.edgePositions(10, 8, 4, 6);
+        check("edge positions", positions.getSize(),
+                DistanceTable.of(positions.getMoveTable()), positions.getSolvedIndex());
+
+        // Every pruning table of the tips goes through the same builder
+        PatternSolverCheck.main(new String[0]);
+    }
+
+    private static void check(String name, int size, DistanceTable.Moves moves, int... goals) {
+        byte[] expected = LegacyDistanceTable.build(size, moves, goals);
+        assertEquals(name + " on one thread", expected, DistanceTable.build(size, moves, goals, 1));
+        // Split in parts even on a single core
+        assertEquals(name + " in " + PARTS + " parts", expected, DistanceTable.build(size, moves, goals, PARTS));
+        System.out.println(name + ": OK");
+    }
+
+    private static void assertEquals(String what, byte[] expected, byte[] actual) {
+        if (! Arrays.equals(expected, actual)) {
+            int i = 0;
+            while (expected[i] == actual[i])
+                i++;
+            throw new AssertionError(what + ": index " + i + " expected " + expected[i] + " but was " + actual[i]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link IndexMapping} conversions the table builders and the two-phase
+ * search spend most of their time in, against {@link LegacyIndexMapping}. Inputs are generated
+ * from a fixed seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class IndexMappingBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private byte[][]    permutations;
+    private int[]       permutationIndices;
+    private byte[][]    orientations;
+    private int[]       orientationIndices;
+    private boolean[][] combinations;
+    private int[]       combinationIndices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(ScrambleCorpus.SEED);
+
+        permutations = new byte[INPUTS][];
+        permutationIndices = new int[INPUTS];
+        orientations = new byte[INPUTS][];
+        orientationIndices = new int[INPUTS];
+        combinations = new boolean[INPUTS][];
+        combinationIndices = new int[INPUTS];
+
+        for (int i = 0; i < INPUTS; i++) {
+            // 8 corners, like the corners permutation of the two-phase solver
+            permutationIndices[i] = random.nextInt(RubiksCubeSolver.N_CORNERS_PERMUTATIONS);
+            permutations[i] = IndexMapping.indexToPermutation(permutationIndices[i], 8);
+
+            // Corner orientations, 3 values with a zero sum
+            orientationIndices[i] = random.nextInt(RubiksCubeSolver.N_CORNERS_ORIENTATIONS);
+            orientations[i] = IndexMapping.indexToZeroSumOrientation(orientationIndices[i], 3, 8);
+
+            // 4 of 12 edges, like the E slice edges
+            combinationIndices[i] = random.nextInt(RubiksCubeSolver.N_E_EDGES_COMBINATIONS);
+            combinations[i] = IndexMapping.indexToCombination(combinationIndices[i], 4, 12);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void permutationToIndex(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.permutationToIndex(permutations[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void indexToPermutation(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.indexToPermutation(permutationIndices[i], 8));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void zeroSumOrientationToIndex(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.zeroSumOrientationToIndex(orientations[i], 3));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void indexToZeroSumOrientation(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.indexToZeroSumOrientation(orientationIndices[i], 3, 8));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void combinationToIndex(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.combinationToIndex(combinations[i], 4));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void indexToCombination(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(IndexMapping.indexToCombination(combinationIndices[i], 4, 12));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void legacyPermutationToIndex(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(LegacyIndexMapping.permutationToIndex(permutations[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void legacyIndexToPermutation(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(LegacyIndexMapping.indexToPermutation(permutationIndices[i], 8));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void legacyCombinationToIndex(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(LegacyIndexMapping.combinationToIndex(combinations[i], 4));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void legacyIndexToCombination(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(LegacyIndexMapping.indexToCombination(combinationIndices[i], 4, 12));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks {@link IndexMapping} against {@link LegacyIndexMapping}: every index of every permutation
+ * and even permutation of up to 9 pieces, random ones of 10 to 12 pieces, and every combination of
+ * up to 12 pieces. The solver tables depend on the numbering, so it must not change at all.
+ *
+ * ./gradlew :benchmarks:checkIndexMapping
+ */
+public class IndexMappingCheck {
+
+    private static final int EXHAUSTIVE_LENGTH = 9;
+    private static final int RANDOM_RUNS       = 1000000;
+
+    private static final int[] FACTORIALS = {
+            1, 1, 2, 6, 24, 120, 720, 5040, 40320, 362880, 3628800, 39916800, 479001600,
+            };
+
+    public static void main(String[] args) {
+        for (int length = 2; length <= EXHAUSTIVE_LENGTH; length++) {
+            for (int index = 0; index < FACTORIALS[length]; index++) {
+                checkPermutation(index, length);
+                if (index < FACTORIALS[length] / 2)
+                    checkEvenPermutation(index, length);
+            }
+        }
+        System.out.println("Permutations up to " + EXHAUSTIVE_LENGTH + ": OK");
+
+        Random random = new Random(ScrambleCorpus.SEED);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            int length = EXHAUSTIVE_LENGTH + 1 + random.nextInt(12 - EXHAUSTIVE_LENGTH);
+            checkPermutation(random.nextInt(FACTORIALS[length]), length);
+            checkEvenPermutation(random.nextInt(FACTORIALS[length] / 2), length);
+        }
+        System.out.println(RANDOM_RUNS + " random permutations: OK");
+
+        for (int length = 1; length <= 12; length++) {
+            for (int k = 0; k <= length; k++) {
+                for (int index = 0; index < binomial(length, k); index++) {
+                    boolean[] combination = LegacyIndexMapping.indexToCombination(index, k, length);
+                    assertEquals("combination " + index + " " + k + " " + length,
+                            Arrays.toString(combination),
+                            Arrays.toString(IndexMapping.indexToCombination(index, k, length)));
+                    assertEquals("combination index " + Arrays.toString(combination),
+                            index, IndexMapping.combinationToIndex(combination, k));
+                }
+            }
+        }
+        System.out.println("Combinations: OK");
+    }
+
+    private static void checkPermutation(int index, int length) {
+        byte[] permutation = LegacyIndexMapping.indexToPermutation(index, length);
+        assertEquals("permutation " + index + " " + length,
+                Arrays.toString(permutation), Arrays.toString(IndexMapping.indexToPermutation(index, length)));
+        assertEquals("permutation index " + Arrays.toString(permutation),
+                LegacyIndexMapping.permutationToIndex(permutation), IndexMapping.permutationToIndex(permutation));
+    }
+
+    private static void checkEvenPermutation(int index, int length) {
+        byte[] permutation = LegacyIndexMapping.indexToEvenPermutation(index, length);
+        assertEquals("even permutation " + index + " " + length,
+                Arrays.toString(permutation), Arrays.toString(IndexMapping.indexToEvenPermutation(index, length)));
+        assertEquals("even permutation index " + Arrays.toString(permutation),
+                LegacyIndexMapping.evenPermutationToIndex(permutation), IndexMapping.evenPermutationToIndex(permutation));
+    }
+
+    private static int binomial(int n, int k) {
+        long value = 1;
+        for (int i = 0; i < k; i++) {
+            value = value * (n - i) / (i + 1);
+        }
+        return (int) value;
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
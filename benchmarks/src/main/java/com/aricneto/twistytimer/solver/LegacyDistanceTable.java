@@ -0,0 +1,44 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.Arrays;
+
+/**
+ * The distance table loop the solvers used before {@link DistanceTable}: every depth rescans the
+ * whole table for the indices found at the depth before. Only changed to take any
+ * {@link DistanceTable.Moves}, and to stop at a depth that finds nothing instead of when every
+ * index is known, so tables with unreachable indices end too. Kept as the reference the new
+ * builder is checked and benchmarked against.
+ */
+public class LegacyDistanceTable {
+
+    public static byte[] build(int size, DistanceTable.Moves moves, int... goals) {
+        byte[] distances = new byte[size];
+        Arrays.fill(distances, (byte) - 1);
+        for (int goal : goals)
+            distances[goal] = 0;
+
+        int[] next = new int[moves.getCount()];
+        int distance = 0;
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (int i = 0; i < distances.length; i++) {
+                if (distances[i] != distance) {
+                    continue;
+                }
+
+                moves.getNext(i, next);
+                for (int j = 0; j < next.length; j++) {
+                    if (distances[next[j]] < 0) {
+                        distances[next[j]] = (byte) (distance + 1);
+                        found = true;
+                    }
+                }
+            }
+
+            distance++;
+        }
+
+        return distances;
+    }
+}
@@ -0,0 +1,89 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+
+/**
+ * Checks {@link PatternSolver} on the scramble corpus:
+ *
+ * - the cross it finds must be as short as the one from {@link RubiksCubeCrossSolver}
+ * - every solution it gives, for the EOLine, 2x2x2 block and Roux first block pieces, held in
+ *   every way the tips use, must solve those pieces
+ *
+ * ./gradlew :benchmarks:checkPatternSolver
+ */
+public class PatternSolverCheck {
+
+    private static final int MAX_SOLUTIONS = 4;
+
+    public static void main(String[] args) {
+        PatternSolver cross = new PatternSolver(
+                new PatternCoordinate[] {
+                        PatternCoordinate.edges(8, 9),
+                        PatternCoordinate.edges(10, 11),
+                        },
+                new int[][] { { 0, 1 } });
+        for (String scramble : ScrambleCorpus.scrambles()) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            assertEquals("cross " + scramble,
+                    RubiksCubeCrossSolver.solve(state.toState()).get(0).length,
+                    cross.solve(state, 1).get(0).length);
+        }
+        System.out.println("Cross: OK");
+
+        check("EOLine",
+                new PatternCoordinate[] {
+                        PatternCoordinate.edgesOrientation(),
+                        PatternCoordinate.edgePositions(10, 8),
+                        },
+                new int[][] { { 0, 1 } });
+        check("2x2x2 block",
+                new PatternCoordinate[] {
+                        PatternCoordinate.corners(4),
+                        PatternCoordinate.edges(11),
+                        PatternCoordinate.edges(8),
+                        PatternCoordinate.edges(0),
+                        },
+                new int[][] { { 0, 1, 2, 3 } });
+        check("First block",
+                new PatternCoordinate[] {
+                        PatternCoordinate.corners(4, 7),
+                        PatternCoordinate.edges(11),
+                        PatternCoordinate.edges(3),
+                        PatternCoordinate.edges(0),
+                        },
+                new int[][] { { 0, 1, 2 }, { 0, 1, 3 }, { 0, 2, 3 } });
+    }
+
+    private static void check(String name, PatternCoordinate[] coordinates, int[][] groups) {
+        PatternSolver solver = new PatternSolver(coordinates, groups);
+        CubeState state = new CubeState();
+        CubeState solved = new CubeState();
+        for (String scramble : ScrambleCorpus.scrambles()) {
+            for (int rotation : PatternSolver.D_AND_U_ROTATIONS) {
+                state.set(RubiksCubeSolver.State.id);
+                state.apply(scramble);
+                state.rotate(rotation);
+                ArrayList<String[]> solutions = solver.solve(state, MAX_SOLUTIONS);
+                if (solutions.isEmpty())
+                    throw new AssertionError(name + " " + scramble + ": no solution");
+                for (String[] solution : solutions) {
+                    solved.set(state);
+                    solved.apply(StringUtils.join(" ", solution));
+                    for (PatternCoordinate coordinate : coordinates) {
+                        assertEquals(name + " " + scramble + " " + PatternSolver.getPrefix(rotation)
+                                + StringUtils.join(" ", solution) + " " + coordinate,
+                                coordinate.getSolvedIndex(), coordinate.getIndex(solved));
+                    }
+                    assertEquals(name + " length", solutions.get(0).length, solution.length);
+                }
+            }
+        }
+        System.out.println(name + ": OK");
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
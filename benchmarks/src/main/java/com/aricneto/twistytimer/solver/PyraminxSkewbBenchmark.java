@@ -0,0 +1,81 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-scramble latency of the optimal Pyraminx and Skewb solvers over the seeded
+ * {@link PyraminxSkewbCorpus}. The tables are built during setup and aren't part of the
+ * measurement, see {@link TableBuildBenchmark} for that.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PyraminxSkewbBenchmark {
+
+    private String[] pyraminx;
+    private String[] skewb;
+    private int      next;
+
+    private Tip pyraminxTip;
+    private Tip skewbTip;
+
+    @Setup
+    public void setUp() {
+        pyraminx = PyraminxSkewbCorpus.pyraminx();
+        skewb = PyraminxSkewbCorpus.skewb();
+
+        pyraminxTip = new PyraminxOptimalSolution("Optimal solution");
+        skewbTip = new SkewbOptimalSolution("Optimal solution");
+
+        // Build every table up front
+        PyraminxSolver.solve(pyraminx[0], 1);
+        SkewbSolver.solve(skewb[0], 1);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % pyraminx.length;
+        return index;
+    }
+
+    /**
+     * Every optimal solution, from the scramble text.
+     */
+    @Benchmark
+    public ArrayList<int[]> pyraminx() {
+        return PyraminxSolver.solve(pyraminx[nextIndex()], Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public ArrayList<int[]> skewb() {
+        return SkewbSolver.solve(skewb[nextIndex()], Integer.MAX_VALUE);
+    }
+
+    /**
+     * The whole tip.
+     */
+    @Benchmark
+    public String pyraminxTip() {
+        return pyraminxTip.getTip(pyraminx[nextIndex()]);
+    }
+
+    @Benchmark
+    public String skewbTip() {
+        return skewbTip.getTip(skewb[nextIndex()]);
+    }
+}
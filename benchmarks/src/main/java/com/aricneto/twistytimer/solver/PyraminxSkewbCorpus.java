@@ -0,0 +1,39 @@
+package com.aricneto.twistytimer.solver;
+
+import net.gnehzr.tnoodle.scrambles.Puzzle;
+
+import java.util.Random;
+
+import puzzle.PyraminxPuzzle;
+import puzzle.SkewbPuzzle;
+
+/**
+ * Fixed sets of random-state Pyraminx and Skewb scrambles, generated by TNoodle as the app does.
+ * The generator is seeded, so every run benchmarks the exact same scrambles.
+ */
+public class PyraminxSkewbCorpus {
+    public static final long SEED = 20160317L;
+    public static final int  SIZE = 256;
+
+    private static final String[] PYRAMINX = generate(new PyraminxPuzzle(), SEED, SIZE);
+    private static final String[] SKEWB    = generate(new SkewbPuzzle(), SEED, SIZE);
+
+    private PyraminxSkewbCorpus() {
+    }
+
+    public static String[] generate(Puzzle puzzle, long seed, int size) {
+        Random random = new Random(seed);
+        String[] scrambles = new String[size];
+        for (int i = 0; i < size; i++)
+            scrambles[i] = puzzle.generateWcaScramble(random);
+        return scrambles;
+    }
+
+    public static String[] pyraminx() {
+        return PYRAMINX.clone();
+    }
+
+    public static String[] skewb() {
+        return SKEWB.clone();
+    }
+}
@@ -0,0 +1,169 @@
+package com.aricneto.twistytimer.solver;
+
+import net.gnehzr.tnoodle.scrambles.Puzzle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import puzzle.PyraminxPuzzle;
+import puzzle.SkewbPuzzle;
+
+/**
+ * Checks the optimal Pyraminx and Skewb solvers: the distances of every position against the
+ * known counts, the solutions of TNoodle scrambles applied back by TNoodle, the notation, and the
+ * tables written to disk and read back.
+ *
+ * ./gradlew :benchmarks:checkPyraminxSkewbSolvers
+ */
+public class PyraminxSkewbSolverCheck {
+
+    // Positions at each distance, without the tips: 933,120 from the solved Pyraminx to 11 moves
+    private static final int[] PYRAMINX_COUNTS = {
+            1, 8, 48, 288, 1728, 9896, 51808, 220111, 480467, 166276, 2457, 32,
+            };
+
+    // 3,149,280 from the solved Skewb to 11 moves
+    private static final int[] SKEWB_COUNTS = {
+            1, 8, 48, 288, 1728, 10248, 59304, 315198, 1225483, 1455856, 81028, 90,
+            };
+
+    // Other than the corpus, which is what the benchmark solves
+    private static final long SEED = 42L;
+    private static final int  SIZE = 512;
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        PyraminxSolver.solve("", 1);
+        System.out.println("Pyraminx built in " + (System.nanoTime() - start) / 1000000 + " ms");
+        start = System.nanoTime();
+        SkewbSolver.solve("", 1);
+        System.out.println("Skewb built in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        checkDistances("Pyraminx", PyraminxSolver.getSolver(), PYRAMINX_COUNTS);
+        checkDistances("Skewb", SkewbSolver.getSolver(), SKEWB_COUNTS);
+        checkNotation();
+        checkScrambles();
+        checkDirectory();
+    }
+
+    private static void checkDistances(String name, OptimalSolver solver, int[] expected) {
+        int[] counts = new int[expected.length];
+        for (int index = 0; index < solver.getSize(); index++)
+            counts[solver.getDistance(index)]++;
+        assertEquals(name + " distance counts", Arrays.toString(expected), Arrays.toString(counts));
+        System.out.println(name + " distances: OK");
+    }
+
+    private static void checkNotation() {
+        MoveNotation notation = PyraminxSolver.NOTATION;
+        for (int code = 0; code < notation.getCount(); code++)
+            assertEquals("code of " + notation.toString(code), code, notation.parse(notation.toString(code), 0,
+                    notation.toString(code).length()));
+        assertEquals("spaces", "[0, 5, 15]", Arrays.toString(notation.parse("  U  R' b' ")));
+        assertEquals("double turn", "[1]", Arrays.toString(notation.parse("U2")));
+        assertEquals("double counter-clockwise turn", "[0]", Arrays.toString(notation.parse("U2'")));
+        assertEquals("empty", "[]", Arrays.toString(notation.parse("")));
+        for (String invalid : new String[] { "F", "U3", "Uw", "'", "U''" }) {
+            try {
+                notation.parse(invalid);
+                throw new AssertionError("parsed " + invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        System.out.println("Notation: OK");
+    }
+
+    private static void checkScrambles() {
+        Tip pyraminxTip = new PyraminxOptimalSolution("Optimal");
+        Tip skewbTip = new SkewbOptimalSolution("Optimal");
+
+        Puzzle pyraminx = new PyraminxPuzzle();
+        for (String scramble : PyraminxSkewbCorpus.generate(pyraminx, SEED, SIZE)) {
+            ArrayList<int[]> solutions = PyraminxSolver.solve(scramble, Integer.MAX_VALUE);
+            checkSolutions(pyraminx, scramble, solutions, PyraminxSolver.NOTATION);
+            pyraminxTip.getTip(scramble);
+        }
+        System.out.println("Pyraminx scrambles: OK");
+
+        Puzzle skewb = new SkewbPuzzle();
+        for (String scramble : PyraminxSkewbCorpus.generate(skewb, SEED, SIZE)) {
+            ArrayList<int[]> solutions = SkewbSolver.solve(scramble, Integer.MAX_VALUE);
+            checkSolutions(skewb, scramble, solutions, SkewbSolver.NOTATION);
+            skewbTip.getTip(scramble);
+        }
+        System.out.println("Skewb scrambles: OK");
+    }
+
+    // Every solution is as long as the first, distinct, and solves the scramble in TNoodle
+    private static void checkSolutions(Puzzle puzzle, String scramble, ArrayList<int[]> solutions,
+                                       MoveNotation notation) {
+        assertEquals(scramble + " solved", true, ! solutions.isEmpty());
+        HashSet<String> distinct = new HashSet<String>();
+        for (int[] solution : solutions) {
+            assertEquals(scramble + " length", solutions.get(0).length, solution.length);
+            String moves = notation.toString(solution);
+            try {
+                assertEquals(scramble + " solved by " + moves, true,
+                        puzzle.getSolvedState().applyAlgorithm(scramble + " " + moves).isSolved());
+            } catch (Exception e) {
+                throw new AssertionError(scramble + " " + moves + ": " + e);
+            }
+            distinct.add(moves);
+        }
+        assertEquals(scramble + " distinct", solutions.size(), distinct.size());
+    }
+
+    private static void checkDirectory() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "pyraminx-skewb-check-" + System.nanoTime());
+        try {
+            String[] pyraminx = PyraminxSkewbCorpus.pyraminx();
+            String[] skewb = PyraminxSkewbCorpus.skewb();
+            ArrayList<String> expected = solveAll(pyraminx, skewb);
+
+            SolverTables.setDirectory(directory);
+            PyraminxSolver.release();
+            SkewbSolver.release();
+            solveAll(pyraminx, skewb);
+            File[] files = directory.listFiles();
+            assertEquals("files written", 2, files == null ? 0 : files.length);
+            for (File file : files)
+                System.out.println("Written: " + file.getName() + ", " + file.length() + " bytes");
+
+            PyraminxSolver.release();
+            SkewbSolver.release();
+            long start = System.nanoTime();
+            PyraminxSolver.solve("", 1);
+            SkewbSolver.solve("", 1);
+            System.out.println("Read in " + (System.nanoTime() - start) / 1000000 + " ms");
+            assertEquals("solutions read back", expected, solveAll(pyraminx, skewb));
+            System.out.println("Directory: OK");
+        } finally {
+            SolverTables.setDirectory(null);
+            File[] files = directory.listFiles();
+            if (files != null)
+                for (File file : files)
+                    file.delete();
+            directory.delete();
+        }
+    }
+
+    private static ArrayList<String> solveAll(String[] pyraminx, String[] skewb) {
+        ArrayList<String> solutions = new ArrayList<String>();
+        for (String scramble : pyraminx)
+            for (int[] solution : PyraminxSolver.solve(scramble, Integer.MAX_VALUE))
+                solutions.add(Arrays.toString(solution));
+        for (String scramble : skewb)
+            for (int[] solution : SkewbSolver.solve(scramble, Integer.MAX_VALUE))
+                solutions.add(Arrays.toString(solution));
+        return solutions;
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
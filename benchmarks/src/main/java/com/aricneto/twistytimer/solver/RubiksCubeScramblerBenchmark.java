@@ -0,0 +1,62 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import puzzle.ThreeByThreeCubePuzzle;
+
+/**
+ * Latency of one random-state 3x3 scramble, from the built-in {@link RubiksCubeScrambler} at each
+ * maximum length and from TNoodle's 3x3, as the app asks for them. The tables of both are built
+ * during setup, see {@link RubiksCubeScramblerStartBenchmark} for that.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class RubiksCubeScramblerBenchmark {
+
+    @Param({ "21", "22", "23" })
+    public int maxLength;
+
+    private RubiksCubeScrambler    scrambler;
+    private ThreeByThreeCubePuzzle puzzle;
+    private Random                 random;
+
+    @Setup
+    public void setUp() {
+        scrambler = new RubiksCubeScrambler(new Random(ScrambleCorpus.SEED), maxLength);
+        scrambler.generateScramble();
+
+        puzzle = new ThreeByThreeCubePuzzle();
+        random = new Random(ScrambleCorpus.SEED);
+        puzzle.generateWcaScramble(random);
+    }
+
+    @Benchmark
+    public String scramble() {
+        return scrambler.generateScramble();
+    }
+
+    /**
+     * TNoodle has no maximum length to tune, it's the same for every one.
+     */
+    @Benchmark
+    public String tnoodleScramble() {
+        return puzzle.generateWcaScramble(random);
+    }
+}
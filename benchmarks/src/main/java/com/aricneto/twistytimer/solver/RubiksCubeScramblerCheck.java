@@ -0,0 +1,123 @@
+package com.aricneto.twistytimer.solver;
+
+import net.gnehzr.tnoodle.scrambles.Puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import puzzle.ThreeByThreeCubePuzzle;
+
+/**
+ * Checks the random-state 3x3 scrambles: every one leads to the position it was generated for,
+ * within the maximum length, and TNoodle reads it. The positions must be spread evenly, and
+ * reachable: a position with a single flipped edge or swapped pair can't be solved.
+ *
+ * ./gradlew :benchmarks:checkRubiksCubeScrambler
+ */
+public class RubiksCubeScramblerCheck {
+
+    private static final int SIZE = 200;
+
+    // Positions drawn to check how evenly they're spread
+    private static final int SAMPLES = 100000;
+
+    public static void main(String[] args) throws Exception {
+        checkLimits();
+        checkPositions();
+        for (int maxLength = RubiksCubeScrambler.MIN_MAX_LENGTH; maxLength <= 23; maxLength++)
+            checkScrambles(maxLength);
+    }
+
+    private static void checkLimits() {
+        try {
+            new RubiksCubeScrambler(new Random(), RubiksCubeScrambler.MIN_MAX_LENGTH - 1);
+            throw new AssertionError("accepted " + (RubiksCubeScrambler.MIN_MAX_LENGTH - 1) + " moves");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        System.out.println("Limits: OK");
+    }
+
+    private static void checkPositions() {
+        RubiksCubeScrambler scrambler = new RubiksCubeScrambler(new Random(ScrambleCorpus.SEED),
+                RubiksCubeScrambler.DEFAULT_MAX_LENGTH);
+
+        // How often each piece is at the first position, each of its orientations, and each parity
+        int[] corners = new int[8 * 3];
+        int[] edges = new int[12 * 2];
+        int[] parities = new int[2];
+        for (int i = 0; i < SAMPLES; i++) {
+            RubiksCubeSolver.State state = scrambler.generateState();
+            corners[state.cornersPermutation[0] * 3 + state.cornersOrientation[0]]++;
+            edges[state.edgesPermutation[0] * 2 + state.edgesOrientation[0]]++;
+
+            int cornersParity = getParity(state.cornersPermutation);
+            assertEquals("parity of the edges", cornersParity, getParity(state.edgesPermutation));
+            parities[cornersParity]++;
+            int cornersTwist = 0;
+            for (byte orientation : state.cornersOrientation)
+                cornersTwist += orientation;
+            assertEquals("twist of the corners", 0, cornersTwist % 3);
+            int edgesFlip = 0;
+            for (byte orientation : state.edgesOrientation)
+                edgesFlip += orientation;
+            assertEquals("flip of the edges", 0, edgesFlip % 2);
+        }
+
+        assertEven("corners", corners);
+        assertEven("edges", edges);
+        assertEven("parities", parities);
+        System.out.println("Positions: OK");
+    }
+
+    private static void checkScrambles(int maxLength) throws Exception {
+        RubiksCubeScrambler scrambler = new RubiksCubeScrambler(new Random(maxLength), maxLength);
+        Puzzle puzzle = new ThreeByThreeCubePuzzle();
+        int[] lengths = new int[maxLength + 1];
+        long start = System.nanoTime();
+        for (int i = 0; i < SIZE; i++) {
+            RubiksCubeSolver.State state = scrambler.generateState();
+            String[] scramble = RubiksCubeSolver.generate(state, maxLength);
+            assertEquals("scramble found", true, scramble != null);
+            lengths[scramble.length]++;
+
+            RubiksCubeSolver.State scrambled = RubiksCubeSolver.State.id.applySequence(scramble);
+            assertEquals(Arrays.toString(scramble) + " corners", Arrays.toString(state.cornersPermutation)
+                    + Arrays.toString(state.cornersOrientation), Arrays.toString(scrambled.cornersPermutation)
+                    + Arrays.toString(scrambled.cornersOrientation));
+            assertEquals(Arrays.toString(scramble) + " edges", Arrays.toString(state.edgesPermutation)
+                    + Arrays.toString(state.edgesOrientation), Arrays.toString(scrambled.edgesPermutation)
+                    + Arrays.toString(scrambled.edgesOrientation));
+
+            puzzle.getSolvedState().applyAlgorithm(scrambler.generateScramble());
+        }
+        System.out.println("At most " + maxLength + " moves: OK, "
+                + (System.nanoTime() - start) / 1000000 / (2 * SIZE) + " ms each, lengths "
+                + Arrays.toString(Arrays.copyOfRange(lengths, 17, lengths.length)) + " from 17");
+    }
+
+    private static int getParity(byte[] permutation) {
+        int inversions = 0;
+        for (int i = 0; i < permutation.length; i++) {
+            for (int j = i + 1; j < permutation.length; j++) {
+                if (permutation[i] > permutation[j])
+                    inversions++;
+            }
+        }
+        return inversions % 2;
+    }
+
+    // Every count within 5% of the mean, which SAMPLES make all but certain for an even spread
+    private static void assertEven(String what, int[] counts) {
+        double mean = (double) SAMPLES / counts.length;
+        for (int i = 0; i < counts.length; i++) {
+            if (Math.abs(counts[i] - mean) > mean * 0.05)
+                throw new AssertionError(what + " " + i + ": " + counts[i] + " times, expected about " + (int) mean);
+        }
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,56 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import puzzle.ThreeByThreeCubePuzzle;
+
+/**
+ * The first random-state 3x3 scramble of a process, tables included: what the user waits for on
+ * the timer after the app starts. Each measurement is a fresh JVM, since neither the tables of
+ * {@link RubiksCubeSolver} nor those of TNoodle can be dropped once built.
+ *
+ * With tablesOnDisk, the distance tables are read from a directory, as on every start of the app
+ * but the first, and the warmup fork writes them there. TNoodle keeps no tables on disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, warmups = 1)
+public class RubiksCubeScramblerStartBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean tablesOnDisk;
+
+    @Setup
+    public void setUp() {
+        if (tablesOnDisk)
+            SolverTables.setDirectory(new File(System.getProperty("java.io.tmpdir"), "scrambler-start-benchmark"));
+    }
+
+    @Benchmark
+    public String firstScramble() {
+        return new RubiksCubeScrambler(new Random(ScrambleCorpus.SEED), RubiksCubeScrambler.DEFAULT_MAX_LENGTH)
+                .generateScramble();
+    }
+
+    @Benchmark
+    public String tnoodleFirstScramble() {
+        return new ThreeByThreeCubePuzzle().generateWcaScramble(new Random(ScrambleCorpus.SEED));
+    }
+}
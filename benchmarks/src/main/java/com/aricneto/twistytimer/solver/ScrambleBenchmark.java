@@ -0,0 +1,104 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying the scramble corpus to a solved cube: split and a map lookup and a new state per move,
+ * against {@link MoveSequence} codes applied in place to a {@link CubeState}. Also seeing the
+ * scrambled cubes with F at the bottom, as the cross hints do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ScrambleBenchmark {
+
+    private String[] scrambles;
+    private int[][]  codes;
+    private RubiksCubeSolver.State[] states;
+    private CubeState[]              cubes;
+
+    private final RubiksCubeSolver.State x = CubeState.X;
+    private final int xPrime = CubeState.getRotation("x'");
+
+    private final CubeState cube = new CubeState();
+
+    @Setup
+    public void setUp() {
+        scrambles = ScrambleCorpus.scrambles();
+        codes = new int[scrambles.length][];
+        for (int i = 0; i < scrambles.length; i++) {
+            codes[i] = MoveSequence.parse(scrambles[i]);
+        }
+        states = ScrambleCorpus.states();
+        cubes = new CubeState[states.length];
+        for (int i = 0; i < states.length; i++) {
+            cubes[i] = new CubeState(states[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScrambleCorpus.SIZE)
+    public void legacyApply(Blackhole blackhole) {
+        for (String scramble : scrambles) {
+            RubiksCubeSolver.State state = RubiksCubeSolver.State.id;
+            for (String move : scramble.split(" ")) {
+                state = state.multiply(RubiksCubeSolver.State.moves.get(move));
+            }
+            blackhole.consume(state);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScrambleCorpus.SIZE)
+    public void parseAndApply(Blackhole blackhole) {
+        for (String scramble : scrambles) {
+            cube.set(RubiksCubeSolver.State.id);
+            cube.apply(scramble);
+            blackhole.consume(cube);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScrambleCorpus.SIZE)
+    public void applyCodes(Blackhole blackhole) {
+        for (int[] scramble : codes) {
+            cube.set(RubiksCubeSolver.State.id);
+            cube.apply(scramble);
+            blackhole.consume(cube);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScrambleCorpus.SIZE)
+    public void legacyRotate(Blackhole blackhole) {
+        for (RubiksCubeSolver.State state : states) {
+            blackhole.consume(x.multiply(state).multiply(x).multiply(x).multiply(x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScrambleCorpus.SIZE)
+    public void rotate(Blackhole blackhole) {
+        for (CubeState state : cubes) {
+            cube.set(state);
+            cube.rotate(xPrime);
+            blackhole.consume(cube);
+        }
+    }
+}
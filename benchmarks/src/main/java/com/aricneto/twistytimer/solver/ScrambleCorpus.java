@@ -0,0 +1,60 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.Random;
+
+/**
+ * A fixed set of random-move 3x3 scrambles. The generator is seeded, so every run (and every
+ * machine) benchmarks the exact same scrambles and results can be compared between commits.
+ */
+public class ScrambleCorpus {
+    public static final long SEED   = 20160317L;
+    public static final int  SIZE   = 64;
+    public static final int  LENGTH = 25;
+
+    private static final String[] FACES    = { "U", "D", "L", "R", "F", "B" };
+    private static final String[] SUFFIXES = { "", "2", "'" };
+
+    private static final String[] SCRAMBLES = generate(SEED, SIZE, LENGTH);
+
+    private ScrambleCorpus() {
+    }
+
+    /**
+     * Generates random-move scrambles that never turn the same face twice in a row.
+     */
+    public static String[] generate(long seed, int size, int length) {
+        Random random = new Random(seed);
+        String[] scrambles = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder scramble = new StringBuilder();
+            int lastFace = - 1;
+            for (int j = 0; j < length; j++) {
+                int face;
+                do {
+                    face = random.nextInt(FACES.length);
+                } while (face == lastFace);
+                lastFace = face;
+
+                if (j > 0)
+                    scramble.append(' ');
+                scramble.append(FACES[face]).append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            }
+            scrambles[i] = scramble.toString();
+        }
+        return scrambles;
+    }
+
+    public static String[] scrambles() {
+        return SCRAMBLES.clone();
+    }
+
+    public static State[] states() {
+        State[] states = new State[SCRAMBLES.length];
+        for (int i = 0; i < SCRAMBLES.length; i++) {
+            states[i] = State.id.applySequence(SCRAMBLES[i]);
+        }
+        return states;
+    }
+}
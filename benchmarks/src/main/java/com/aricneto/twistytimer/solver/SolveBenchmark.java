@@ -0,0 +1,103 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-scramble solve latency over the seeded {@link ScrambleCorpus}. Each invocation solves
+ * the next scramble of the corpus, so the reported percentiles cover easy and hard cases alike.
+ * The tables are built during setup and aren't part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SolveBenchmark {
+
+    private RubiksCubeSolver.State[] states;
+    private String[]                 scrambles;
+    private int                      next;
+
+    private Tip crossTip;
+    private Tip xCrossTip;
+
+    @Setup
+    public void setUp() {
+        states = ScrambleCorpus.states();
+        scrambles = ScrambleCorpus.scrambles();
+
+        crossTip = new RubiksCubeOptimalCross("Cross");
+        xCrossTip = new RubiksCubeOptimalXCross("XCross");
+
+        // Build every table up front
+        RubiksCubeCrossSolver.solve(states[0]);
+        RubiksCubeXCrossSolver.solve(states[0]);
+        RubiksCubeSolver.generate(states[0]);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % states.length;
+        return index;
+    }
+
+    @Benchmark
+    public ArrayList<String[]> cross() {
+        return RubiksCubeCrossSolver.solve(states[nextIndex()]);
+    }
+
+    @Benchmark
+    public ArrayList<String[]> xCross() {
+        return RubiksCubeXCrossSolver.solve(states[nextIndex()]);
+    }
+
+    /**
+     * The first three shortest crosses, as the cross tip asks for them on each side.
+     */
+    @Benchmark
+    public ArrayList<int[]> crossBest() {
+        return RubiksCubeCrossSolver.solve(states[nextIndex()], 3, 0);
+    }
+
+    /**
+     * The first two shortest X-crosses, as the X-cross tip asks for them for each slot.
+     */
+    @Benchmark
+    public ArrayList<int[]> xCrossBest() {
+        return RubiksCubeXCrossSolver.solve(states[nextIndex()], 2, 0);
+    }
+
+    @Benchmark
+    public String[] twoPhase() {
+        return RubiksCubeSolver.generate(states[nextIndex()]);
+    }
+
+    /**
+     * The cross tip as the app shows it: parse the scramble and solve the cross on all six sides.
+     */
+    @Benchmark
+    public String crossTip() {
+        return crossTip.getTip(scrambles[nextIndex()]);
+    }
+
+    /**
+     * The X-cross tip as the app shows it.
+     */
+    @Benchmark
+    public String xCrossTip() {
+        return xCrossTip.getTip(scrambles[nextIndex()]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aricneto.twistytimer.solver;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Checks that the solver tables can be released and built again: the corpus is solved by every
+ * solver, the tables are dropped, and solving it again must give the same solutions. Prints the
+ * memory used by the tables of each solver.
+ *
+ * ./gradlew :benchmarks:checkSolverTables
+ */
+public class SolverTablesCheck {
+
+    public static void main(String[] args) {
+        assertEquals("size before the first solve", 0L, SolverTables.getResidentSize());
+
+        ArrayList<String> expected = solveAll();
+        for (Map.Entry<String, Long> size : SolverTables.getResidentSizes().entrySet())
+            System.out.println(size.getKey() + ": " + size.getValue() / 1024 + " KB");
+        System.out.println("Total: " + SolverTables.getResidentSize() / 1024 + " KB");
+
+        long released = SolverTables.release();
+        assertEquals("released", true, released > 0);
+        assertEquals("size after release", 0L, SolverTables.getResidentSize());
+
+        ArrayList<String> actual = solveAll();
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals("solve " + i + " after release", expected.get(i), actual.get(i));
+        System.out.println("Release: OK");
+    }
+
+    private static ArrayList<String> solveAll() {
+        PatternSolver eoLine = new PatternSolver(
+                new PatternCoordinate[] {
+                        PatternCoordinate.edgesOrientation(),
+                        PatternCoordinate.edgePositions(10, 8),
+                        },
+                new int[][] { { 0, 1 } });
+
+        ArrayList<String> solutions = new ArrayList<String>();
+        for (String scramble : ScrambleCorpus.scrambles()) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            RubiksCubeSolver.State solverState = state.toState();
+            for (String[] solution : RubiksCubeCrossSolver.solve(solverState))
+                solutions.add(StringUtils.join(" ", solution));
+            for (String[] solution : RubiksCubeXCrossSolver.solve(solverState))
+                solutions.add(StringUtils.join(" ", solution));
+            solutions.add(StringUtils.join(" ", RubiksCubeSolver.generate(solverState)));
+            solutions.addAll(eoLine.solve(state, PatternSolver.D_AND_U_ROTATIONS, 1));
+        }
+        return solutions;
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
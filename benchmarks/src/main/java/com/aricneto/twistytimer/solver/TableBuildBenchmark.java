@@ -0,0 +1,59 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each solver takes to build its move and distance tables.
+ *
+ * The tables are built by the first solve, so every invocation drops them first and then solves
+ * the solved cube, which costs nothing next to the build. This is the delay the user sees the
+ * first time a tip is shown, and again after the tables were released.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class TableBuildBenchmark {
+
+    @Param({ "RubiksCubeCrossSolver", "RubiksCubeXCrossSolver", "RubiksCubeSolver", "TwoByTwoCubeSolver",
+            "PyraminxSolver", "SkewbSolver" })
+    public String solver;
+
+    @Benchmark
+    public Object buildTables() {
+        RubiksCubeSolver.State solved = RubiksCubeSolver.State.id;
+        if (solver.equals("RubiksCubeCrossSolver")) {
+            RubiksCubeCrossSolver.release();
+            return RubiksCubeCrossSolver.solve(solved);
+        } else if (solver.equals("RubiksCubeXCrossSolver")) {
+            RubiksCubeXCrossSolver.release();
+            return RubiksCubeXCrossSolver.solve(solved);
+        } else if (solver.equals("TwoByTwoCubeSolver")) {
+            // Without a directory, so the table is built instead of read
+            TwoByTwoCubeSolver.release();
+            return TwoByTwoCubeSolver.solve(new CubeState(), 1);
+        } else if (solver.equals("PyraminxSolver")) {
+            PyraminxSolver.release();
+            return PyraminxSolver.solve("", 1);
+        } else if (solver.equals("SkewbSolver")) {
+            SkewbSolver.release();
+            return SkewbSolver.solve("", 1);
+        } else {
+            RubiksCubeSolver.release();
+            return RubiksCubeSolver.generate(solved);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.aricneto.twistytimer.solver;
+
+import java.io.File;
+
+/**
+ * Checks the tip cache: two scrambles leading to the same cube share their key, a tip computed
+ * once isn't computed again by a new prefetcher, a new cache on the same directory reads back
+ * what the previous one wrote, a scramble a tip can't read leaves that tip out, and a prefetcher
+ * that is shut down returns no tips.
+ *
+ * ./gradlew :benchmarks:checkTipCache
+ */
+public class TipCacheCheck {
+
+    public static void main(String[] args) throws Exception {
+        CountingTip tip = new CountingTip();
+
+        // U U' cancels out, and R L commute
+        assertEquals("same state",
+                TipCache.getKey(tip, "R L F2 U U' D"), TipCache.getKey(tip, "L R F2 D"));
+        assertEquals("different state", false,
+                TipCache.getKey(tip, "R L F2 D").equals(TipCache.getKey(tip, "R L F2 D'")));
+        System.out.println("Keys: OK");
+
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "tip-cache-check-" + System.nanoTime());
+        try {
+            TipPrefetcher prefetcher = new TipPrefetcher(new TipCache(directory), tip);
+            String first = prefetcher.getTip("R L F2 D");
+            prefetcher.shutdown();
+            assertEquals("computed", 1, tip.count);
+
+            prefetcher = new TipPrefetcher(new TipCache(directory), tip);
+            assertEquals("cached", first, prefetcher.getCachedTip("L R F2 D"));
+            assertEquals("read back", first, prefetcher.getTip("L R F2 D"));
+            prefetcher.shutdown();
+            assertEquals("computed again", 1, tip.count);
+            System.out.println("Disk: OK");
+
+            // Notation the tips can't read gives no tips, and the others are still shown
+            prefetcher = new TipPrefetcher(new TipCache(directory), new UnreadableTip(), tip);
+            assertEquals("unreadable", "Tip 2", prefetcher.getTip("U4 3Rw"));
+            prefetcher.shutdown();
+            prefetcher = new TipPrefetcher(new TipCache(directory), new UnreadableTip());
+            assertEquals("none readable", "", prefetcher.getTip("U4 3Rw"));
+            prefetcher.shutdown();
+            System.out.println("Unreadable: OK");
+
+            // Tasks that outlive their prefetcher get nothing instead of an exception
+            assertEquals("after shutdown", true, prefetcher.getTip("R2") == null);
+            System.out.println("Shutdown: OK");
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null)
+                for (File file : files)
+                    file.delete();
+            directory.delete();
+        }
+    }
+
+    private static class CountingTip implements Tip {
+        int count;
+
+        @Override
+        public String getTipId() {
+            return "CHECK";
+        }
+
+        @Override
+        public String getPuzzleId() {
+            return "RUBIKS-CUBE";
+        }
+
+        @Override
+        public String getTipDescription() {
+            return "Check";
+        }
+
+        @Override
+        public String getTip(String scramble) {
+            count++;
+            return "Tip " + count;
+        }
+    }
+
+    // Like the solvers, throws on moves it doesn't know, which is all of them
+    private static class UnreadableTip extends CountingTip {
+        @Override
+        public String getTipId() {
+            return "UNREADABLE";
+        }
+
+        @Override
+        public String getTip(String scramble) {
+            throw new IllegalArgumentException("Not a move: " + scramble);
+        }
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
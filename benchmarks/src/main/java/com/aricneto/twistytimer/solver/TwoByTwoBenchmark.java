@@ -0,0 +1,77 @@
+package com.aricneto.twistytimer.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-scramble latency of the optimal 2x2 solver over the seeded random-state
+ * {@link TwoByTwoCorpus}. The table is built during setup and isn't part of the measurement, see
+ * {@link TableBuildBenchmark} for that.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TwoByTwoBenchmark {
+
+    private String[]    scrambles;
+    private CubeState[] states;
+    private int         next;
+
+    private Tip tip;
+
+    @Setup
+    public void setUp() {
+        scrambles = TwoByTwoCorpus.scrambles();
+        states = new CubeState[scrambles.length];
+        for (int i = 0; i < scrambles.length; i++) {
+            states[i] = new CubeState();
+            states[i].apply(scrambles[i]);
+        }
+
+        tip = new TwoByTwoCubeOptimalSolution("Optimal solution");
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % scrambles.length;
+        return index;
+    }
+
+    /**
+     * Every optimal solution.
+     */
+    @Benchmark
+    public ArrayList<int[]> solve() {
+        return TwoByTwoCubeSolver.solve(states[nextIndex()], Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first optimal solution.
+     */
+    @Benchmark
+    public ArrayList<int[]> solveFirst() {
+        return TwoByTwoCubeSolver.solve(states[nextIndex()], 1);
+    }
+
+    /**
+     * The whole tip, from the scramble text.
+     */
+    @Benchmark
+    public String tip() {
+        return tip.getTip(scrambles[nextIndex()]);
+    }
+}
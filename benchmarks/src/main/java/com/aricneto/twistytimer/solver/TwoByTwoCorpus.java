@@ -0,0 +1,75 @@
+package com.aricneto.twistytimer.solver;
+
+import com.aricneto.twistytimer.solver.RubiksCubeSolver.State;
+
+import java.util.Random;
+
+/**
+ * A fixed set of random-state 2x2 scrambles, like the ones TNoodle generates: a uniformly random
+ * position of the corners, scrambled by the inverse of one of its optimal solutions. The generator
+ * is seeded, so every run benchmarks the exact same scrambles.
+ */
+public class TwoByTwoCorpus {
+    public static final long SEED = 20160317L;
+    public static final int  SIZE = 256;
+
+    private static final String[] SCRAMBLES = generate(SEED, SIZE);
+
+    private TwoByTwoCorpus() {
+    }
+
+    public static String[] generate(long seed, int size) {
+        Random random = new Random(seed);
+        String[] scrambles = new String[size];
+        for (int i = 0; i < size; i++) {
+            CubeState state = randomState(random);
+            int[] solution = TwoByTwoCubeSolver.solve(state, 1).get(0);
+            scrambles[i] = StringUtils.join(" ", PatternSolver.getMoveNames(invert(solution)));
+        }
+        return scrambles;
+    }
+
+    /**
+     * A uniformly random position of the corners, with DLB solved and the edges left alone.
+     */
+    public static CubeState randomState(Random random) {
+        return state(random.nextInt(5040), random.nextInt(729));
+    }
+
+    /**
+     * The position of the corners other than DLB with the given permutation and orientation
+     * indices, as numbered by {@link IndexMapping}.
+     */
+    public static CubeState state(int permutationIndex, int orientationIndex) {
+        byte[] permutation = IndexMapping.indexToPermutation(permutationIndex, 7);
+        byte[] orientation = IndexMapping.indexToZeroSumOrientation(orientationIndex, 3, 7);
+
+        byte[] cornersPermutation = new byte[8];
+        byte[] cornersOrientation = new byte[8];
+        for (int i = 0; i < 7; i++) {
+            int position = i < 4 ? i : i + 1;
+            cornersPermutation[position] = (byte) (permutation[i] < 4 ? permutation[i] : permutation[i] + 1);
+            cornersOrientation[position] = orientation[i];
+        }
+        cornersPermutation[4] = 4;
+
+        return new CubeState(new State(cornersPermutation, cornersOrientation,
+                State.id.edgesPermutation, State.id.edgesOrientation));
+    }
+
+    /**
+     * The moves that undo a sequence, as indices into {@link PatternSolver#MOVE_NAMES}.
+     */
+    public static int[] invert(int[] moves) {
+        int[] inverse = new int[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            int move = moves[moves.length - 1 - i];
+            inverse[i] = move / 3 * 3 + 2 - move % 3;
+        }
+        return inverse;
+    }
+
+    public static String[] scrambles() {
+        return SCRAMBLES.clone();
+    }
+}
@@ -0,0 +1,180 @@
+package com.aricneto.twistytimer.solver;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Checks the optimal 2x2 solver: the distances of all 3,674,160 positions against the known
+ * counts in the half turn metric, the solutions of the random-state corpus against a search
+ * without any table, scrambles turning every face, and the table written to disk, read back, and
+ * built again once damaged.
+ *
+ * ./gradlew :benchmarks:checkTwoByTwoSolver
+ */
+public class TwoByTwoSolverCheck {
+
+    // Positions at each distance, from the solved cube to the 11 moves of the farthest ones
+    private static final int[] DISTANCE_COUNTS = {
+            1, 9, 54, 321, 1847, 9992, 50136, 227536, 870072, 1887748, 623800, 2644,
+            };
+
+    // Counted without a table up to this distance, past it the search takes too long
+    private static final int MAX_BRUTE_FORCE_DISTANCE = 7;
+
+    private static final int[] MOVES = { 0, 1, 2, 9, 10, 11, 12, 13, 14 };
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        TwoByTwoCubeSolver.solve(new CubeState(), 1);
+        System.out.println("Built in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        checkDistances();
+        checkCorpus();
+        checkEveryFace();
+        checkDirectory();
+    }
+
+    private static void checkDistances() {
+        int[] counts = new int[DISTANCE_COUNTS.length];
+        for (int permutation = 0; permutation < 5040; permutation++) {
+            for (int orientation = 0; orientation < 729; orientation++)
+                counts[TwoByTwoCubeSolver.getDistance(TwoByTwoCorpus.state(permutation, orientation))]++;
+        }
+        assertEquals("distance counts", Arrays.toString(DISTANCE_COUNTS), Arrays.toString(counts));
+        System.out.println("Distances: OK");
+    }
+
+    private static void checkCorpus() {
+        int bruteForced = 0;
+        for (String scramble : TwoByTwoCorpus.scrambles()) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            int distance = TwoByTwoCubeSolver.getDistance(state);
+            ArrayList<int[]> solutions = TwoByTwoCubeSolver.solve(state, Integer.MAX_VALUE);
+
+            HashSet<String> distinct = new HashSet<String>();
+            for (int[] solution : solutions) {
+                assertEquals(scramble + " length", distance, solution.length);
+                CubeState solved = new CubeState();
+                solved.set(state);
+                solved.apply(StringUtils.join(" ", PatternSolver.getMoveNames(solution)));
+                assertEquals(scramble + " solved by " + Arrays.toString(solution), true, cornersSolved(solved));
+                distinct.add(Arrays.toString(solution));
+            }
+            assertEquals(scramble + " distinct", solutions.size(), distinct.size());
+
+            if (distance <= MAX_BRUTE_FORCE_DISTANCE) {
+                assertEquals(scramble + " count", countSolutions(state, distance, - 1), solutions.size());
+                bruteForced++;
+            }
+        }
+        System.out.println("Corpus: OK (" + bruteForced + " counted without the table)");
+    }
+
+    private static void checkEveryFace() {
+        Tip tip = new TwoByTwoCubeOptimalSolution("Optimal");
+        for (String scramble : ScrambleCorpus.generate(ScrambleCorpus.SEED, 64, 11)) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            for (int[] solution : TwoByTwoCubeSolver.solve(TwoByTwoCubeSolver.toFixedCorner(state), Integer.MAX_VALUE)) {
+                CubeState solved = new CubeState();
+                solved.set(state);
+                solved.apply(StringUtils.join(" ", PatternSolver.getMoveNames(solution)));
+                assertEquals(scramble + " solved", true, cornersSolved(TwoByTwoCubeSolver.toFixedCorner(solved)));
+            }
+            tip.getTip(scramble);
+        }
+        System.out.println("Every face: OK");
+    }
+
+    private static void checkDirectory() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "two-by-two-check-" + System.nanoTime());
+        try {
+            String[] scrambles = TwoByTwoCorpus.scrambles();
+            ArrayList<String> expected = solveAll(scrambles);
+
+            SolverTables.setDirectory(directory);
+            TwoByTwoCubeSolver.release();
+            solveAll(scrambles);
+            File[] files = directory.listFiles();
+            assertEquals("files written", 1, files == null ? 0 : files.length);
+            System.out.println("Written: " + files[0].length() + " bytes");
+
+            TwoByTwoCubeSolver.release();
+            long start = System.nanoTime();
+            TwoByTwoCubeSolver.solve(new CubeState(), 1);
+            System.out.println("Read in " + (System.nanoTime() - start) / 1000000 + " ms");
+            assertEquals("solutions read back", expected, solveAll(scrambles));
+            System.out.println("Directory: OK");
+
+            // A damaged table fails its checksum and is built again instead of being trusted
+            RandomAccessFile file = new RandomAccessFile(files[0], "rw");
+            try {
+                file.seek(file.length() / 2);
+                int value = file.read();
+                file.seek(file.length() / 2);
+                file.write(value ^ 0xFF);
+            } finally {
+                file.close();
+            }
+            TwoByTwoCubeSolver.release();
+            assertEquals("solutions after damage", expected, solveAll(scrambles));
+            TwoByTwoCubeSolver.release();
+            assertEquals("solutions of the rewritten table", expected, solveAll(scrambles));
+            System.out.println("Damaged: OK");
+        } finally {
+            SolverTables.setDirectory(null);
+            File[] files = directory.listFiles();
+            if (files != null)
+                for (File file : files)
+                    file.delete();
+            directory.delete();
+        }
+    }
+
+    private static ArrayList<String> solveAll(String[] scrambles) {
+        ArrayList<String> solutions = new ArrayList<String>();
+        for (String scramble : scrambles) {
+            CubeState state = new CubeState();
+            state.apply(scramble);
+            for (int[] solution : TwoByTwoCubeSolver.solve(state, Integer.MAX_VALUE))
+                solutions.add(Arrays.toString(solution));
+        }
+        return solutions;
+    }
+
+    // Every sequence of exactly depth moves that solves the corners, with the same move order
+    // rules as the solver
+    private static int countSolutions(CubeState state, int depth, int lastFace) {
+        if (depth == 0)
+            return cornersSolved(state) ? 1 : 0;
+
+        int count = 0;
+        CubeState next = new CubeState();
+        for (int move : MOVES) {
+            if (! PatternSolver.isCanonical(lastFace, move))
+                continue;
+            next.set(state);
+            next.apply(PatternSolver.MOVE_NAMES[move]);
+            count += countSolutions(next, depth - 1, move / 3);
+        }
+        return count;
+    }
+
+    private static boolean cornersSolved(CubeState state) {
+        for (int i = 0; i < 8; i++) {
+            if (state.getCornerPermutation(i) != i || state.getCornerOrientation(i) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,141 @@
+package com.aricneto.twistytimer.stats;
+
+import java.util.ArrayList;
+
+/**
+ * The averages as DatabaseHandler computed them before {@link SolveStatistics}, with the cursor
+ * replaced by arrays (row i of the cursor is index i). Kept as the reference the optimized code
+ * is checked and benchmarked against; don't "fix" anything here.
+ */
+public final class LegacySolveStatistics {
+
+    private LegacySolveStatistics() {
+    }
+
+    public static int getTruncatedAverageOf(int[] times, boolean[] dnfs, int count, int n, boolean disqualifyDNF) {
+        if (count >= n) {
+            int worst = 0;
+            int best = Integer.MAX_VALUE;
+            int sum = 0;
+            int dnfCount = 0;
+            for (int i = 0; i < n; i++) {
+                int time = times[i]; // time
+                sum += time;
+
+                if (time > worst && dnfCount == 0)
+                    worst = time;
+                if (time < best && ! dnfs[i])
+                    best = time;
+
+                if (dnfs[i]) { // penalty
+                    worst = time;
+                    dnfCount += 1;
+                }
+            }
+            if (disqualifyDNF && dnfCount > 1)
+                return - 1;
+            else
+                return (sum - worst - best) / (n - 2);
+        }
+        return 0;
+    }
+
+    public static ArrayList<Integer> getListOfTruncatedAverageOf(int[] times, boolean[] dnfs, int count, int n, boolean disqualifyDNF) {
+        ArrayList<Integer> timeList = new ArrayList<>(n + 1);
+
+        if (count >= n) {
+            int worst = 0;
+            int best = Integer.MAX_VALUE;
+            int sum = 0;
+            int dnfCount = 0;
+            for (int i = 0; i < n; i++) {
+                int time = times[i]; // time
+                sum += time;
+
+                if (time > worst && dnfCount == 0)
+                    worst = time;
+                if (time < best && ! dnfs[i])
+                    best = time;
+
+                if (dnfs[i]) { // penalty
+                    worst = time;
+                    time = SolveStatistics.TIME_DNF;
+                    dnfCount += 1;
+                }
+
+                timeList.add(time);
+            }
+            if (disqualifyDNF && dnfCount > 1)
+                timeList.add(SolveStatistics.TIME_DNF);
+            else
+                timeList.add((sum - worst - best) / (n - 2));
+        }
+        return timeList;
+    }
+
+    public static int getBestAverageOf(int[] times, boolean[] dnfs, int count, int n, boolean disqualifyDNF) {
+        int bestAverage = Integer.MAX_VALUE;
+
+        if (count >= n) {
+            for (int i = 0; i < count - n + 1; i++) {
+                int worst = Integer.MIN_VALUE;
+                int best = Integer.MAX_VALUE;
+                int sum = 0;
+                int dnfCount = 0;
+
+                for (int j = 0; j < n; j++) {
+                    int time = times[i + j];
+                    sum += time;
+
+                    if (time > worst && dnfCount == 0)
+                        worst = time;
+                    if (time < best && ! dnfs[i + j])
+                        best = time;
+
+                    if (disqualifyDNF) {
+                        if (dnfs[i + j]) {
+                            worst = time;
+                            dnfCount += 1;
+                        }
+                    }
+
+                }
+
+                if (! (disqualifyDNF && dnfCount > 1)) {
+                    int average = Integer.MAX_VALUE;
+
+                    if (n == 3) {
+                        if (dnfCount == 0)
+                            average = sum / 3;
+                    } else
+                        average = (sum - worst - best) / (n - 2);
+
+                    if (average < bestAverage)
+                        bestAverage = average;
+                }
+
+            }
+            if (bestAverage == Integer.MAX_VALUE)
+                return 0;
+            else
+                return bestAverage;
+        }
+        return 0;
+    }
+
+    /**
+     * The SQL version took the AVG of the n most recent non-DNF times, once it had checked there
+     * were at least n of them.
+     */
+    public static int getFastAverageOf(int[] nonDnfTimes, int count, int n) {
+        int time = 0;
+        if (count >= n) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += nonDnfTimes[i];
+            }
+            time = (int) (long) (sum / n);
+        }
+        return time;
+    }
+}
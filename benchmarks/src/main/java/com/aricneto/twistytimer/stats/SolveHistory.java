@@ -0,0 +1,56 @@
+package com.aricneto.twistytimer.stats;
+
+import java.util.Random;
+
+/**
+ * A synthetic solve history, most recent solve first, like the cursors DatabaseHandler reads.
+ */
+public class SolveHistory {
+    public final int[]     times;
+    public final boolean[] dnfs;
+    // The times that aren't DNFs, for the fast average
+    public final int[]     nonDnfTimes;
+    public final int       nonDnfCount;
+
+    private SolveHistory(int[] times, boolean[] dnfs) {
+        this.times = times;
+        this.dnfs = dnfs;
+
+        int[] nonDnf = new int[times.length];
+        int count = 0;
+        for (int i = 0; i < times.length; i++) {
+            if (! dnfs[i])
+                nonDnf[count++] = times[i];
+        }
+        this.nonDnfTimes = nonDnf;
+        this.nonDnfCount = count;
+    }
+
+    /**
+     * Generates a history of times around a mean that slowly improves, like a real one.
+     *
+     * @param dnfRate     Fraction of solves that are DNFs
+     * @param plusTwoRate Fraction of solves with a +2 (added to the time, as the app stores it)
+     */
+    public static SolveHistory generate(long seed, int size, double dnfRate, double plusTwoRate) {
+        Random random = new Random(seed);
+        int[] times = new int[size];
+        boolean[] dnfs = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            // Index 0 is the most recent, so older solves are slower
+            double mean = 12000 + 18000.0 * i / size;
+            int time = (int) Math.max(3000, mean + random.nextGaussian() * mean * 0.15);
+            // Stored times lose their last digit
+            time -= time % 10;
+
+            double roll = random.nextDouble();
+            if (roll < dnfRate)
+                dnfs[i] = true;
+            else if (roll < dnfRate + plusTwoRate)
+                time += 2000;
+            times[i] = time;
+        }
+        return new SolveHistory(times, dnfs);
+    }
+}
@@ -0,0 +1,61 @@
+package com.aricneto.twistytimer.stats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best average of n over synthetic histories, legacy against optimized. The best average is the
+ * one that walks the whole history, so it's the one that grows with the number of solves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int size;
+
+    @Param({ "5", "12", "100" })
+    public int n;
+
+    private SolveHistory history;
+
+    @Setup
+    public void setUp() {
+        history = SolveHistory.generate(42L, size, 0.03, 0.05);
+    }
+
+    @Benchmark
+    public int legacyBestAverageOf() {
+        return LegacySolveStatistics.getBestAverageOf(history.times, history.dnfs, size, n, true);
+    }
+
+    @Benchmark
+    public int bestAverageOf() {
+        return SolveStatistics.bestAverageOf(history.times, history.dnfs, size, n, true);
+    }
+
+    @Benchmark
+    public int legacyTruncatedAverageOf() {
+        return LegacySolveStatistics.getTruncatedAverageOf(history.times, history.dnfs, size, n, true);
+    }
+
+    @Benchmark
+    public int truncatedAverageOf() {
+        return SolveStatistics.truncatedAverageOf(history.times, history.dnfs, size, n, true);
+    }
+}
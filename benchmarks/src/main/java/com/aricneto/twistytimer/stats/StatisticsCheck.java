@@ -0,0 +1,75 @@
+package com.aricneto.twistytimer.stats;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Property check: {@link SolveStatistics} must give exactly the same results as
+ * {@link LegacySolveStatistics} on any history. Runs every average over randomly generated
+ * histories of 1k to 1M solves, with random DNF and +2 rates, and stops at the first mismatch.
+ *
+ * ./gradlew :benchmarks:checkStatistics
+ */
+public class StatisticsCheck {
+
+    private static final long  SEED  = 1234L;
+    private static final int[] SIZES = { 1000, 10000, 100000, 1000000 };
+    private static final int[] NS    = { 3, 5, 12, 50, 100 };
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        int checks = 0;
+
+        for (int size : SIZES) {
+            // Fewer runs for the larger sizes, the legacy best average is O(size * n)
+            int runs = size >= 1000000 ? 2 : size >= 100000 ? 5 : 50;
+            for (int run = 0; run < runs; run++) {
+                // Includes histories with lots of DNFs, where windows get disqualified
+                double dnfRate = random.nextInt(4) == 0 ? random.nextDouble() * 0.5 : random.nextDouble() * 0.05;
+                double plusTwoRate = random.nextDouble() * 0.1;
+                // Also check windows that start partway into the history
+                int length = size - random.nextInt(Math.min(size, 50));
+                SolveHistory history = SolveHistory.generate(random.nextLong(), size, dnfRate, plusTwoRate);
+
+                for (int n : NS) {
+                    for (boolean disqualify : new boolean[] { true, false }) {
+                        check(history, length, n, disqualify);
+                        checks++;
+                    }
+                }
+            }
+            System.out.println(size + " solves: OK");
+        }
+        System.out.println(checks + " checks passed");
+    }
+
+    private static void check(SolveHistory history, int length, int n, boolean disqualify) {
+        String context = "length=" + length + " n=" + n + " disqualifyDNF=" + disqualify;
+
+        assertEquals("truncatedAverageOf " + context,
+            LegacySolveStatistics.getTruncatedAverageOf(history.times, history.dnfs, length, n, disqualify),
+            SolveStatistics.truncatedAverageOf(history.times, history.dnfs, length, n, disqualify));
+
+        ArrayList<Integer> legacyList =
+            LegacySolveStatistics.getListOfTruncatedAverageOf(history.times, history.dnfs, length, n, disqualify);
+        int[] list = SolveStatistics.listOfTruncatedAverageOf(history.times, history.dnfs, length, n, disqualify);
+        assertEquals("listOfTruncatedAverageOf size " + context, legacyList.size(), list.length);
+        for (int i = 0; i < list.length; i++) {
+            assertEquals("listOfTruncatedAverageOf[" + i + "] " + context, legacyList.get(i), list[i]);
+        }
+
+        assertEquals("bestAverageOf " + context,
+            LegacySolveStatistics.getBestAverageOf(history.times, history.dnfs, length, n, disqualify),
+            SolveStatistics.bestAverageOf(history.times, history.dnfs, length, n, disqualify));
+
+        int nonDnfLength = Math.min(history.nonDnfCount, length);
+        assertEquals("fastAverageOf " + context,
+            LegacySolveStatistics.getFastAverageOf(history.nonDnfTimes, nonDnfLength, n),
+            SolveStatistics.fastAverageOf(history.nonDnfTimes, nonDnfLength, n));
+    }
+
+    private static void assertEquals(String what, int expected, int actual) {
+        if (expected != actual)
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,252 @@
+package com.aricneto.twistytimer.utils;
+
+import com.opencsv.CSVReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks {@link CsvTokenizer} against opencsv's CSVReader, which the importer used before:
+ *
+ * - quoted separators, doubled quotes, line breaks in quoted fields, CRLF and CR line endings and
+ *   empty fields must read the same as with opencsv, read all at once or a few chars at a time
+ * - random records, written the way a backup is, must read back the same with both
+ * - where the tokenizer is meant to differ (empty lines, a quote left open at the end of the
+ *   file), it must give what it documents
+ * - numeric fields must parse as Long.parseLong and Integer.parseInt do
+ *
+ * ./gradlew :benchmarks:checkCsvTokenizer
+ */
+public class CsvTokenizerCheck {
+
+    private static final long SEED        = 1234L;
+    private static final int  RANDOM_RUNS = 20000;
+
+    private static final char SEPARATOR = ';';
+
+    private static final String[] CASES = {
+        // Quoted separators
+        "a;\"b;c\";d\n",
+        "\";\";\";;\"\n",
+        // Doubled quotes
+        "a;\"say \"\"hi\"\"\";c\n",
+        "\"\"\"\"\"\";\"\"\n",
+        // Line breaks in quoted fields
+        "a;\"line1\nline2\";c\nx;y\n",
+        "\"\n\n\";x\n",
+        // CRLF and CR line endings, also inside quoted fields
+        "a;b\r\nc;d\r\n",
+        "a;\"line1\r\nline2\";c\r\nx;y\r\n",
+        "a;b\rc;d\r",
+        "a;\"line1\rline2\";c\rx;y\r",
+        // Empty fields, and no line break at the end
+        "a;;b;\n",
+        "\"\";x",
+        "a;b",
+    };
+
+    public static void main(String[] args) throws IOException {
+        for (String input : CASES) {
+            List<List<String>> expected = readWithOpencsv(input);
+            assertEquals("whole " + escape(input), expected, readWithTokenizer(new StringReader(input)));
+            for (int chunk = 1; chunk <= 3; chunk++)
+                assertEquals("chunks of " + chunk + " " + escape(input), expected,
+                        readWithTokenizer(new ChunkedReader(input, chunk)));
+        }
+        System.out.println("Cases: OK");
+
+        Random random = new Random(SEED);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            List<List<String>> records = randomRecords(random);
+            String input = write(records, random);
+            List<List<String>> expected = normalize(records);
+            assertEquals("opencsv " + escape(input), expected, readWithOpencsv(input));
+            assertEquals("tokenizer " + escape(input), expected,
+                    readWithTokenizer(new ChunkedReader(input, 1 + random.nextInt(16))));
+        }
+        System.out.println(RANDOM_RUNS + " random files: OK");
+
+        checkDifferences();
+        System.out.println("Differences: OK");
+
+        checkNumbers(random);
+        System.out.println("Numbers: OK");
+    }
+
+    // Where the tokenizer doesn't follow opencsv on purpose
+    private static void checkDifferences() throws IOException {
+        // opencsv read an empty line as a record with one empty field, which the importer then
+        // counted as a parse error. The tokenizer skips it
+        assertEquals("empty lines",
+                Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")),
+                readWithTokenizer(new StringReader("a;b\n\n\r\n\rc;d\n\n")));
+
+        // opencsv dropped a field whose quote is still open at the end of the file, and all the
+        // lines after the quote with it. The tokenizer keeps what it read
+        assertEquals("unterminated quote",
+                Arrays.asList(Arrays.asList("x", "y"), Arrays.asList("a", "open\nmore;z\n")),
+                readWithTokenizer(new StringReader("x;y\na;\"open\nmore;z\n")));
+        assertEquals("unterminated quote, opencsv",
+                Arrays.asList(Arrays.asList("x", "y"), Arrays.asList("a")),
+                readWithOpencsv("x;y\na;\"open\nmore;z\n"));
+    }
+
+    private static void checkNumbers(Random random) throws IOException {
+        String[] texts = {
+            "0", "-0", "+7", "42", "-42", "007",
+            String.valueOf(Integer.MAX_VALUE), String.valueOf(Integer.MIN_VALUE),
+            String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE),
+            "9223372036854775808", "-9223372036854775809", "99999999999999999999",
+            "", "-", "+", "1.5", "1e3", " 1", "1 ", "--1", "12a",
+        };
+        for (String text : texts)
+            checkNumber(text);
+        for (int run = 0; run < 100000; run++)
+            checkNumber(String.valueOf(random.nextLong() >> random.nextInt(64)));
+    }
+
+    private static void checkNumber(String text) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("x;\"" + text + "\"\n"), SEPARATOR);
+        tokenizer.nextRecord();
+
+        Long expectedLong;
+        try {
+            expectedLong = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            expectedLong = null;
+        }
+        Long actualLong;
+        try {
+            actualLong = tokenizer.getLong(1);
+        } catch (NumberFormatException e) {
+            actualLong = null;
+        }
+        assertEquals("long " + text, String.valueOf(expectedLong), String.valueOf(actualLong));
+
+        Integer expectedInt;
+        try {
+            expectedInt = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            expectedInt = null;
+        }
+        Integer actualInt;
+        try {
+            actualInt = tokenizer.getInt(1);
+        } catch (NumberFormatException e) {
+            actualInt = null;
+        }
+        assertEquals("int " + text, String.valueOf(expectedInt), String.valueOf(actualInt));
+    }
+
+    // Records of a few fields, each made of the characters a CSV reader has to care about
+    private static List<List<String>> randomRecords(Random random) {
+        String[] pieces = { "a", "7", " ", ";", "\"", "\"\"", "\n", "\r\n", "\r", "é" };
+        List<List<String>> records = new ArrayList<>();
+        int recordCount = 1 + random.nextInt(4);
+        for (int r = 0; r < recordCount; r++) {
+            List<String> fields = new ArrayList<>();
+            int fieldCount = 1 + random.nextInt(5);
+            for (int f = 0; f < fieldCount; f++) {
+                StringBuilder field = new StringBuilder();
+                int length = random.nextInt(6);
+                for (int i = 0; i < length; i++)
+                    field.append(pieces[random.nextInt(pieces.length)]);
+                fields.add(field.toString());
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+
+    // Quotes every field, as the backup export does, with quotes doubled
+    private static String write(List<List<String>> records, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int r = 0; r < records.size(); r++) {
+            List<String> fields = records.get(r);
+            for (int f = 0; f < fields.size(); f++) {
+                if (f > 0)
+                    text.append(SEPARATOR);
+                text.append('"').append(fields.get(f).replace("\"", "\"\"")).append('"');
+            }
+            // The last line may end without a line break
+            if (r < records.size() - 1 || random.nextBoolean())
+                text.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        return text.toString();
+    }
+
+    // What both readers give for the line breaks in a quoted field
+    private static List<List<String>> normalize(List<List<String>> records) {
+        List<List<String>> normalized = new ArrayList<>();
+        for (List<String> fields : records) {
+            List<String> fieldsNormalized = new ArrayList<>();
+            for (String field : fields)
+                fieldsNormalized.add(field.replace("\r\n", "\n").replace('\r', '\n'));
+            normalized.add(fieldsNormalized);
+        }
+        return normalized;
+    }
+
+    private static List<List<String>> readWithOpencsv(String input) throws IOException {
+        CSVReader reader = new CSVReader(new StringReader(input), SEPARATOR);
+        List<List<String>> records = new ArrayList<>();
+        String[] line;
+        while ((line = reader.readNext()) != null)
+            records.add(Arrays.asList(line));
+        reader.close();
+        return records;
+    }
+
+    private static List<List<String>> readWithTokenizer(Reader input) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(input, SEPARATOR);
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.nextRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.getFieldCount(); i++)
+                fields.add(tokenizer.getString(i));
+            records.add(fields);
+        }
+        return records;
+    }
+
+    private static String escape(String text) {
+        return "[" + text.replace("\r", "\\r").replace("\n", "\\n") + "]";
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+
+    // Hands out the input a few chars at a time, so records and line breaks cross the tokenizer's
+    // buffer boundaries
+    private static class ChunkedReader extends Reader {
+        private final String input;
+        private final int    chunk;
+        private int position;
+
+        ChunkedReader(String input, int chunk) {
+            this.input = input;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == input.length())
+                return - 1;
+            int count = Math.min(Math.min(length, chunk), input.length() - position);
+            input.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.aricneto.twistytimer.utils;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * The Joda-Time formatters and the Scanner parser that {@link PuzzleUtils} used before
+ * {@link TimeCodec}, kept here as the reference for {@link TimeCodecCheck} and
+ * {@link TimeCodecBenchmark}.
+ */
+public class LegacyTimeFormat {
+
+    public static String convertTimeToString(int time) {
+        if (time == - 1)
+            return "DNF";
+        if (time == 0)
+            return "--";
+
+        int hours = time / 3600000;
+        int minutes = time % 3600000 / 60000;
+
+        if (hours > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("k':'mm':'ss");
+        else if (minutes > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("m':'ss'.'SS");
+        else
+            return new DateTime(time, DateTimeZone.UTC).toString("s'.'SS");
+    }
+
+    public static String convertTimeToStringWithSmallDecimal(int time) {
+        if (time == - 1)
+            return "DNF";
+        if (time == 0)
+            return "--";
+
+        int hours = time / 3600000;
+        int minutes = time % 3600000 / 60000;
+
+        if (hours > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("k':'mm'<small>:'ss'</small>'");
+        else if (minutes > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("m':'ss'<small>.'SS'</small>'");
+        else
+            return new DateTime(time, DateTimeZone.UTC).toString("s'<small>.'SS'</small>'");
+    }
+
+    public static String convertTimeToStringWithoutMilli(int time) {
+        if (time == - 1)
+            return "DNF";
+        if (time == 0)
+            return "--";
+
+        int hours = time / 3600000;
+        int minutes = time % 3600000 / 60000;
+
+        if (hours > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("kk':'mm':'ss");
+        else if (minutes > 0)
+            return new DateTime(time, DateTimeZone.UTC).toString("mm':'ss");
+        else
+            return new DateTime(time, DateTimeZone.UTC).toString("s");
+    }
+
+    public static int parseTime(String input) {
+        Scanner scanner = new Scanner(input.trim());
+        scanner.useLocale(Locale.ENGLISH);
+
+        int time;
+
+        // 00:00.00
+        if (input.contains(":")) {
+            scanner.useDelimiter(":");
+
+            if (! scanner.hasNextLong())
+                return 0;
+            long minutes = scanner.nextLong();
+            if (minutes < 0)
+                return 0;
+
+            if (! scanner.hasNextDouble())
+                return 0;
+            double seconds = scanner.nextDouble();
+            if (seconds < 0.0 || seconds >= 60.0)
+                return 0;
+
+            time = (int) (60000 * minutes + 1000 * seconds);
+        }
+
+        // 00.00
+        else {
+            if (! scanner.hasNextDouble())
+                return 0;
+            double seconds = scanner.nextDouble();
+            if (seconds < 0.0)
+                return 0;
+
+            time = (int) (1000 * seconds);
+        }
+
+        return 10 * ((time + 5) / 10);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aricneto.twistytimer.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats and parses a batch of typical solve times, legacy against {@link TimeCodec}. Run with
+ * "-prof gc" to see the allocations per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeCodecBenchmark {
+
+    private static final int TIMES = 1000;
+
+    private final int[]    times   = new int[TIMES];
+    private final String[] texts   = new String[TIMES];
+    private final char[]   buffer  = new char[TimeCodec.MAX_LENGTH];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        for (int i = 0; i < TIMES; i++) {
+            // Mostly under a minute, some over
+            times[i] = 5000 + random.nextInt(random.nextInt(10) == 0 ? 300000 : 55000);
+            texts[i] = TimeCodec.toString(times[i], TimeCodec.STYLE_DEFAULT);
+        }
+    }
+
+    @Benchmark
+    public void legacyFormat(Blackhole blackhole) {
+        for (int time : times)
+            blackhole.consume(LegacyTimeFormat.convertTimeToString(time));
+    }
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        for (int time : times)
+            blackhole.consume(TimeCodec.format(time, TimeCodec.STYLE_DEFAULT, buffer, 0));
+    }
+
+    @Benchmark
+    public void legacyParse(Blackhole blackhole) {
+        for (String text : texts)
+            blackhole.consume(LegacyTimeFormat.parseTime(text));
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String text : texts)
+            blackhole.consume(TimeCodec.parse(text));
+    }
+}
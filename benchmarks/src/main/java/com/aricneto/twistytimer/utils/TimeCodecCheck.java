@@ -0,0 +1,133 @@
+package com.aricneto.twistytimer.utils;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Round-trip check for {@link TimeCodec}:
+ *
+ * - every millisecond up to two hours, and random times up to a few days, must format exactly as
+ *   {@link LegacyTimeFormat} does, in every style
+ * - parsing any formatted time must give back the time truncated to hundredths (or to seconds
+ *   above an hour, where the default style has no decimals)
+ * - typed-in times must parse exactly, and agree with the legacy Scanner parser
+ *
+ * ./gradlew :benchmarks:checkTimeCodec
+ */
+public class TimeCodecCheck {
+
+    private static final long SEED        = 1234L;
+    private static final int  EXHAUSTIVE  = 2 * 3600000;
+    private static final int  RANDOM_RUNS = 1000000;
+
+    public static void main(String[] args) {
+        char[] buffer = new char[TimeCodec.MAX_LENGTH];
+
+        checkTime(TimeCodec.TIME_DNF, buffer);
+        for (int time = 1; time <= EXHAUSTIVE; time++) {
+            checkTime(time, buffer);
+        }
+        System.out.println("0 to " + EXHAUSTIVE + " ms: OK");
+
+        Random random = new Random(SEED);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            checkTime(1 + random.nextInt(100 * 3600000), buffer);
+        }
+        System.out.println(RANDOM_RUNS + " random times: OK");
+
+        checkTypedTimes(random);
+        System.out.println("Typed times: OK");
+
+        checkPenalties();
+        System.out.println("Penalties: OK");
+    }
+
+    private static void checkTime(int time, char[] buffer) {
+        assertEquals("default " + time, LegacyTimeFormat.convertTimeToString(time),
+            format(time, TimeCodec.STYLE_DEFAULT, buffer));
+        assertEquals("small decimal " + time, LegacyTimeFormat.convertTimeToStringWithSmallDecimal(time),
+            format(time, TimeCodec.STYLE_SMALL_DECIMAL, buffer));
+        assertEquals("no millis " + time, LegacyTimeFormat.convertTimeToStringWithoutMilli(time),
+            format(time, TimeCodec.STYLE_NO_MILLIS, buffer));
+
+        // Hours wrap like a clock in the formatted text, so only times under a day round-trip
+        if (time <= 0 || time >= 24 * 3600000)
+            return;
+        String text = format(time, TimeCodec.STYLE_DEFAULT, buffer);
+        int expected = time >= 3600000 ? time - time % 1000 : time - time % 10;
+        long parsed = TimeCodec.parse(text);
+        assertEquals("parse " + text, expected, TimeCodec.timeOf(parsed));
+        assertEquals("parse penalty " + text, TimeCodec.NO_PENALTY, TimeCodec.penaltyOf(parsed));
+    }
+
+    // What people type in the timer's edit box or what other timers export
+    private static void checkTypedTimes(Random random) {
+        for (int run = 0; run < 100000; run++) {
+            int minutes = random.nextInt(4) == 0 ? random.nextInt(100) : 0;
+            int seconds = random.nextInt(minutes > 0 ? 60 : 1000);
+            int millis = random.nextInt(1000);
+            String decimals;
+            int typedMillis;
+            switch (random.nextInt(3)) {
+                case 0:
+                    decimals = String.format(Locale.US, "%02d", millis / 10);
+                    typedMillis = millis / 10 * 10;
+                    break;
+                case 1:
+                    decimals = String.format(Locale.US, "%03d", millis);
+                    typedMillis = millis;
+                    break;
+                default:
+                    decimals = String.valueOf(millis / 100);
+                    typedMillis = millis / 100 * 100;
+                    break;
+            }
+            String text = (minutes > 0 ? minutes + ":" + (seconds < 10 ? "0" : "") : "") + seconds + "." + decimals;
+            if (random.nextBoolean())
+                text = " " + text + " ";
+
+            int exact = minutes * 60000 + seconds * 1000 + typedMillis;
+            int time = TimeCodec.timeOf(TimeCodec.parse(text));
+            assertEquals("typed " + text, exact, time);
+            // The legacy parser went through a double and could land a millisecond short
+            // ("522.035" gave 522030), so it only agrees when there are no thousandths
+            if (typedMillis % 10 == 0) {
+                // Same rounding as PuzzleUtils.parseTime
+                assertEquals("legacy " + text, LegacyTimeFormat.parseTime(text), 10 * ((time + 5) / 10));
+            }
+        }
+
+        String[] invalid = { "", " ", ".", "1.", ":", "1:", ":12", "1:60", "1:2:3:4", "abc", "1.2.3",
+            "-1", "12,34", "DNF(", "+2" };
+        for (String text : invalid) {
+            assertEquals("invalid \"" + text + "\"", TimeCodec.INVALID, TimeCodec.parse(text));
+        }
+    }
+
+    private static void checkPenalties() {
+        checkParse("12.34+", 12340, TimeCodec.PENALTY_PLUSTWO);
+        checkParse("12.34 +2", 12340, TimeCodec.PENALTY_PLUSTWO);
+        checkParse("1:02.34+2", 62340, TimeCodec.PENALTY_PLUSTWO);
+        checkParse("DNF", 0, TimeCodec.PENALTY_DNF);
+        checkParse("dnf", 0, TimeCodec.PENALTY_DNF);
+        checkParse("DNF(12.34)", 12340, TimeCodec.PENALTY_DNF);
+        checkParse("12.34 DNF", 12340, TimeCodec.PENALTY_DNF);
+        checkParse("1:02:03.456", 3723456, TimeCodec.NO_PENALTY);
+        checkParse("12.34567", 12345, TimeCodec.NO_PENALTY);
+    }
+
+    private static void checkParse(String text, int time, int penalty) {
+        long parsed = TimeCodec.parse(text);
+        assertEquals("parse " + text, time, TimeCodec.timeOf(parsed));
+        assertEquals("parse penalty " + text, penalty, TimeCodec.penaltyOf(parsed));
+    }
+
+    private static String format(int time, int style, char[] buffer) {
+        return new String(buffer, 0, TimeCodec.format(time, style, buffer, 0));
+    }
+
+    private static void assertEquals(String what, Object expected, Object actual) {
+        if (! expected.equals(actual))
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+    }
+}